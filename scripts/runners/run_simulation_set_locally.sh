@@ -8,9 +8,10 @@ fi
 INPUT=$1
 DIR="$( cd "$( dirname "${BASH_SOURCE[0]}" )" && pwd )"
 
+# the progress of each sweep of the set is shown over JMX, unless its line says otherwise
 if hash gxargs 2>/dev/null; then
-  cat $INPUT | gxargs -n 1 -d "\n" ${DIR}/run_simulation_locally.sh
+  sed 's/$/ --jmx-progress true/' $INPUT | gxargs -n 1 -d "\n" ${DIR}/run_simulation_locally.sh
 else
-  cat $INPUT | xargs -n 1 -d "\n" ${DIR}/run_simulation_locally.sh
+  sed 's/$/ --jmx-progress true/' $INPUT | xargs -n 1 -d "\n" ${DIR}/run_simulation_locally.sh
 fi;
 
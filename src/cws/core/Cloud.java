@@ -1,6 +1,13 @@
 package cws.core;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import cws.core.cloudsim.CWSSimEntity;
@@ -12,21 +19,65 @@ import cws.core.exception.UnknownWorkflowEventException;
  * A Cloud is an entity that handles the provisioning and deprovisioning
  * of VM resources.
  * 
+ * A Cloud may be shared by several tenants, i.e. workflow engines, which own the VMs they launch. The number of VMs
+ * that are running at the same time can be limited for the whole account and for each tenant. A VM counts against the
+ * quotas from its launch until it is terminated. Launch requests over quota are queued and served in request order as
+ * soon as VMs terminate.
+ * 
+ * A VM whose outputs are still being uploaded by the storage, see {@link WorkflowEvent#STORAGE_VM_UPLOADS_STARTED}, is
+ * not gone before the uploads finish: it is billed and counts against the quotas until then.
+ * 
  * @author Gideon Juve <juve@usc.edu>
  */
 public class Cloud extends CWSSimEntity {
+    public static final int UNLIMITED = Integer.MAX_VALUE;
+
+    /** The set of currently active VMs, in launch order */
+    private LinkedHashSet<VM> vms = new LinkedHashSet<VM>();
+
+    /** Active and queued VMs of each owner, in request order */
+    private Map<Integer, LinkedHashSet<VM>> vmsByOwner = new HashMap<Integer, LinkedHashSet<VM>>();
+
+    /** Listeners and the owner whose VMs they are interested in, null for all owners */
+    private HashMap<VMListener, Integer> vmListeners = new HashMap<VMListener, Integer>();
+
+    /** Maximal number of running VMs in the account */
+    private int vmQuota = UNLIMITED;
+
+    /** Maximal number of running VMs of a single owner */
+    private int tenantVMQuota = UNLIMITED;
+
+    /** Number of VMs counting against the quotas, i.e. launched and not yet terminated */
+    private int running = 0;
+    private Map<Integer, Integer> runningByOwner = new HashMap<Integer, Integer>();
+
+    /** Launch requests waiting for quota, in request order */
+    private LinkedList<VM> launchQueue = new LinkedList<VM>();
+    private Map<VM, Double> launchRequestTimes = new HashMap<VM, Double>();
 
-    /** The set of currently active VMs */
-    private HashSet<VM> vms = new HashSet<VM>();
+    /** Number of queued launch requests and total time they waited, by owner */
+    private Map<Integer, Integer> queuedLaunches = new HashMap<Integer, Integer>();
+    private Map<Integer, Double> launchQueueWaitTimes = new HashMap<Integer, Double>();
 
-    private HashSet<VMListener> vmListeners = new HashSet<VMListener>();
+    /** VMs whose outputs are being uploaded by the storage */
+    private Set<VM> uploadingVMs = new HashSet<VM>();
+
+    /** Deprovisioned VMs which wait for their uploads before they are terminated */
+    private Set<VM> drainingVMs = new HashSet<VM>();
 
     public Cloud(CloudSimWrapper cloudsim) {
         super("Cloud", cloudsim);
     }
 
     public void addVMListener(VMListener l) {
-        vmListeners.add(l);
+        vmListeners.put(l, null);
+    }
+
+    /**
+     * Adds a listener which is informed only about the VMs of the given owner.
+     */
+    public void addVMListener(int owner, VMListener l) {
+        vmListeners.put(l, owner);
     }
 
     public void removeVMListener(VMListener l) {
@@ -37,6 +88,81 @@ public class Cloud extends CWSSimEntity {
         return vms;
     }
 
+    /**
+     * @return Active VMs of the given owner and its VMs which wait for quota, in request order.
+     */
+    public Set<VM> getVMs(int owner) {
+        LinkedHashSet<VM> owned = vmsByOwner.get(owner);
+        if (owned == null) {
+            owned = new LinkedHashSet<VM>();
+            vmsByOwner.put(owner, owned);
+        }
+        return owned;
+    }
+
+    /**
+     * @return Active VMs of the given owner, without the ones which wait for quota, in request order.
+     */
+    public Set<VM> getLaunchedVMs(int owner) {
+        Set<VM> launched = new LinkedHashSet<VM>(getVMs(owner));
+        if (!launchQueue.isEmpty()) {
+            launched.removeAll(launchQueue);
+        }
+        return launched;
+    }
+
+    /**
+     * @return VMs of the given owner which wait for quota, in request order.
+     */
+    public List<VM> getQueuedVMs(int owner) {
+        List<VM> queued = new ArrayList<VM>();
+        for (VM vm : launchQueue) {
+            if (vm.getOwner() == owner) {
+                queued.add(vm);
+            }
+        }
+        return queued;
+    }
+
+    public void setVMQuota(int vmQuota) {
+        this.vmQuota = vmQuota;
+    }
+
+    public int getVMQuota() {
+        return vmQuota;
+    }
+
+    public void setTenantVMQuota(int tenantVMQuota) {
+        this.tenantVMQuota = tenantVMQuota;
+    }
+
+    public int getTenantVMQuota() {
+        return tenantVMQuota;
+    }
+
+    /**
+     * @return Whether launch requests may have to wait for quota.
+     */
+    public boolean hasQuota() {
+        return vmQuota != UNLIMITED || tenantVMQuota != UNLIMITED;
+    }
+
+    /**
+     * @return Number of launch requests of the given owner which had to wait for quota.
+     */
+    public int getQueuedLaunches(int owner) {
+        Integer queued = queuedLaunches.get(owner);
+        return queued == null ? 0 : queued;
+    }
+
+    /**
+     * @return Total time the launch requests of the given owner waited for quota.
+     */
+    public double getLaunchQueueWaitTime(int owner) {
+        Double wait = launchQueueWaitTimes.get(owner);
+        return wait == null ? 0.0 : wait;
+    }
+
     @Override
     public void processEvent(CWSSimEvent ev) {
         switch (ev.getTag()) {
@@ -50,7 +176,13 @@ public class Cloud extends CWSSimEntity {
             vmLaunched((VM) ev.getData());
             break;
         case WorkflowEvent.VM_TERMINATED:
-            vmTerminated((VM) ev.getData());
+            vmDeprovisioned((VM) ev.getData());
+            break;
+        case WorkflowEvent.STORAGE_VM_UPLOADS_STARTED:
+            uploadingVMs.add((VM) ev.getData());
+            break;
+        case WorkflowEvent.STORAGE_VM_UPLOADS_DRAINED:
+            uploadsDrained((VM) ev.getData());
             break;
         default:
             throw new UnknownWorkflowEventException("Unknown event: " + ev);
@@ -59,6 +191,29 @@ public class Cloud extends CWSSimEntity {
 
     private void launchVM(int owner, VM vm) {
         vm.setOwner(owner);
+        getVMs(owner).add(vm);
+        if (isWithinQuota(owner)) {
+            startVM(vm);
+        } else {
+            getCloudsim().log(String.format("VM %d waits for quota", vm.getId()));
+            launchQueue.add(vm);
+            launchRequestTimes.put(vm, getCloudsim().clock());
+            queuedLaunches.put(owner, getQueuedLaunches(owner) + 1);
+        }
+    }
+
+    private boolean isWithinQuota(int owner) {
+        return running < vmQuota && getRunning(owner) < tenantVMQuota;
+    }
+
+    private int getRunning(int owner) {
+        Integer count = runningByOwner.get(owner);
+        return count == null ? 0 : count;
+    }
+
+    private void startVM(VM vm) {
+        running++;
+        runningByOwner.put(vm.getOwner(), getRunning(vm.getOwner()) + 1);
         vm.setCloud(getId());
         vm.setLaunchTime(getCloudsim().clock());
         vms.add(vm);
@@ -71,14 +226,21 @@ public class Cloud extends CWSSimEntity {
     }
 
     private void vmLaunched(VM vm) {
+        // A VM terminated during provisioning never becomes ready
+        if (vm.isTerminated()) {
+            return;
+        }
+
         // Sanity check
         if (!vms.contains(vm)) {
             throw new RuntimeException("Unknown VM");
         }
 
         // Listeners are informed
-        for (VMListener l : vmListeners) {
-            l.vmLaunched(vm);
+        for (Map.Entry<VMListener, Integer> l : vmListeners.entrySet()) {
+            if (isInterested(l.getValue(), vm)) {
+                l.getKey().vmLaunched(vm);
+            }
         }
 
         // The owner learns about the launch
@@ -86,6 +248,14 @@ public class Cloud extends CWSSimEntity {
     }
 
     private void terminateVM(VM vm) {
+        // A VM which still waits for quota is never launched
+        if (launchQueue.remove(vm)) {
+            dequeued(vm);
+            vm.setTerminated(true);
+            getVMs(vm.getOwner()).remove(vm);
+            return;
+        }
+
         // Sanity check
         if (!vms.contains(vm)) {
             throw new RuntimeException("Unknown VM: " + vm.getId());
@@ -97,19 +267,72 @@ public class Cloud extends CWSSimEntity {
         // But it isn't gone until after the delay
         getCloudsim().send(getId(), getId(), vm.getDeprovisioningDelay(), WorkflowEvent.VM_TERMINATED, vm);
         vms.remove(vm);
+        getVMs(vm.getOwner()).remove(vm);
+    }
+
+    private void dequeued(VM vm) {
+        double wait = getCloudsim().clock() - launchRequestTimes.remove(vm);
+        launchQueueWaitTimes.put(vm.getOwner(), getLaunchQueueWaitTime(vm.getOwner()) + wait);
+    }
+
+    /**
+     * Launches the queued VMs which fit in the quotas now. Requests of owners which are at their own quota don't
+     * block the requests of other owners.
+     */
+    private void launchQueuedVMs() {
+        Iterator<VM> it = launchQueue.iterator();
+        while (it.hasNext() && running < vmQuota) {
+            VM vm = it.next();
+            if (isWithinQuota(vm.getOwner())) {
+                it.remove();
+                dequeued(vm);
+                startVM(vm);
+            }
+        }
+    }
+
+    private void vmDeprovisioned(VM vm) {
+        if (uploadingVMs.contains(vm)) {
+            getCloudsim().log(String.format("VM %d waits for its uploads", vm.getId()));
+            drainingVMs.add(vm);
+        } else {
+            vmTerminated(vm);
+        }
+    }
+
+    private void uploadsDrained(VM vm) {
+        uploadingVMs.remove(vm);
+        if (drainingVMs.remove(vm)) {
+            vmTerminated(vm);
+        }
     }
 
     private void vmTerminated(VM vm) {
         getCloudsim().log(String.format("VM %d terminated", vm.getId()));
 
+        // The runtime is final before the listeners find out
+        vm.setTerminateTime(getCloudsim().clock());
+
         // Listeners find out
-        for (VMListener l : vmListeners) {
-            l.vmTerminated(vm);
+        for (Map.Entry<VMListener, Integer> l : vmListeners.entrySet()) {
+            if (isInterested(l.getValue(), vm)) {
+                l.getKey().vmTerminated(vm);
+            }
         }
-        
-        vm.setTerminateTime(getCloudsim().clock());
 
-        // The owner finds out
+        // The owner finds out, and so does the storage, which drops the VM's cache
         getCloudsim().sendNow(this.getId(), vm.getOwner(), WorkflowEvent.VM_TERMINATED, vm);
+        if (getCloudsim().hasStorageManager()) {
+            getCloudsim().sendNow(this.getId(), getCloudsim().getStorageManagerId(), WorkflowEvent.VM_TERMINATED, vm);
+        }
+
+        // The VM doesn't count against the quotas anymore
+        running--;
+        runningByOwner.put(vm.getOwner(), getRunning(vm.getOwner()) - 1);
+        launchQueuedVMs();
+    }
+
+    private static boolean isInterested(Integer owner, VM vm) {
+        return owner == null || owner == vm.getOwner();
     }
 }
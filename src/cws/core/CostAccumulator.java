@@ -0,0 +1,133 @@
+package cws.core;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import cws.core.cloudsim.CloudSimWrapper;
+
+/**
+ * Tracks the total cost of a set of VMs, i.e. the sum of their {@link VM#getCost()}, without summing over all of them
+ * on every query.
+ *
+ * The billing units of a running VM only change when its runtime crosses a billing unit boundary, so running VMs are
+ * kept in a queue ordered by their next boundary. {@link #getCost()} only updates the VMs whose boundary has passed
+ * since the previous query, and is O(1) when there are none. Units of terminated VMs don't change anymore. Units are
+ * counted per billing unit price, so that the total doesn't accumulate rounding errors of adding and removing costs.
+ */
+public class CostAccumulator {
+    /**
+     * Boundaries are checked a little early, because the floating point runtime computed by the VM may cross them
+     * slightly before the exact boundary time.
+     */
+    private static final double BOUNDARY_SLACK = 1e-9;
+
+    private final CloudSimWrapper cloudsim;
+
+    /** Billing units of all the VMs, by price of a unit */
+    private final Map<Double, Long> units = new HashMap<Double, Long>();
+
+    /** Running VMs by their next boundary check */
+    private final PriorityQueue<Entry> boundaries = new PriorityQueue<Entry>();
+
+    private final Map<VM, Entry> running = new HashMap<VM, Entry>();
+
+    public CostAccumulator(CloudSimWrapper cloudsim) {
+        this.cloudsim = cloudsim;
+    }
+
+    /**
+     * Starts tracking the VM. Its cost counts from its launch time, even if it is added later.
+     */
+    public void vmLaunched(VM vm) {
+        if (running.containsKey(vm)) {
+            throw new IllegalStateException("VM already tracked: " + vm.getId());
+        }
+        Entry entry = new Entry(vm);
+        running.put(vm, entry);
+        update(entry, cloudsim.clock());
+    }
+
+    /**
+     * Fixes the VM's cost to its final billing units, or adds them if the VM wasn't tracked. The VM's terminate time
+     * must already be set.
+     */
+    public void vmTerminated(VM vm) {
+        Entry entry = running.remove(vm);
+        if (entry == null) {
+            addUnits(vm.getVmType().getPriceForBillingUnit(), vm.getBillingUnits());
+            return;
+        }
+        // the entry is left in the queue and skipped when polled
+        entry.terminated = true;
+        addUnits(entry.price, vm.getBillingUnits() - entry.units);
+    }
+
+    /**
+     * Stops tracking all the VMs, so that the total cost is 0 again.
+     */
+    public void reset() {
+        units.clear();
+        boundaries.clear();
+        running.clear();
+    }
+
+    /**
+     * Returns the current total cost of all the VMs ever launched.
+     */
+    public double getCost() {
+        double now = cloudsim.clock();
+        while (!boundaries.isEmpty() && boundaries.peek().nextCheck <= now) {
+            Entry entry = boundaries.poll();
+            if (!entry.terminated) {
+                update(entry, now);
+            }
+        }
+        double cost = 0;
+        for (Map.Entry<Double, Long> priceUnits : units.entrySet()) {
+            cost += priceUnits.getValue() * priceUnits.getKey();
+        }
+        return cost;
+    }
+
+    private void update(Entry entry, double now) {
+        long current = entry.vm.getBillingUnits();
+        addUnits(entry.price, current - entry.units);
+        entry.units = current;
+
+        double boundary = entry.launchTime + current * entry.billingTime;
+        entry.nextCheck = boundary - BOUNDARY_SLACK * Math.max(1.0, Math.abs(boundary));
+        if (entry.nextCheck <= now) {
+            // close to the boundary, but not across yet in VM's arithmetic, try again at the next clock value
+            entry.nextCheck = Math.nextUp(now);
+        }
+        boundaries.add(entry);
+    }
+
+    private void addUnits(double price, long delta) {
+        Long current = units.get(price);
+        units.put(price, (current == null ? 0L : current) + delta);
+    }
+
+    private static final class Entry implements Comparable<Entry> {
+        private final VM vm;
+        private final double launchTime;
+        private final double billingTime;
+        private final double price;
+        private long units;
+        private double nextCheck;
+        private boolean terminated;
+
+        public Entry(VM vm) {
+            this.vm = vm;
+            this.launchTime = vm.getLaunchTime();
+            this.billingTime = vm.getVmType().getBillingTimeInSeconds();
+            this.price = vm.getVmType().getPriceForBillingUnit();
+        }
+
+        @Override
+        public int compareTo(Entry o) {
+            return Double.compare(nextCheck, o.nextCheck);
+        }
+    }
+}
@@ -1,6 +1,6 @@
 package cws.core;
 
-import java.util.Random;
+import java.util.SplittableRandom;
 
 /**
  * This is a uniform failure distribution with a fixed failure rate.
@@ -9,7 +9,8 @@ import java.util.Random;
  */
 public class FailureModel {
 
-    private Random random;
+    /** Stream used when the caller doesn't give one */
+    private SplittableRandom random;
 
     private double failureRate;
 
@@ -19,7 +20,7 @@ public class FailureModel {
      *            failures. A failure rate of 0 means that no failures occur.
      */
     public FailureModel(long seed, double failureRate) {
-        this.random = new Random(seed);
+        this.random = new SplittableRandom(seed);
         this.failureRate = failureRate;
 
         if (failureRate < 0 || failureRate > 1) {
@@ -33,7 +34,17 @@ public class FailureModel {
      * according to the failure rate.
      */
     public boolean failureOccurred() {
-        double next = this.random.nextDouble();
+        return failureOccurred(random);
+    }
+
+    /**
+     * Like {@link #failureOccurred()}, drawing from the given stream. Nothing is drawn when failures never occur.
+     */
+    public boolean failureOccurred(SplittableRandom random) {
+        if (failureRate == 0.0) {
+            return false;
+        }
+        double next = random.nextDouble();
         if (next < failureRate) {
             return true;
         }
@@ -49,7 +60,14 @@ public class FailureModel {
      * @return A uniformly selected value in the range [0, predictedRuntime).
      */
     public double runtimeBeforeFailure(double predictedRuntime) {
-        double fraction = this.random.nextDouble();
+        return runtimeBeforeFailure(predictedRuntime, random);
+    }
+
+    /**
+     * Like {@link #runtimeBeforeFailure(double)}, drawing from the given stream.
+     */
+    public double runtimeBeforeFailure(double predictedRuntime, SplittableRandom random) {
+        double fraction = random.nextDouble();
         return predictedRuntime * fraction;
     }
 }
@@ -0,0 +1,64 @@
+package cws.core;
+
+import java.util.SplittableRandom;
+
+/**
+ * Hierarchy of independent random streams derived from a single seed. A stream is identified by its path of keys, e.g.
+ * seed / cell / component / VM, and its seed is derived by mixing each key in with the SplitMix64 function used by
+ * {@link SplittableRandom}. The numbers a stream returns depend only on its path, not on how many numbers other streams
+ * have drawn, so results don't depend on the order in which the simulation asks for them.
+ */
+public class RandomStreams {
+    /** Runtimes of the jobs run by a VM */
+    public static final int VM_RUNTIMES = 1;
+
+    /** Failures of the jobs run by a VM */
+    public static final int VM_FAILURES = 2;
+
+    /** Provisioning and deprovisioning delays of a VM */
+    public static final int VM_DELAYS = 3;
+
+    /** Runtime of an attempt of a task, with common random numbers */
+    public static final int JOB_RUNTIMES = 4;
+
+    /** Failure of an attempt of a task, with common random numbers */
+    public static final int JOB_FAILURES = 5;
+
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private final long seed;
+
+    public RandomStreams(long seed) {
+        this.seed = seed;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * @return Streams one level below this one, e.g. those of a single cell.
+     */
+    public RandomStreams child(long key) {
+        return new RandomStreams(mix(seed, key));
+    }
+
+    /**
+     * @param component - the kind of values drawn from the stream, e.g. {@link #VM_RUNTIMES}.
+     * @param key - identifies the owner of the stream among the component's streams, e.g. VM's id.
+     * @return A new stream, the same one every time it is called with the same arguments.
+     */
+    public SplittableRandom stream(int component, long key) {
+        return new SplittableRandom(mix(mix(seed, component), key));
+    }
+
+    /**
+     * SplitMix64 applied to the seed advanced by the key.
+     */
+    static long mix(long seed, long key) {
+        long z = seed + (key + 1) * GOLDEN_GAMMA;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
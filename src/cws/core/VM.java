@@ -1,18 +1,28 @@
 package cws.core;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.SplittableRandom;
+
+import org.cloudbus.cloudsim.distributions.ContinuousDistribution;
 
 import cws.core.cloudsim.CWSSimEntity;
 import cws.core.cloudsim.CWSSimEvent;
 import cws.core.cloudsim.CloudSimWrapper;
+import cws.core.cloudsim.ObjectPool;
+import cws.core.cloudsim.Recyclable;
 import cws.core.core.VMType;
+import cws.core.dag.Task;
 import cws.core.exception.UnknownWorkflowEventException;
 import cws.core.jobs.Job;
 import cws.core.jobs.RuntimeDistribution;
+import cws.core.provisioner.StreamDistribution;
 
 /**
  * A VM is a virtual machine that executes Jobs.
@@ -25,7 +35,10 @@ import cws.core.jobs.RuntimeDistribution;
  * bandwidth.
  * 
  * Jobs can be queued and are executed in FIFO order. The scheduling is
- * space shared.
+ * space shared: each core runs at most one job at a time, so a VM runs up to
+ * cores jobs concurrently. Cores are busy for the whole job, including its
+ * input and output transfers. Transfers of jobs running on the same VM share
+ * the VM's cache and in-flight reads of the same file from global storage.
  * 
  * It has a price per billing unit. The cost of a VM is computed by multiplying the
  * runtime in billing units by the billing unit price. The runtime is rounded up to the
@@ -56,6 +69,9 @@ public class VM extends CWSSimEntity {
     /** Queue of jobs submitted to this VM */
     private LinkedList<Job> jobs;
 
+    /** Task the owner plans to run on this VM after the queued jobs, null if unknown */
+    private Task nextPlannedTask;
+
     /** Set of jobs currently running */
     private Set<Job> runningJobs;
 
@@ -77,6 +93,14 @@ public class VM extends CWSSimEntity {
     /** Varies the failure rate of tasks according to a specified distribution */
     private final FailureModel failureModel;
 
+    /** Draw runtimes and failures from streams of each job's task instead of this VM's */
+    private final boolean commonRandomNumbers;
+
+    /** Streams of this VM's runtimes, failures and delays, derived from the VM's id */
+    private final SplittableRandom runtimeRandom;
+    private final SplittableRandom failureRandom;
+    private final SplittableRandom delayRandom;
+
     /** Read intervals of all jobs. */
     private final Map<Job, Interval> readIntervals = new HashMap<Job, VM.Interval>();
 
@@ -86,7 +110,8 @@ public class VM extends CWSSimEntity {
     /** Computation intervals of all jobs. */
     private final Map<Job, Interval> computationIntervals = new HashMap<Job, VM.Interval>();
 
-    VM(VMType vmType, CloudSimWrapper cloudsim, FailureModel failureModel, RuntimeDistribution runtimeDistribution) {
+    VM(VMType vmType, CloudSimWrapper cloudsim, FailureModel failureModel, RuntimeDistribution runtimeDistribution,
+            boolean commonRandomNumbers) {
         super("VM" + (nextId++), cloudsim);
         this.vmType = vmType;
         this.jobs = new LinkedList<Job>();
@@ -98,6 +123,11 @@ public class VM extends CWSSimEntity {
         this.isLaunched = false;
         this.failureModel = failureModel;
         this.runtimeDistribution = runtimeDistribution;
+        this.commonRandomNumbers = commonRandomNumbers;
+        RandomStreams streams = cloudsim.getRandomStreams();
+        this.runtimeRandom = streams.stream(RandomStreams.VM_RUNTIMES, getId());
+        this.failureRandom = streams.stream(RandomStreams.VM_FAILURES, getId());
+        this.delayRandom = streams.stream(RandomStreams.VM_DELAYS, getId());
     }
 
     /**
@@ -121,9 +151,15 @@ public class VM extends CWSSimEntity {
      * by the billing unit price.
      */
     public double getCost() {
+        return getBillingUnits() * vmType.getPriceForBillingUnit();
+    }
+
+    /**
+     * Number of billing units started so far, i.e. the runtime rounded up to whole billing units.
+     */
+    public long getBillingUnits() {
         double billingUnits = getRuntime() / vmType.getBillingTimeInSeconds();
-        double fullBillingUnits = Math.ceil(billingUnits);
-        return fullBillingUnits * vmType.getPriceForBillingUnit();
+        return (long) Math.ceil(billingUnits);
     }
 
     @Override
@@ -139,6 +175,11 @@ public class VM extends CWSSimEntity {
             case WorkflowEvent.JOB_SUBMIT:
                 jobSubmit((Job) ev.getData());
                 break;
+            case WorkflowEvent.JOB_SUBMIT_BATCH:
+                @SuppressWarnings("unchecked")
+                List<Job> batch = (List<Job>) ev.getData();
+                jobsSubmit(batch);
+                break;
             case WorkflowEvent.JOB_FINISHED:
                 jobFinish((Job) ev.getData());
                 break;
@@ -152,7 +193,8 @@ public class VM extends CWSSimEntity {
                 throw new UnknownWorkflowEventException("Unknown event: " + ev);
             }
         } else {
-            if (ev.getTag() == WorkflowEvent.VM_LAUNCH || ev.getTag() == WorkflowEvent.JOB_SUBMIT) {
+            if (ev.getTag() == WorkflowEvent.VM_LAUNCH || ev.getTag() == WorkflowEvent.JOB_SUBMIT
+                    || ev.getTag() == WorkflowEvent.JOB_SUBMIT_BATCH) {
                 throw new IllegalStateException("Attempted to send launch or submit event to terminated VM:"
                         + this.getId());
             }
@@ -163,6 +205,8 @@ public class VM extends CWSSimEntity {
         if (this.isLaunched) {
             throw new IllegalStateException("Attempted to launch already launched VM:" + this.getId());
         }
+        // fail fast if the VM will have no storage manager to transfer job files with
+        getCloudsim().getStorageManagerId();
         this.isLaunched = true;
         getCloudsim().log(String.format("VM %d started", getId()));
     }
@@ -199,15 +243,29 @@ public class VM extends CWSSimEntity {
     }
 
     private void jobSubmit(Job job) {
+        queueJob(job);
+
+        // This shouldn't do anything if the VM is busy
+        startJobs();
+    }
+
+    /**
+     * Queues all the jobs first, so that the ones started at once are reported in a single batch.
+     */
+    private void jobsSubmit(List<Job> batch) {
+        for (Job job : batch) {
+            queueJob(job);
+        }
+        startJobs();
+    }
+
+    private void queueJob(Job job) {
         job.setSubmitTime(getCloudsim().clock());
         job.setState(Job.State.IDLE);
         job.setVM(this);
 
         // Queue the job
         jobs.add(job);
-
-        // This shouldn't do anything if the VM is busy
-        startJobs();
     }
 
     private void allInputsTrasferred(Job job) {
@@ -221,15 +279,25 @@ public class VM extends CWSSimEntity {
         double size = job.getTask().getSize();
         double predictedRuntime = size / vmType.getMips();
 
+        SplittableRandom runtimeRandom = this.runtimeRandom;
+        SplittableRandom failureRandom = this.failureRandom;
+        if (commonRandomNumbers) {
+            // the same attempt of the same task gets the same numbers on any VM, whatever the algorithm
+            RandomStreams taskStreams = getCloudsim().getRandomStreams()
+                    .child(Objects.hashCode(job.getDAGJob().getDAG().getId())).child(job.getTask().getIndex());
+            runtimeRandom = taskStreams.stream(RandomStreams.JOB_RUNTIMES, job.getAttempt());
+            failureRandom = taskStreams.stream(RandomStreams.JOB_FAILURES, job.getAttempt());
+        }
+
         // Compute actual runtime
-        double actualRuntime = this.runtimeDistribution.getActualRuntime(predictedRuntime);
+        double actualRuntime = this.runtimeDistribution.getActualRuntime(predictedRuntime, runtimeRandom);
 
         // Decide whether the job succeeded or failed
-        if (failureModel.failureOccurred()) {
+        if (failureModel.failureOccurred(failureRandom)) {
             job.setResult(Job.Result.FAILURE);
 
             // How long did it take to fail?
-            actualRuntime = failureModel.runtimeBeforeFailure(actualRuntime);
+            actualRuntime = failureModel.runtimeBeforeFailure(actualRuntime, failureRandom);
         } else {
             job.setResult(Job.Result.SUCCESS);
         }
@@ -242,10 +310,12 @@ public class VM extends CWSSimEntity {
 
         getCloudsim().send(getId(), getId(), actualRuntime, WorkflowEvent.JOB_FINISHED, job);
         
+        job.setComputationStartTime(getCloudsim().clock());
+
         // Mark that read has finished.
         readIntervals.get(job).stop();
         // Mark that computation has started.
-        computationIntervals.put(job, new Interval());
+        computationIntervals.put(job, startInterval());
     }
 
     private void allOutputsTransferred(Job job) {
@@ -275,27 +345,19 @@ public class VM extends CWSSimEntity {
     private void jobStart(Job job) {
         if (job.getState() != Job.State.IDLE) {
             throw new IllegalStateException("Attempted to start non-idle job:" + job.getID());
-        } else if (idleCores != 1) {
-            // NOTE(bryk): Here we assume that VMs always have only one core. It should be changed once we enable more
-            // cores in VMs.
-            throw new IllegalStateException("Number of idle cores is not 1, actual number:" + idleCores);
+        } else if (idleCores < 1) {
+            throw new IllegalStateException("No idle cores to start job:" + job.getID());
         }
         getCloudsim().log("Starting " + job.toString() + " on VM " + job.getVM().getId());
         // The job is now running
         job.setStartTime(getCloudsim().clock());
         job.setState(Job.State.RUNNING);
 
-        // Tell the owner
-        getCloudsim().send(getId(), job.getOwner(), 0.0, WorkflowEvent.JOB_STARTED, job);
-
-        getCloudsim().send(getId(), getCloudsim().getEntityId("StorageManager"), 0.0,
-                WorkflowEvent.STORAGE_BEFORE_TASK_START, job);
-
         // One core is now busy running the job
         idleCores--;
 
         // Mark that read has started.
-        readIntervals.put(job, new Interval());
+        readIntervals.put(job, startInterval());
     }
 
     private void jobFinish(Job job) {
@@ -308,20 +370,38 @@ public class VM extends CWSSimEntity {
                 job.getDAGJob().getDAG().getId(), job.isRetry(), job.getVM().getId());
         getCloudsim().log(msg);
 
-        getCloudsim().send(getId(), getCloudsim().getEntityId("StorageManager"), 0.0,
+        getCloudsim().send(getId(), getCloudsim().getStorageManagerId(), 0.0,
                 WorkflowEvent.STORAGE_AFTER_TASK_COMPLETED, job);
         
+        job.setComputationFinishTime(getCloudsim().clock());
+
         // Mark that computation has finished
         computationIntervals.get(job).stop();
         // Mark that write has started.
-        writeIntervals.put(job, new Interval());
+        writeIntervals.put(job, startInterval());
     }
 
     private void startJobs() {
+        List<Job> started = new ArrayList<Job>();
         // While there are still idle jobs and cores
         while (jobs.size() > 0 && idleCores > 0) {
             // Start the next job in the queue
-            jobStart(jobs.poll());
+            Job job = jobs.poll();
+            jobStart(job);
+            started.add(job);
+        }
+
+        // Tell the owner and the storage manager, with one event for all the jobs started at once
+        if (started.size() == 1) {
+            Job job = started.get(0);
+            getCloudsim().send(getId(), job.getOwner(), 0.0, WorkflowEvent.JOB_STARTED, job);
+            getCloudsim().send(getId(), getCloudsim().getStorageManagerId(), 0.0,
+                    WorkflowEvent.STORAGE_BEFORE_TASK_START, job);
+        } else if (started.size() > 1) {
+            // jobs running on the same VM belong to the same owner
+            getCloudsim().send(getId(), started.get(0).getOwner(), 0.0, WorkflowEvent.JOB_STARTED_BATCH, started);
+            getCloudsim().send(getId(), getCloudsim().getStorageManagerId(), 0.0,
+                    WorkflowEvent.STORAGE_BEFORE_TASK_START_BATCH, started);
         }
     }
 
@@ -351,6 +431,13 @@ public class VM extends CWSSimEntity {
         return idleCores;
     }
 
+    /**
+     * Number of cores currently running jobs (reading inputs, computing or writing outputs).
+     */
+    public int getBusyCores() {
+        return vmType.getCores() - idleCores;
+    }
+
     public Job[] getQueuedJobs() {
         return jobs.toArray(new Job[0]);
     }
@@ -359,6 +446,25 @@ public class VM extends CWSSimEntity {
         return jobs.size();
     }
 
+    /**
+     * @return the job which will be started next on this VM, null if the queue is empty.
+     */
+    public Job getNextQueuedJob() {
+        return jobs.peek();
+    }
+
+    /**
+     * Tells the VM which task its owner plans to run on it after the queued jobs, e.g. the next task in a static
+     * plan. It is only a hint for the storage, which may prefetch the task's inputs.
+     */
+    public void setNextPlannedTask(Task task) {
+        this.nextPlannedTask = task;
+    }
+
+    public Task getNextPlannedTask() {
+        return nextPlannedTask;
+    }
+
     public void setLaunchTime(double launchTime) {
         this.launchTime = launchTime;
     }
@@ -392,11 +498,18 @@ public class VM extends CWSSimEntity {
     }
 
     public double getProvisioningDelay() {
-        return vmType.getProvisioningDelay().sample();
+        return sampleDelay(vmType.getProvisioningDelay());
     }
 
     public double getDeprovisioningDelay() {
-        return vmType.getDeprovisioningDelay().sample();
+        return sampleDelay(vmType.getDeprovisioningDelay());
+    }
+
+    private double sampleDelay(ContinuousDistribution delay) {
+        if (delay instanceof StreamDistribution) {
+            return ((StreamDistribution) delay).sample(delayRandom);
+        }
+        return delay.sample();
     }
 
     public void setTerminated(boolean b) {
@@ -404,7 +517,7 @@ public class VM extends CWSSimEntity {
     }
     
     /**
-     * Assumes one core VMs.
+     * Returns time spent on computations summed over all cores, i.e. in core-seconds.
      */
     public double getTimeSpentOnComputations() {
         double time = 0;
@@ -415,7 +528,7 @@ public class VM extends CWSSimEntity {
     }
     
     /**
-     * Assumes one core VMs.
+     * Returns time spent on input and output transfers summed over all cores, i.e. in core-seconds.
      */
     public double getTimeSpentOnTransfers() {
         double time = 0;
@@ -428,18 +541,49 @@ public class VM extends CWSSimEntity {
         return time;
     }
 
+    /**
+     * Returns a new interval starting now, or a recycled one if the simulation recycles objects.
+     */
+    private Interval startInterval() {
+        ObjectPool<Interval> pool = getCloudsim().getPool(Interval.class);
+        Interval interval = pool == null ? null : pool.reuse();
+        if (interval == null) {
+            interval = new Interval();
+        }
+        if (pool != null) {
+            // read at the end of the cell by statistics
+            pool.retain(interval);
+        }
+        interval.start(this);
+        return interval;
+    }
+
     /**
      * Represents interval of time in seconds spanning from start time to end time (or VM termination time if not set).
      */
-    private final class Interval {
-        private final double startTime = getCloudsim().clock();
-        private Double endTime;
+    private static final class Interval implements Recyclable {
+        private VM vm;
+        private double startTime;
+        private boolean stopped;
+        private double endTime;
+
+        @Override
+        public void recycle() {
+            this.vm = null;
+        }
+
+        private void start(VM vm) {
+            this.vm = vm;
+            this.startTime = vm.getCloudsim().clock();
+            this.stopped = false;
+        }
 
         /**
          * Stops the interval at current simulation time.
          */
         public void stop() {
-            endTime = getCloudsim().clock();
+            endTime = vm.getCloudsim().clock();
+            stopped = true;
         }
 
         /**
@@ -447,9 +591,9 @@ public class VM extends CWSSimEntity {
          */
         public double getDuration() {
             double duration;
-            if (endTime == null) {
-                if (isTerminated) {
-                    duration = terminateTime - startTime;
+            if (!stopped) {
+                if (vm.isTerminated) {
+                    duration = vm.terminateTime - startTime;
                 } else {
                     throw new IllegalStateException("VM not terminated, but should be");
                 }
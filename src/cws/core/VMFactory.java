@@ -13,11 +13,13 @@ import cws.core.jobs.UniformRuntimeDistribution;
 public class VMFactory {
     private static final double DEFAULT_RUNTIME_VARIANCE = 0.0;
     private static final double DEFAULT_FAILURE_RATE = 0.0;
+    private static final boolean DEFAULT_COMMON_RANDOM_NUMBERS = false;
 
     private static RuntimeDistribution runtimeDistribution = new IdentityRuntimeDistribution();
     private static FailureModel failureModel = new FailureModel(0, 0.0);
     private static double runtimeVariance;
     private static double failureRate;
+    private static boolean commonRandomNumbers = DEFAULT_COMMON_RANDOM_NUMBERS;
 
     public static void setRuntimeDistribution(RuntimeDistribution runtimeDistribution) {
         VMFactory.runtimeDistribution = runtimeDistribution;
@@ -35,12 +37,24 @@ public class VMFactory {
         VMFactory.failureModel = failureModel;
     }
 
+    /**
+     * With common random numbers, the runtime and the failure of a job are drawn from streams of its DAG, task and
+     * attempt, instead of streams of the VM running it, so that all algorithms see the same ones.
+     */
+    public static void setCommonRandomNumbers(boolean commonRandomNumbers) {
+        VMFactory.commonRandomNumbers = commonRandomNumbers;
+    }
+
+    public static boolean isCommonRandomNumbers() {
+        return commonRandomNumbers;
+    }
+
     /**
      * @param cloudSimWrapper - initialized CloudSimWrapper instance. It needs to be inited, because we're creating
      *            storage manager here.
      */
     public static VM createVM(VMType vmType, CloudSimWrapper cloudSimWrapper) {
-        return new VM(vmType, cloudSimWrapper, failureModel, runtimeDistribution);
+        return new VM(vmType, cloudSimWrapper, failureModel, runtimeDistribution, commonRandomNumbers);
     }
 
     public static void buildCliOptions(Options options) {
@@ -52,14 +66,30 @@ public class VMFactory {
         Option failureRate = new Option("fr", "failure-rate", true, "Faliure rate, defaults to " + DEFAULT_FAILURE_RATE);
         failureRate.setArgName("RATE");
         options.addOption(failureRate);
+
+        Option commonRandomNumbers = new Option("crn", "common-random-numbers", true,
+                "Whether runtimes and failures of jobs depend only on their task and attempt, so that all algorithms "
+                        + "see the same ones, defaults to " + DEFAULT_COMMON_RANDOM_NUMBERS);
+        commonRandomNumbers.setArgName("BOOL");
+        options.addOption(commonRandomNumbers);
     }
 
     public static void readCliOptions(CommandLine args, long seed) {
-        runtimeVariance = Double.parseDouble(args.getOptionValue("runtime-variance", DEFAULT_RUNTIME_VARIANCE + ""));
-        failureRate = Double.parseDouble(args.getOptionValue("failure-rate", DEFAULT_FAILURE_RATE + ""));
+        loadCliOptions(args, seed);
 
         System.out.printf("runtimeVariance = %f\n", runtimeVariance);
         System.out.printf("failureRate = %f\n", failureRate);
+        System.out.printf("commonRandomNumbers = %b\n", commonRandomNumbers);
+    }
+
+    /**
+     * Same as {@link #readCliOptions(CommandLine, long)}, but doesn't echo the options.
+     */
+    public static void loadCliOptions(CommandLine args, long seed) {
+        runtimeVariance = Double.parseDouble(args.getOptionValue("runtime-variance", DEFAULT_RUNTIME_VARIANCE + ""));
+        failureRate = Double.parseDouble(args.getOptionValue("failure-rate", DEFAULT_FAILURE_RATE + ""));
+        commonRandomNumbers = Boolean.valueOf(args.getOptionValue("common-random-numbers",
+                DEFAULT_COMMON_RANDOM_NUMBERS + ""));
 
         if (runtimeVariance > 0.0) {
             VMFactory.setRuntimeDistribution(new UniformRuntimeDistribution(seed, runtimeVariance));
@@ -0,0 +1,308 @@
+package cws.core;
+
+import java.util.AbstractList;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * The VMs of a {@link WorkflowEngine}, indexed by position. A VM is free when it has at least one idle core, busy when
+ * all of its cores run jobs, or neither when it was taken out of both sets (e.g. by a provisioner which terminates it)
+ * but has not been terminated yet.
+ *
+ * Free and busy state are bits in {@link BitSet}s, so moving a VM between them is O(1). Positions follow launch order
+ * and stay stable: removing a VM only leaves an empty slot behind, which is O(1). The empty slots are compacted once
+ * they take more than half of the positions, so removals stay O(1) amortized. The sets returned by
+ * {@link #getFreeVMs()} and {@link #getBusyVMs()} are views, they iterate in launch order and are never copied.
+ */
+public class VMPool {
+    /** Fraction of empty slots above which they are compacted */
+    private static final double MAX_EMPTY_FRACTION = 0.5;
+
+    /** VMs by position, null in the slots of removed VMs */
+    private final List<VM> vms = new ArrayList<VM>();
+
+    /** Number of empty slots in {@link #vms} */
+    private int emptySlots = 0;
+
+    /** Read-only view of the VMs in {@link #vms} */
+    private final List<VM> vmsView = new VMList();
+
+    /** Position of each VM in {@link #vms} */
+    private final Map<VM, Integer> positions = new HashMap<VM, Integer>();
+
+    /** Number of jobs started, but not yet finished, on the VM at each position */
+    private int[] runningJobs = new int[16];
+
+    private final StateSet freeVMs = new StateSet();
+    private final StateSet busyVMs = new StateSet();
+
+    /**
+     * Adds a newly launched VM as free.
+     */
+    public void add(VM vm) {
+        if (positions.containsKey(vm)) {
+            throw new IllegalStateException("VM already in the pool: " + vm.getId());
+        }
+        int position = vms.size();
+        vms.add(vm);
+        positions.put(vm, position);
+        if (position == runningJobs.length) {
+            int[] grown = new int[position * 2];
+            System.arraycopy(runningJobs, 0, grown, 0, position);
+            runningJobs = grown;
+        }
+        runningJobs[position] = 0;
+        freeVMs.set(position);
+    }
+
+    /**
+     * Removes a terminated VM.
+     */
+    public void remove(VM vm) {
+        Integer removed = positions.remove(vm);
+        if (removed == null) {
+            return;
+        }
+        int position = removed;
+        freeVMs.clear(position);
+        busyVMs.clear(position);
+        vms.set(position, null);
+        emptySlots++;
+        if (emptySlots > MAX_EMPTY_FRACTION * vms.size()) {
+            compact();
+        }
+    }
+
+    /**
+     * Moves the VMs down over the empty slots, keeping their order and state.
+     */
+    private void compact() {
+        int to = 0;
+        for (int from = 0; from < vms.size(); from++) {
+            VM vm = vms.get(from);
+            if (vm == null) {
+                continue;
+            }
+            if (from != to) {
+                vms.set(to, vm);
+                positions.put(vm, to);
+                runningJobs[to] = runningJobs[from];
+                freeVMs.move(from, to);
+                busyVMs.move(from, to);
+            }
+            to++;
+        }
+        vms.subList(to, vms.size()).clear();
+        emptySlots = 0;
+    }
+
+    /**
+     * Counts a started job. The VM becomes busy once all of its cores run jobs.
+     */
+    public void jobStarted(VM vm) {
+        Integer position = positions.get(vm);
+        if (position == null) {
+            return;
+        }
+        int running = ++runningJobs[position];
+        if (running >= vm.getVmType().getCores() && freeVMs.clear(position)) {
+            busyVMs.set(position);
+        }
+    }
+
+    /**
+     * Updates the VM after its job finished (or failed). The VM becomes free if it was busy and has an idle core.
+     * @param started Whether the job has been started, jobs failed while still queued were never counted.
+     */
+    public void jobFinished(VM vm, boolean started) {
+        Integer position = positions.get(vm);
+        if (position == null) {
+            return;
+        }
+        if (started) {
+            runningJobs[position]--;
+        }
+        if (runningJobs[position] < vm.getVmType().getCores() && busyVMs.clear(position)) {
+            freeVMs.set(position);
+        }
+    }
+
+    /**
+     * @return Number of jobs started, but not yet finished, on the VM.
+     */
+    public int getRunningJobs(VM vm) {
+        Integer position = positions.get(vm);
+        return position == null ? 0 : runningJobs[position];
+    }
+
+    /**
+     * @return All VMs in the pool, in launch order. The list is a read-only view.
+     */
+    public List<VM> getVMs() {
+        return vmsView;
+    }
+
+    /**
+     * @return View of the free VMs. Removing a VM from it takes the VM out of scheduling for good.
+     */
+    public Set<VM> getFreeVMs() {
+        return freeVMs;
+    }
+
+    /**
+     * @return View of the busy VMs. Removing a VM from it takes the VM out of scheduling for good.
+     */
+    public Set<VM> getBusyVMs() {
+        return busyVMs;
+    }
+
+    public int size() {
+        return vms.size() - emptySlots;
+    }
+
+    /**
+     * List of the VMs in the pool, without the empty slots. Iterating skips the empty slots, while access by index
+     * compacts them first.
+     */
+    private class VMList extends AbstractList<VM> {
+        @Override
+        public VM get(int index) {
+            if (emptySlots > 0) {
+                compact();
+            }
+            return vms.get(index);
+        }
+
+        @Override
+        public int size() {
+            return VMPool.this.size();
+        }
+
+        @Override
+        public Iterator<VM> iterator() {
+            return new Iterator<VM>() {
+                private int next = skipEmpty(0);
+
+                private int skipEmpty(int position) {
+                    while (position < vms.size() && vms.get(position) == null) {
+                        position++;
+                    }
+                    return position;
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return next < vms.size();
+                }
+
+                @Override
+                public VM next() {
+                    if (next >= vms.size()) {
+                        throw new NoSuchElementException();
+                    }
+                    VM vm = vms.get(next);
+                    next = skipEmpty(next + 1);
+                    return vm;
+                }
+
+                @Override
+                public void remove() {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+    }
+
+    /**
+     * Set of VMs whose positions have their bit set.
+     */
+    private class StateSet extends AbstractSet<VM> {
+        private final BitSet bits = new BitSet();
+        private int size = 0;
+
+        void set(int position) {
+            if (!bits.get(position)) {
+                bits.set(position);
+                size++;
+            }
+        }
+
+        /**
+         * @return whether the bit was set.
+         */
+        boolean clear(int position) {
+            if (!bits.get(position)) {
+                return false;
+            }
+            bits.clear(position);
+            size--;
+            return true;
+        }
+
+        /**
+         * Moves the bit of a VM to its new, empty position.
+         */
+        void move(int from, int to) {
+            if (bits.get(from)) {
+                bits.clear(from);
+                bits.set(to);
+            }
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            Integer position = positions.get(o);
+            return position != null && bits.get(position);
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            Integer position = positions.get(o);
+            return position != null && clear(position);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public Iterator<VM> iterator() {
+            return new Iterator<VM>() {
+                private int next = bits.nextSetBit(0);
+                private int last = -1;
+
+                @Override
+                public boolean hasNext() {
+                    return next >= 0;
+                }
+
+                @Override
+                public VM next() {
+                    if (next < 0) {
+                        throw new NoSuchElementException();
+                    }
+                    last = next;
+                    next = bits.nextSetBit(next + 1);
+                    return vms.get(last);
+                }
+
+                @Override
+                public void remove() {
+                    if (last < 0) {
+                        throw new IllegalStateException();
+                    }
+                    clear(last);
+                    last = -1;
+                }
+            };
+        }
+    }
+}
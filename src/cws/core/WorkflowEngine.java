@@ -34,14 +34,8 @@ public class WorkflowEngine extends CWSSimEntity {
     /** The scheduler that matches jobs to resources for this workflow engine */
     private Scheduler scheduler;
 
-    /** The current VMs */
-    private LinkedList<VM> vms = new LinkedList<VM>();
-
-    /** The set of free VMs, i.e. the ones which are not executing any jobs (idle) */
-    protected Set<VM> freeVMs = new HashSet<VM>();
-
-    /** The set of busy VMs, i.e. the ones which execute jobs */
-    private Set<VM> busyVMs = new HashSet<VM>();
+    /** The current VMs, split into free ones (with at least one idle core) and busy ones */
+    private final VMPool vms = new VMPool();
 
     /** The list of unmatched ready jobs */
     private LinkedList<Job> queue = new LinkedList<Job>();
@@ -57,6 +51,9 @@ public class WorkflowEngine extends CWSSimEntity {
 
     private boolean provisioningRequestSend = false;
 
+    /** Cost of the VMs launched for this engine */
+    private final CostAccumulator cost;
+
     public WorkflowEngine(Provisioner provisioner, Scheduler scheduler, double budget, double deadline,
             CloudSimWrapper cloudsim) {
         super("WorkflowEngine" + (next_id++), cloudsim);
@@ -64,6 +61,7 @@ public class WorkflowEngine extends CWSSimEntity {
         this.scheduler = scheduler;
         this.budget = budget;
         this.deadline = deadline;
+        this.cost = new CostAccumulator(cloudsim);
     }
 
     @Override
@@ -85,6 +83,11 @@ public class WorkflowEngine extends CWSSimEntity {
         case WorkflowEvent.JOB_STARTED:
             jobStarted((Job) ev.getData());
             break;
+        case WorkflowEvent.JOB_STARTED_BATCH:
+            @SuppressWarnings("unchecked")
+            List<Job> batch = (List<Job>) ev.getData();
+            jobsStarted(batch);
+            break;
         case WorkflowEvent.JOB_FINISHED:
             jobFinished((Job) ev.getData());
             break;
@@ -98,16 +101,13 @@ public class WorkflowEngine extends CWSSimEntity {
         }
     }
 
+    /**
+     * Returns the cost of all VMs launched for this engine, including the terminated ones.
+     */
     public double getCost() {
-        double ret = cost;
-        for (VM vm : vms) {
-            ret += vm.getCost();
-        }
-        return ret;
+        return cost.getCost();
     }
 
-    private double cost = 0;
-
     @Override
     public void shutdownEntity() {
         getCloudsim().log("Total cost: " + getCost() + ", time: " + getCloudsim().clock());
@@ -115,15 +115,13 @@ public class WorkflowEngine extends CWSSimEntity {
 
     private void vmLaunched(VM vm) {
         vms.add(vm);
-        freeVMs.add(vm);
+        cost.vmLaunched(vm);
         scheduler.scheduleJobs(this);
     }
 
     private void vmTerminated(VM vm) {
-        cost += vm.getCost();
+        cost.vmTerminated(vm);
         vms.remove(vm);
-        freeVMs.remove(vm);
-        busyVMs.remove(vm);
     }
 
     private void dagSubmit(DAGJob dj) {
@@ -142,7 +140,7 @@ public class WorkflowEngine extends CWSSimEntity {
             Task task = dagJob.nextReadyTask();
             if (task == null)
                 break;
-            Job job = new Job(dagJob, task, getId(), getCloudsim());
+            Job job = Job.obtain(dagJob, task, getId(), getCloudsim());
             jobReleased(job);
         }
     }
@@ -161,9 +159,31 @@ public class WorkflowEngine extends CWSSimEntity {
         for (JobListener jl : jobListeners) {
             jl.jobStarted(j);
         }
-        VM vm = j.getVM();
-        if (freeVMs.remove(vm))
-            busyVMs.add(vm);
+        markJobRunning(j);
+    }
+
+    private void jobsStarted(List<Job> batch) {
+        // Notify the listeners once for the whole batch
+        for (JobListener jl : jobListeners) {
+            jl.jobsStarted(batch);
+        }
+        for (Job j : batch) {
+            markJobRunning(j);
+        }
+    }
+
+    private void markJobRunning(Job j) {
+        // the VM is busy once all of its cores run jobs
+        vms.jobStarted(j.getVM());
+    }
+
+    /**
+     * Updates free and busy VMs after the job has finished (or failed) on its VM.
+     */
+    private void releaseVM(Job job) {
+        // jobs failed while still queued on a terminated VM have never been started
+        boolean started = job.getState() == Job.State.RUNNING || job.getState() == Job.State.TERMINATED;
+        vms.jobFinished(job.getVM(), started);
     }
 
     private void jobFinished(Job job) {
@@ -195,10 +215,7 @@ public class WorkflowEngine extends CWSSimEntity {
             }
 
             getCloudsim().log(job.toString() + " finished on VM " + job.getVM().getId());
-            VM vm = job.getVM();
-            // add to free if contained in busy set
-            if (busyVMs.remove(vm))
-                freeVMs.add(vm);
+            releaseVM(job);
         } else if (job.getResult() == Job.Result.FAILURE) { // If the job failed
             // Retry the job
 
@@ -210,20 +227,16 @@ public class WorkflowEngine extends CWSSimEntity {
                                 job.getID(), job.getTask().getId(), job.getDAGJob().getDAG().getId(), job.isRetry(),
                                 job.getVM().getId()));
             }
-            Job retry = new Job(dagJob, t, getId(), getCloudsim());
+            Job retry = Job.obtain(dagJob, t, getId(), getCloudsim());
             retry.setRetry(true);
-            VM vm = job.getVM();
-            // add to free if contained in busy set
-            if (busyVMs.remove(vm))
-                freeVMs.add(vm);
+            retry.setAttempt(job.getAttempt() + 1);
+            releaseVM(job);
             jobReleased(retry);
         } else {
             getCloudsim().log(
                     String.format("Job %d (task_id = %s, workflow_id = %s, retry = %s) exceeded deadline.",
                             job.getID(), job.getTask().getId(), job.getDAGJob().getDAG().getId(), job.isRetry()));
-            VM vm = job.getVM();
-            if (busyVMs.remove(vm))
-                freeVMs.add(vm);
+            releaseVM(job);
         }
 
         scheduler.scheduleJobs(this);
@@ -249,16 +262,25 @@ public class WorkflowEngine extends CWSSimEntity {
         return queue;
     }
 
+    /**
+     * @return Read-only view of the current VMs.
+     */
     public List<VM> getAvailableVMs() {
-        return vms;
+        return vms.getVMs();
     }
-    
+
+    /**
+     * @return View of the free VMs, see {@link VMPool#getFreeVMs()}.
+     */
     public Set<VM> getFreeVMs() {
-        return freeVMs;
+        return vms.getFreeVMs();
     }
 
+    /**
+     * @return View of the busy VMs, see {@link VMPool#getBusyVMs()}.
+     */
     public Set<VM> getBusyVMs() {
-        return busyVMs;
+        return vms.getBusyVMs();
     }
 
     public void addJobListener(JobListener l) {
@@ -20,6 +20,9 @@ public interface WorkflowEvent {
     /** Transfer is complete */
     public static final int TRANSFER_COMPLETE = 4;
 
+    /** Client entity cancels a transfer, it never completes */
+    public static final int CANCEL_TRANSFER = 40;
+
     // ///////////////////////////////////////////////////////
     // VM EVENTS
     // ///////////////////////////////////////////////////////
@@ -70,6 +73,12 @@ public interface WorkflowEvent {
     /** Job finished execution on remote host */
     public static final int JOB_FINISHED = 18;
 
+    /** Submit a list of tasks to the same VM at once */
+    public static final int JOB_SUBMIT_BATCH = 23;
+
+    /** A list of jobs begins execution on the same remote resource at once */
+    public static final int JOB_STARTED_BATCH = 24;
+
     // ///////////////////////////////////////////////////////
     // DAG EVENTS
     // ///////////////////////////////////////////////////////
@@ -87,6 +96,9 @@ public interface WorkflowEvent {
     /** Submit next provisioning request */
     public static final int PROVISIONING_REQUEST = 22;
 
+    /** Sent at the deadline of a static plan, whose VMs may still wait for quota on a shared cloud */
+    public static final int PLAN_DEADLINE = 25;
+
     // ///////////////////////////////////////////////////////
     // STORAGE EVENTS
     // ///////////////////////////////////////////////////////
@@ -94,6 +106,9 @@ public interface WorkflowEvent {
     /** Sent just before the start of a task. Input files should be then transferred */
     int STORAGE_BEFORE_TASK_START = 29;
 
+    /** Sent just before the start of a list of tasks on the same VM. Input files should be then transferred */
+    int STORAGE_BEFORE_TASK_START_BATCH = 31;
+
     /** Sent just after the finish of a task. Output files should be then transferred */
     int STORAGE_AFTER_TASK_COMPLETED = 30;
 
@@ -114,4 +129,10 @@ public interface WorkflowEvent {
 
     /** Event indicating the progress of a global storage write */
     int GLOBAL_STORAGE_WRITE_PROGRESS = 37;
+
+    /** Sent by the storage to the VM's cloud when it starts uploading outputs written behind from the VM */
+    int STORAGE_VM_UPLOADS_STARTED = 38;
+
+    /** Sent by the storage to the VM's cloud when all the outputs written behind from the VM are uploaded */
+    int STORAGE_VM_UPLOADS_DRAINED = 39;
 }
@@ -49,14 +49,36 @@ public abstract class Algorithm extends CWSSimEntity {
         this.environment = environment;
     }
 
-    /** Should run actual simulation */
-    abstract protected void simulateInternal();
+    /**
+     * Should set up the engine, the ensemble manager and the cloud, unless one was set with {@link #setCloud(Cloud)},
+     * and do any planning, so that the simulation can be started.
+     */
+    abstract protected void prepareSimulation();
 
     /** Should return the number of wall time nanos spent for planning */
     abstract public long getPlanningnWallTime();
 
     public final void simulate() {
-        simulateInternal();
+        prepareSimulation();
+        getCloudsim().startSimulation();
+        finishSimulation();
+    }
+
+    /**
+     * Simulates several algorithms, i.e. tenants, together. They have to share the same {@link CloudSimWrapper}, and
+     * typically a single {@link Cloud} with VM quotas set on all of them beforehand.
+     */
+    public static void simulate(List<? extends Algorithm> tenants) {
+        for (Algorithm tenant : tenants) {
+            tenant.prepareSimulation();
+        }
+        tenants.get(0).getCloudsim().startSimulation();
+        for (Algorithm tenant : tenants) {
+            tenant.finishSimulation();
+        }
+    }
+
+    private void finishSimulation() {
         printWorkflowLogs();
         conductSanityChecks();
     }
@@ -69,15 +91,24 @@ public abstract class Algorithm extends CWSSimEntity {
 
     public final void setCloud(Cloud cloud) {
         this.cloud = cloud;
-        this.cloud.addVMListener(algorithmStatistics);
-        this.cloud.addVMListener(workflowLog);
+        listenToCloud();
     }
 
     public final void setWorkflowEngine(WorkflowEngine workflowEngine) {
         this.engine = workflowEngine;
         this.engine.addJobListener(algorithmStatistics);
         this.engine.addJobListener(workflowLog);
+        listenToCloud();
+    }
 
+    /**
+     * The cloud may be shared with other algorithms, so we only listen to the VMs our engine owns.
+     */
+    private void listenToCloud() {
+        if (cloud != null && engine != null) {
+            cloud.addVMListener(engine.getId(), algorithmStatistics);
+            cloud.addVMListener(engine.getId(), workflowLog);
+        }
     }
 
     public final void setEnsembleManager(EnsembleManager ensembleManager) {
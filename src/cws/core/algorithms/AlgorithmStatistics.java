@@ -2,10 +2,13 @@ package cws.core.algorithms;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 
+import cws.core.CostAccumulator;
 import cws.core.VM;
 import cws.core.VMListener;
 import cws.core.cloudsim.CWSSimEntity;
@@ -19,14 +22,15 @@ import cws.core.jobs.JobListener;
 
 public class AlgorithmStatistics extends CWSSimEntity implements DAGJobListener, VMListener, JobListener {
     private final List<DAG> allDags;
-    private final double budget;
-    private final double deadline;
+    private double budget;
+    private double deadline;
 
     public AlgorithmStatistics(List<DAG> allDags, double budget, double deadline, CloudSimWrapper cloudsim) {
         super("AlgorithmStatistics", cloudsim);
         this.allDags = allDags;
         this.budget = budget;
         this.deadline = deadline;
+        this.cost = new CostAccumulator(cloudsim);
     }
 
     private double lastJobFinishTime = 0.0;
@@ -43,6 +47,64 @@ public class AlgorithmStatistics extends CWSSimEntity implements DAGJobListener,
      */
     private List<VM> allVMs = new ArrayList<VM>();
 
+    /**
+     * Cost of {@link #allVMs}.
+     */
+    private final CostAccumulator cost;
+
+    /**
+     * Start times of DAGs which haven't finished yet.
+     */
+    private Map<DAGJob, Double> dagStartTimes = new HashMap<DAGJob, Double>();
+
+    /** Time from job release to its submission to a VM */
+    private final Histogram queueWaitHistogram = Histogram.forTimes();
+
+    /** Time from job start to the end of its input transfers */
+    private final Histogram inputStagingHistogram = Histogram.forTimes();
+
+    /** Time of job computations */
+    private final Histogram computationHistogram = Histogram.forTimes();
+
+    /** Time from the end of job computation to the end of its output transfers */
+    private final Histogram outputStagingHistogram = Histogram.forTimes();
+
+    /** Time from DAG start to finish */
+    private final Histogram dagMakespanHistogram = Histogram.forTimes();
+
+    /** Fraction of core-seconds which terminated VMs didn't spend on transfers nor computations */
+    private final Histogram vmIdleFractionHistogram = Histogram.forFractions();
+
+    /**
+     * Registers the statistics with a new simulation of the same DAGs and clears them, keeping their capacity.
+     */
+    @Override
+    public void reset() {
+        super.reset();
+        lastJobFinishTime = 0.0;
+        lastVmFinishTime = 0.0;
+        lastDagFinishTime = 0.0;
+        finishedDagsWithinBudgetAndDeadline.clear();
+        allVMs.clear();
+        cost.reset();
+        dagStartTimes.clear();
+        queueWaitHistogram.reset();
+        inputStagingHistogram.reset();
+        computationHistogram.reset();
+        outputStagingHistogram.reset();
+        dagMakespanHistogram.reset();
+        vmIdleFractionHistogram.reset();
+    }
+
+    /**
+     * Like {@link #reset()}, for a simulation with the given constraints.
+     */
+    public void reset(double budget, double deadline) {
+        this.budget = budget;
+        this.deadline = deadline;
+        reset();
+    }
+
     @Override
     public void shutdownEntity() {
         getCloudsim().log("Actual cost: " + this.getCost());
@@ -119,11 +181,7 @@ public class AlgorithmStatistics extends CWSSimEntity implements DAGJobListener,
      * Returns the cost of all VMs that were ever created till now.
      */
     public double getCost() {
-        double cost = 0;
-        for (VM vm : allVMs) {
-            cost += vm.getCost();
-        }
-        return cost;
+        return cost.getCost();
     };
 
     public double getLastDagFinishTime() {
@@ -147,25 +205,43 @@ public class AlgorithmStatistics extends CWSSimEntity implements DAGJobListener,
         if (job.getResult() == Result.SUCCESS) {
             lastJobFinishTime = Math.max(lastJobFinishTime, job.getFinishTime());
         }
+        // jobs killed by VM termination don't have all the phases
+        if (job.getState() == Job.State.TERMINATED) {
+            inputStagingHistogram.record(job.getComputationStartTime() - job.getStartTime());
+            computationHistogram.record(job.getComputationFinishTime() - job.getComputationStartTime());
+            outputStagingHistogram.record(job.getFinishTime() - job.getComputationFinishTime());
+        }
     }
 
     @Override
     public void vmLaunched(VM vm) {
         this.allVMs.add(vm);
+        this.cost.vmLaunched(vm);
     }
 
     @Override
     public void vmTerminated(VM vm) {
         lastVmFinishTime = Math.max(lastVmFinishTime, getCloudsim().clock());
+        cost.vmTerminated(vm);
+        double coreSeconds = vm.getRuntime() * vm.getVmType().getCores();
+        if (coreSeconds > 0) {
+            double busy = vm.getTimeSpentOnComputations() + vm.getTimeSpentOnTransfers();
+            vmIdleFractionHistogram.record(Math.max(0.0, 1.0 - busy / coreSeconds));
+        }
     }
 
     @Override
     public void dagStarted(DAGJob dagJob) {
+        dagStartTimes.put(dagJob, getCloudsim().clock());
     }
 
     @Override
     public void dagFinished(DAGJob dagJob) {
         lastDagFinishTime = Math.max(lastDagFinishTime, getCloudsim().clock());
+        Double startTime = dagStartTimes.remove(dagJob);
+        if (startTime != null) {
+            dagMakespanHistogram.record(getCloudsim().clock() - startTime);
+        }
         if (withinBudgetAndDeadline()) {
             finishedDagsWithinBudgetAndDeadline.add(dagJob.getDAG());
         }
@@ -179,7 +255,7 @@ public class AlgorithmStatistics extends CWSSimEntity implements DAGJobListener,
     }
 
     /**
-     * Returns total time of all VMs spent on file transfers. The assumption is that VMs are 1-core.
+     * Returns total time of all VMs spent on file transfers, summed over all cores of each VM (core-seconds).
      */
     public double getTimeSpentOnTransfers() {
         double time = 0;
@@ -190,7 +266,7 @@ public class AlgorithmStatistics extends CWSSimEntity implements DAGJobListener,
     }
     
     /**
-     * Returns total time of all VMs spent on computations. The assumption is that VMs are 1-core.
+     * Returns total time of all VMs spent on computations, summed over all cores of each VM (core-seconds).
      */
     public double getTimeSpentOnComputations() {
         double time = 0;
@@ -210,5 +286,37 @@ public class AlgorithmStatistics extends CWSSimEntity implements DAGJobListener,
 
     @Override
     public void jobStarted(Job job) {
+        queueWaitHistogram.record(job.getSubmitTime() - job.getReleaseTime());
+    }
+
+    @Override
+    public void jobsStarted(List<Job> jobs) {
+        for (Job job : jobs) {
+            jobStarted(job);
+        }
+    }
+
+    public Histogram getQueueWaitHistogram() {
+        return queueWaitHistogram;
+    }
+
+    public Histogram getInputStagingHistogram() {
+        return inputStagingHistogram;
+    }
+
+    public Histogram getComputationHistogram() {
+        return computationHistogram;
+    }
+
+    public Histogram getOutputStagingHistogram() {
+        return outputStagingHistogram;
+    }
+
+    public Histogram getDagMakespanHistogram() {
+        return dagMakespanHistogram;
+    }
+
+    public Histogram getVmIdleFractionHistogram() {
+        return vmIdleFractionHistogram;
     }
 }
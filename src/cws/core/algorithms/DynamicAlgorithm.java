@@ -28,15 +28,12 @@ public class DynamicAlgorithm extends Algorithm {
     }
 
     @Override
-    public void simulateInternal() {
-        prepareEnvironment();
-        getCloudsim().startSimulation();
-    }
-
-    private void prepareEnvironment() {
+    protected void prepareSimulation() {
         provisioner.setEnvironment(getEnvironment());
 
-        setCloud(new Cloud(getCloudsim()));
+        if (getCloud() == null) {
+            setCloud(new Cloud(getCloudsim()));
+        }
         provisioner.setCloud(getCloud());
 
         setWorkflowEngine(new WorkflowEngine(provisioner, scheduler, getBudget(), getDeadline(), getCloudsim()));
@@ -0,0 +1,125 @@
+package cws.core.algorithms;
+
+import java.util.Arrays;
+
+import cws.core.exception.IllegalCWSArgumentException;
+
+/**
+ * Histogram of non-negative values with logarithmically sized buckets, in the spirit of HdrHistogram. Values between
+ * lowest and highest are counted in buckets whose bounds grow by a factor of (1 + relativeError), so percentiles are
+ * accurate to within that relative error, and the memory used doesn't depend on the number of recorded values. Values
+ * below lowest are counted as lowest, values above highest as highest, but the exact minimum and maximum are kept.
+ */
+public class Histogram {
+    private final double lowest;
+    private final double logBase;
+    private final long[] counts;
+
+    private long totalCount;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    public Histogram(double lowest, double highest, double relativeError) {
+        if (lowest <= 0 || highest <= lowest) {
+            throw new IllegalCWSArgumentException("Histogram range must satisfy 0 < lowest < highest");
+        }
+        if (relativeError <= 0) {
+            throw new IllegalCWSArgumentException("Histogram relative error must be > 0");
+        }
+        this.lowest = lowest;
+        this.logBase = Math.log1p(relativeError);
+        this.counts = new long[getBucket(highest) + 1];
+    }
+
+    /**
+     * Returns a histogram of times in seconds, from a millisecond to more than three years, with 1% error.
+     */
+    public static Histogram forTimes() {
+        return new Histogram(1e-3, 1e8, 0.01);
+    }
+
+    /**
+     * Returns a histogram of fractions from 1e-4 to 1, with 1% error.
+     */
+    public static Histogram forFractions() {
+        return new Histogram(1e-4, 1.0, 0.01);
+    }
+
+    private int getBucket(double value) {
+        if (value <= lowest) {
+            return 0;
+        }
+        return (int) Math.ceil(Math.log(value / lowest) / logBase);
+    }
+
+    /**
+     * Upper bound of the bucket.
+     */
+    private double getBucketValue(int bucket) {
+        return lowest * Math.exp(bucket * logBase);
+    }
+
+    /**
+     * Forgets all the recorded values, keeping the buckets.
+     */
+    public void reset() {
+        Arrays.fill(counts, 0);
+        totalCount = 0;
+        min = Double.POSITIVE_INFINITY;
+        max = Double.NEGATIVE_INFINITY;
+    }
+
+    public void record(double value) {
+        if (value < 0 || Double.isNaN(value)) {
+            throw new IllegalCWSArgumentException("Histogram value must be >= 0: " + value);
+        }
+        counts[Math.min(getBucket(value), counts.length - 1)]++;
+        totalCount++;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     * @return Recorded maximum, 0 if nothing was recorded.
+     */
+    public double getMax() {
+        return totalCount == 0 ? 0.0 : max;
+    }
+
+    /**
+     * @return Recorded minimum, 0 if nothing was recorded.
+     */
+    public double getMin() {
+        return totalCount == 0 ? 0.0 : min;
+    }
+
+    /**
+     * Returns the value below or at which the given percentage of recorded values lies, 0 if nothing was recorded.
+     *
+     * @param percentile - from 0 to 100.
+     */
+    public double getValueAtPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalCWSArgumentException("Percentile must be in [0, 100]: " + percentile);
+        }
+        if (totalCount == 0) {
+            return 0.0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * totalCount));
+        long seen = 0;
+        for (int bucket = 0; bucket < counts.length; bucket++) {
+            seen += counts[bucket];
+            if (seen == totalCount) {
+                // the bucket of the maximum, which may also hold values above highest
+                return max;
+            } else if (seen >= rank) {
+                return Math.max(min, Math.min(max, getBucketValue(bucket)));
+            }
+        }
+        return max;
+    }
+}
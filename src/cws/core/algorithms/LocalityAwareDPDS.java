@@ -0,0 +1,22 @@
+package cws.core.algorithms;
+
+import java.util.List;
+
+import cws.core.cloudsim.CloudSimWrapper;
+import cws.core.dag.DAG;
+import cws.core.engine.Environment;
+import cws.core.provisioner.SimpleUtilizationBasedProvisioner;
+import cws.core.scheduler.LocalityAwareEnsembleScheduler;
+
+/**
+ * Data locality aware version of DPDS algorithm.
+ * 
+ * Locality awareness here means that jobs are sent to the free VMs which cache most of their input files.
+ */
+public class LocalityAwareDPDS extends DynamicAlgorithm {
+    public LocalityAwareDPDS(double budget, double deadline, List<DAG> dags, double maxScaling,
+            AlgorithmStatistics ensembleStatistics, Environment environment, CloudSimWrapper cloudsim) {
+        super(budget, deadline, dags, new LocalityAwareEnsembleScheduler(cloudsim, environment),
+                new SimpleUtilizationBasedProvisioner(maxScaling, cloudsim), ensembleStatistics, environment, cloudsim);
+    }
+}
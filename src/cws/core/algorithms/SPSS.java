@@ -5,6 +5,7 @@ import java.util.*;
 import cws.core.cloudsim.CloudSimWrapper;
 import cws.core.dag.DAG;
 import cws.core.dag.Task;
+import cws.core.dag.TaskDoubleMap;
 import cws.core.dag.algorithms.TopologicalOrder;
 import cws.core.engine.Environment;
 
@@ -27,7 +28,7 @@ public class SPSS extends StaticAlgorithm {
      */
     @Override
     Plan planDAG(DAG dag, Plan currentPlan) throws NoFeasiblePlan {
-        HashMap<Task, Double> runtimes = new HashMap<Task, Double>();
+        TaskDoubleMap runtimes = new TaskDoubleMap(dag.numTasks());
         TopologicalOrder order = computeTopologicalOrder(dag, runtimes);
 
         /**
@@ -44,7 +45,7 @@ public class SPSS extends StaticAlgorithm {
          */
 
         // Get deadlines for each task (deadline distribution)
-        final HashMap<Task, Double> deadlines = getDeadlineDistribution(order, runtimes, this.alpha);
+        final TaskDoubleMap deadlines = getDeadlineDistribution(order, runtimes, this.alpha);
 
         // Sort tasks by deadline
         LinkedList<Task> sortedTasks = new LinkedList<Task>();
@@ -71,7 +72,7 @@ public class SPSS extends StaticAlgorithm {
         Plan plan = new Plan(currentPlan);
 
         // Actual finish times of tasks
-        HashMap<Task, Double> finishTimes = new HashMap<Task, Double>();
+        TaskDoubleMap finishTimes = new TaskDoubleMap(dag.numTasks());
 
         // Assign resources to each task
         for (Task task : sortedTasks) {
@@ -2,9 +2,11 @@ package cws.core.algorithms;
 
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.SortedSet;
 import java.util.TreeMap;
 
@@ -17,17 +19,21 @@ import cws.core.VMFactory;
 import cws.core.VMListener;
 import cws.core.WorkflowEngine;
 import cws.core.WorkflowEvent;
+import cws.core.cloudsim.CWSSimEvent;
 import cws.core.cloudsim.CloudSimWrapper;
 import cws.core.core.VMType;
 import cws.core.dag.DAG;
 import cws.core.dag.DAGJob;
 import cws.core.dag.Task;
+import cws.core.dag.TaskDoubleMap;
 import cws.core.dag.algorithms.CriticalPath;
 import cws.core.dag.algorithms.TopologicalOrder;
 import cws.core.engine.Environment;
+import cws.core.exception.UnknownWorkflowEventException;
 import cws.core.jobs.Job;
 import cws.core.jobs.Job.Result;
 import cws.core.jobs.JobListener;
+import cws.core.scheduler.JobBatch;
 
 public abstract class StaticAlgorithm extends Algorithm implements Provisioner, Scheduler, VMListener, JobListener {
     /** Plan */
@@ -42,18 +48,28 @@ public abstract class StaticAlgorithm extends Algorithm implements Provisioner,
     /** Mapping of Task to the VM that will run the task */
     private final HashMap<Task, VM> taskMap = new HashMap<Task, VM>();
 
-    /** Schedule of tasks for each VM */
-    private final HashMap<VM, LinkedList<Task>> vmQueues = new HashMap<VM, LinkedList<Task>>();
+    /** Schedule of tasks for each VM, in the order the VMs were launched */
+    private final LinkedHashMap<VM, LinkedList<Task>> vmQueues = new LinkedHashMap<VM, LinkedList<Task>>();
+
+    /** Planned resource of each VM */
+    private final HashMap<VM, Resource> vmResources = new HashMap<VM, Resource>();
 
     /** Set of idle VMs */
     private final HashSet<VM> idleVms = new HashSet<VM>();
 
+    /** Set of VMs which were sent to terminate */
+    private final HashSet<VM> releasedVms = new HashSet<VM>();
+
+    /** Jobs submitted while handling the current event, sent when it is handled */
+    private final JobBatch pendingJobs;
+
     private long planningStartWallTime;
     private long planningFinishWallTime;
 
     public StaticAlgorithm(double budget, double deadline, List<DAG> dags, AlgorithmStatistics ensembleStatistics,
             Environment environment, CloudSimWrapper cloudsim) {
         super(budget, deadline, dags, ensembleStatistics, environment, cloudsim);
+        pendingJobs = new JobBatch(cloudsim);
     }
 
     @Override
@@ -90,6 +106,7 @@ public abstract class StaticAlgorithm extends Algorithm implements Provisioner,
             // Build task<->vm mappings
             LinkedList<Task> vmQueue = new LinkedList<Task>();
             vmQueues.put(vm, vmQueue);
+            vmResources.put(vm, r);
             for (Double start : r.schedule.navigableKeySet()) {
                 Slot slot = r.schedule.get(start);
                 Task task = slot.task;
@@ -106,6 +123,98 @@ public abstract class StaticAlgorithm extends Algorithm implements Provisioner,
         for (DAG dag : admittedDAGs) {
             submitDAG(dag);
         }
+
+        if (getCloud().hasQuota()) {
+            double delay = getDeadline() - getCloudsim().clock();
+            getCloudsim().send(getId(), getId(), delay, WorkflowEvent.PLAN_DEADLINE, null);
+        }
+    }
+
+    @Override
+    public void processEvent(CWSSimEvent ev) {
+        switch (ev.getTag()) {
+        case WorkflowEvent.PLAN_DEADLINE:
+            checkPlanIsFollowed();
+            break;
+        default:
+            throw new UnknownWorkflowEventException("Unknown event: " + ev);
+        }
+    }
+
+    /**
+     * VMs which still wait for quota at the deadline cannot run their part of the plan anymore, and the VMs waiting for
+     * their tasks would stay idle forever. The plan is abandoned then and all its VMs are terminated.
+     */
+    private void checkPlanIsFollowed() {
+        int delayed = getCloud().getQueuedVMs(getWorkflowEngine().getId()).size();
+        if (delayed == 0) {
+            return;
+        }
+        abandonPlan(delayed + " VMs still wait for quota");
+    }
+
+    /**
+     * A VM which waited for quota starts its part of the plan late. When the delay is more than the slack between the
+     * end of its schedule and the deadline, its tasks cannot finish in time anymore.
+     */
+    private boolean isTooLate(VM vm) {
+        Resource r = vmResources.get(vm);
+        if (vm.getLaunchTime() <= r.getStart()) {
+            return false;
+        }
+        double end = getCloudsim().clock() + r.getEnd() - r.getStart();
+        return end > getDeadline();
+    }
+
+    private void abandonPlan(String reason) {
+        getCloudsim().log("Abandoning plan: " + reason);
+        for (VM vm : vmQueues.keySet()) {
+            terminateVM(vm);
+        }
+    }
+
+    /**
+     * Drops the DAGs which have tasks planned on the given VM from the queues of all VMs, so that we don't pay for
+     * running them past the deadline. The other DAGs keep their part of the plan. VMs left without tasks are terminated
+     * when they are idle, or as soon as they are launched.
+     */
+    private void abandonDAGsOf(VM vm) {
+        HashSet<Task> late = new HashSet<Task>(vmQueues.get(vm));
+        HashSet<Task> abandoned = new HashSet<Task>();
+        for (DAG dag : admittedDAGs) {
+            List<Task> tasks = new LinkedList<Task>();
+            boolean planned = false;
+            for (String id : dag.getTasks()) {
+                Task task = dag.getTaskById(id);
+                tasks.add(task);
+                planned |= late.contains(task);
+            }
+            if (planned) {
+                getCloudsim().log("Abandoning DAG " + dag.getId() + ": VM " + vm.getId()
+                        + " was launched too late to finish its tasks by the deadline");
+                abandoned.addAll(tasks);
+            }
+        }
+
+        List<VM> queued = getCloud().getQueuedVMs(getWorkflowEngine().getId());
+        for (Map.Entry<VM, LinkedList<Task>> entry : vmQueues.entrySet()) {
+            VM other = entry.getKey();
+            LinkedList<Task> queue = entry.getValue();
+            if (!queue.removeAll(abandoned)) {
+                continue;
+            }
+            if (queue.isEmpty() && queued.contains(other)) {
+                terminateVM(other);
+            } else {
+                submitNextTaskFor(other);
+            }
+        }
+    }
+
+    private void terminateVM(VM vm) {
+        if (releasedVms.add(vm)) {
+            getCloudsim().send(getWorkflowEngine().getId(), getCloud().getId(), 0.0, WorkflowEvent.VM_TERMINATE, vm);
+        }
     }
 
     /**
@@ -116,23 +225,23 @@ public abstract class StaticAlgorithm extends Algorithm implements Provisioner,
     /**
      * Assign deadlines to each task in the DAG
      */
-    protected HashMap<Task, Double> getDeadlineDistribution(TopologicalOrder order, HashMap<Task, Double> runtimes,
-            double alpha) {
+    protected TaskDoubleMap getDeadlineDistribution(TopologicalOrder order, TaskDoubleMap runtimes, double alpha) {
         // Sanity check
         if (alpha < 0 || alpha > 1) {
             throw new RuntimeException("Invalid alpha: " + alpha + ". Valid range is [0,1].");
         }
 
         // The level of each task is max[p in parents](p.level) + 1
-        HashMap<Task, Integer> levels = new HashMap<Task, Integer>();
+        // indexed by Task#getIndex()
+        int[] levels = new int[order.size()];
         int numlevels = 0;
         for (Task t : order) {
             int level = 0;
             for (Task p : t.getParents()) {
-                int plevel = levels.get(p);
+                int plevel = levels[p.getIndex()];
                 level = Math.max(level, plevel + 1);
             }
-            levels.put(t, level);
+            levels[t.getIndex()] = level;
             numlevels = Math.max(numlevels, level + 1);
         }
 
@@ -151,7 +260,7 @@ public abstract class StaticAlgorithm extends Algorithm implements Provisioner,
 
         for (Task task : order) {
             double runtime = runtimes.get(task);
-            int level = levels.get(task);
+            int level = levels[task.getIndex()];
 
             totalRuntime += runtime;
             totalRuntimesByLevel[level] += runtime;
@@ -192,9 +301,9 @@ public abstract class StaticAlgorithm extends Algorithm implements Provisioner,
          * 
          * t.deadline = max[p in t.parents](p.deadline) + t.runtime + shares[t.level]
          */
-        HashMap<Task, Double> deadlines = new HashMap<Task, Double>();
+        TaskDoubleMap deadlines = new TaskDoubleMap(order.size());
         for (Task task : order) {
-            int level = levels.get(task);
+            int level = levels[task.getIndex()];
             double latestDeadline = 0.0;
             for (Task parent : task.getParents()) {
                 double pdeadline = deadlines.get(parent);
@@ -231,7 +340,11 @@ public abstract class StaticAlgorithm extends Algorithm implements Provisioner,
     @Override
     public void vmLaunched(VM vm) {
         idleVms.add(vm);
+        if (isTooLate(vm)) {
+            abandonDAGsOf(vm);
+        }
         submitNextTaskFor(vm);
+        pendingJobs.submit(getWorkflowEngine());
     }
 
     @Override
@@ -249,6 +362,7 @@ public abstract class StaticAlgorithm extends Algorithm implements Provisioner,
         // Try to submit the next task
         VM vm = taskMap.get(task);
         submitNextTaskFor(vm);
+        pendingJobs.submit(getWorkflowEngine());
     }
 
     @Override
@@ -259,9 +373,16 @@ public abstract class StaticAlgorithm extends Algorithm implements Provisioner,
     public void jobStarted(Job job) {
     }
 
+    @Override
+    public void jobsStarted(List<Job> jobs) {
+    }
+
     @Override
     public void jobFinished(Job job) {
         VM vm = job.getVM();
+        if (releasedVms.contains(vm)) {
+            return;
+        }
 
         // Sanity check
         DAG dag = job.getDAGJob().getDAG();
@@ -281,11 +402,12 @@ public abstract class StaticAlgorithm extends Algorithm implements Provisioner,
 
         idleVms.add(vm);
         submitNextTaskFor(vm);
+        pendingJobs.submit(getWorkflowEngine());
     }
 
     private void submitNextTaskFor(VM vm) {
-        // If the VM is busy, do nothing
-        if (!idleVms.contains(vm)) {
+        // If the VM is busy or terminating, do nothing
+        if (!idleVms.contains(vm) || releasedVms.contains(vm)) {
             return;
         }
 
@@ -294,7 +416,7 @@ public abstract class StaticAlgorithm extends Algorithm implements Provisioner,
         Task task = vmqueue.peek();
         if (task == null) {
             // No more tasks
-            getCloudsim().send(getWorkflowEngine().getId(), getCloud().getId(), 0.0, WorkflowEvent.VM_TERMINATE, vm);
+            terminateVM(vm);
         } else {
             // If job for task is ready
             if (readyJobs.containsKey(task)) {
@@ -327,14 +449,14 @@ public abstract class StaticAlgorithm extends Algorithm implements Provisioner,
         }
         readyJobs.remove(task);
 
-        // Submit the job to the VM
+        // Submit the job to the VM, telling it what comes next
         idleVms.remove(vm);
-        job.setVM(vm);
-        getCloudsim().send(getWorkflowEngine().getId(), vm.getId(), 0.0, WorkflowEvent.JOB_SUBMIT, job);
+        vm.setNextPlannedTask(vmqueue.peek());
+        pendingJobs.add(job, vm);
     }
 
     @Override
-    public void simulateInternal() {
+    protected void prepareSimulation() {
         prepareEnvironment();
 
         planningStartWallTime = System.nanoTime();
@@ -342,19 +464,18 @@ public abstract class StaticAlgorithm extends Algorithm implements Provisioner,
         plan();
 
         planningFinishWallTime = System.nanoTime();
-
-        getCloudsim().startSimulation();
     }
 
     private void prepareEnvironment() {
-        Cloud cloud = new Cloud(getCloudsim());
+        if (getCloud() == null) {
+            setCloud(new Cloud(getCloudsim()));
+        }
         WorkflowEngine engine = new WorkflowEngine(this, this, getBudget(), getDeadline(), getCloudsim());
         EnsembleManager manager = new EnsembleManager(engine, getCloudsim());
 
-        setCloud(cloud);
         setEnsembleManager(manager);
         setWorkflowEngine(engine);
-        cloud.addVMListener(this);
+        getCloud().addVMListener(engine.getId(), this);
         engine.addJobListener(this);
     }
 
@@ -365,10 +486,10 @@ public abstract class StaticAlgorithm extends Algorithm implements Provisioner,
      * @return TopologicalOrder
      * @throws NoFeasiblePlan when best critical path > deadline
      */
-    protected TopologicalOrder computeTopologicalOrder(DAG dag, HashMap<Task, Double> runtimes) throws NoFeasiblePlan {
+    protected TopologicalOrder computeTopologicalOrder(DAG dag, TaskDoubleMap runtimes) throws NoFeasiblePlan {
         TopologicalOrder order = new TopologicalOrder(dag);
         for (Task task : order) {
-            double runtime = getPredictedTaskRuntime(task);
+            double runtime = getPredictedTaskRuntime(dag, task);
             runtimes.put(task, runtime);
         }
 
@@ -387,7 +508,7 @@ public abstract class StaticAlgorithm extends Algorithm implements Provisioner,
      * Creates and returns new {@link CriticalPath} object. May be overridden by subclasses to provide different
      * implementations.
      */
-    protected CriticalPath newCriticalPath(TopologicalOrder order, HashMap<Task, Double> runtimes) {
+    protected CriticalPath newCriticalPath(TopologicalOrder order, TaskDoubleMap runtimes) {
         return new CriticalPath(order, runtimes, getEnvironment());
     }
 
@@ -395,8 +516,8 @@ public abstract class StaticAlgorithm extends Algorithm implements Provisioner,
      * Estimates and returns total task runtime. May be override by subclasses to provide values based on different
      * criteria.
      */
-    protected double getPredictedTaskRuntime(Task task) {
-        return getEnvironment().getComputationPredictedRuntime(task);
+    protected double getPredictedTaskRuntime(DAG dag, Task task) {
+        return getEnvironment().getComputationPredictedRuntime(dag, task);
     }
 
     class Slot {
@@ -1,11 +1,11 @@
 package cws.core.algorithms;
 
-import java.util.HashMap;
 import java.util.List;
 
 import cws.core.cloudsim.CloudSimWrapper;
 import cws.core.dag.DAG;
 import cws.core.dag.Task;
+import cws.core.dag.TaskDoubleMap;
 import cws.core.dag.algorithms.CriticalPath;
 import cws.core.dag.algorithms.StorageAwareCriticalPath;
 import cws.core.dag.algorithms.TopologicalOrder;
@@ -23,13 +23,13 @@ public class StorageAwareSPSS extends SPSS {
     }
 
     @Override
-    protected CriticalPath newCriticalPath(TopologicalOrder order, HashMap<Task, Double> runtimes) {
+    protected CriticalPath newCriticalPath(TopologicalOrder order, TaskDoubleMap runtimes) {
         return new StorageAwareCriticalPath(order, runtimes, getEnvironment());
     }
 
     @Override
-    protected double getPredictedTaskRuntime(Task task) {
-        return getEnvironment().getComputationPredictedRuntime(task)
-                + getEnvironment().getTransfersPredictedRuntime(task);
+    protected double getPredictedTaskRuntime(DAG dag, Task task) {
+        return getEnvironment().getComputationPredictedRuntime(dag, task)
+                + getEnvironment().getTransfersPredictedRuntime(dag, task);
     }
 }
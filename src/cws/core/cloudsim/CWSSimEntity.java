@@ -1,5 +1,6 @@
 package cws.core.cloudsim;
 
+import org.cloudbus.cloudsim.core.CloudSim;
 import org.cloudbus.cloudsim.core.SimEntity;
 import org.cloudbus.cloudsim.core.SimEvent;
 
@@ -16,16 +17,42 @@ public abstract class CWSSimEntity extends SimEntity {
         return cloudsim;
     }
 
+    /**
+     * Registers this entity with the simulation started by {@link CloudSimWrapper#reset()}, so that it can be reused
+     * instead of creating a new one. Entities are given ids in the order they are registered, so entities have to be
+     * reset in the order they were created. Subclasses clear their run state and call super.reset().
+     */
+    public void reset() {
+        setId(-1);
+        setState(RUNNABLE);
+        setEventBuffer(null);
+        CloudSim.addEntity(this);
+    }
+
+    /**
+     * @return whether CloudSim would deliver events to this entity right away.
+     */
+    boolean isRunnable() {
+        return getState() == RUNNABLE;
+    }
+
     @Deprecated
     @Override
     protected void send(int entityId, double delay, int cloudSimTag) {
         super.send(entityId, delay, cloudSimTag);
     }
 
+    /**
+     * Goes through {@link CloudSimWrapper#send(int, int, double, int, Object)}, so that the inherited sendNow methods
+     * use the zero delay lane too. Like in {@link SimEntity}, the event is dropped when the simulation is not running.
+     */
     @Deprecated
     @Override
     protected void send(int entityId, double delay, int cloudSimTag, Object data) {
-        super.send(entityId, delay, cloudSimTag, data);
+        if (entityId < 0 || !CloudSim.running()) {
+            return;
+        }
+        cloudsim.send(getId(), entityId, Math.max(0.0, delay), cloudSimTag, data);
     }
 
     @Deprecated
@@ -50,7 +77,28 @@ public abstract class CWSSimEntity extends SimEntity {
     @Deprecated
     @Override
     public final void processEvent(SimEvent ev) {
-        processEvent(new CWSSimEvent(ev));
+        if (ev.getData() instanceof ZeroDelayLane) {
+            ((ZeroDelayLane) ev.getData()).flush();
+            return;
+        }
+        if (cloudsim == null) {
+            processEvent(new CWSSimEvent(ev));
+            return;
+        }
+        cloudsim.onEventProcessed();
+        ObjectPool<CWSSimEvent> pool = cloudsim.getPool(CWSSimEvent.class);
+        if (pool == null) {
+            processEvent(new CWSSimEvent(ev));
+            return;
+        }
+        CWSSimEvent event = pool.reuse();
+        if (event == null) {
+            event = new CWSSimEvent(ev);
+        } else {
+            event.wrap(ev);
+        }
+        processEvent(event);
+        pool.release(event);
     }
 
     /**
@@ -2,19 +2,62 @@ package cws.core.cloudsim;
 
 import org.cloudbus.cloudsim.core.SimEvent;
 
-public class CWSSimEvent {
+/**
+ * Event received by {@link CWSSimEntity}. It either wraps CloudSim's {@link SimEvent} or describes an event delivered
+ * through {@link CloudSimWrapper}'s zero-delay lane, which never enters CloudSim's queues.
+ */
+public class CWSSimEvent implements Recyclable {
     private SimEvent simEvent;
 
+    /** Fields of a zero-delay lane event, used when simEvent is null */
+    private int source;
+    private int destination;
+    private double time;
+    private int tag;
+    private Object data;
+
     public CWSSimEvent(SimEvent simEvent) {
         this.simEvent = simEvent;
     }
 
+    CWSSimEvent(int source, int destination, double time, int tag, Object data) {
+        set(source, destination, time, tag, data);
+    }
+
+    /**
+     * Reinitializes a recycled event to wrap CloudSim's event.
+     */
+    void wrap(SimEvent simEvent) {
+        this.simEvent = simEvent;
+    }
+
+    /**
+     * Reinitializes a recycled event to be a zero-delay lane event.
+     */
+    void set(int source, int destination, double time, int tag, Object data) {
+        this.simEvent = null;
+        this.source = source;
+        this.destination = destination;
+        this.time = time;
+        this.tag = tag;
+        this.data = data;
+    }
+
+    @Override
+    public void recycle() {
+        this.simEvent = null;
+        this.data = null;
+    }
+
     /**
      * @return
      * @see org.cloudbus.cloudsim.core.SimEvent#toString()
      */
     @Override
     public String toString() {
+        if (simEvent == null) {
+            return "Event tag = " + tag + " source = " + source + " destination = " + destination + " time = " + time;
+        }
         return simEvent.toString();
     }
 
@@ -23,6 +66,9 @@ public class CWSSimEvent {
      * @see org.cloudbus.cloudsim.core.SimEvent#getType()
      */
     public int getType() {
+        if (simEvent == null) {
+            return SimEvent.SEND;
+        }
         return simEvent.getType();
     }
 
@@ -32,6 +78,9 @@ public class CWSSimEvent {
      * @see org.cloudbus.cloudsim.core.SimEvent#compareTo(org.cloudbus.cloudsim.core.SimEvent)
      */
     public int compareTo(SimEvent event) {
+        if (simEvent == null) {
+            return Double.compare(time, event.eventTime());
+        }
         return simEvent.compareTo(event);
     }
 
@@ -40,6 +89,9 @@ public class CWSSimEvent {
      * @see org.cloudbus.cloudsim.core.SimEvent#getDestination()
      */
     public int getDestination() {
+        if (simEvent == null) {
+            return destination;
+        }
         return simEvent.getDestination();
     }
 
@@ -48,6 +100,9 @@ public class CWSSimEvent {
      * @see org.cloudbus.cloudsim.core.SimEvent#getSource()
      */
     public int getSource() {
+        if (simEvent == null) {
+            return source;
+        }
         return simEvent.getSource();
     }
 
@@ -56,6 +111,9 @@ public class CWSSimEvent {
      * @see org.cloudbus.cloudsim.core.SimEvent#eventTime()
      */
     public double eventTime() {
+        if (simEvent == null) {
+            return time;
+        }
         return simEvent.eventTime();
     }
 
@@ -64,6 +122,9 @@ public class CWSSimEvent {
      * @see org.cloudbus.cloudsim.core.SimEvent#endWaitingTime()
      */
     public double endWaitingTime() {
+        if (simEvent == null) {
+            return time;
+        }
         return simEvent.endWaitingTime();
     }
 
@@ -72,6 +133,9 @@ public class CWSSimEvent {
      * @see org.cloudbus.cloudsim.core.SimEvent#type()
      */
     public int type() {
+        if (simEvent == null) {
+            return SimEvent.SEND;
+        }
         return simEvent.type();
     }
 
@@ -80,6 +144,9 @@ public class CWSSimEvent {
      * @see org.cloudbus.cloudsim.core.SimEvent#scheduledBy()
      */
     public int scheduledBy() {
+        if (simEvent == null) {
+            return source;
+        }
         return simEvent.scheduledBy();
     }
 
@@ -88,6 +155,9 @@ public class CWSSimEvent {
      * @see org.cloudbus.cloudsim.core.SimEvent#getTag()
      */
     public int getTag() {
+        if (simEvent == null) {
+            return tag;
+        }
         return simEvent.getTag();
     }
 
@@ -96,6 +166,9 @@ public class CWSSimEvent {
      * @see org.cloudbus.cloudsim.core.SimEvent#getData()
      */
     public Object getData() {
+        if (simEvent == null) {
+            return data;
+        }
         return simEvent.getData();
     }
 
@@ -105,6 +178,9 @@ public class CWSSimEvent {
      */
     @Override
     public Object clone() {
+        if (simEvent == null) {
+            return new CWSSimEvent(source, destination, time, tag, data);
+        }
         return simEvent.clone();
     }
 
@@ -113,6 +189,10 @@ public class CWSSimEvent {
      * @see org.cloudbus.cloudsim.core.SimEvent#setSource(int)
      */
     public void setSource(int s) {
+        if (simEvent == null) {
+            source = s;
+            return;
+        }
         simEvent.setSource(s);
     }
 
@@ -121,6 +201,10 @@ public class CWSSimEvent {
      * @see org.cloudbus.cloudsim.core.SimEvent#setDestination(int)
      */
     public void setDestination(int d) {
+        if (simEvent == null) {
+            destination = d;
+            return;
+        }
         simEvent.setDestination(d);
     }
 
@@ -7,6 +7,8 @@ import java.util.Calendar;
 import org.cloudbus.cloudsim.core.CloudSim;
 import org.cloudbus.cloudsim.core.predicates.Predicate;
 
+import cws.core.RandomStreams;
+
 /**
  * Wrapper for CloudSim class. Why did we need this class? Because CloudSim has only static methods and we wanted to
  * make code more testable, hence we have created this class.
@@ -24,6 +26,21 @@ public class CloudSimWrapper {
     /** Whether logging is enabled. Defaults to true. */
     private boolean logsEnabled = true;
 
+    /** Lane for events sent with zero delay, created on {@link #init()} */
+    private ZeroDelayLane zeroDelayLane;
+
+    /** Id of the simulation's storage manager, resolved once when it is created. -1 if there is none yet. */
+    private int storageManagerId = -1;
+
+    /** Pools of recycled objects, null if objects are not recycled */
+    private Recycler recycler;
+
+    /** Random streams of the current simulation */
+    private RandomStreams randomStreams = new RandomStreams(0);
+
+    /** Number of events processed by entities in all the simulations run with this wrapper */
+    private long eventsProcessed = 0;
+
     /**
      * Creates CloudSimWrapper which prints logs to stdout.
      */
@@ -54,11 +71,29 @@ public class CloudSimWrapper {
     }
 
     /**
-     * Calls {@link CloudSim#init(int, Calendar, boolean)} with params 1, null, false.
+     * Calls {@link CloudSim#init(int, Calendar, boolean)} with params 1, null, false and sets up the zero delay lane.
      * @see CloudSim#init(int, Calendar, boolean)
      */
     public void init() {
         CloudSim.init(1, null, false);
+        zeroDelayLane = new ZeroDelayLane(this);
+    }
+
+    /**
+     * Starts a new simulation with this wrapper, e.g. for the next cell of a sweep. CloudSim's state is static, so it is
+     * initialized again like in {@link #init()}, but the zero delay lane is reused. Entities of the previous simulation
+     * which should be reused have to be registered again with {@link CWSSimEntity#reset()}.
+     */
+    public void reset() {
+        CloudSim.init(1, null, false);
+        if (zeroDelayLane == null) {
+            zeroDelayLane = new ZeroDelayLane(this);
+        } else {
+            zeroDelayLane.reset();
+        }
+        storageManagerId = -1;
+        simulationStartWallTime = 0;
+        simulationFinishWallTime = 0;
     }
 
     /**
@@ -77,6 +112,86 @@ public class CloudSimWrapper {
         return CloudSim.getEntityId(entityName);
     }
 
+    /**
+     * Called when an entity processes an event from CloudSim's queue, i.e. after all entities have started.
+     */
+    void onEventProcessed() {
+        eventsProcessed++;
+        if (zeroDelayLane != null) {
+            zeroDelayLane.open();
+        }
+    }
+
+    /**
+     * Called when entities have processed the given number of events from the zero delay lane.
+     */
+    void onLaneEventsProcessed(int count) {
+        eventsProcessed += count;
+    }
+
+    /**
+     * @return Number of events processed by entities in all the simulations run with this wrapper. Can be read from
+     *         other threads while a simulation is running, but is approximate then.
+     */
+    public long getEventsProcessed() {
+        return eventsProcessed;
+    }
+
+    /**
+     * Registers the storage manager of this simulation, so that VMs don't have to look it up by name for every job.
+     * @param storageManagerId The id of the storage manager entity.
+     */
+    public void setStorageManagerId(int storageManagerId) {
+        this.storageManagerId = storageManagerId;
+    }
+
+    /**
+     * @return Whether a storage manager has been created for this simulation.
+     */
+    public boolean hasStorageManager() {
+        return storageManagerId != -1;
+    }
+
+    /**
+     * @return The id of the storage manager of this simulation.
+     * @throws IllegalStateException When no storage manager has been created for this simulation.
+     */
+    public int getStorageManagerId() {
+        if (storageManagerId == -1) {
+            throw new IllegalStateException("No storage manager has been registered in this simulation");
+        }
+        return storageManagerId;
+    }
+
+    /**
+     * Makes the simulation recycle jobs, transfers and events through the recycler's pools.
+     * @param recycler The recycler, null to allocate new objects.
+     */
+    public void setRecycler(Recycler recycler) {
+        this.recycler = recycler;
+    }
+
+    /**
+     * @return The pool of objects of the given type, or null if objects are not recycled in this simulation.
+     */
+    public <T extends Recyclable> ObjectPool<T> getPool(Class<T> type) {
+        if (recycler == null) {
+            return null;
+        }
+        return recycler.getPool(type);
+    }
+
+    /**
+     * Sets the streams which stochastic components of the simulation, e.g. VMs, draw their random numbers from.
+     */
+    public void setRandomStreams(RandomStreams randomStreams) {
+        this.randomStreams = randomStreams;
+    }
+
+    public RandomStreams getRandomStreams() {
+        return randomStreams;
+    }
+
     /**
      * @see CloudSim#getEntity(String)
      */
@@ -85,9 +200,15 @@ public class CloudSimWrapper {
     }
 
     /**
+     * Events due at the current clock go through the zero delay lane when it is set up, other events (and events sent
+     * before the simulation starts) go to CloudSim's future queue. The delivery order is the same in both cases.
      * @see CloudSim#send(int, int, double, int, Object)
      */
     public void send(int src, int dest, double delay, int tag, Object data) {
+        if (zeroDelayLane != null && delay >= 0 && clock() + delay == clock()
+                && zeroDelayLane.offer(src, dest, tag, data)) {
+            return;
+        }
         CloudSim.send(src, dest, delay, tag, data);
     }
 
@@ -126,6 +247,13 @@ public class CloudSimWrapper {
         }
     }
 
+    /**
+     * @param logOutputStream The stream to print logs to from now on.
+     */
+    public void setLogOutputStream(OutputStream logOutputStream) {
+        this.logPrintStream = new PrintStream(logOutputStream);
+    }
+
     /**
      * @param logsEnabled Whether logging should be enabled.
      */
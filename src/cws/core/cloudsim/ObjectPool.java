@@ -0,0 +1,59 @@
+package cws.core.cloudsim;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pool of objects of one type, see {@link Recycler}. The pool doesn't create nor reinitialize objects, it only keeps
+ * them until they are reused. Objects are {@link Recyclable#recycle()}d when they are returned to the pool.
+ *
+ * An object in use is either retained, i.e. returned to the pool by {@link #releaseRetained()} at the end of the
+ * simulation cell, or released explicitly with {@link #release(Recyclable)} as soon as nothing references it anymore.
+ */
+public class ObjectPool<T extends Recyclable> {
+    private final List<T> free = new ArrayList<T>();
+    private final List<T> retained = new ArrayList<T>();
+
+    /**
+     * @return A released object, which the caller has to reinitialize, or null if there is none.
+     */
+    public T reuse() {
+        if (free.isEmpty()) {
+            return null;
+        }
+        return free.remove(free.size() - 1);
+    }
+
+    /**
+     * Keeps the object in use until {@link #releaseRetained()}.
+     */
+    public void retain(T object) {
+        retained.add(object);
+    }
+
+    /**
+     * Returns the object to the pool right away. The caller guarantees it is not referenced anymore.
+     */
+    public void release(T object) {
+        object.recycle();
+        free.add(object);
+    }
+
+    /**
+     * Returns all the retained objects to the pool.
+     */
+    public void releaseRetained() {
+        for (T object : retained) {
+            object.recycle();
+            free.add(object);
+        }
+        retained.clear();
+    }
+
+    /**
+     * @return Number of objects waiting to be reused.
+     */
+    public int getFreeCount() {
+        return free.size();
+    }
+}
@@ -0,0 +1,12 @@
+package cws.core.cloudsim;
+
+/**
+ * Object which can be kept in an {@link ObjectPool} and reused.
+ */
+public interface Recyclable {
+    /**
+     * Called when the object is returned to its pool. Drops references to other objects, so that the pool doesn't
+     * keep them alive.
+     */
+    public void recycle();
+}
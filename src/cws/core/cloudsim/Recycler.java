@@ -0,0 +1,42 @@
+package cws.core.cloudsim;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Opt-in recycling of the objects a simulation allocates per job, transfer and event, so that a sweep of many
+ * simulation cells reuses them instead of leaving them to the garbage collector. A recycler outlives the cells: it is
+ * set on the {@link CloudSimWrapper} of each cell, and {@link #endCell()} is called once nothing references the cell's
+ * objects anymore, e.g. after its results have been written.
+ *
+ * Objects which listeners or statistics may reference until the end of the cell (jobs, which the log and uploads written
+ * behind keep after they finish, and VM intervals) are retained until {@link #endCell()}, so that holding them is
+ * always safe, and only help the following cells. Objects with a short, well-defined lifetime are released right after
+ * use and reused within the cell: events, which must not be kept after they were processed, and global storage
+ * transfers, which are released by the storage when they finish.
+ */
+public class Recycler {
+    private final Map<Class<?>, ObjectPool<?>> pools = new LinkedHashMap<Class<?>, ObjectPool<?>>();
+
+    /**
+     * @return The pool of objects of the given type, created on first use.
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends Recyclable> ObjectPool<T> getPool(Class<T> type) {
+        ObjectPool<T> pool = (ObjectPool<T>) pools.get(type);
+        if (pool == null) {
+            pool = new ObjectPool<T>();
+            pools.put(type, pool);
+        }
+        return pool;
+    }
+
+    /**
+     * Returns all the objects retained during the cell to their pools.
+     */
+    public void endCell() {
+        for (ObjectPool<?> pool : pools.values()) {
+            pool.releaseRetained();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package cws.core.cloudsim;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.SimEntity;
+
+/**
+ * FIFO lane for events sent with zero delay while the simulation is running. Such events are due at the current
+ * clock, so instead of inserting each of them into CloudSim's future queue we keep them in a list and send a single
+ * flush event for the whole list.
+ *
+ * The delivery order is exactly the one CloudSim would use: events due at the same time are moved from the future
+ * queue to the deferred queue in the order they were sent, and then each entity (in order of ids) processes its
+ * deferred events. The flush event is the only event in the future queue due at the current clock, because every
+ * other such event is in the lane, so it is processed as a clock tick of its own.
+ */
+class ZeroDelayLane {
+    /** CloudSim delivers events due at the same time entity by entity */
+    private static final Comparator<CWSSimEvent> BY_DESTINATION = new Comparator<CWSSimEvent>() {
+        @Override
+        public int compare(CWSSimEvent e1, CWSSimEvent e2) {
+            return e1.getDestination() - e2.getDestination();
+        }
+    };
+
+    /**
+     * Events sent from startEntity() are due together with the ones sent before the simulation, so they have to use
+     * CloudSim's queue. The lane opens once entities start processing events.
+     */
+    private boolean open = false;
+
+    private final CloudSimWrapper cloudsim;
+
+    /** Events waiting for the flush, in the order they were sent */
+    private List<CWSSimEvent> pending = new ArrayList<CWSSimEvent>();
+
+    /** Empty list which becomes pending at the next flush */
+    private List<CWSSimEvent> spare = new ArrayList<CWSSimEvent>();
+
+    /** Whether the flush event for pending events has been sent */
+    private boolean flushScheduled = false;
+
+    ZeroDelayLane(CloudSimWrapper cloudsim) {
+        this.cloudsim = cloudsim;
+    }
+
+    void open() {
+        open = true;
+    }
+
+    /**
+     * Closes the lane for a new simulation, keeping the capacity of its lists.
+     */
+    void reset() {
+        open = false;
+        flushScheduled = false;
+        pending.clear();
+        spare.clear();
+    }
+
+    /**
+     * Queues the event in the lane if it can be delivered through it.
+     * @return false when the event has to be sent through CloudSim's queue.
+     */
+    boolean offer(int src, int dest, int tag, Object data) {
+        if (!open || !CloudSim.running() || dest < 0 || dest >= CloudSim.getNumEntities()) {
+            return false;
+        }
+        SimEntity entity = CloudSim.getEntity(dest);
+        if (!(entity instanceof CWSSimEntity) || !((CWSSimEntity) entity).isRunnable()) {
+            return false;
+        }
+        ObjectPool<CWSSimEvent> pool = cloudsim.getPool(CWSSimEvent.class);
+        CWSSimEvent event = pool == null ? null : pool.reuse();
+        if (event == null) {
+            event = new CWSSimEvent(src, dest, CloudSim.clock(), tag, data);
+        } else {
+            event.set(src, dest, CloudSim.clock(), tag, data);
+        }
+        pending.add(event);
+        if (!flushScheduled) {
+            flushScheduled = true;
+            // any entity can deliver the flush, see CWSSimEntity#processEvent(SimEvent)
+            CloudSim.send(src, dest, 0.0, 0, this);
+        }
+        return true;
+    }
+
+    /**
+     * Delivers all the events in the lane.
+     */
+    void flush() {
+        // events sent while flushing belong to the next clock tick
+        List<CWSSimEvent> batch = pending;
+        pending = spare;
+        flushScheduled = false;
+        if (batch.size() > 1) {
+            // stable, so each entity gets its events in the order they were sent
+            Collections.sort(batch, BY_DESTINATION);
+        }
+        ObjectPool<CWSSimEvent> pool = cloudsim.getPool(CWSSimEvent.class);
+        for (CWSSimEvent ev : batch) {
+            ((CWSSimEntity) CloudSim.getEntity(ev.getDestination())).processEvent(ev);
+            if (pool != null) {
+                pool.release(ev);
+            }
+        }
+        cloudsim.onLaneEventsProcessed(batch.size());
+        batch.clear();
+        spare = batch;
+    }
+}
@@ -22,6 +22,10 @@ import cws.core.storage.global.GlobalStorageParams;
  * specified relatively to gs/ directory by default.
  * 
  * Global storage params can be overrode by CLI args like --gs-read-speed.
+ * 
+ * The prefetchBudget entry is optional, prefetching is disabled when it is missing. The transferParallelism entry is
+ * optional too, each job transfers one file at a time when it is missing. So is the writeBehindBuffer entry, outputs
+ * are not written behind when it is missing.
  */
 
 public class GlobalStorageParamsLoader {
@@ -34,6 +38,9 @@ public class GlobalStorageParamsLoader {
     static final String GS_LATENCY_CONFIG_ENTRY = "latency";
     static final String GS_CHUNK_TRANSFER_TIME_CONFIG_ENTRY = "chunkTransferTime";
     static final String GS_REPLICAS_NUMBER_CONFIG_ENTRY = "replicas";
+    static final String GS_PREFETCH_BUDGET_CONFIG_ENTRY = "prefetchBudget";
+    static final String GS_TRANSFER_PARALLELISM_CONFIG_ENTRY = "transferParallelism";
+    static final String GS_WRITE_BEHIND_BUFFER_CONFIG_ENTRY = "writeBehindBuffer";
     static final String GS_CONFIGS_DIRECTORY_OPTION_NAME = "global-storage-directory";
     static final String GS_CONFIGS_DIRECTORY_SHORT_OPTION_NAME = "gsd";
     private static final String DEFAULT_GS_CONFIGS_DIRECTORY = "gs/";
@@ -48,6 +55,12 @@ public class GlobalStorageParamsLoader {
     static final String GS_CHUNK_TRANSFER_TIME_SHORT_OPTION_NAME = "gsct";
     static final String GS_REPLICAS_NUMBER_OPTION_NAME = "gs-replicas";
     static final String GS_REPLICAS_NUMBER_SHORT_OPTION_NAME = "gsr";
+    static final String GS_PREFETCH_BUDGET_OPTION_NAME = "gs-prefetch-budget";
+    static final String GS_PREFETCH_BUDGET_SHORT_OPTION_NAME = "gspb";
+    static final String GS_TRANSFER_PARALLELISM_OPTION_NAME = "gs-transfer-parallelism";
+    static final String GS_TRANSFER_PARALLELISM_SHORT_OPTION_NAME = "gstp";
+    static final String GS_WRITE_BEHIND_BUFFER_OPTION_NAME = "gs-write-behind-buffer";
+    static final String GS_WRITE_BEHIND_BUFFER_SHORT_OPTION_NAME = "gswb";
 
     public static void buildCliOptions(Options options) {
         Option globalStorage = new Option(GS_TYPE_SHORT_OPTION_NAME, GS_TYPE_OPTION_NAME, HAS_ARG, String.format(
@@ -89,6 +102,23 @@ public class GlobalStorageParamsLoader {
                 GS_CHUNK_TRANSFER_TIME_OPTION_NAME, HAS_ARG, "Overrides Global Storage transfer time");
         chunkTransferTime.setArgName("SECONDS");
         options.addOption(chunkTransferTime);
+
+        Option prefetchBudget = new Option(GS_PREFETCH_BUDGET_SHORT_OPTION_NAME, GS_PREFETCH_BUDGET_OPTION_NAME,
+                HAS_ARG, "Overrides Global Storage prefetch budget, 0 disables prefetching");
+        prefetchBudget.setArgName("BYTES");
+        options.addOption(prefetchBudget);
+
+        Option transferParallelism = new Option(GS_TRANSFER_PARALLELISM_SHORT_OPTION_NAME,
+                GS_TRANSFER_PARALLELISM_OPTION_NAME, HAS_ARG,
+                "Overrides Global Storage number of files each job transfers at the same time");
+        transferParallelism.setArgName("N");
+        options.addOption(transferParallelism);
+
+        Option writeBehindBuffer = new Option(GS_WRITE_BEHIND_BUFFER_SHORT_OPTION_NAME,
+                GS_WRITE_BEHIND_BUFFER_OPTION_NAME, HAS_ARG,
+                "Overrides Global Storage per VM write behind buffer, 0 disables writing behind");
+        writeBehindBuffer.setArgName("BYTES");
+        options.addOption(writeBehindBuffer);
     }
 
     public GlobalStorageParams determineGlobalStorageParams(CommandLine args) throws IllegalCWSArgumentException {
@@ -103,6 +133,46 @@ public class GlobalStorageParamsLoader {
         overrideLatency(globalStorageConfig, args);
         overrideChunkTransferTime(globalStorageConfig, args);
         overrideReplicasNumber(globalStorageConfig, args);
+        overridePrefetchBudget(globalStorageConfig, args);
+        overrideTransferParallelism(globalStorageConfig, args);
+        overrideWriteBehindBuffer(globalStorageConfig, args);
+    }
+
+    private void overrideWriteBehindBuffer(Map<String, Object> globalStorageConfig, CommandLine args) {
+        if (args.hasOption(GS_WRITE_BEHIND_BUFFER_OPTION_NAME)) {
+            try {
+                Long writeBehindBuffer = Long.parseLong(args.getOptionValue(GS_WRITE_BEHIND_BUFFER_OPTION_NAME));
+                globalStorageConfig.put(GS_WRITE_BEHIND_BUFFER_CONFIG_ENTRY, writeBehindBuffer);
+            } catch (NumberFormatException e) {
+                throw new IllegalCWSArgumentException(GS_WRITE_BEHIND_BUFFER_CONFIG_ENTRY
+                        + " was overrode with a non-integer value");
+            }
+        }
+    }
+
+    private void overrideTransferParallelism(Map<String, Object> globalStorageConfig, CommandLine args) {
+        if (args.hasOption(GS_TRANSFER_PARALLELISM_OPTION_NAME)) {
+            try {
+                Integer transferParallelism = Integer.parseInt(args
+                        .getOptionValue(GS_TRANSFER_PARALLELISM_OPTION_NAME));
+                globalStorageConfig.put(GS_TRANSFER_PARALLELISM_CONFIG_ENTRY, transferParallelism);
+            } catch (NumberFormatException e) {
+                throw new IllegalCWSArgumentException(GS_TRANSFER_PARALLELISM_CONFIG_ENTRY
+                        + " was overrode with a non-integer value");
+            }
+        }
+    }
+
+    private void overridePrefetchBudget(Map<String, Object> globalStorageConfig, CommandLine args) {
+        if (args.hasOption(GS_PREFETCH_BUDGET_OPTION_NAME)) {
+            try {
+                Long prefetchBudget = Long.parseLong(args.getOptionValue(GS_PREFETCH_BUDGET_OPTION_NAME));
+                globalStorageConfig.put(GS_PREFETCH_BUDGET_CONFIG_ENTRY, prefetchBudget);
+            } catch (NumberFormatException e) {
+                throw new IllegalCWSArgumentException(GS_PREFETCH_BUDGET_CONFIG_ENTRY
+                        + " was overrode with a non-integer value");
+            }
+        }
     }
 
     private void overrideReplicasNumber(Map<String, Object> globalStorageConfig, CommandLine args) {
@@ -188,6 +258,9 @@ public class GlobalStorageParamsLoader {
         double latency = loadLatency(config);
         double chunkTransferTime = loadChunkTransferTime(config);
         int replicasNumber = loadReplicasNumber(config);
+        long prefetchBudget = loadPrefetchBudget(config);
+        int transferParallelism = loadTransferParallelism(config);
+        long writeBehindBuffer = loadWriteBehindBuffer(config);
 
         // TODO(mequrel): convert into builder
         GlobalStorageParams params = new GlobalStorageParams();
@@ -196,6 +269,9 @@ public class GlobalStorageParamsLoader {
         params.setLatency(latency);
         params.setChunkTransferTime(chunkTransferTime);
         params.setNumReplicas(replicasNumber);
+        params.setPrefetchBudget(prefetchBudget);
+        params.setTransferParallelism(transferParallelism);
+        params.setWriteBehindBuffer(writeBehindBuffer);
 
         return params;
     }
@@ -208,6 +284,44 @@ public class GlobalStorageParamsLoader {
         return replicasNumber;
     }
 
+    private int loadTransferParallelism(Map<String, Object> config) {
+        if (!config.containsKey(GS_TRANSFER_PARALLELISM_CONFIG_ENTRY)) {
+            return 1;
+        }
+        assertIsInteger(config, GS_TRANSFER_PARALLELISM_CONFIG_ENTRY);
+        int transferParallelism = toInt(config, GS_TRANSFER_PARALLELISM_CONFIG_ENTRY);
+        assertIsGreaterThanZero(transferParallelism, GS_TRANSFER_PARALLELISM_CONFIG_ENTRY);
+        return transferParallelism;
+    }
+
+    private long loadWriteBehindBuffer(Map<String, Object> config) {
+        if (!config.containsKey(GS_WRITE_BEHIND_BUFFER_CONFIG_ENTRY)) {
+            return 0;
+        }
+        if (!(config.get(GS_WRITE_BEHIND_BUFFER_CONFIG_ENTRY) instanceof Integer)
+                && !(config.get(GS_WRITE_BEHIND_BUFFER_CONFIG_ENTRY) instanceof Long)) {
+            throw new IllegalCWSArgumentException(GS_WRITE_BEHIND_BUFFER_CONFIG_ENTRY
+                    + " configuration is not an integer number");
+        }
+        long writeBehindBuffer = ((Number) config.get(GS_WRITE_BEHIND_BUFFER_CONFIG_ENTRY)).longValue();
+        assertIsGreaterOrEqualZero(GS_WRITE_BEHIND_BUFFER_CONFIG_ENTRY, writeBehindBuffer);
+        return writeBehindBuffer;
+    }
+
+    private long loadPrefetchBudget(Map<String, Object> config) {
+        if (!config.containsKey(GS_PREFETCH_BUDGET_CONFIG_ENTRY)) {
+            return 0;
+        }
+        if (!(config.get(GS_PREFETCH_BUDGET_CONFIG_ENTRY) instanceof Integer)
+                && !(config.get(GS_PREFETCH_BUDGET_CONFIG_ENTRY) instanceof Long)) {
+            throw new IllegalCWSArgumentException(GS_PREFETCH_BUDGET_CONFIG_ENTRY
+                    + " configuration is not an integer number");
+        }
+        long prefetchBudget = ((Number) config.get(GS_PREFETCH_BUDGET_CONFIG_ENTRY)).longValue();
+        assertIsGreaterOrEqualZero(GS_PREFETCH_BUDGET_CONFIG_ENTRY, prefetchBudget);
+        return prefetchBudget;
+    }
+
     private double loadChunkTransferTime(Map<String, Object> config) {
         assertRequiredOptionIsNotMissing(config, GS_CHUNK_TRANSFER_TIME_CONFIG_ENTRY);
         assertIsNumber(config, GS_CHUNK_TRANSFER_TIME_CONFIG_ENTRY);
@@ -3,9 +3,9 @@ package cws.core.core;
 import java.util.Map;
 
 import org.cloudbus.cloudsim.distributions.ContinuousDistribution;
-import org.cloudbus.cloudsim.distributions.UniformDistr;
 
 import cws.core.provisioner.ConstantDistribution;
+import cws.core.provisioner.UniformDistribution;
 
 /**
  * Creates a distribution from distribution config.
@@ -86,6 +86,6 @@ public class ContinuousDistributionFactory {
     private ContinuousDistribution createUniformDistribution(Map<String, Object> distributionConfig) {
         double minValue = ((Number) distributionConfig.get("minValue")).doubleValue();
         double maxValue = ((Number) distributionConfig.get("maxValue")).doubleValue();
-        return new UniformDistr(minValue, maxValue);
+        return new UniformDistribution(minValue, maxValue);
     }
 }
@@ -18,6 +18,7 @@ public class DAG {
         if (tasks.containsKey(t.getId())) {
             throw new RuntimeException("Task already exists: " + t.getId());
         }
+        t.setIndex(tasks.size());
         tasks.put(t.getId(), t);
     }
 
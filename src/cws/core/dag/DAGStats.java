@@ -1,6 +1,6 @@
 package cws.core.dag;
 
-import java.util.HashMap;
+import java.util.Properties;
 
 import cws.core.dag.algorithms.CriticalPath;
 import cws.core.dag.algorithms.TopologicalOrder;
@@ -14,23 +14,42 @@ public class DAGStats {
     public DAGStats(DAG dag, Environment environment) {
         TopologicalOrder order = new TopologicalOrder(dag);
 
-        HashMap<Task, Double> runTimes = computeMinimumCostOfRunningTheWorkflow(environment, order);
+        TaskDoubleMap runTimes = computeMinimumCostOfRunningTheWorkflow(dag, environment, order);
 
         // Make sure a plan is feasible given the deadline and available VMs
         CriticalPath path = new CriticalPath(order, runTimes, environment);
         criticalPath = path.getCriticalPathLength();
     }
 
-    private HashMap<Task, Double> computeMinimumCostOfRunningTheWorkflow(Environment environment, TopologicalOrder order) {
+    private DAGStats() {
+    }
+
+    public void storeProperties(Properties properties) {
+        properties.setProperty("minCost", "" + minCost);
+        properties.setProperty("criticalPath", "" + criticalPath);
+        properties.setProperty("totalRuntime", "" + totalRuntime);
+    }
+
+    public static DAGStats readProperties(Properties properties) {
+        DAGStats stats = new DAGStats();
+        stats.minCost = Double.valueOf(properties.getProperty("minCost"));
+        stats.criticalPath = Double.valueOf(properties.getProperty("criticalPath"));
+        stats.totalRuntime = Double.valueOf(properties.getProperty("totalRuntime"));
+        return stats;
+    }
+
+    private TaskDoubleMap computeMinimumCostOfRunningTheWorkflow(DAG dag, Environment environment,
+            TopologicalOrder order) {
         totalRuntime = 0.0;
-        HashMap<Task, Double> runTimes = new HashMap<Task, Double>();
+        TaskDoubleMap runTimes = new TaskDoubleMap(dag.numTasks());
         for (Task task : order) {
-            double runtime = environment.getComputationPredictedRuntime(task);
+            double runtime = environment.getComputationPredictedRuntime(dag, task);
             runTimes.put(task, runtime);
             totalRuntime += runtime;
         }
 
-        minCost = environment.getVMCostFor(totalRuntime);
+        // tasks run in parallel on all cores of a VM
+        minCost = environment.getVMCostFor(totalRuntime / environment.getVMType().getCores());
         return runTimes;
     }
 
@@ -0,0 +1,135 @@
+package cws.core.dag;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Properties;
+
+import cws.core.core.VMType;
+import cws.core.engine.Environment;
+
+/**
+ * On-disk cache of {@link DAGStats}, so that repeated sweeps over the same DAGs don't analyze them again.
+ *
+ * The stats only depend on the DAG file's content, the scaling factor applied to task sizes and the VM type's MIPS,
+ * cores, price and billing time. The cache keeps one properties file per combination of those, named after a hash of
+ * the file content followed by the parameters. Files which can't be read are treated as missing, and failing to write
+ * one only costs the analysis next time.
+ */
+public class DAGStatsCache {
+    private final File directory;
+
+    public DAGStatsCache(File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Returns the stats of the DAG parsed (and scaled) from the file, computing and storing them if they're not in the
+     * cache yet.
+     */
+    public DAGStats getStats(File dagFile, DAG dag, double scalingFactor, Environment environment) {
+        File statsFile = new File(directory, getKey(dagFile, scalingFactor, environment.getVMType()) + ".properties");
+        DAGStats stats = read(statsFile);
+        if (stats == null) {
+            stats = new DAGStats(dag, environment);
+            write(statsFile, stats);
+        }
+        return stats;
+    }
+
+    String getKey(File dagFile, double scalingFactor, VMType vmType) {
+        return String.format("%s_sf_%s_m_%s_c_%d_p_%s_bt_%s", hash(dagFile), scalingFactor, vmType.getMips(),
+                vmType.getCores(), vmType.getPriceForBillingUnit(), vmType.getBillingTimeInSeconds());
+    }
+
+    private static String hash(File file) {
+        InputStream input = null;
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            input = new FileInputStream(file);
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+            StringBuilder hex = new StringBuilder();
+            for (byte b : digest.digest()) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to read DAG file: " + file, e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        } finally {
+            close(input);
+        }
+    }
+
+    private static DAGStats read(File statsFile) {
+        if (!statsFile.isFile()) {
+            return null;
+        }
+        InputStream input = null;
+        try {
+            input = new FileInputStream(statsFile);
+            Properties properties = new Properties();
+            properties.load(input);
+            return DAGStats.readProperties(properties);
+        } catch (IOException e) {
+            return null;
+        } catch (RuntimeException e) {
+            // missing or malformed entries
+            return null;
+        } finally {
+            close(input);
+        }
+    }
+
+    /**
+     * Writes to a temporary file first, so that concurrent sweeps never read a partially written one.
+     */
+    private void write(File statsFile, DAGStats stats) {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            System.err.println("Unable to create DAG stats cache directory: " + directory);
+            return;
+        }
+        OutputStream output = null;
+        File tmpFile = null;
+        try {
+            tmpFile = File.createTempFile(statsFile.getName(), ".tmp", directory);
+            output = new FileOutputStream(tmpFile);
+            Properties properties = new Properties();
+            stats.storeProperties(properties);
+            properties.store(output, null);
+            output.close();
+            output = null;
+            if (!tmpFile.renameTo(statsFile)) {
+                tmpFile.delete();
+            }
+        } catch (IOException e) {
+            System.err.println("Unable to write DAG stats cache file " + statsFile + ": " + e.getMessage());
+            if (tmpFile != null) {
+                tmpFile.delete();
+            }
+        } finally {
+            close(output);
+        }
+    }
+
+    private static void close(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                // nothing to do
+            }
+        }
+    }
+}
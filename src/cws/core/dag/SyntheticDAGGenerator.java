@@ -0,0 +1,490 @@
+package cws.core.dag;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Random;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.CommandLineParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.apache.commons.cli.PosixParser;
+import org.apache.commons.io.IOUtils;
+
+import cws.core.exception.IllegalCWSArgumentException;
+
+/**
+ * Generates synthetic workflows of any size in the simple text DAG format read by {@link DAGParser#parseDAG(File)}.
+ * The topologies resemble the ones of the Pegasus workflow generator
+ * (https://confluence.pegasus.isi.edu/display/pegasus/WorkflowGenerator), with widths chosen so that the workflow has
+ * approximately the requested number of tasks.
+ *
+ * Records are written as they are generated, each task right after the files it produces and the tasks it depends
+ * on, so memory use doesn't depend on the workflow's size. Task runtimes and file sizes vary uniformly between half and
+ * one and a half of per-type means, and are drawn from a generator seeded with the given seed, so the same parameters
+ * always give the same workflow.
+ */
+public class SyntheticDAGGenerator {
+    public enum Topology {
+        MONTAGE, CYBERSHAKE, EPIGENOMICS, LIGO
+    }
+
+    private static final long KB = 1024;
+    private static final long MB = 1024 * KB;
+
+    private final Topology topology;
+    private final int tasks;
+    private final long seed;
+    private final double fileSizeFactor;
+
+    private Random random;
+    private Writer out;
+
+    /**
+     * @param topology - the kind of workflow to generate.
+     * @param tasks - approximate number of tasks.
+     * @param seed - seed of task runtimes and file sizes.
+     * @param fileSizeFactor - all file sizes are multiplied by this factor.
+     */
+    public SyntheticDAGGenerator(Topology topology, int tasks, long seed, double fileSizeFactor) {
+        if (tasks < 1) {
+            throw new IllegalCWSArgumentException("Number of tasks must be >= 1");
+        }
+        if (fileSizeFactor <= 0) {
+            throw new IllegalCWSArgumentException("File size factor must be > 0");
+        }
+        this.topology = topology;
+        this.tasks = tasks;
+        this.seed = seed;
+        this.fileSizeFactor = fileSizeFactor;
+    }
+
+    /**
+     * Writes the workflow. The writer is not closed.
+     */
+    public void write(Writer writer) throws IOException {
+        this.out = writer;
+        this.random = new Random(seed);
+        out.write(String.format("# Synthetic %s workflow, tasks = %d, seed = %d, file size factor = %s\n", topology,
+                tasks, seed, fileSizeFactor));
+        switch (topology) {
+        case MONTAGE:
+            writeMontage();
+            break;
+        case CYBERSHAKE:
+            writeCyberShake();
+            break;
+        case EPIGENOMICS:
+            writeEpigenomics();
+            break;
+        case LIGO:
+            writeLIGO();
+            break;
+        default:
+            throw new IllegalCWSArgumentException("Unknown topology: " + topology);
+        }
+        out.flush();
+    }
+
+    /**
+     * n projections, up to 2n - 3 overlaps, n background corrections and 6 aggregating tasks.
+     */
+    private void writeMontage() throws IOException {
+        int n = Math.max(3, (tasks - 3) / 4);
+        for (int i = 0; i < n; i++) {
+            file("raw_" + i + ".fits", 4 * MB);
+            file("proj_" + i + ".fits", 8 * MB);
+            task("mProjectPP_" + i, "mProjectPP", 13.6);
+            inputs("mProjectPP_" + i, "raw_" + i + ".fits");
+            outputs("mProjectPP_" + i, "proj_" + i + ".fits");
+        }
+        for (int i = 0; i < n; i++) {
+            for (int step = 1; step <= 2 && i + step < n; step++) {
+                String id = "mDiffFit_" + i + "_" + step;
+                file("fit_" + i + "_" + step + ".txt", 1 * KB);
+                task(id, "mDiffFit", 10.6);
+                inputs(id, "proj_" + i + ".fits", "proj_" + (i + step) + ".fits");
+                outputs(id, "fit_" + i + "_" + step + ".txt");
+                edge("mProjectPP_" + i, id);
+                edge("mProjectPP_" + (i + step), id);
+            }
+        }
+
+        file("fits.tbl", 16 * KB);
+        task("mConcatFit", "mConcatFit", 143);
+        beginRecord("INPUTS", "mConcatFit");
+        for (int i = 0; i < n; i++) {
+            for (int step = 1; step <= 2 && i + step < n; step++) {
+                name("fit_" + i + "_" + step + ".txt");
+            }
+        }
+        endRecord();
+        outputs("mConcatFit", "fits.tbl");
+        for (int i = 0; i < n; i++) {
+            for (int step = 1; step <= 2 && i + step < n; step++) {
+                edge("mDiffFit_" + i + "_" + step, "mConcatFit");
+            }
+        }
+
+        file("corrections.tbl", 16 * KB);
+        task("mBgModel", "mBgModel", 384);
+        inputs("mBgModel", "fits.tbl");
+        outputs("mBgModel", "corrections.tbl");
+        edge("mConcatFit", "mBgModel");
+
+        for (int i = 0; i < n; i++) {
+            String id = "mBackground_" + i;
+            file("corr_" + i + ".fits", 8 * MB);
+            task(id, "mBackground", 10.9);
+            inputs(id, "proj_" + i + ".fits", "corrections.tbl");
+            outputs(id, "corr_" + i + ".fits");
+            edge("mProjectPP_" + i, id);
+            edge("mBgModel", id);
+        }
+
+        file("images.tbl", 16 * KB);
+        task("mImgtbl", "mImgtbl", 4);
+        beginRecord("INPUTS", "mImgtbl");
+        for (int i = 0; i < n; i++) {
+            name("corr_" + i + ".fits");
+        }
+        endRecord();
+        outputs("mImgtbl", "images.tbl");
+        for (int i = 0; i < n; i++) {
+            edge("mBackground_" + i, "mImgtbl");
+        }
+
+        file("mosaic.fits", 160 * MB);
+        task("mAdd", "mAdd", 46);
+        beginRecord("INPUTS", "mAdd");
+        name("images.tbl");
+        for (int i = 0; i < n; i++) {
+            name("corr_" + i + ".fits");
+        }
+        endRecord();
+        outputs("mAdd", "mosaic.fits");
+        edge("mImgtbl", "mAdd");
+        for (int i = 0; i < n; i++) {
+            edge("mBackground_" + i, "mAdd");
+        }
+
+        file("shrunken.fits", 4 * MB);
+        task("mShrink", "mShrink", 5);
+        inputs("mShrink", "mosaic.fits");
+        outputs("mShrink", "shrunken.fits");
+        edge("mAdd", "mShrink");
+
+        file("mosaic.jpg", 256 * KB);
+        task("mJPEG", "mJPEG", 1.3);
+        inputs("mJPEG", "shrunken.fits");
+        outputs("mJPEG", "mosaic.jpg");
+        edge("mShrink", "mJPEG");
+    }
+
+    /**
+     * k SGT extractions, n seismograms each with its peak values, and 2 zipping tasks.
+     */
+    private void writeCyberShake() throws IOException {
+        int k = Math.max(1, tasks / 100);
+        int n = Math.max(1, (tasks - k - 2) / 2);
+        for (int j = 0; j < k; j++) {
+            String id = "ExtractSGT_" + j;
+            file("sgt_" + j + ".sgt", 40 * MB);
+            file("subsgt_" + j + ".sgt", 150 * MB);
+            task(id, "ExtractSGT", 110);
+            inputs(id, "sgt_" + j + ".sgt");
+            outputs(id, "subsgt_" + j + ".sgt");
+        }
+        for (int i = 0; i < n; i++) {
+            String id = "SeismogramSynthesis_" + i;
+            String parent = "ExtractSGT_" + (i % k);
+            file("rupture_" + i + ".txt", 4 * KB);
+            file("seis_" + i + ".grm", 24 * KB);
+            task(id, "SeismogramSynthesis", 79);
+            inputs(id, "subsgt_" + (i % k) + ".sgt", "rupture_" + i + ".txt");
+            outputs(id, "seis_" + i + ".grm");
+            edge(parent, id);
+
+            String peak = "PeakValCalcOkaya_" + i;
+            file("peak_" + i + ".bsa", 1 * KB);
+            task(peak, "PeakValCalcOkaya", 0.55);
+            inputs(peak, "seis_" + i + ".grm");
+            outputs(peak, "peak_" + i + ".bsa");
+            edge(id, peak);
+        }
+        writeZip("ZipSeis", "seis.zip", 265, "SeismogramSynthesis_", "seis_", ".grm", n);
+        writeZip("ZipPSA", "peak.zip", 195, "PeakValCalcOkaya_", "peak_", ".bsa", n);
+    }
+
+    private void writeZip(String id, String output, double runtime, String parentPrefix, String filePrefix,
+            String fileSuffix, int n) throws IOException {
+        file(output, 16 * MB);
+        task(id, id, runtime);
+        beginRecord("INPUTS", id);
+        for (int i = 0; i < n; i++) {
+            name(filePrefix + i + fileSuffix);
+        }
+        endRecord();
+        outputs(id, output);
+        for (int i = 0; i < n; i++) {
+            edge(parentPrefix + i, id);
+        }
+    }
+
+    /**
+     * l lanes, each split into c chunks processed by 4-task pipelines and merged, then indexed and piled up.
+     */
+    private void writeEpigenomics() throws IOException {
+        int l = Math.max(1, tasks / 250);
+        int c = Math.max(1, (tasks - 2 - 2 * l) / (4 * l));
+        file("reference.bfa", 200 * MB);
+        for (int lane = 0; lane < l; lane++) {
+            String split = "fastQSplit_" + lane;
+            file("lane_" + lane + ".sfq", 1024 * MB);
+            for (int j = 0; j < c; j++) {
+                file(chunk("chunk", lane, j, ".sfq"), 16 * MB);
+            }
+            task(split, "fastQSplit", 35);
+            inputs(split, "lane_" + lane + ".sfq");
+            beginRecord("OUTPUTS", split);
+            for (int j = 0; j < c; j++) {
+                name(chunk("chunk", lane, j, ".sfq"));
+            }
+            endRecord();
+
+            for (int j = 0; j < c; j++) {
+                String suffix = "_" + lane + "_" + j;
+                pipelineStep("filterContams" + suffix, "filterContams", 2.5, split, chunk("chunk", lane, j, ".sfq"),
+                        chunk("filtered", lane, j, ".sfq"), 16 * MB);
+                pipelineStep("sol2sanger" + suffix, "sol2sanger", 0.5, "filterContams" + suffix,
+                        chunk("filtered", lane, j, ".sfq"), chunk("sanger", lane, j, ".fastq"), 12 * MB);
+                pipelineStep("fast2bfq" + suffix, "fast2bfq", 1.4, "sol2sanger" + suffix,
+                        chunk("sanger", lane, j, ".fastq"), chunk("reads", lane, j, ".bfq"), 3 * MB);
+
+                String map = "map" + suffix;
+                file(chunk("map", lane, j, ".map"), 2 * MB);
+                task(map, "map", 200);
+                inputs(map, chunk("reads", lane, j, ".bfq"), "reference.bfa");
+                outputs(map, chunk("map", lane, j, ".map"));
+                edge("fast2bfq" + suffix, map);
+            }
+
+            String merge = "mapMerge_" + lane;
+            file("merged_" + lane + ".map", 64 * MB);
+            task(merge, "mapMerge", 11);
+            beginRecord("INPUTS", merge);
+            for (int j = 0; j < c; j++) {
+                name(chunk("map", lane, j, ".map"));
+            }
+            endRecord();
+            outputs(merge, "merged_" + lane + ".map");
+            for (int j = 0; j < c; j++) {
+                edge("map_" + lane + "_" + j, merge);
+            }
+        }
+
+        file("index.map", 256 * MB);
+        task("maqIndex", "maqIndex", 43);
+        beginRecord("INPUTS", "maqIndex");
+        for (int lane = 0; lane < l; lane++) {
+            name("merged_" + lane + ".map");
+        }
+        endRecord();
+        outputs("maqIndex", "index.map");
+        for (int lane = 0; lane < l; lane++) {
+            edge("mapMerge_" + lane, "maqIndex");
+        }
+
+        file("pileup.txt", 128 * MB);
+        task("pileup", "pileup", 55);
+        inputs("pileup", "index.map", "reference.bfa");
+        outputs("pileup", "pileup.txt");
+        edge("maqIndex", "pileup");
+    }
+
+    private static String chunk(String prefix, int lane, int j, String suffix) {
+        return prefix + "_" + lane + "_" + j + suffix;
+    }
+
+    private void pipelineStep(String id, String type, double runtime, String parent, String input, String output,
+            long outputSize) throws IOException {
+        file(output, outputSize);
+        task(id, type, runtime);
+        inputs(id, input);
+        outputs(id, output);
+        edge(parent, id);
+    }
+
+    /**
+     * g groups of w template banks and inspirals, coincidence-tested, then the same again on triggered banks.
+     */
+    private void writeLIGO() throws IOException {
+        int g = Math.max(1, tasks / 200);
+        int w = Math.max(1, (tasks - 2 * g) / (4 * g));
+        for (int group = 0; group < g; group++) {
+            for (int i = 0; i < w; i++) {
+                String suffix = "_" + group + "_" + i;
+                file("data" + suffix + ".gwf", 32 * MB);
+                pipelineStep("TmpltBank" + suffix, "TmpltBank", 18, null, "data" + suffix + ".gwf", "bank" + suffix
+                        + ".xml", 1 * MB);
+
+                String inspiral = "Inspiral" + suffix;
+                file("trig" + suffix + ".xml", 256 * KB);
+                task(inspiral, "Inspiral", 460);
+                inputs(inspiral, "bank" + suffix + ".xml", "data" + suffix + ".gwf");
+                outputs(inspiral, "trig" + suffix + ".xml");
+                edge("TmpltBank" + suffix, inspiral);
+            }
+            writeThinca("Thinca_" + group, "coinc_" + group + ".xml", "Inspiral_" + group + "_", "trig_" + group
+                    + "_", w);
+
+            for (int i = 0; i < w; i++) {
+                String suffix = "_" + group + "_" + i;
+                pipelineStep("TrigBank" + suffix, "TrigBank", 5, "Thinca_" + group, "coinc_" + group + ".xml",
+                        "trigbank" + suffix + ".xml", 64 * KB);
+
+                String inspiral = "InspiralVeto" + suffix;
+                file("veto" + suffix + ".xml", 256 * KB);
+                task(inspiral, "Inspiral", 460);
+                inputs(inspiral, "trigbank" + suffix + ".xml", "data" + suffix + ".gwf");
+                outputs(inspiral, "veto" + suffix + ".xml");
+                edge("TrigBank" + suffix, inspiral);
+            }
+            writeThinca("ThincaVeto_" + group, "coincveto_" + group + ".xml", "InspiralVeto_" + group + "_", "veto_"
+                    + group + "_", w);
+        }
+    }
+
+    private void writeThinca(String id, String output, String parentPrefix, String filePrefix, int w)
+            throws IOException {
+        file(output, 128 * KB);
+        task(id, "Thinca", 5.4);
+        beginRecord("INPUTS", id);
+        for (int i = 0; i < w; i++) {
+            name(filePrefix + i + ".xml");
+        }
+        endRecord();
+        outputs(id, output);
+        for (int i = 0; i < w; i++) {
+            edge(parentPrefix + i, id);
+        }
+    }
+
+    private void file(String name, long meanSize) throws IOException {
+        long size = Math.max(1, Math.round(meanSize * fileSizeFactor * vary()));
+        out.write("FILE " + name + " " + size + "\n");
+    }
+
+    private void task(String id, String type, double meanRuntime) throws IOException {
+        double runtime = Math.round(meanRuntime * vary() * 1000) / 1000.0;
+        out.write("TASK " + id + " " + type + " " + runtime + "\n");
+    }
+
+    private void edge(String parent, String child) throws IOException {
+        if (parent != null) {
+            out.write("EDGE " + parent + " " + child + "\n");
+        }
+    }
+
+    private void inputs(String id, String... files) throws IOException {
+        record("INPUTS", id, files);
+    }
+
+    private void outputs(String id, String... files) throws IOException {
+        record("OUTPUTS", id, files);
+    }
+
+    private void record(String type, String id, String... files) throws IOException {
+        beginRecord(type, id);
+        for (String file : files) {
+            name(file);
+        }
+        endRecord();
+    }
+
+    private void beginRecord(String type, String id) throws IOException {
+        out.write(type + " " + id);
+    }
+
+    private void name(String file) throws IOException {
+        out.write(" " + file);
+    }
+
+    private void endRecord() throws IOException {
+        out.write("\n");
+    }
+
+    /**
+     * @return Uniform factor from [0.5, 1.5).
+     */
+    private double vary() {
+        return 0.5 + random.nextDouble();
+    }
+
+    private static Options buildOptions() {
+        Options options = new Options();
+
+        Option topology = new Option("t", "topology", true, "(required) montage, cybershake, epigenomics or ligo");
+        topology.setRequired(true);
+        options.addOption(topology);
+
+        Option tasks = new Option("n", "tasks", true, "(required) Approximate number of tasks of each workflow");
+        tasks.setRequired(true);
+        options.addOption(tasks);
+
+        Option outputDir = new Option("od", "output-dir", true, "(required) Output directory");
+        outputDir.setRequired(true);
+        options.addOption(outputDir);
+
+        options.addOption(new Option("s", "seed", true, "Seed of the first workflow, defaults to 0"));
+        options.addOption(new Option("c", "count", true, "Number of workflows, defaults to 20"));
+        options.addOption(new Option("fsf", "file-size-factor", true, "File size multiplier, defaults to 1"));
+        options.addOption(new Option("app", "application", true,
+                "Application name used in file names, defaults to the topology in upper case"));
+        return options;
+    }
+
+    /**
+     * Writes count workflows named like the Pegasus generator's ones, APPLICATION.n.TASKS.INDEX.dag, so that they can
+     * be used with {@link DAGListGenerator}. Workflow i is generated with seed + i.
+     */
+    public static void main(String[] args) throws IOException {
+        Options options = buildOptions();
+        CommandLine cmd = null;
+        try {
+            CommandLineParser parser = new PosixParser();
+            cmd = parser.parse(options, args);
+        } catch (ParseException exp) {
+            HelpFormatter formatter = new HelpFormatter();
+            formatter.setWidth(120);
+            formatter.printHelp(SyntheticDAGGenerator.class.getName(), "", options, exp.getMessage());
+            System.exit(1);
+        }
+        Topology topology = Topology.valueOf(cmd.getOptionValue("topology").toUpperCase());
+        int tasks = Integer.parseInt(cmd.getOptionValue("tasks"));
+        File outputDir = new File(cmd.getOptionValue("output-dir"));
+        long seed = Long.parseLong(cmd.getOptionValue("seed", "0"));
+        int count = Integer.parseInt(cmd.getOptionValue("count", "20"));
+        double fileSizeFactor = Double.parseDouble(cmd.getOptionValue("file-size-factor", "1"));
+        String application = cmd.getOptionValue("application", topology.name());
+
+        if (!outputDir.isDirectory() && !outputDir.mkdirs()) {
+            throw new IllegalCWSArgumentException("Unable to create output directory: " + outputDir);
+        }
+        for (int i = 0; i < count; i++) {
+            File file = new File(outputDir, application + ".n." + tasks + "." + i + ".dag");
+            Writer writer = new BufferedWriter(new FileWriter(file));
+            try {
+                new SyntheticDAGGenerator(topology, tasks, seed + i, fileSizeFactor).write(writer);
+            } finally {
+                IOUtils.closeQuietly(writer);
+            }
+            System.out.println("Generated " + file);
+        }
+    }
+}
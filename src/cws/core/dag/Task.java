@@ -28,6 +28,9 @@ public class Task {
     /** Task's output files */
     private List<DAGFile> outputFiles = new ArrayList<DAGFile>();
 
+    /** Position of the task in its DAG, from 0 to the number of the DAG's tasks - 1. -1 if not added to a DAG. */
+    private int index = -1;
+
     public Task(String id, String transformation, double size) {
         this.id = id;
         this.transformation = transformation;
@@ -79,6 +82,18 @@ public class Task {
         return id;
     }
 
+    /**
+     * @return Position of the task in its DAG, so that per-task values can be kept in arrays. -1 if the task hasn't
+     * been added to a DAG.
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    void setIndex(int index) {
+        this.index = index;
+    }
+
     public List<Task> getParents() {
         return parents;
     }
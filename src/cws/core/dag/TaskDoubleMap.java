@@ -0,0 +1,57 @@
+package cws.core.dag;
+
+import java.util.Arrays;
+
+import cws.core.exception.IllegalCWSArgumentException;
+
+/**
+ * Map from the tasks of one DAG to primitive doubles, kept in an array indexed by {@link Task#getIndex()}. Planning
+ * algorithms use it instead of HashMap&lt;Task, Double&gt;, so that they neither box values nor hash tasks.
+ */
+public class TaskDoubleMap {
+    private double[] values;
+    private boolean[] present;
+
+    /**
+     * @param capacity - expected number of tasks, the map grows if there are more.
+     */
+    public TaskDoubleMap(int capacity) {
+        this.values = new double[Math.max(1, capacity)];
+        this.present = new boolean[values.length];
+    }
+
+    public void put(Task task, double value) {
+        int index = getIndex(task);
+        if (index >= values.length) {
+            int length = Math.max(index + 1, values.length * 2);
+            values = Arrays.copyOf(values, length);
+            present = Arrays.copyOf(present, length);
+        }
+        values[index] = value;
+        present[index] = true;
+    }
+
+    /**
+     * @throws IllegalCWSArgumentException when there is no value for the task.
+     */
+    public double get(Task task) {
+        int index = getIndex(task);
+        if (index >= values.length || !present[index]) {
+            throw new IllegalCWSArgumentException("No value for task: " + task.getId());
+        }
+        return values[index];
+    }
+
+    public boolean containsKey(Task task) {
+        int index = getIndex(task);
+        return index < values.length && present[index];
+    }
+
+    private static int getIndex(Task task) {
+        int index = task.getIndex();
+        if (index < 0) {
+            throw new IllegalCWSArgumentException("Task is not in a DAG: " + task.getId());
+        }
+        return index;
+    }
+}
@@ -1,9 +1,7 @@
 package cws.core.dag.algorithms;
 
-import java.util.HashMap;
-import java.util.Map;
-
 import cws.core.dag.Task;
+import cws.core.dag.TaskDoubleMap;
 import cws.core.engine.Environment;
 
 /**
@@ -12,31 +10,40 @@ import cws.core.engine.Environment;
  * @author malawski
  */
 public class CriticalPath {
-    private final Map<Task, Double> eft = new HashMap<Task, Double>();
+    private final TaskDoubleMap eft;
+
+    /** Maximum of {@link #eft} */
+    private double length = 0.0;
 
     public CriticalPath(TopologicalOrder order, Environment environment) {
         this(order, null, environment);
     }
 
-    public CriticalPath(TopologicalOrder order, Map<Task, Double> runtimes, Environment environment) {
+    public CriticalPath(TopologicalOrder order, TaskDoubleMap runtimes, Environment environment) {
         if (runtimes == null) {
-            runtimes = new HashMap<Task, Double>();
+            runtimes = new TaskDoubleMap(order.size());
             for (Task task : order) {
                 runtimes.put(task, getPredictedTaskRuntime(environment, task));
             }
         }
 
         // Initially the finish time is whatever the runtime is
+        eft = new TaskDoubleMap(order.size());
         for (Task task : order) {
             eft.put(task, runtimes.get(task));
         }
 
         // Now we adjust the values in the topological order
         for (Task task : order) {
+            double taskEft = eft.get(task);
             for (Task child : task.getChildren()) {
-                eft.put(child, Math.max(eft.get(child), eft.get(task) + runtimes.get(child)));
+                eft.put(child, Math.max(eft.get(child), taskEft + runtimes.get(child)));
             }
         }
+
+        for (Task task : order) {
+            length = Math.max(length, eft.get(task));
+        }
     }
 
     /**
@@ -58,12 +65,6 @@ public class CriticalPath {
      * @return Length of critical path
      */
     public double getCriticalPathLength() {
-        double len = 0.0;
-        for (Task task : eft.keySet()) {
-            double eft = getEarliestFinishTime(task);
-            if (eft > len)
-                len = eft;
-        }
-        return len;
+        return length;
     }
 }
@@ -1,8 +1,7 @@
 package cws.core.dag.algorithms;
 
-import java.util.Map;
-
 import cws.core.dag.Task;
+import cws.core.dag.TaskDoubleMap;
 import cws.core.engine.Environment;
 
 /**
@@ -11,7 +10,7 @@ import cws.core.engine.Environment;
  * Storage awareness here means that during task runtime estimations, file transfer estimation is taken into account.
  */
 public class StorageAwareCriticalPath extends CriticalPath {
-    public StorageAwareCriticalPath(TopologicalOrder order, Map<Task, Double> runtimes, Environment environment) {
+    public StorageAwareCriticalPath(TopologicalOrder order, TaskDoubleMap runtimes, Environment environment) {
         super(order, runtimes, environment);
     }
 
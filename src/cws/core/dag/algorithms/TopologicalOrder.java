@@ -1,10 +1,8 @@
 package cws.core.dag.algorithms;
 
 import java.util.Deque;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
-import java.util.Set;
 
 import cws.core.dag.Task;
 import cws.core.dag.DAG;
@@ -22,23 +20,31 @@ public class TopologicalOrder implements Iterable<Task> {
     private final Deque<Task> postorder = new LinkedList<Task>();
 
     public TopologicalOrder(DAG dag) {
-        Set<Task> marked = new HashSet<Task>();
+        // indexed by Task#getIndex()
+        boolean[] marked = new boolean[dag.numTasks()];
         for (String taskName : dag.getTasks()) {
             Task task = dag.getTaskById(taskName);
-            if (!marked.contains(task))
+            if (!marked[task.getIndex()])
                 dfs(task, marked);
         }
     }
 
-    private void dfs(Task task, Set<Task> marked) {
-        marked.add(task);
+    private void dfs(Task task, boolean[] marked) {
+        marked[task.getIndex()] = true;
         for (Task child : task.getChildren()) {
-            if (!marked.contains(child))
+            if (!marked[child.getIndex()])
                 dfs(child, marked);
         }
         postorder.add(task);
     }
 
+    /**
+     * @return Number of tasks.
+     */
+    public int size() {
+        return postorder.size();
+    }
+
     public Iterable<Task> reverse() {
         return new Iterable<Task>() {
             @Override
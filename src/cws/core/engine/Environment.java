@@ -1,15 +1,50 @@
 package cws.core.engine;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 import cws.core.core.VMType;
 import cws.core.dag.DAG;
 import cws.core.dag.Task;
 import cws.core.storage.StorageManager;
 import cws.core.storage.StorageManagerStatistics;
+import cws.core.storage.cache.VMCacheListener;
 
 public class Environment {
     private final VMType vmType;
     private final StorageManager storageManager;
 
+    /**
+     * Estimates of each DAG's tasks on {@link #vmType}, computed on first use. DAGs don't override equals(), so they
+     * are keyed by identity. Concurrent, as ensembles are analyzed in parallel.
+     */
+    private final Map<DAG, DAGEstimates> estimates = new ConcurrentHashMap<DAG, DAGEstimates>();
+
+    /**
+     * Computation and transfer estimates of a DAG's tasks, indexed by {@link Task#getIndex()}, and their totals.
+     */
+    private static class DAGEstimates {
+        private final Task[] tasks;
+        private final double[] computation;
+        private final double[] transfers;
+        private double computationTotal;
+        private double transfersTotal;
+
+        public DAGEstimates(int numTasks) {
+            tasks = new Task[numTasks];
+            computation = new double[numTasks];
+            transfers = new double[numTasks];
+        }
+
+        /**
+         * @return whether the task's estimates are stored here, i.e. the task belongs to the DAG.
+         */
+        public boolean contains(Task task) {
+            int index = task.getIndex();
+            return index >= 0 && index < tasks.length && tasks[index] == task;
+        }
+    }
+
     public Environment(VMType vmType, StorageManager storageManager) {
         this.vmType = vmType;
         this.storageManager = storageManager;
@@ -31,30 +66,86 @@ public class Environment {
         return task.getSize() / vmType.getMips();
     }
 
-    public double getComputationPredictedRuntime(DAG dag) {
-        double sum = 0.0;
-        for (String taskName : dag.getTasks()) {
-            sum += getComputationPredictedRuntime(dag.getTaskById(taskName));
+    /**
+     * Same as {@link #getComputationPredictedRuntime(Task)}, but memoized for the tasks of the DAG.
+     */
+    public double getComputationPredictedRuntime(DAG dag, Task task) {
+        DAGEstimates dagEstimates = getEstimates(dag);
+        if (!dagEstimates.contains(task)) {
+            return getComputationPredictedRuntime(task);
         }
-        return sum;
+        return dagEstimates.computation[task.getIndex()];
+    }
+
+    public double getComputationPredictedRuntime(DAG dag) {
+        return getEstimates(dag).computationTotal;
     }
     
     public double getTransfersPredictedRuntime(Task task) {
         return storageManager.getTransferTimeEstimation(task);
     }
+
+    /**
+     * Same as {@link #getTransfersPredictedRuntime(Task)}, but memoized for the tasks of the DAG.
+     */
+    public double getTransfersPredictedRuntime(DAG dag, Task task) {
+        DAGEstimates dagEstimates = getEstimates(dag);
+        if (!dagEstimates.contains(task)) {
+            return getTransfersPredictedRuntime(task);
+        }
+        return dagEstimates.transfers[task.getIndex()];
+    }
    
     public double getTransfersPredictedRuntime(DAG dag) {
-        double sum = 0.0;
-        for (String taskName : dag.getTasks()) {
-            sum += getTransfersPredictedRuntime(dag.getTaskById(taskName));
+        return getEstimates(dag).transfersTotal;
+    }
+
+    /**
+     * Estimates are computed once per DAG, as neither task sizes nor files change during the simulation. Totals are
+     * summed in the order of {@link DAG#getTasks()}.
+     */
+    private DAGEstimates getEstimates(DAG dag) {
+        DAGEstimates dagEstimates = estimates.get(dag);
+        if (dagEstimates == null) {
+            dagEstimates = new DAGEstimates(dag.numTasks());
+            for (String taskName : dag.getTasks()) {
+                Task task = dag.getTaskById(taskName);
+                double computation = getComputationPredictedRuntime(task);
+                double transfers = getTransfersPredictedRuntime(task);
+                dagEstimates.computationTotal += computation;
+                dagEstimates.transfersTotal += transfers;
+                int index = task.getIndex();
+                if (index >= 0 && index < dagEstimates.tasks.length) {
+                    dagEstimates.tasks[index] = task;
+                    dagEstimates.computation[index] = computation;
+                    dagEstimates.transfers[index] = transfers;
+                }
+            }
+            estimates.put(dag, dagEstimates);
         }
-        return sum;
+        return dagEstimates;
     }
     
+    /**
+     * Prepares the environment for a new simulation by resetting its storage manager. Estimates don't depend on the
+     * simulation, so they are kept.
+     * @see StorageManager#reset()
+     */
+    public void reset() {
+        storageManager.reset();
+    }
+
     public StorageManagerStatistics getStorageManagerStatistics() {
         return storageManager.getStorageManagerStatistics();
     }
 
+    /**
+     * @see StorageManager#addCacheListener(VMCacheListener)
+     */
+    public void addCacheListener(VMCacheListener listener) {
+        storageManager.addCacheListener(listener);
+    }
+
     public double getVMCostFor(double runtimeInSeconds) {
         double billingUnits = runtimeInSeconds / getVMType().getBillingTimeInSeconds();
         int fullBillingUnits = (int) Math.ceil(billingUnits);
@@ -65,6 +156,14 @@ public class Environment {
         return vmType.getPriceForBillingUnit();
     }
 
+    /**
+     * Returns price of a single core for one billing unit, i.e. the cost of running one task for one billing unit on a
+     * fully utilized multi-core VM.
+     */
+    public double getSingleCorePrice() {
+        return vmType.getPriceForBillingUnit() / vmType.getCores();
+    }
+
     public double getBillingTimeInSeconds() {
         return vmType.getBillingTimeInSeconds();
     }
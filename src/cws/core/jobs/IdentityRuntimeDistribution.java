@@ -1,5 +1,6 @@
 package cws.core.jobs;
 
+import java.util.SplittableRandom;
 
 /**
  * Just returns the same runtime it was given
@@ -11,4 +12,9 @@ public class IdentityRuntimeDistribution implements RuntimeDistribution {
     public double getActualRuntime(double runtime) {
         return runtime;
     }
+
+    @Override
+    public double getActualRuntime(double runtime, SplittableRandom random) {
+        return runtime;
+    }
 }
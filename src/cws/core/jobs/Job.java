@@ -2,6 +2,8 @@ package cws.core.jobs;
 
 import cws.core.VM;
 import cws.core.cloudsim.CloudSimWrapper;
+import cws.core.cloudsim.ObjectPool;
+import cws.core.cloudsim.Recyclable;
 import cws.core.dag.DAGJob;
 import cws.core.dag.Task;
 
@@ -10,7 +12,7 @@ import cws.core.dag.Task;
  * 
  * @author Gideon Juve <juve@usc.edu>
  */
-public class Job {
+public class Job implements Recyclable {
     private static int next_id = 0;
 
     /** Job states */
@@ -47,6 +49,12 @@ public class Job {
     /** The start time of the job */
     private double startTime;
 
+    /** Time the inputs were transferred and the computation started */
+    private double computationStartTime;
+
+    /** Time the computation finished and the outputs started to be transferred */
+    private double computationFinishTime;
+
     /** The finish time of the job */
     private double finishTime;
 
@@ -59,11 +67,52 @@ public class Job {
     /** If this job is a retry of the task */
     private boolean isRetry = false;
 
+    /** Number of jobs of the task which failed before this one */
+    private int attempt = 0;
+
     public Job(DAGJob dagJob, Task task, int owner, CloudSimWrapper cloudsim) {
+        init(dagJob, task, owner, cloudsim);
+    }
+
+    /**
+     * Returns a new job, or a recycled one if the simulation recycles objects. Recycled jobs are retained until the end
+     * of the simulation cell, so they can be referenced until then, and get a new id like new ones.
+     */
+    public static Job obtain(DAGJob dagJob, Task task, int owner, CloudSimWrapper cloudsim) {
+        ObjectPool<Job> pool = cloudsim.getPool(Job.class);
+        if (pool == null) {
+            return new Job(dagJob, task, owner, cloudsim);
+        }
+        Job job = pool.reuse();
+        if (job == null) {
+            job = new Job(dagJob, task, owner, cloudsim);
+        } else {
+            job.init(dagJob, task, owner, cloudsim);
+        }
+        pool.retain(job);
+        return job;
+    }
+
+    @Override
+    public void recycle() {
+        this.vm = null;
+        this.dagJob = null;
+        this.task = null;
+    }
+
+    private void init(DAGJob dagJob, Task task, int owner, CloudSimWrapper cloudsim) {
         this.id = next_id++;
+        this.vm = null;
         this.releaseTime = cloudsim.clock();
+        this.submitTime = 0.0;
+        this.startTime = 0.0;
+        this.computationStartTime = 0.0;
+        this.computationFinishTime = 0.0;
+        this.finishTime = 0.0;
         this.state = State.QUEUED;
         this.result = Result.NONE;
+        this.isRetry = false;
+        this.attempt = 0;
         this.dagJob = dagJob;
         this.task = task;
         this.owner = owner;
@@ -117,6 +166,22 @@ public class Job {
         return startTime;
     }
 
+    public void setComputationStartTime(double computationStartTime) {
+        this.computationStartTime = computationStartTime;
+    }
+
+    public double getComputationStartTime() {
+        return computationStartTime;
+    }
+
+    public void setComputationFinishTime(double computationFinishTime) {
+        this.computationFinishTime = computationFinishTime;
+    }
+
+    public double getComputationFinishTime() {
+        return computationFinishTime;
+    }
+
     public void setFinishTime(double finishTime) {
         this.finishTime = finishTime;
     }
@@ -180,4 +245,12 @@ public class Job {
     public void setRetry(boolean retry) {
         isRetry = retry;
     }
+
+    public int getAttempt() {
+        return attempt;
+    }
+
+    public void setAttempt(int attempt) {
+        this.attempt = attempt;
+    }
 }
@@ -1,5 +1,6 @@
 package cws.core.jobs;
 
+import java.util.List;
 
 public interface JobListener {
     /** Job has been released (i.e. its parents are done) */
@@ -11,6 +12,9 @@ public interface JobListener {
     /** Job began executing */
     public void jobStarted(Job job);
 
+    /** Jobs began executing at once on the same VM, {@link #jobStarted(Job)} is not called for them */
+    public void jobsStarted(List<Job> jobs);
+
     /** Job finished executing */
     public void jobFinished(Job job);
 }
@@ -1,5 +1,12 @@
 package cws.core.jobs;
 
+import java.util.SplittableRandom;
+
 public interface RuntimeDistribution {
     public double getActualRuntime(double runtime);
+
+    /**
+     * Like {@link #getActualRuntime(double)}, drawing from the given stream.
+     */
+    public double getActualRuntime(double runtime, SplittableRandom random);
 }
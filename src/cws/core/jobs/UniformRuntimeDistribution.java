@@ -1,6 +1,6 @@
 package cws.core.jobs;
 
-import java.util.Random;
+import java.util.SplittableRandom;
 
 /**
  * Returns 'runtime' +/- 'variance' percent of 'runtime', where the actual
@@ -10,16 +10,22 @@ import java.util.Random;
  * @author Gideon Juve <juve@usc.edu>
  */
 public class UniformRuntimeDistribution implements RuntimeDistribution {
-    private Random random;
+    /** Stream used when the caller doesn't give one */
+    private SplittableRandom random;
     private double variance;
 
     public UniformRuntimeDistribution(long seed, double variance) {
-        this.random = new Random(seed);
+        this.random = new SplittableRandom(seed);
         this.variance = variance;
     }
 
     @Override
     public double getActualRuntime(double runtime) {
+        return getActualRuntime(runtime, random);
+    }
+
+    @Override
+    public double getActualRuntime(double runtime, SplittableRandom random) {
         // Get a random number in the range [-1,+1]
         double plusorminus = (random.nextDouble() * 2.0d) - 1.0d;
         return runtime + (plusorminus * variance * runtime);
@@ -4,6 +4,7 @@ import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.text.DecimalFormat;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
 
 import cws.core.VM;
@@ -128,6 +129,10 @@ public class WorkflowLog implements JobListener, VMListener, DAGJobListener {
     public void jobStarted(Job job) {
     }
 
+    @Override
+    public void jobsStarted(List<Job> jobs) {
+    }
+
     @Override
     public void jobFinished(Job job) {
         jobs.add(job);
@@ -1,11 +1,13 @@
 package cws.core.provisioner;
 
+import java.util.SplittableRandom;
+
 import org.cloudbus.cloudsim.distributions.ContinuousDistribution;
 
 /**
  * @see ContinuousDistribution
  */
-public class ConstantDistribution implements ContinuousDistribution {
+public class ConstantDistribution implements StreamDistribution {
     private double delay;
 
     public ConstantDistribution(double delay) {
@@ -17,6 +19,11 @@ public class ConstantDistribution implements ContinuousDistribution {
         return this.delay;
     }
 
+    @Override
+    public double sample(SplittableRandom random) {
+        return this.delay;
+    }
+
     public String toString() {
         return "constant distribution, value = " + delay;
     }
@@ -1,7 +1,8 @@
 package cws.core.provisioner;
 
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
 
 import cws.core.Provisioner;
@@ -28,6 +29,13 @@ public class SimpleUtilizationBasedProvisioner extends CloudAwareProvisioner imp
         // when called for the first time it should obtain the initial number of VMs
         if (initialNumVMs == 0) {
             initialNumVMs = engine.getAvailableVMs().size();
+            List<VM> queuedVMs = getCloud().getQueuedVMs(engine.getId());
+            if (initialNumVMs == 0 && getCloudsim().clock() >= engine.getDeadline()
+                    && queuedVMs.size() == getCloud().getVMs(engine.getId()).size()) {
+                // All the initial VMs are still waiting for quota on a shared cloud. It is too late for them now.
+                terminateInstances(engine, new LinkedHashSet<VM>(queuedVMs));
+                return;
+            }
             if (initialNumVMs == 0) {// send event to initiate next provisioning cycle
                 // We need to wait after initial VMs are created.
                 getCloudsim().send(engine.getId(), engine.getId(), PROVISIONER_INTERVAL,
@@ -47,14 +55,14 @@ public class SimpleUtilizationBasedProvisioner extends CloudAwareProvisioner imp
         double vmPrice = environment.getSingleVMPrice();
 
         // running vms are free + busy
-        Set<VM> runningVMs = new HashSet<VM>(engine.getFreeVMs());
+        Set<VM> runningVMs = new LinkedHashSet<VM>(engine.getFreeVMs());
         runningVMs.addAll(engine.getBusyVMs());
 
         int numVMsRunning = runningVMs.size();
 
         // find VMs that will complete their billing unit
         // during the next provisioning cycle
-        Set<VM> completingVMs = new HashSet<VM>();
+        Set<VM> completingVMs = new LinkedHashSet<VM>();
 
         for (VM vm : runningVMs) {
             double vmRuntime = vm.getRuntime();
@@ -94,7 +102,7 @@ public class SimpleUtilizationBasedProvisioner extends CloudAwareProvisioner imp
                             + numVMsCompleting + ", numVMsRunning: " + numVMsRunning);
 
             // set of vms scheduled for termination
-            Set<VM> toTerminate = new HashSet<VM>();
+            Set<VM> toTerminate = new LinkedHashSet<VM>();
 
             // select VMs to terminate
             if (numToTerminate < numVMsCompleting) {
@@ -121,7 +129,7 @@ public class SimpleUtilizationBasedProvisioner extends CloudAwareProvisioner imp
                     if (toTerminate.add(vm))
                         added++;
                 }
-                Iterator<VM> allVmsIt = getCloud().getAllVms().iterator();
+                Iterator<VM> allVmsIt = getCloud().getLaunchedVMs(engine.getId()).iterator();
                 while (added < numToTerminate && allVmsIt.hasNext()) {
                     VM vm = allVmsIt.next();
                     if (!toTerminate.contains(vm)) {
@@ -130,6 +138,9 @@ public class SimpleUtilizationBasedProvisioner extends CloudAwareProvisioner imp
                 }
             }
 
+            // VMs still waiting for quota on a shared cloud would only start when it is too late
+            toTerminate.addAll(getCloud().getQueuedVMs(engine.getId()));
+
             // start terminating vms
             Set<VM> terminated = terminateInstances(engine, toTerminate);
             // remove terminated vms from free and busy sets
@@ -138,19 +149,20 @@ public class SimpleUtilizationBasedProvisioner extends CloudAwareProvisioner imp
 
             // some instances may be still running so we want to be invoked again to stop them before they reach full
             // billing unit
-            if (getCloud().getAllVms().size() > 0)
+            if (getCloud().getLaunchedVMs(engine.getId()).size() > 0)
                 getCloudsim().send(engine.getId(), engine.getId(), PROVISIONER_INTERVAL,
                         WorkflowEvent.PROVISIONING_REQUEST, null);
             // return without further provisioning
             return;
         }
 
-        // compute utilization
-        if (getCloud().getAllVms().size() == 0) {
+        // compute utilization, VMs which still wait for quota don't run anything yet
+        Set<VM> launchedVMs = getCloud().getLaunchedVMs(engine.getId());
+        if (launchedVMs.size() == 0) {
             // No machines - finish.
             return;
         }
-        double utilization = engine.getBusyVMs().size() / (getCloud().getAllVms().size());
+        double utilization = engine.getBusyVMs().size() / (launchedVMs.size());
 
         if (!(utilization >= 0.0)) {
             getCloudsim().log(
@@ -169,10 +181,12 @@ public class SimpleUtilizationBasedProvisioner extends CloudAwareProvisioner imp
         // and utilization is high
         // and we are below max limit
         // and we have money left for one instance more
+        // and none of our VMs waits for quota
         // then: deploy new instance
         double provisioning_interval = PROVISIONER_INTERVAL;
         if (!finishing_phase && utilization > UPPER_THRESHOLD
-                && getCloud().getAllVms().size() < getMaxScaling() * initialNumVMs && budget - cost >= vmPrice) {
+                && launchedVMs.size() < getMaxScaling() * initialNumVMs && budget - cost >= vmPrice
+                && getCloud().getQueuedVMs(engine.getId()).isEmpty()) {
 
             VM vm = VMFactory.createVM(environment.getVMType(), getCloudsim());
 
@@ -181,14 +195,14 @@ public class SimpleUtilizationBasedProvisioner extends CloudAwareProvisioner imp
             provisioning_interval = 0;
         } else if (!finishing_phase && utilization < LOWER_THRESHOLD) {
             // select Vms to terminate
-            Set<VM> toTerminate = new HashSet<VM>();
+            Set<VM> toTerminate = new LinkedHashSet<VM>();
 
             // terminate half of the instances
             // make sure that if there is only one instance it should be terminated
             int numToTerminate = (int) Math.ceil(numVMsCompleting / 2.0);
             // Do not terminate too many machines. I.e. so that we will get over upper threshold.
-            while (getCloud().getAllVms().size() - numToTerminate != 0
-                    && (engine.getBusyVMs().size() / (getCloud().getAllVms().size() - numToTerminate)) > UPPER_THRESHOLD
+            while (launchedVMs.size() - numToTerminate != 0
+                    && (engine.getBusyVMs().size() / (launchedVMs.size() - numToTerminate)) > UPPER_THRESHOLD
                     && numToTerminate > 0) {
                 numToTerminate--;
             }
@@ -221,7 +235,7 @@ public class SimpleUtilizationBasedProvisioner extends CloudAwareProvisioner imp
      * @return set of VMs that were terminated
      */
     private Set<VM> terminateInstances(WorkflowEngine engine, Set<VM> vmSet) {
-        Set<VM> removed = new HashSet<VM>();
+        Set<VM> removed = new LinkedHashSet<VM>();
         Iterator<VM> vmIt = vmSet.iterator();
 
         while (vmIt.hasNext()) {
@@ -0,0 +1,14 @@
+package cws.core.provisioner;
+
+import java.util.SplittableRandom;
+
+import org.cloudbus.cloudsim.distributions.ContinuousDistribution;
+
+/**
+ * Distribution which can draw its samples from a stream given by the caller, so that each VM samples its delays from
+ * its own stream.
+ * @see cws.core.RandomStreams
+ */
+public interface StreamDistribution extends ContinuousDistribution {
+    public double sample(SplittableRandom random);
+}
@@ -0,0 +1,35 @@
+package cws.core.provisioner;
+
+import java.util.SplittableRandom;
+
+import org.cloudbus.cloudsim.distributions.UniformDistr;
+
+/**
+ * Uniform distribution which can sample from a given stream. Samples drawn without a stream, e.g. for estimates, come
+ * from a stream with a fixed seed, so that they are reproducible too.
+ */
+public class UniformDistribution extends UniformDistr implements StreamDistribution {
+    private final double min;
+    private final double max;
+    private final SplittableRandom random = new SplittableRandom(0);
+
+    public UniformDistribution(double min, double max) {
+        super(min, max);
+        this.min = min;
+        this.max = max;
+    }
+
+    @Override
+    public double sample() {
+        return sample(random);
+    }
+
+    @Override
+    public double sample(SplittableRandom random) {
+        return random.nextDouble() * (max - min) + min;
+    }
+
+    public String toString() {
+        return "uniform distribution, min = " + min + ", max = " + max;
+    }
+}
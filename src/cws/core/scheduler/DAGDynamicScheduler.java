@@ -1,13 +1,11 @@
 package cws.core.scheduler;
 
-import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Queue;
-import java.util.Set;
 
 import cws.core.Scheduler;
 import cws.core.VM;
 import cws.core.WorkflowEngine;
-import cws.core.WorkflowEvent;
 import cws.core.cloudsim.CWSSimEntity;
 import cws.core.cloudsim.CloudSimWrapper;
 import cws.core.engine.Environment;
@@ -15,15 +13,28 @@ import cws.core.jobs.Job;
 
 /**
  * This scheduler submits jobs to VMs on FCFS basis.
- * Job is submitted to VM only if VM is idle (no queuing in VMs).
+ * Job is submitted to VM only if VM has an idle core (no queuing in VMs).
  * @author malawski
  */
 public class DAGDynamicScheduler extends CWSSimEntity implements Scheduler {
     protected Environment environment;
 
+    /** Engine's free VMs which have not been matched with jobs yet in the current scheduling round */
+    private Iterator<VM> freeVMs;
+
+    /** The VM which gets the next job, null if there are no more free VMs in the current round */
+    private VM currentVM;
+
+    /** Number of jobs {@link #currentVM} can still accept in the current round */
+    private int currentVMCores;
+
+    /** Jobs matched with VMs in the current scheduling round */
+    private final JobBatch pendingJobs;
+
     public DAGDynamicScheduler(CloudSimWrapper cloudsim, Environment environment) {
         super("DAGDynamicScheduler", cloudsim);
         this.environment = environment;
+        this.pendingJobs = new JobBatch(cloudsim);
     }
 
     @Override
@@ -41,41 +52,66 @@ public class DAGDynamicScheduler extends CWSSimEntity implements Scheduler {
      * @param engine
      */
     protected void scheduleQueue(Queue<Job> jobs, WorkflowEngine engine) {
-        /*
-         * FIXME(_mequrel_): copying references because when we remove it from list, garbage collector removes VM...
-         * imho it shouldn't working like that
-         */
-        Set<VM> freeVMs = new HashSet<VM>(engine.getFreeVMs());
+        startRound(engine);
 
-        while (canBeScheduled(jobs, freeVMs)) {
+        while (canBeScheduled(jobs)) {
             Job job = jobs.poll();
-            scheduleJob(job, freeVMs, engine);
+            scheduleJob(job, engine);
         }
+
+        submitPendingJobs(engine);
     }
 
-    protected void scheduleJob(Job job, Set<VM> freeVMs, WorkflowEngine engine) {
-        VM vm = getFirst(freeVMs);
-        markVMAsBusy(freeVMs, vm);
+    /**
+     * Starts matching jobs with engine's free VMs, in the order of the engine's VM pool. The free VMs are not copied,
+     * the engine doesn't change them before it gets the events sent in this round. Every free VM accepts at least one
+     * job, multi-core VMs accept one job per idle core not claimed by their queue.
+     */
+    protected void startRound(WorkflowEngine engine) {
+        freeVMs = engine.getFreeVMs().iterator();
+        nextVM();
+    }
 
-        job.setVM(vm);
+    private void nextVM() {
+        if (freeVMs.hasNext()) {
+            currentVM = freeVMs.next();
+            currentVMCores = getAcceptedJobs(currentVM);
+        } else {
+            currentVM = null;
+            freeVMs = null;
+        }
+    }
 
-        sendJobToVM(engine, vm, job);
+    /**
+     * @return number of jobs the free VM accepts in a scheduling round.
+     */
+    protected int getAcceptedJobs(VM vm) {
+        return Math.max(1, vm.getIdleCores() - vm.getQueueLength());
     }
 
-    private void sendJobToVM(WorkflowEngine engine, VM vm, Job job) {
-        getCloudsim().send(engine.getId(), vm.getId(), 0.0, WorkflowEvent.JOB_SUBMIT, job);
-        getCloudsim().log("Submitting " + job.toString() + " to VM " + job.getVM().getId());
+    protected void scheduleJob(Job job, WorkflowEngine engine) {
+        VM vm = currentVM;
+        if (--currentVMCores == 0) {
+            nextVM();
+        }
+        matchJob(job, vm);
     }
 
-    private boolean canBeScheduled(Queue<Job> jobs, Set<VM> freeVMs) {
-        return !freeVMs.isEmpty() && !jobs.isEmpty();
+    /**
+     * Assigns the job to the VM. The job is sent to the VM by {@link #submitPendingJobs(WorkflowEngine)}.
+     */
+    protected void matchJob(Job job, VM vm) {
+        pendingJobs.add(job, vm);
     }
 
-    private void markVMAsBusy(Set<VM> freeVMs, VM vm) {
-        freeVMs.remove(vm);
+    /**
+     * Sends jobs matched by {@link #scheduleJob(Job, WorkflowEngine)} to their VMs, one event per VM.
+     */
+    protected void submitPendingJobs(WorkflowEngine engine) {
+        pendingJobs.submit(engine);
     }
 
-    private VM getFirst(Set<VM> freeVMs) {
-        return freeVMs.iterator().next();
+    protected boolean canBeScheduled(Queue<Job> jobs) {
+        return currentVM != null && !jobs.isEmpty();
     }
 }
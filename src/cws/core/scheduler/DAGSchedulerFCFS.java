@@ -7,13 +7,12 @@ import java.util.Queue;
 import cws.core.Scheduler;
 import cws.core.VM;
 import cws.core.WorkflowEngine;
-import cws.core.WorkflowEvent;
 import cws.core.cloudsim.CloudSimWrapper;
 import cws.core.jobs.Job;
 
 /**
  * This scheduler submits jobs to VMs on FCFS basis.
- * The ready jobs are inserted into VM queues for execution.
+ * The ready jobs are inserted into VM queues for execution, a VM with an empty queue gets one job per idle core.
  * @author malawski
  */
 public class DAGSchedulerFCFS implements Scheduler {
@@ -22,8 +21,12 @@ public class DAGSchedulerFCFS implements Scheduler {
 
     private CloudSimWrapper cloudsim;
 
+    /** Jobs matched with VMs in the current scheduling round */
+    private final JobBatch pendingJobs;
+
     public DAGSchedulerFCFS(CloudSimWrapper cloudsim) {
         this.cloudsim = cloudsim;
+        this.pendingJobs = new JobBatch(cloudsim);
     }
 
     @Override
@@ -41,11 +44,13 @@ public class DAGSchedulerFCFS implements Scheduler {
         while (!jobs.isEmpty() && vmIt.hasNext()) {
             VM vm = vmIt.next();
             if (vm.getQueueLength() == 0) {
-                Job job = jobs.poll(); // retrieve and remove job from ready set
-                job.setVM(vm);
-                cloudsim.log(" Submitting job " + job.toString() + " to VM " + job.getVM().getId());
-                cloudsim.send(engine.getId(), vm.getId(), 0.0, WorkflowEvent.JOB_SUBMIT, job);
+                int accepted = Math.max(1, vm.getIdleCores());
+                while (accepted-- > 0 && !jobs.isEmpty()) {
+                    Job job = jobs.poll(); // retrieve and remove job from ready set
+                    pendingJobs.add(job, vm);
+                }
             }
         }
+        pendingJobs.submit(engine);
     }
 }
@@ -0,0 +1,62 @@
+package cws.core.scheduler;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import cws.core.VM;
+import cws.core.WorkflowEngine;
+import cws.core.WorkflowEvent;
+import cws.core.cloudsim.CloudSimWrapper;
+import cws.core.jobs.Job;
+
+/**
+ * Jobs matched with VMs during one scheduling round. They are submitted with one event per VM, a VM which gets a
+ * single job gets the usual {@link WorkflowEvent#JOB_SUBMIT} event.
+ */
+public class JobBatch {
+    private final CloudSimWrapper cloudsim;
+
+    /** Jobs matched with each VM, in the order VMs were first matched */
+    private final Map<VM, List<Job>> pendingJobs = new LinkedHashMap<VM, List<Job>>();
+
+    public JobBatch(CloudSimWrapper cloudsim) {
+        this.cloudsim = cloudsim;
+    }
+
+    /**
+     * Assigns the job to the VM. The job is sent to the VM by {@link #submit(WorkflowEngine)}.
+     */
+    public void add(Job job, VM vm) {
+        job.setVM(vm);
+
+        List<Job> vmJobs = pendingJobs.get(vm);
+        if (vmJobs == null) {
+            vmJobs = new ArrayList<Job>();
+            pendingJobs.put(vm, vmJobs);
+        }
+        vmJobs.add(job);
+    }
+
+    /**
+     * Sends the jobs added since the last call to their VMs on behalf of the engine, one event per VM.
+     */
+    public void submit(WorkflowEngine engine) {
+        for (Map.Entry<VM, List<Job>> entry : pendingJobs.entrySet()) {
+            submit(engine, entry.getKey(), entry.getValue());
+        }
+        pendingJobs.clear();
+    }
+
+    private void submit(WorkflowEngine engine, VM vm, List<Job> vmJobs) {
+        if (vmJobs.size() == 1) {
+            cloudsim.send(engine.getId(), vm.getId(), 0.0, WorkflowEvent.JOB_SUBMIT, vmJobs.get(0));
+        } else {
+            cloudsim.send(engine.getId(), vm.getId(), 0.0, WorkflowEvent.JOB_SUBMIT_BATCH, vmJobs);
+        }
+        for (Job job : vmJobs) {
+            cloudsim.log("Submitting " + job.toString() + " to VM " + vm.getId());
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package cws.core.scheduler;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+
+import cws.core.VM;
+import cws.core.WorkflowEngine;
+import cws.core.cloudsim.CloudSimWrapper;
+import cws.core.dag.DAGFile;
+import cws.core.engine.Environment;
+import cws.core.jobs.Job;
+import cws.core.storage.cache.VMCacheIndex;
+
+/**
+ * {@link EnsembleDynamicScheduler} which sends each job to the free VM caching the most bytes of the job's input files.
+ * Jobs whose inputs are not cached on any free VM go to the first free VM, as in {@link DAGDynamicScheduler}.<br>
+ * 
+ * The VMs caching a file are looked up in a {@link VMCacheIndex} fed by the storage's cache manager, and only the VMs
+ * which get jobs in a round are counted, so a decision costs time proportional to the number of the job's input files
+ * and their cached copies, not to the number of VMs.
+ */
+public class LocalityAwareEnsembleScheduler extends EnsembleDynamicScheduler {
+    private final VMCacheIndex cacheIndex = new VMCacheIndex();
+
+    /** Engine's free VMs in the current round, not copied since the engine doesn't change them during a round */
+    private Set<VM> freeVMs;
+
+    /** Free VMs in the order of the engine's pool; those before {@link #firstFreeVM} accept no more jobs */
+    private Iterator<VM> nextFreeVMs;
+
+    /** The first free VM which may still accept jobs in the current round, null before it is looked up */
+    private VM firstFreeVM;
+
+    /** Jobs matched with each VM in the current round, VMs without jobs are not in the map */
+    private final Map<VM, Integer> matchedJobs = new HashMap<VM, Integer>();
+
+    /** Number of free VMs which accept no more jobs in the current round */
+    private int fullVMs;
+
+    /** Cached input bytes of the job being scheduled on each candidate VM, reused between decisions */
+    private final Map<VM, Long> cachedBytes = new HashMap<VM, Long>();
+
+    public LocalityAwareEnsembleScheduler(CloudSimWrapper cloudsim, Environment environment) {
+        super(cloudsim, environment);
+        environment.addCacheListener(cacheIndex);
+    }
+
+    @Override
+    protected void startRound(WorkflowEngine engine) {
+        freeVMs = engine.getFreeVMs();
+        nextFreeVMs = freeVMs.iterator();
+        firstFreeVM = null;
+        matchedJobs.clear();
+        fullVMs = 0;
+    }
+
+    @Override
+    protected void scheduleJob(Job job, WorkflowEngine engine) {
+        VM vm = findVM(job);
+        int matched = getMatchedJobs(vm) + 1;
+        matchedJobs.put(vm, matched);
+        if (matched == getAcceptedJobs(vm)) {
+            fullVMs++;
+        }
+        matchJob(job, vm);
+    }
+
+    private int getMatchedJobs(VM vm) {
+        Integer matched = matchedJobs.get(vm);
+        return matched == null ? 0 : matched;
+    }
+
+    /**
+     * @return whether the VM is free and can get one more job in the current round.
+     */
+    private boolean accepts(VM vm) {
+        return freeVMs.contains(vm) && getMatchedJobs(vm) < getAcceptedJobs(vm);
+    }
+
+    /**
+     * @return the free VM caching the most input bytes of the job, or the first free VM if none caches any.
+     */
+    private VM findVM(Job job) {
+        VM best = null;
+        long bestBytes = 0;
+        for (DAGFile file : job.getTask().getInputFiles()) {
+            for (VM vm : cacheIndex.getVMs(file)) {
+                if (!accepts(vm)) {
+                    continue;
+                }
+                Long bytes = cachedBytes.get(vm);
+                long total = (bytes == null ? 0 : bytes) + file.getSize();
+                cachedBytes.put(vm, total);
+                if (total > bestBytes) {
+                    best = vm;
+                    bestBytes = total;
+                }
+            }
+        }
+        cachedBytes.clear();
+        if (best == null) {
+            best = getFirstFreeVM();
+        }
+        return best;
+    }
+
+    /**
+     * @return the first free VM which accepts jobs. VMs only get full during a round, so the search goes on from the
+     *         previous one.
+     */
+    private VM getFirstFreeVM() {
+        while (firstFreeVM == null || !accepts(firstFreeVM)) {
+            firstFreeVM = nextFreeVMs.next();
+        }
+        return firstFreeVM;
+    }
+
+    @Override
+    protected boolean canBeScheduled(Queue<Job> jobs) {
+        return fullVMs < freeVMs.size() && !jobs.isEmpty();
+    }
+}
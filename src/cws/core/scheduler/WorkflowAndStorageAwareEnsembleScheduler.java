@@ -13,8 +13,9 @@ public class WorkflowAndStorageAwareEnsembleScheduler extends WorkflowAwareEnsem
         super(cloudsim, environment);
     }
 
-    protected double getPredictedRuntime(Task task) {
-        return environment.getComputationPredictedRuntime(task) + environment.getTransfersPredictedRuntime(task);
+    protected double getPredictedRuntime(DAG dag, Task task) {
+        return environment.getComputationPredictedRuntime(dag, task)
+                + environment.getTransfersPredictedRuntime(dag, task);
     }
 
     protected double getPredictedRuntime(DAG dag) {
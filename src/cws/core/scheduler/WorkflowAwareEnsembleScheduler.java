@@ -15,7 +15,7 @@ import cws.core.jobs.Job;
 
 /**
  * This scheduler submits workflow ensemble to VMs on FCFS basis.
- * Job is submitted to VM only if VM is idle (no queueing in VMs)
+ * Job is submitted to VM only if VM has an idle core (no queueing in VMs)
  * and if there are no higher priority jobs in the queue.
  * 
  * @author malawski
@@ -67,17 +67,17 @@ public class WorkflowAwareEnsembleScheduler extends EnsembleDynamicScheduler {
      */
     @Override
     protected void scheduleQueue(Queue<Job> jobs, WorkflowEngine engine) {
-        // FIXME(_mequrel_): copying references because when we remove it from list, garbage collector removes VM...
-        // imho it shouldnt working like that
-        Set<VM> freeVMs = new HashSet<VM>(engine.getFreeVMs());
+        startRound(engine);
 
-        while (canBeScheduled(jobs, freeVMs)) {
+        while (canBeScheduled(jobs)) {
             Job job = jobs.poll();
 
             if (isJobDagAdmitted(job, engine)) {
-                scheduleJob(job, freeVMs, engine);
+                scheduleJob(job, engine);
             }
         }
+
+        submitPendingJobs(engine);
     }
 
     private boolean isJobDagAdmitted(Job job, WorkflowEngine engine) {
@@ -111,10 +111,6 @@ public class WorkflowAwareEnsembleScheduler extends EnsembleDynamicScheduler {
         return admittedDAGs.contains(dj);
     }
 
-    protected boolean canBeScheduled(Queue<Job> jobs, Set<VM> freeVMs) {
-        return !freeVMs.isEmpty() && !jobs.isEmpty();
-    }
-
     // decide what to do with the job from a new dag
     private boolean isJobAdmittable(DAGJob dj, WorkflowEngine engine) {
         double costEstimate = estimateCost(dj);
@@ -128,8 +124,8 @@ public class WorkflowAwareEnsembleScheduler extends EnsembleDynamicScheduler {
      */
     private double estimateCost(DAGJob dj) {
         double sumRuntime = getPredictedRuntime(dj.getDAG());
-        double vmPrice = environment.getSingleVMPrice();
-        return vmPrice * sumRuntime / environment.getBillingTimeInSeconds();
+        double corePrice = environment.getSingleCorePrice();
+        return corePrice * sumRuntime / environment.getBillingTimeInSeconds();
     }
 
     /**
@@ -144,13 +140,12 @@ public class WorkflowAwareEnsembleScheduler extends EnsembleDynamicScheduler {
         // compute remaining (not consumed) budget of currently running VMs
         double rc = 0.0;
 
-        Set<VM> vms = new HashSet<VM>();
-        vms.addAll(engine.getFreeVMs());
-        vms.addAll(engine.getBusyVMs());
-
-        for (VM vm : vms) {
-            rc += vm.getCost() - vm.getRuntime() * vm.getVmType().getPriceForBillingUnit()
-                    / environment.getBillingTimeInSeconds();
+        // free and busy VMs are disjoint
+        for (VM vm : engine.getFreeVMs()) {
+            rc += getRemainingCost(vm);
+        }
+        for (VM vm : engine.getBusyVMs()) {
+            rc += getRemainingCost(vm);
         }
 
         // compute remaining runtime of admitted workflows
@@ -172,6 +167,14 @@ public class WorkflowAwareEnsembleScheduler extends EnsembleDynamicScheduler {
         return rn + rc - ra - safetyMargin;
     }
 
+    /**
+     * Remaining (paid, but not consumed) cost of the VM
+     */
+    private double getRemainingCost(VM vm) {
+        return vm.getCost() - vm.getRuntime() * vm.getVmType().getPriceForBillingUnit()
+                / environment.getBillingTimeInSeconds();
+    }
+
     /**
      * Estimate remaining cost = total remaining time of incomplete tasks * price
      * 
@@ -185,14 +188,14 @@ public class WorkflowAwareEnsembleScheduler extends EnsembleDynamicScheduler {
         for (String taskName : dag.getTasks()) {
             Task task = dag.getTaskById(taskName);
             if (!admittedDJ.isComplete(task)) {
-                cost += getPredictedRuntime(task) * environment.getSingleVMPrice();
+                cost += getPredictedRuntime(dag, task) * environment.getSingleCorePrice();
             }
         }
         return cost / environment.getBillingTimeInSeconds();
     }
     
-    protected double getPredictedRuntime(Task task) {
-        return environment.getComputationPredictedRuntime(task);
+    protected double getPredictedRuntime(DAG dag, Task task) {
+        return environment.getComputationPredictedRuntime(dag, task);
     }
     
     protected double getPredictedRuntime(DAG dag) {
@@ -0,0 +1,145 @@
+package cws.core.simulation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import cws.core.Cloud;
+import cws.core.RandomStreams;
+import cws.core.algorithms.Algorithm;
+import cws.core.algorithms.AlgorithmStatistics;
+import cws.core.cloudsim.CloudSimWrapper;
+import cws.core.cloudsim.Recycler;
+import cws.core.dag.DAG;
+import cws.core.dag.DAGStats;
+import cws.core.engine.Environment;
+
+/**
+ * Simulates the cells of a sweep. The simulation context is created once and reset for each cell, only the algorithms
+ * and the cloud are created for each cell, because they depend on the cell's budget and deadline.
+ */
+class CellSimulator {
+    private final Simulation simulation;
+    private final CloudSimWrapper cloudsim;
+    private final Environment environment;
+    private final List<DAG> dags;
+    private final List<DAGStats> stats;
+    private final String[] names;
+    private final String[] algorithmNames;
+    private final double alpha;
+    private final double maxScaling;
+    private final int vmQuota;
+    private final int tenantVMQuota;
+    private final Recycler recycler;
+    private final List<AlgorithmStatistics> tenantStatistics = new ArrayList<AlgorithmStatistics>();
+
+    /** Cloud of the last simulated cell */
+    private Cloud cloud;
+
+    public CellSimulator(Simulation simulation, CloudSimWrapper cloudsim, Environment environment,
+            EnsembleLoader loader, String[] names, String[] algorithmNames, double alpha, double maxScaling,
+            int vmQuota, int tenantVMQuota, Recycler recycler) {
+        this.simulation = simulation;
+        this.cloudsim = cloudsim;
+        this.environment = environment;
+        this.dags = loader.getDAGs();
+        this.stats = loader.getStats();
+        this.names = names;
+        this.algorithmNames = algorithmNames;
+        this.alpha = alpha;
+        this.maxScaling = maxScaling;
+        this.vmQuota = vmQuota;
+        this.tenantVMQuota = tenantVMQuota;
+        this.recycler = recycler;
+        cloudsim.setRecycler(recycler);
+    }
+
+    public CloudSimWrapper getCloudSim() {
+        return cloudsim;
+    }
+
+    public Environment getEnvironment() {
+        return environment;
+    }
+
+    public List<DAGStats> getDAGStats() {
+        return stats;
+    }
+
+    public Cloud getCloud() {
+        return cloud;
+    }
+
+    /**
+     * Simulates a single cell, in which each tenant runs the whole ensemble with the same budget and deadline.
+     * @param randomStreams - streams of the cell, so its results don't depend on the cells simulated before it.
+     * @param progress - informed when the cell starts, may be null.
+     * @return The tenants, in the order of the algorithm names.
+     */
+    public List<Algorithm> simulate(double budget, double deadline, RandomStreams randomStreams,
+            SweepProgress progress) {
+        // entities are reset in the order they were created, so that they get the same ids
+        cloudsim.reset();
+        cloudsim.setRandomStreams(randomStreams);
+        cloudsim.log("budget = " + budget);
+        cloudsim.log("deadline = " + deadline);
+        logWorkflowsDescription();
+
+        environment.reset();
+
+        List<Algorithm> tenants = new ArrayList<Algorithm>();
+        for (int tenant = 0; tenant < algorithmNames.length; tenant++) {
+            AlgorithmStatistics ensembleStatistics;
+            if (tenant < tenantStatistics.size()) {
+                ensembleStatistics = tenantStatistics.get(tenant);
+                ensembleStatistics.reset(budget, deadline);
+            } else {
+                ensembleStatistics = new AlgorithmStatistics(dags, budget, deadline, cloudsim);
+                tenantStatistics.add(ensembleStatistics);
+            }
+            tenants.add(simulation.createAlgorithm(alpha, maxScaling, algorithmNames[tenant], cloudsim, dags, budget,
+                    deadline, environment, ensembleStatistics));
+        }
+        cloud = new Cloud(cloudsim);
+        cloud.setVMQuota(vmQuota);
+        cloud.setTenantVMQuota(tenantVMQuota);
+        for (Algorithm algorithm : tenants) {
+            algorithm.setCloud(cloud);
+        }
+        if (progress != null) {
+            progress.startCell(join(algorithmNames), budget, deadline, cloud, tenants);
+        }
+
+        Algorithm.simulate(tenants);
+        return tenants;
+    }
+
+    /**
+     * Called once the results of the last cell have been read.
+     */
+    public void endCell() {
+        if (recycler != null) {
+            // nothing references this cell's objects anymore
+            recycler.endCell();
+        }
+    }
+
+    private void logWorkflowsDescription() {
+        for (int i = 0; i < dags.size(); i++) {
+            DAG dag = dags.get(i);
+            String workflowDescription = String.format("Workflow %s, priority = %d, filename = %s", dag.getId(),
+                    dags.size() - i, names[i]);
+            cloudsim.log(workflowDescription);
+        }
+    }
+
+    private static String join(String[] values) {
+        StringBuilder joined = new StringBuilder();
+        for (String value : values) {
+            if (joined.length() > 0) {
+                joined.append(",");
+            }
+            joined.append(value);
+        }
+        return joined.toString();
+    }
+}
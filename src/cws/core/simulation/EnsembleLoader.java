@@ -0,0 +1,114 @@
+package cws.core.simulation;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import cws.core.dag.DAG;
+import cws.core.dag.DAGParser;
+import cws.core.dag.DAGStats;
+import cws.core.dag.DAGStatsCache;
+import cws.core.dag.Task;
+import cws.core.engine.Environment;
+
+/**
+ * Parses, scales and analyzes the DAG files of an ensemble. Files are processed in parallel on a fork/join pool, but
+ * the results are kept in the order of the file list, so that DAG ids and priorities don't depend on which file was
+ * loaded first.
+ */
+class EnsembleLoader {
+    /** Ranges of at most this many files are processed by a single worker */
+    private static final int THRESHOLD = 1;
+
+    private final double scalingFactor;
+    private final Environment environment;
+
+    /** Cache of stats, null if stats are always computed */
+    private final DAGStatsCache dagStatsCache;
+
+    private String[] names;
+    private DAG[] dags;
+    private DAGStats[] stats;
+
+    public EnsembleLoader(double scalingFactor, Environment environment, DAGStatsCache dagStatsCache) {
+        this.scalingFactor = scalingFactor;
+        this.environment = environment;
+        this.dagStatsCache = dagStatsCache;
+    }
+
+    /**
+     * Loads all the files. DAG ids are the files' positions in the list.
+     */
+    public void load(String[] names) {
+        this.names = names;
+        this.dags = new DAG[names.length];
+        this.stats = new DAGStats[names.length];
+        ForkJoinPool pool = new ForkJoinPool();
+        try {
+            pool.invoke(new LoadRange(0, names.length));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * @return DAGs in the order of the loaded files.
+     */
+    public List<DAG> getDAGs() {
+        return new ArrayList<DAG>(Arrays.asList(dags));
+    }
+
+    /**
+     * @return Stats of the DAGs in the order of the loaded files.
+     */
+    public List<DAGStats> getStats() {
+        return Arrays.asList(stats);
+    }
+
+    private void loadOne(int i) {
+        DAG dag = DAGParser.parseDAG(new File(names[i]));
+        dag.setId(Integer.toString(i));
+        if (scalingFactor > 1.0) {
+            for (String tid : dag.getTasks()) {
+                Task t = dag.getTaskById(tid);
+                t.scaleSize(scalingFactor);
+            }
+        }
+        if (dagStatsCache != null) {
+            stats[i] = dagStatsCache.getStats(new File(names[i]), dag, scalingFactor, environment);
+        } else {
+            stats[i] = new DAGStats(dag, environment);
+        }
+        dags[i] = dag;
+    }
+
+    /**
+     * Loads the files from start (inclusive) to end (exclusive), splitting the range in halves.
+     */
+    private class LoadRange extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int start;
+        private final int end;
+
+        public LoadRange(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start <= THRESHOLD) {
+                for (int i = start; i < end; i++) {
+                    loadOne(i);
+                }
+            } else {
+                int middle = (start + end) >>> 1;
+                invokeAll(new LoadRange(start, middle), new LoadRange(middle, end));
+            }
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package cws.core.simulation;
+
+/**
+ * Mean, variance and confidence interval of a value over the replications of a cell. They are updated online with
+ * Welford's algorithm, so the values of the replications don't need to be kept.
+ */
+class ReplicationStatistics {
+    private int count;
+    private double mean;
+    /** Sum of squared differences from the current mean */
+    private double squares;
+
+    public void add(double value) {
+        count++;
+        double delta = value - mean;
+        mean += delta / count;
+        squares += delta * (value - mean);
+    }
+
+    public void reset() {
+        count = 0;
+        mean = 0.0;
+        squares = 0.0;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public double getMean() {
+        return mean;
+    }
+
+    /**
+     * @return Sample variance, 0 for less than two values.
+     */
+    public double getVariance() {
+        if (count < 2) {
+            return 0.0;
+        }
+        return squares / (count - 1);
+    }
+
+    /**
+     * @param confidence - e.g. 0.95.
+     * @return Half-width of the confidence interval of the mean based on Student's t distribution, infinite for less
+     *         than two values.
+     */
+    public double getHalfWidth(double confidence) {
+        if (count < 2) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return getStudentQuantile((1.0 + confidence) / 2.0, count - 1) * Math.sqrt(getVariance() / count);
+    }
+
+    /**
+     * @return Whether the half-width of the confidence interval is at most relativeHalfWidth times the mean.
+     */
+    public boolean isPrecise(double confidence, double relativeHalfWidth) {
+        return getHalfWidth(confidence) <= relativeHalfWidth * Math.abs(mean);
+    }
+
+    /**
+     * Quantile of Student's t distribution. It is exact for 1 and 2 degrees of freedom and uses the Cornish-Fisher
+     * expansion of Abramowitz and Stegun 26.7.5 above, which is accurate to 0.01 for 3 degrees of freedom and gets
+     * better with more.
+     */
+    static double getStudentQuantile(double p, int degrees) {
+        if (degrees == 1) {
+            return Math.tan(Math.PI * (p - 0.5));
+        }
+        if (degrees == 2) {
+            return (2.0 * p - 1.0) * Math.sqrt(2.0 / (4.0 * p * (1.0 - p)));
+        }
+        double x = getNormalQuantile(p);
+        double x2 = x * x;
+        double n = degrees;
+        double g1 = (x2 + 1.0) * x / 4.0;
+        double g2 = ((5.0 * x2 + 16.0) * x2 + 3.0) * x / 96.0;
+        double g3 = (((3.0 * x2 + 19.0) * x2 + 17.0) * x2 - 15.0) * x / 384.0;
+        double g4 = ((((79.0 * x2 + 776.0) * x2 + 1482.0) * x2 - 1920.0) * x2 - 945.0) * x / 92160.0;
+        return x + g1 / n + g2 / (n * n) + g3 / (n * n * n) + g4 / (n * n * n * n);
+    }
+
+    /**
+     * Quantile of the standard normal distribution, computed with Acklam's rational approximation, whose relative
+     * error is below 1.15e-9.
+     */
+    static double getNormalQuantile(double p) {
+        if (p <= 0.0 || p >= 1.0) {
+            throw new IllegalArgumentException("Probability out of (0, 1): " + p);
+        }
+        final double[] a = { -3.969683028665376e+01, 2.209460984245205e+02, -2.759285104469687e+02,
+                1.383577518672690e+02, -3.066479806614716e+01, 2.506628277459239e+00 };
+        final double[] b = { -5.447609879822406e+01, 1.615858368580409e+02, -1.556989798598866e+02,
+                6.680131188771972e+01, -1.328068155288572e+01 };
+        final double[] c = { -7.784894002430293e-03, -3.223964580411365e-01, -2.400758277161838e+00,
+                -2.549732539343734e+00, 4.374664141464968e+00, 2.938163982698783e+00 };
+        final double[] d = { 7.784695709041462e-03, 3.224671290700398e-01, 2.445134137142996e+00,
+                3.754408661907416e+00 };
+        double low = 0.02425;
+        if (p < low) {
+            double q = Math.sqrt(-2.0 * Math.log(p));
+            return (((((c[0] * q + c[1]) * q + c[2]) * q + c[3]) * q + c[4]) * q + c[5])
+                    / ((((d[0] * q + d[1]) * q + d[2]) * q + d[3]) * q + 1.0);
+        } else if (p > 1.0 - low) {
+            return -getNormalQuantile(1.0 - p);
+        }
+        double q = p - 0.5;
+        double r = q * q;
+        return (((((a[0] * r + a[1]) * r + a[2]) * r + a[3]) * r + a[4]) * r + a[5]) * q
+                / (((((b[0] * r + b[1]) * r + b[2]) * r + b[3]) * r + b[4]) * r + 1.0);
+    }
+}
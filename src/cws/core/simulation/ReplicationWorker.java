@@ -0,0 +1,70 @@
+package cws.core.simulation;
+
+import java.util.List;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.ParseException;
+import org.apache.commons.cli.PosixParser;
+
+import cws.core.RandomStreams;
+import cws.core.algorithms.Algorithm;
+import cws.core.algorithms.AlgorithmStatistics;
+import cws.core.config.GlobalStorageParamsLoader;
+import cws.core.core.VMTypeLoader;
+
+/**
+ * Simulates replications of the cells of a sweep for {@link Replicator}. Each worker is loaded by a class loader of its
+ * own, so it only exchanges classes of the JDK with the rest of the sweep.
+ */
+public class ReplicationWorker {
+    /** Indexes of the metrics of a tenant returned by {@link #replicate(double, double, int)} */
+    public static final int COMPLETED = 0;
+    public static final int EXPONENTIAL_SCORE = 1;
+    public static final int LINEAR_SCORE = 2;
+    public static final int COST = 3;
+    public static final int MAKESPAN = 4;
+    public static final int METRICS = 5;
+
+    private final CellSimulator cells;
+    private final RandomStreams randomStreams;
+
+    /**
+     * @param arguments - command line of the sweep, with an explicit seed.
+     */
+    public ReplicationWorker(String[] arguments) {
+        CommandLine args;
+        try {
+            args = new PosixParser().parse(Simulation.buildOptions(), arguments);
+        } catch (ParseException e) {
+            throw new RuntimeException(e);
+        }
+        Simulation simulation = new Simulation(new VMTypeLoader(), new GlobalStorageParamsLoader());
+        cells = simulation.prepareCellSimulator(args);
+        randomStreams = new RandomStreams(Long.parseLong(args.getOptionValue("seed")));
+    }
+
+    /**
+     * Replication 0 draws the same random numbers as the cell of a sweep without replications, the others draw from
+     * streams of their own.
+     * @return Metrics of each tenant, indexed by {@link #COMPLETED}, {@link #EXPONENTIAL_SCORE} etc.
+     */
+    public double[][] replicate(double budget, double deadline, int replication) {
+        RandomStreams streams = Simulation.getCellStreams(randomStreams, budget, deadline);
+        if (replication > 0) {
+            streams = streams.child(replication);
+        }
+        List<Algorithm> tenants = cells.simulate(budget, deadline, streams, null);
+
+        double[][] metrics = new double[tenants.size()][METRICS];
+        for (int tenant = 0; tenant < tenants.size(); tenant++) {
+            AlgorithmStatistics statistics = tenants.get(tenant).getAlgorithmStatistics();
+            metrics[tenant][COMPLETED] = statistics.getFinishedDags().size();
+            metrics[tenant][EXPONENTIAL_SCORE] = statistics.getExponentialScore();
+            metrics[tenant][LINEAR_SCORE] = statistics.getLinearScore();
+            metrics[tenant][COST] = statistics.getCost();
+            metrics[tenant][MAKESPAN] = statistics.getLastDagFinishTime();
+        }
+        cells.endCell();
+        return metrics;
+    }
+}
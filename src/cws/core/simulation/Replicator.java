@@ -0,0 +1,250 @@
+package cws.core.simulation;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.MalformedURLException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+
+/**
+ * Runs replications of the cells of a sweep in parallel and aggregates their metrics online.
+ *
+ * CloudSim keeps the simulation in static fields, so each thread runs its replications in a {@link ReplicationWorker}
+ * loaded by a class loader of its own, which has its own copy of CloudSim and of the rest of the static state, e.g.
+ * {@link cws.core.VMFactory}. Its class path is the location of the simulator, with the libraries listed in the
+ * manifest when it is a jar, and the JVM's class path. When the simulator can't be loaded from there, e.g. when it is
+ * embedded in an application with a class loader of its own, the replications run one at a time in our class loader,
+ * each cell resets the simulation before it starts. Replications are added to the statistics in their order, so the
+ * results depend neither on the number of threads nor on which replication finishes first.
+ */
+class Replicator {
+    /** The confidence interval isn't checked before that many replications */
+    private static final int MIN_REPLICATIONS = 2;
+
+    private final String[] arguments;
+    /** Class path of the workers' class loaders, null if the workers run in our class loader */
+    private final URL[] classpath;
+    private final ExecutorService executor;
+    private final ThreadLocal<Worker> workers = new ThreadLocal<Worker>();
+    private final List<URLClassLoader> loaders = new ArrayList<URLClassLoader>();
+    /** Worker loaded to check the class path, handed to the first thread */
+    private Worker spareWorker;
+
+    /**
+     * Worker of a thread and its replicate method, called by reflection since its class is usually not ours.
+     */
+    private static class Worker {
+        private final Object worker;
+        private final Method replicate;
+
+        public Worker(Object worker) throws NoSuchMethodException {
+            this.worker = worker;
+            this.replicate = worker.getClass().getMethod("replicate", double.class, double.class, int.class);
+        }
+
+        public double[][] replicate(double budget, double deadline, int replication) throws Exception {
+            try {
+                return (double[][]) replicate.invoke(worker, budget, deadline, replication);
+            } catch (InvocationTargetException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw (Exception) cause;
+            }
+        }
+    }
+
+    /**
+     * @param arguments - command line of the sweep, with an explicit seed, so that all workers use the same one.
+     * @param threads - number of replications simulated at the same time.
+     */
+    public Replicator(String[] arguments, int threads) {
+        this.arguments = arguments;
+        URL[] urls;
+        try {
+            urls = getClasspath(Replicator.class.getProtectionDomain().getCodeSource().getLocation());
+            spareWorker = loadWorker(urls);
+        } catch (Exception e) {
+            urls = null;
+        } catch (LinkageError e) {
+            urls = null;
+        }
+        this.classpath = urls;
+        // the simulation state of our class loader is shared, so its replications can't run at the same time
+        this.executor = Executors.newFixedThreadPool(classpath == null ? 1 : threads);
+    }
+
+    /**
+     * Simulates replications of a cell until the confidence intervals of all the metrics of all the tenants are
+     * precise enough, or maxReplications are done.
+     * @param relativeHalfWidth - the requested half-width of the intervals relative to the means, 0 to always run
+     *            maxReplications.
+     * @return Statistics of each tenant's metrics, indexed by {@link ReplicationWorker#COMPLETED} etc.
+     */
+    public ReplicationStatistics[][] replicate(final double budget, final double deadline, int maxReplications,
+            double confidence, double relativeHalfWidth) {
+        List<Future<double[][]>> replications = new ArrayList<Future<double[][]>>();
+        for (int replication = 0; replication < maxReplications; replication++) {
+            final int number = replication;
+            replications.add(executor.submit(new Callable<double[][]>() {
+                @Override
+                public double[][] call() throws Exception {
+                    return getWorker().replicate(budget, deadline, number);
+                }
+            }));
+        }
+
+        ReplicationStatistics[][] statistics = null;
+        try {
+            for (int replication = 0; replication < maxReplications; replication++) {
+                double[][] metrics = replications.get(replication).get();
+                if (statistics == null) {
+                    statistics = new ReplicationStatistics[metrics.length][ReplicationWorker.METRICS];
+                    for (ReplicationStatistics[] tenant : statistics) {
+                        for (int metric = 0; metric < tenant.length; metric++) {
+                            tenant[metric] = new ReplicationStatistics();
+                        }
+                    }
+                }
+                for (int tenant = 0; tenant < metrics.length; tenant++) {
+                    for (int metric = 0; metric < metrics[tenant].length; metric++) {
+                        statistics[tenant][metric].add(metrics[tenant][metric]);
+                    }
+                }
+                if (replication + 1 >= MIN_REPLICATIONS && relativeHalfWidth > 0
+                        && isPrecise(statistics, confidence, relativeHalfWidth)) {
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } finally {
+            // replications which are already running finish, but their results are ignored
+            for (Future<double[][]> replication : replications) {
+                replication.cancel(false);
+            }
+        }
+        return statistics;
+    }
+
+    private static boolean isPrecise(ReplicationStatistics[][] statistics, double confidence,
+            double relativeHalfWidth) {
+        for (ReplicationStatistics[] tenant : statistics) {
+            for (ReplicationStatistics metric : tenant) {
+                if (!metric.isPrecise(confidence, relativeHalfWidth)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+        synchronized (loaders) {
+            for (URLClassLoader loader : loaders) {
+                try {
+                    loader.close();
+                } catch (IOException e) {
+                    // nothing is loaded anymore
+                }
+            }
+            loaders.clear();
+        }
+    }
+
+    /**
+     * @return The worker of the current thread, loading it the first time.
+     */
+    private Worker getWorker() throws Exception {
+        Worker worker = workers.get();
+        if (worker == null) {
+            if (classpath == null) {
+                worker = new Worker(new ReplicationWorker(arguments));
+            } else {
+                worker = takeSpareWorker();
+                if (worker == null) {
+                    worker = loadWorker(classpath);
+                }
+            }
+            workers.set(worker);
+        }
+        return worker;
+    }
+
+    private synchronized Worker takeSpareWorker() {
+        Worker worker = spareWorker;
+        spareWorker = null;
+        return worker;
+    }
+
+    /**
+     * Loads a worker with its own copy of the simulator and its libraries, the parent only loads the JDK.
+     */
+    private Worker loadWorker(URL[] urls) throws Exception {
+        URLClassLoader loader = new URLClassLoader(urls, ClassLoader.getSystemClassLoader().getParent());
+        synchronized (loaders) {
+            loaders.add(loader);
+        }
+        Class<?> workerClass = loader.loadClass(ReplicationWorker.class.getName());
+        return new Worker(workerClass.getConstructor(String[].class).newInstance((Object) arguments));
+    }
+
+    /**
+     * @param location - location of the simulator's classes, a directory or a jar.
+     * @return The location, the entries of the Class-Path of the jar's manifest and of the JVM's class path.
+     */
+    static URL[] getClasspath(URL location) {
+        Set<URL> urls = new LinkedHashSet<URL>();
+        urls.add(location);
+        try {
+            File file = new File(location.toURI());
+            if (file.isFile()) {
+                JarFile jar = new JarFile(file);
+                try {
+                    Manifest manifest = jar.getManifest();
+                    String entries = manifest == null ? null : manifest.getMainAttributes().getValue(
+                            Attributes.Name.CLASS_PATH);
+                    if (entries != null) {
+                        for (String entry : entries.trim().split("\\s+")) {
+                            // relative to the jar
+                            urls.add(new URL(location, entry));
+                        }
+                    }
+                } finally {
+                    jar.close();
+                }
+            }
+            for (String entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+                if (!entry.isEmpty()) {
+                    urls.add(new File(entry).toURI().toURL());
+                }
+            }
+        } catch (URISyntaxException e) {
+            throw new RuntimeException(e);
+        } catch (MalformedURLException e) {
+            throw new RuntimeException(e);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return urls.toArray(new URL[urls.size()]);
+    }
+}
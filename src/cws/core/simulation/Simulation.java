@@ -6,6 +6,7 @@ import java.io.FileOutputStream;
 import java.io.OutputStream;
 import java.io.PrintStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
 
@@ -19,23 +20,27 @@ import org.apache.commons.cli.PosixParser;
 import org.apache.commons.io.IOUtils;
 import org.cloudbus.cloudsim.Log;
 
+import cws.core.Cloud;
+import cws.core.RandomStreams;
 import cws.core.VMFactory;
 import cws.core.algorithms.Algorithm;
 import cws.core.algorithms.AlgorithmStatistics;
 import cws.core.algorithms.DPDS;
+import cws.core.algorithms.Histogram;
+import cws.core.algorithms.LocalityAwareDPDS;
 import cws.core.algorithms.SPSS;
 import cws.core.algorithms.StorageAwareSPSS;
 import cws.core.algorithms.StorageAwareWADPDS;
 import cws.core.algorithms.WADPDS;
 import cws.core.cloudsim.CloudSimWrapper;
+import cws.core.cloudsim.Recycler;
 import cws.core.config.GlobalStorageParamsLoader;
 import cws.core.core.VMType;
 import cws.core.core.VMTypeLoader;
 import cws.core.dag.DAG;
 import cws.core.dag.DAGListGenerator;
-import cws.core.dag.DAGParser;
 import cws.core.dag.DAGStats;
-import cws.core.dag.Task;
+import cws.core.dag.DAGStatsCache;
 import cws.core.engine.Environment;
 import cws.core.engine.EnvironmentFactory;
 import cws.core.exception.IllegalCWSArgumentException;
@@ -89,6 +94,53 @@ public class Simulation {
      */
     private static final String DEFAULT_LOG_TO_STDOUT = "false";
 
+    /**
+     * Should jobs, transfers and events be recycled between simulation cells by default?
+     */
+    private static final String DEFAULT_RECYCLE_OBJECTS = "false";
+
+    /**
+     * Should the progress of the sweep be registered as a JMX MBean by default? Sweeps run by the scripts in
+     * scripts/runners turn it on.
+     */
+    private static final String DEFAULT_JMX_PROGRESS = "false";
+
+    /**
+     * Maximal number of VMs running at the same time in the account, shared by all tenants. 0 means unlimited.
+     */
+    private static final String DEFAULT_VM_QUOTA = "0";
+
+    /**
+     * Maximal number of VMs running at the same time for a single tenant. 0 means unlimited.
+     */
+    private static final String DEFAULT_TENANT_VM_QUOTA = "0";
+
+    /**
+     * Number of replications of each cell. More than one replaces the output with statistics over the replications.
+     */
+    private static final String DEFAULT_REPLICATIONS = "1";
+
+    /**
+     * Half-width of the confidence intervals relative to the means at which replications of a cell stop. 0 means they
+     * never stop before the given number of replications.
+     */
+    private static final String DEFAULT_CI_HALF_WIDTH = "0";
+
+    /**
+     * Confidence level of the intervals of replications.
+     */
+    private static final String DEFAULT_CONFIDENCE = "0.95";
+
+    /**
+     * Metrics of replications written to the output file, in the order of {@link ReplicationWorker#COMPLETED} etc.
+     */
+    private static final String[] REPLICATION_METRICS = { "completed", "exponential", "linear", "cost", "makespan" };
+
+    /**
+     * Percentiles of the histograms of {@link AlgorithmStatistics} written to the output file, in addition to maxima.
+     */
+    private static final double[] PERCENTILES = { 50, 90, 99 };
+
     /**
      * Loads VMType from file and/or from CLI args
      */
@@ -136,9 +188,10 @@ public class Simulation {
         ensembleSize.setArgName("SIZE");
         options.addOption(ensembleSize);
 
-        Option algorithm = new Option("alg", "algorithm", true, "(required) Algorithm");
+        Option algorithm = new Option("alg", "algorithm", true,
+                "(required) Algorithm, or comma separated algorithms of tenants sharing the cloud");
         algorithm.setRequired(true);
-        algorithm.setArgName("ALGO");
+        algorithm.setArgName("ALGO[,ALGO...]");
         options.addOption(algorithm);
 
         Option scalingFactor = new Option("sf", "scaling-factor", true, "Scaling factor, defaults to "
@@ -146,12 +199,12 @@ public class Simulation {
         scalingFactor.setArgName("FACTOR");
         options.addOption(scalingFactor);
 
-        Option storageCache = new Option("sc", "storage-cache", true, "Storage cache, defaults to "
-                + DEFAULT_STORAGE_CACHE);
+        Option storageCache = new Option("sc", "storage-cache", true,
+                "Storage cache (fifo, lru, lfu, arc or void), defaults to " + DEFAULT_STORAGE_CACHE);
         storageCache.setArgName("CACHE");
         options.addOption(storageCache);
 
-        Option storageManager = new Option("sm", "storage-manager", true, "(required) Storage manager ");
+        Option storageManager = new Option("sm", "storage-manager", true, "(required) Storage manager (global, p2p or void)");
         storageManager.setRequired(true);
         storageManager.setArgName("MRG");
         options.addOption(storageManager);
@@ -193,6 +246,55 @@ public class Simulation {
         alpha.setArgName("FLOAT");
         options.addOption(alpha);
 
+        Option dagStatsCache = new Option("dsc", "dag-stats-cache", true,
+                "Optional directory in which DAG stats are cached across runs");
+        dagStatsCache.setArgName("DIR");
+        options.addOption(dagStatsCache);
+
+        Option recycleObjects = new Option("ro", "recycle-objects", true,
+                "Whether to reuse jobs, transfers and events of previous simulations, defaults to "
+                        + DEFAULT_RECYCLE_OBJECTS);
+        recycleObjects.setArgName("BOOL");
+        options.addOption(recycleObjects);
+
+        Option jmxProgress = new Option("jmx", "jmx-progress", true,
+                "Whether to show the progress of the sweep in a JMX MBean, defaults to " + DEFAULT_JMX_PROGRESS);
+        jmxProgress.setArgName("BOOL");
+        options.addOption(jmxProgress);
+
+        Option vmQuota = new Option("vq", "vm-quota", true,
+                "Maximal number of running VMs of all tenants, 0 means unlimited, defaults to " + DEFAULT_VM_QUOTA);
+        vmQuota.setArgName("N");
+        options.addOption(vmQuota);
+
+        Option tenantVMQuota = new Option("tvq", "tenant-vm-quota", true,
+                "Maximal number of running VMs of each tenant, 0 means unlimited, defaults to "
+                        + DEFAULT_TENANT_VM_QUOTA);
+        tenantVMQuota.setArgName("N");
+        options.addOption(tenantVMQuota);
+
+        Option replications = new Option("rep", "replications", true,
+                "Number of replications of each cell, more than one writes their mean, variance and confidence "
+                        + "interval instead of single results, defaults to " + DEFAULT_REPLICATIONS);
+        replications.setArgName("N");
+        options.addOption(replications);
+
+        Option ciHalfWidth = new Option("ci", "ci-half-width", true,
+                "Stop replicating a cell once the confidence intervals of all metrics are narrower than this "
+                        + "fraction of their means, 0 never stops early, defaults to " + DEFAULT_CI_HALF_WIDTH);
+        ciHalfWidth.setArgName("FRACTION");
+        options.addOption(ciHalfWidth);
+
+        Option confidence = new Option("cl", "confidence", true,
+                "Confidence level of the intervals of replications, defaults to " + DEFAULT_CONFIDENCE);
+        confidence.setArgName("LEVEL");
+        options.addOption(confidence);
+
+        Option replicationThreads = new Option("rt", "replication-threads", true,
+                "Number of replications simulated in parallel, defaults to the number of processors");
+        replicationThreads.setArgName("N");
+        options.addOption(replicationThreads);
+
         VMFactory.buildCliOptions(options);
 
         VMTypeLoader.buildCliOptions(options);
@@ -227,7 +329,7 @@ public class Simulation {
 
     public void runTest(CommandLine args) {
         // Arguments with no defaults
-        String algorithmName = args.getOptionValue("algorithm");
+        String[] algorithmNames = args.getOptionValue("algorithm").split(",");
         String application = args.getOptionValue("application");
         File inputdir = new File(args.getOptionValue("input-dir"));
         File outputfile = new File(args.getOptionValue("output-file"));
@@ -245,57 +347,33 @@ public class Simulation {
         int ndeadlines = Integer.parseInt(args.getOptionValue("n-deadlines", DEFAULT_N_DEADLINES));
         double maxScaling = Double.parseDouble(args.getOptionValue("max-scaling", DEFAULT_MAX_SCALING));
         double alpha = Double.parseDouble(args.getOptionValue("max-scaling", DEFAULT_ALPHA));
+        boolean recycleObjects = Boolean.valueOf(args.getOptionValue("recycle-objects", DEFAULT_RECYCLE_OBJECTS));
+        boolean jmxProgress = Boolean.valueOf(args.getOptionValue("jmx-progress", DEFAULT_JMX_PROGRESS));
+        int replications = Integer.parseInt(args.getOptionValue("replications", DEFAULT_REPLICATIONS));
+        double ciHalfWidth = Double.parseDouble(args.getOptionValue("ci-half-width", DEFAULT_CI_HALF_WIDTH));
+        double confidence = Double.parseDouble(args.getOptionValue("confidence", DEFAULT_CONFIDENCE));
+        int replicationThreads = Integer.parseInt(args.getOptionValue("replication-threads", ""
+                + Runtime.getRuntime().availableProcessors()));
+        if (replications < 1) {
+            throw new IllegalCWSArgumentException("Invalid number of replications: " + replications);
+        }
+        if (confidence <= 0.0 || confidence >= 1.0) {
+            throw new IllegalCWSArgumentException("Invalid confidence: " + confidence);
+        }
+        if (replicationThreads < 1) {
+            throw new IllegalCWSArgumentException("Invalid number of replication threads: " + replicationThreads);
+        }
 
         VMType vmType = vmTypeLoader.determineVMType(args);
         logVMType(vmType);
 
         VMFactory.readCliOptions(args, seed);
 
-        CloudSimWrapper cloudsim = new CloudSimWrapper();
-        cloudsim.init();
-        cloudsim.setLogsEnabled(enableLogging);
-        Log.disable(); // We do not need Cloudsim's logs. We have our own.
+        String[] names = getDAGNames(args, seed);
 
-        // Determine the distribution
-        String[] names = null;
-        String inputname = inputdir.getAbsolutePath() + "/" + application;
-        if ("uniform_unsorted".equals(distribution)) {
-            names = DAGListGenerator.generateDAGListUniformUnsorted(new Random(seed), inputname, ensembleSize);
-        } else if ("uniform_sorted".equals(distribution)) {
-            names = DAGListGenerator.generateDAGListUniform(new Random(seed), inputname, ensembleSize);
-        } else if ("pareto_unsorted".equals(distribution)) {
-            names = DAGListGenerator.generateDAGListParetoUnsorted(new Random(seed), inputname, ensembleSize);
-        } else if ("pareto_sorted".equals(distribution)) {
-            names = DAGListGenerator.generateDAGListPareto(new Random(seed), inputname, ensembleSize);
-        } else if ("constant".equals(distribution)) {
-            names = DAGListGenerator.generateDAGListConstant(new Random(seed), inputname, ensembleSize);
-        } else if (distribution.startsWith("fixed")) {
-            int size = Integer.parseInt(distribution.substring(5));
-            names = DAGListGenerator.generateDAGListConstant(inputname, size, ensembleSize);
-        } else {
-            System.err.println("Unrecognized distribution: " + distribution);
-            System.exit(1);
-        }
-
-        StorageSimulationParams simulationParams = new StorageSimulationParams();
-
-        if (storageCacheType.equals("fifo")) {
-            simulationParams.setStorageCacheType(StorageCacheType.FIFO);
-        } else if (storageCacheType.equals("void")) {
-            simulationParams.setStorageCacheType(StorageCacheType.VOID);
-        } else {
-            throw new IllegalCWSArgumentException("Wrong storage-cache:" + storageCacheType);
-        }
-
-        if (storageManagerType.equals("global")) {
-            GlobalStorageParams globalStorageParams = globalStorageParamsLoader.determineGlobalStorageParams(args);
-            logGlobalStorageParams(globalStorageParams);
-            simulationParams.setStorageParams(globalStorageParams);
-            simulationParams.setStorageType(StorageType.GLOBAL);
-        } else if (storageManagerType.equals("void")) {
-            simulationParams.setStorageType(StorageType.VOID);
-        } else {
-            throw new IllegalCWSArgumentException("Wrong storage-manager:" + storageCacheType);
+        StorageSimulationParams simulationParams = getStorageSimulationParams(args);
+        if (simulationParams.getStorageParams() != null) {
+            logGlobalStorageParams(simulationParams.getStorageParams());
         }
 
         // Echo the simulation parameters
@@ -305,7 +383,7 @@ public class Simulation {
         System.out.printf("distribution = %s\n", distribution);
         System.out.printf("ensembleSize = %d\n", ensembleSize);
         System.out.printf("scalingFactor = %f\n", scalingFactor);
-        System.out.printf("algorithm = %s\n", algorithmName);
+        System.out.printf("algorithm = %s\n", args.getOptionValue("algorithm"));
         System.out.printf("seed = %d\n", seed);
         System.out.printf("storageManagerType = %s\n", storageManagerType);
         System.out.printf("storageCache = %s\n", storageCacheType);
@@ -313,32 +391,32 @@ public class Simulation {
         System.out.printf("nbudgets = %d\n", nbudgets);
         System.out.printf("ndeadlines = %d\n", ndeadlines);
         System.out.printf("alpha = %f\n", alpha);
+        if (args.hasOption("dag-stats-cache")) {
+            System.out.printf("dagStatsCache = %s\n", args.getOptionValue("dag-stats-cache"));
+        }
+        System.out.printf("recycleObjects = %b\n", recycleObjects);
         System.out.printf("maxScaling = %f\n", maxScaling);
+        System.out.printf("jmxProgress = %b\n", jmxProgress);
+        System.out.printf("vmQuota = %s\n", args.getOptionValue("vm-quota", DEFAULT_VM_QUOTA));
+        System.out.printf("tenantVMQuota = %s\n", args.getOptionValue("tenant-vm-quota", DEFAULT_TENANT_VM_QUOTA));
+        System.out.printf("replications = %d\n", replications);
+        if (replications > 1) {
+            System.out.printf("ciHalfWidth = %f\n", ciHalfWidth);
+            System.out.printf("confidence = %f\n", confidence);
+            System.out.printf("replicationThreads = %d\n", replicationThreads);
+        }
 
-        List<DAG> dags = new ArrayList<DAG>();
-        Environment environment = EnvironmentFactory.createEnvironment(cloudsim, simulationParams, vmType);
+        CellSimulator cells = createCellSimulator(args, vmType, simulationParams, names);
+        CloudSimWrapper cloudsim = cells.getCloudSim();
+        Environment environment = cells.getEnvironment();
         double minTime = Double.MAX_VALUE;
         double minCost = Double.MAX_VALUE;
         double maxCost = 0.0;
         double maxTime = 0.0;
-        int workflow_id = 0;
-        for (String name : names) {
-            DAG dag = DAGParser.parseDAG(new File(name));
-            dag.setId(new Integer(workflow_id).toString());
+        for (int workflow_id = 0; workflow_id < names.length; workflow_id++) {
             System.out.println(String.format("Workflow %d, priority = %d, filename = %s", workflow_id, names.length
-                    - workflow_id, name));
-            workflow_id++;
-            dags.add(dag);
-
-            if (scalingFactor > 1.0) {
-                for (String tid : dag.getTasks()) {
-                    Task t = dag.getTaskById(tid);
-                    t.scaleSize(scalingFactor);
-                }
-            }
-
-            DAGStats dagStats = new DAGStats(dag, environment);
-
+                    - workflow_id, names[workflow_id]));
+            DAGStats dagStats = cells.getDAGStats().get(workflow_id);
             minTime = Math.min(minTime, dagStats.getCriticalPath())
                     + environment.getVMProvisioningOverallDelayEstimation();
             minCost = Math.min(minCost, dagStats.getMinCost());
@@ -380,72 +458,125 @@ public class Simulation {
         System.out.printf("budgets (min, max, step) = %f %f %f\n", minBudget, maxBudget, budgetStep);
         System.out.printf("deadlines (min, max, step) = %f %f %f\n", minDeadline, maxDeadline, deadlineStep);
 
+        // cells don't track their progress unless it is shown
+        SweepProgress progress = null;
+        if (jmxProgress) {
+            progress = new SweepProgress(countSteps(minBudget, maxBudget, budgetStep)
+                    * countSteps(minDeadline, maxDeadline, deadlineStep), cloudsim);
+            progress.register(outputfile.getAbsolutePath());
+        }
+
+        Replicator replicator = null;
+        if (replications > 1) {
+            replicator = new Replicator(getArguments(args, seed), replicationThreads);
+        }
+
         PrintStream fileOut = null;
         try {
             fileOut = new PrintStream(new FileOutputStream(outputfile));
-            fileOut.println("application,distribution,seed,dags,scale,budget,"
-                    + "deadline,algorithm,completed,exponential,linear,"
-                    + "planning,simulation,scorebits,cost,lastJobFinish,lastDagFinish,"
-                    + "lastVMFinish,runtimeVariance,failureRate,minBudget,"
-                    + "maxBudget,minDeadline,maxDeadline,"
-                    + "timeSpentOnTransfers,timeSpentOnComputations,"
-                    + "storageManagerType,totalBytesToRead,totalBytesToWrite,totalBytesToTransfer,"
-                    + "actualBytesRead,actualBytesTransferred,"
-                    + "totalFilesToRead,totalFilesToWrite,totalFilesToTransfer,"
-                    + "actualFilesRead,actualFilesTransferred");
+            if (replicator != null) {
+                fileOut.println(getReplicationColumns());
+            } else {
+                fileOut.println("application,distribution,seed,dags,scale,budget,"
+                        + "deadline,algorithm,completed,exponential,linear,"
+                        + "planning,simulation,scorebits,cost,lastJobFinish,lastDagFinish,"
+                        + "lastVMFinish,runtimeVariance,failureRate,minBudget,"
+                        + "maxBudget,minDeadline,maxDeadline,"
+                        + "timeSpentOnTransfers,timeSpentOnComputations,"
+                        + "storageManagerType,totalBytesToRead,totalBytesToWrite,totalBytesToTransfer,"
+                        + "actualBytesRead,actualBytesTransferred,"
+                        + "totalFilesToRead,totalFilesToWrite,totalFilesToTransfer,"
+                        + "actualFilesRead,actualFilesTransferred,"
+                        + "cacheHitBytes,cacheMissBytes,cacheEvictedBytes,"
+                        + "peerBytesRead,prefetchedBytes,writtenBehindBytes,"
+                        + getPercentileColumns("queueWait") + "," + getPercentileColumns("inputStaging") + ","
+                        + getPercentileColumns("computation") + "," + getPercentileColumns("outputStaging") + ","
+                        + getPercentileColumns("dagMakespan") + "," + getPercentileColumns("vmIdleFraction") + ","
+                        + "tenant,queuedVMLaunches,vmLaunchQueueWait");
+            }
 
+            RandomStreams randomStreams = new RandomStreams(seed);
             for (double budget = minBudget; budget <= maxBudget + (budgetStep / 2.0); budget += budgetStep) {
                 System.out.println();
                 for (double deadline = minDeadline; deadline <= maxDeadline + (deadlineStep / 2.0); deadline += deadlineStep) {
                     System.out.print(".");
+                    if (replicator != null) {
+                        if (progress != null) {
+                            progress.startCell(args.getOptionValue("algorithm"), budget, deadline, null,
+                                    new ArrayList<Algorithm>());
+                        }
+                        ReplicationStatistics[][] statistics = replicator.replicate(budget, deadline, replications,
+                                confidence, ciHalfWidth);
+                        String cell = String.format("%s,%s,%d,%d,%f,%f,%f,", application, distribution, seed,
+                                ensembleSize, scalingFactor, budget, deadline);
+                        printReplications(fileOut, cell, algorithmNames, statistics, confidence);
+                        if (progress != null) {
+                            progress.finishCell();
+                        }
+                        continue;
+                    }
+
                     if (enableLogging) {
                         if (logToStdout) {
-                            cloudsim = new CloudSimWrapper(System.out);
+                            cloudsim.setLogOutputStream(System.out);
                         } else {
-                            cloudsim = new CloudSimWrapper(getLogOutputStream(budget, deadline, outputfile));
+                            cloudsim.setLogOutputStream(getLogOutputStream(budget, deadline, outputfile));
                         }
-                    } else {
-                        cloudsim = new CloudSimWrapper();
                     }
-                    cloudsim.init();
-                    cloudsim.setLogsEnabled(enableLogging);
-                    cloudsim.log("budget = " + budget);
-                    cloudsim.log("deadline = " + deadline);
-                    logWorkflowsDescription(dags, names, cloudsim);
-
-                    environment = EnvironmentFactory.createEnvironment(cloudsim, simulationParams, vmType);
-
-                    Algorithm algorithm = createAlgorithm(alpha, maxScaling, algorithmName, cloudsim, dags, budget,
-                            deadline, environment);
-
-                    algorithm.simulate();
-
-                    AlgorithmStatistics algorithmStatistics = algorithm.getAlgorithmStatistics();
-                    double planningTime = algorithm.getPlanningnWallTime() / 1.0e9;
-                    double simulationTime = cloudsim.getSimulationWallTime() / 1.0e9;
-
-                    fileOut.printf("%s,%s,%d,%d,", application, distribution, seed, ensembleSize);
-                    fileOut.printf("%f,%f,%f,%s,", scalingFactor, budget, deadline, algorithm.getName());
-                    fileOut.printf("%d,%.10f,%.10f,%f,", algorithmStatistics.getFinishedDags().size(),
-                            algorithmStatistics.getExponentialScore(), algorithmStatistics.getLinearScore(),
-                            planningTime);
-                    fileOut.printf("%f,%s,%f,%f,%f,", simulationTime, algorithmStatistics.getScoreBitString(),
-                            algorithmStatistics.getCost(), algorithmStatistics.getLastJobFinishTime(),
-                            algorithmStatistics.getLastDagFinishTime());
-                    fileOut.printf("%f,%f,%f,%f,%f,%f,%f,", algorithmStatistics.getLastVMFinishTime(),
-                            VMFactory.getRuntimeVariance(), VMFactory.getFailureRate(), minBudget, maxBudget,
-                            minDeadline, maxDeadline);
-                    fileOut.printf("%f,%f,", algorithmStatistics.getTimeSpentOnTransfers(),
-                            algorithmStatistics.getTimeSpentOnComputations());
-
-                    StorageManagerStatistics stats = environment.getStorageManagerStatistics();
-                    fileOut.printf("%s,%d,%d,%d,%d,%d,", storageManagerType, stats.getTotalBytesToRead(),
-                            stats.getTotalBytesToWrite(), stats.getTotalBytesToRead() + stats.getTotalBytesToWrite(),
-                            stats.getActualBytesRead(), stats.getActualBytesRead() + stats.getTotalBytesToWrite());
-
-                    fileOut.printf("%d,%d,%d,%d,%d\n", stats.getTotalFilesToRead(), stats.getTotalFilesToWrite(),
-                            stats.getTotalFilesToRead() + stats.getTotalFilesToWrite(), stats.getActualFilesRead(),
-                            stats.getActualFilesRead() + stats.getTotalFilesToWrite());
+                    List<Algorithm> tenants = cells.simulate(budget, deadline,
+                            getCellStreams(randomStreams, budget, deadline), progress);
+                    Cloud cloud = cells.getCloud();
+
+                    for (int tenant = 0; tenant < tenants.size(); tenant++) {
+                        Algorithm algorithm = tenants.get(tenant);
+                        AlgorithmStatistics algorithmStatistics = algorithm.getAlgorithmStatistics();
+                        double planningTime = algorithm.getPlanningnWallTime() / 1.0e9;
+                        double simulationTime = cloudsim.getSimulationWallTime() / 1.0e9;
+
+                        fileOut.printf("%s,%s,%d,%d,", application, distribution, seed, ensembleSize);
+                        fileOut.printf("%f,%f,%f,%s,", scalingFactor, budget, deadline, algorithm.getName());
+                        fileOut.printf("%d,%.10f,%.10f,%f,", algorithmStatistics.getFinishedDags().size(),
+                                algorithmStatistics.getExponentialScore(), algorithmStatistics.getLinearScore(),
+                                planningTime);
+                        fileOut.printf("%f,%s,%f,%f,%f,", simulationTime, algorithmStatistics.getScoreBitString(),
+                                algorithmStatistics.getCost(), algorithmStatistics.getLastJobFinishTime(),
+                                algorithmStatistics.getLastDagFinishTime());
+                        fileOut.printf("%f,%f,%f,%f,%f,%f,%f,", algorithmStatistics.getLastVMFinishTime(),
+                                VMFactory.getRuntimeVariance(), VMFactory.getFailureRate(), minBudget, maxBudget,
+                                minDeadline, maxDeadline);
+                        fileOut.printf("%f,%f,", algorithmStatistics.getTimeSpentOnTransfers(),
+                                algorithmStatistics.getTimeSpentOnComputations());
+
+                        StorageManagerStatistics stats = environment.getStorageManagerStatistics();
+                        fileOut.printf("%s,%d,%d,%d,%d,%d,", storageManagerType, stats.getTotalBytesToRead(),
+                                stats.getTotalBytesToWrite(),
+                                stats.getTotalBytesToRead() + stats.getTotalBytesToWrite(),
+                                stats.getActualBytesRead(), stats.getActualBytesRead() + stats.getTotalBytesToWrite());
+
+                        fileOut.printf("%d,%d,%d,%d,%d,", stats.getTotalFilesToRead(), stats.getTotalFilesToWrite(),
+                                stats.getTotalFilesToRead() + stats.getTotalFilesToWrite(), stats.getActualFilesRead(),
+                                stats.getActualFilesRead() + stats.getTotalFilesToWrite());
+
+                        fileOut.printf("%d,%d,%d,%d,%d,%d,", stats.getCacheHitBytes(), stats.getCacheMissBytes(),
+                                stats.getCacheEvictedBytes(), stats.getPeerBytesRead(), stats.getPrefetchedBytes(),
+                                stats.getWrittenBehindBytes());
+
+                        fileOut.printf("%s,%s,%s,", getPercentiles(algorithmStatistics.getQueueWaitHistogram()),
+                                getPercentiles(algorithmStatistics.getInputStagingHistogram()),
+                                getPercentiles(algorithmStatistics.getComputationHistogram()));
+                        fileOut.printf("%s,%s,%s,", getPercentiles(algorithmStatistics.getOutputStagingHistogram()),
+                                getPercentiles(algorithmStatistics.getDagMakespanHistogram()),
+                                getPercentiles(algorithmStatistics.getVmIdleFractionHistogram()));
+
+                        int owner = algorithm.getWorkflowEngine().getId();
+                        fileOut.printf("%d,%d,%f\n", tenant, cloud.getQueuedLaunches(owner),
+                                cloud.getLaunchQueueWaitTime(owner));
+                    }
+
+                    cells.endCell();
+                    if (progress != null) {
+                        progress.finishCell();
+                    }
                 }
             }
             System.out.println();
@@ -453,16 +584,211 @@ public class Simulation {
             throw new RuntimeException(e);
         } finally {
             IOUtils.closeQuietly(fileOut);
+            if (progress != null) {
+                progress.unregister();
+            }
+            if (replicator != null) {
+                replicator.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Creates the simulation context of the sweep and loads the ensemble.
+     */
+    CellSimulator createCellSimulator(CommandLine args, VMType vmType, StorageSimulationParams simulationParams,
+            String[] names) {
+        String[] algorithmNames = args.getOptionValue("algorithm").split(",");
+        double scalingFactor = Double.parseDouble(args.getOptionValue("scaling-factor", DEFAULT_SCALING_FACTOR));
+        boolean enableLogging = Boolean.valueOf(args.getOptionValue("enable-logging", DEFAULT_ENABLE_LOGGING));
+        double maxScaling = Double.parseDouble(args.getOptionValue("max-scaling", DEFAULT_MAX_SCALING));
+        double alpha = Double.parseDouble(args.getOptionValue("max-scaling", DEFAULT_ALPHA));
+        DAGStatsCache dagStatsCache = null;
+        if (args.hasOption("dag-stats-cache")) {
+            dagStatsCache = new DAGStatsCache(new File(args.getOptionValue("dag-stats-cache")));
+        }
+        Recycler recycler = null;
+        if (Boolean.valueOf(args.getOptionValue("recycle-objects", DEFAULT_RECYCLE_OBJECTS))) {
+            recycler = new Recycler();
         }
+        int vmQuota = getQuota(args.getOptionValue("vm-quota", DEFAULT_VM_QUOTA));
+        int tenantVMQuota = getQuota(args.getOptionValue("tenant-vm-quota", DEFAULT_TENANT_VM_QUOTA));
+
+        CloudSimWrapper cloudsim = new CloudSimWrapper();
+        cloudsim.init();
+        cloudsim.setLogsEnabled(enableLogging);
+        Log.disable(); // We do not need Cloudsim's logs. We have our own.
+
+        Environment environment = EnvironmentFactory.createEnvironment(cloudsim, simulationParams, vmType);
+        EnsembleLoader loader = new EnsembleLoader(scalingFactor, environment, dagStatsCache);
+        loader.load(names);
+        return new CellSimulator(this, cloudsim, environment, loader, names, algorithmNames, alpha, maxScaling,
+                vmQuota, tenantVMQuota, recycler);
     }
 
-    private void logWorkflowsDescription(List<DAG> dags, String[] names, CloudSimWrapper cloudsim) {
-        for (int i = 0; i < dags.size(); i++) {
-            DAG dag = dags.get(i);
-            String workflowDescription = String.format("Workflow %s, priority = %d, filename = %s", dag.getId(),
-                    dags.size() - i, names[i]);
-            cloudsim.log(workflowDescription);
+    /**
+     * Same as the setup of {@link #runTest(CommandLine)}, but without echoing the parameters nor logging, for the
+     * workers of replications. The seed must be given explicitly.
+     */
+    CellSimulator prepareCellSimulator(CommandLine args) {
+        long seed = Long.parseLong(args.getOptionValue("seed"));
+        VMType vmType = vmTypeLoader.determineVMType(args);
+        VMFactory.loadCliOptions(args, seed);
+        String[] names = getDAGNames(args, seed);
+        CellSimulator cells = createCellSimulator(args, vmType, getStorageSimulationParams(args), names);
+        cells.getCloudSim().setLogsEnabled(false);
+        return cells;
+    }
+
+    private static String[] getDAGNames(CommandLine args, long seed) {
+        String application = args.getOptionValue("application");
+        File inputdir = new File(args.getOptionValue("input-dir"));
+        String distribution = args.getOptionValue("distribution");
+        int ensembleSize = Integer.parseInt(args.getOptionValue("ensemble-size", DEFAULT_ENSEMBLE_SIZE));
+
+        // Determine the distribution
+        String[] names = null;
+        String inputname = inputdir.getAbsolutePath() + "/" + application;
+        if ("uniform_unsorted".equals(distribution)) {
+            names = DAGListGenerator.generateDAGListUniformUnsorted(new Random(seed), inputname, ensembleSize);
+        } else if ("uniform_sorted".equals(distribution)) {
+            names = DAGListGenerator.generateDAGListUniform(new Random(seed), inputname, ensembleSize);
+        } else if ("pareto_unsorted".equals(distribution)) {
+            names = DAGListGenerator.generateDAGListParetoUnsorted(new Random(seed), inputname, ensembleSize);
+        } else if ("pareto_sorted".equals(distribution)) {
+            names = DAGListGenerator.generateDAGListPareto(new Random(seed), inputname, ensembleSize);
+        } else if ("constant".equals(distribution)) {
+            names = DAGListGenerator.generateDAGListConstant(new Random(seed), inputname, ensembleSize);
+        } else if (distribution.startsWith("fixed")) {
+            int size = Integer.parseInt(distribution.substring(5));
+            names = DAGListGenerator.generateDAGListConstant(inputname, size, ensembleSize);
+        } else {
+            System.err.println("Unrecognized distribution: " + distribution);
+            System.exit(1);
         }
+        return names;
+    }
+
+    private StorageSimulationParams getStorageSimulationParams(CommandLine args) {
+        String storageManagerType = args.getOptionValue("storage-manager");
+        String storageCacheType = args.getOptionValue("storage-cache", DEFAULT_STORAGE_CACHE);
+
+        StorageSimulationParams simulationParams = new StorageSimulationParams();
+
+        if (storageCacheType.equals("fifo")) {
+            simulationParams.setStorageCacheType(StorageCacheType.FIFO);
+        } else if (storageCacheType.equals("lru")) {
+            simulationParams.setStorageCacheType(StorageCacheType.LRU);
+        } else if (storageCacheType.equals("lfu")) {
+            simulationParams.setStorageCacheType(StorageCacheType.LFU);
+        } else if (storageCacheType.equals("arc")) {
+            simulationParams.setStorageCacheType(StorageCacheType.ARC);
+        } else if (storageCacheType.equals("void")) {
+            simulationParams.setStorageCacheType(StorageCacheType.VOID);
+        } else {
+            throw new IllegalCWSArgumentException("Wrong storage-cache:" + storageCacheType);
+        }
+
+        if (storageManagerType.equals("global")) {
+            simulationParams.setStorageParams(globalStorageParamsLoader.determineGlobalStorageParams(args));
+            simulationParams.setStorageType(StorageType.GLOBAL);
+        } else if (storageManagerType.equals("p2p")) {
+            simulationParams.setStorageParams(globalStorageParamsLoader.determineGlobalStorageParams(args));
+            simulationParams.setStorageType(StorageType.P2P);
+        } else if (storageManagerType.equals("void")) {
+            simulationParams.setStorageType(StorageType.VOID);
+        } else {
+            throw new IllegalCWSArgumentException("Wrong storage-manager:" + storageCacheType);
+        }
+        return simulationParams;
+    }
+
+    /**
+     * @return Streams of a cell, so its results don't depend on the cells simulated before it.
+     */
+    static RandomStreams getCellStreams(RandomStreams randomStreams, double budget, double deadline) {
+        return randomStreams.child(Double.doubleToLongBits(budget)).child(Double.doubleToLongBits(deadline));
+    }
+
+    /**
+     * @return The command line of the sweep for the workers of replications, with the seed it actually uses.
+     */
+    private static String[] getArguments(CommandLine args, long seed) {
+        List<String> arguments = new ArrayList<String>();
+        arguments.add("--seed");
+        arguments.add(Long.toString(seed));
+        for (Option option : args.getOptions()) {
+            if ("seed".equals(option.getLongOpt())) {
+                continue;
+            }
+            arguments.add("--" + option.getLongOpt());
+            if (option.getValues() != null) {
+                arguments.addAll(Arrays.asList(option.getValues()));
+            }
+        }
+        return arguments.toArray(new String[arguments.size()]);
+    }
+
+    private static String getReplicationColumns() {
+        StringBuilder columns = new StringBuilder(
+                "application,distribution,seed,dags,scale,budget,deadline,algorithm,tenant,replications,confidence");
+        for (String metric : REPLICATION_METRICS) {
+            columns.append(String.format(",%sMean,%sVariance,%sHalfWidth", metric, metric, metric));
+        }
+        return columns.toString();
+    }
+
+    private static void printReplications(PrintStream fileOut, String cell, String[] algorithmNames,
+            ReplicationStatistics[][] statistics, double confidence) {
+        for (int tenant = 0; tenant < statistics.length; tenant++) {
+            fileOut.printf("%s%s,%d,%d,%f", cell, algorithmNames[tenant], tenant,
+                    statistics[tenant][0].getCount(), confidence);
+            for (ReplicationStatistics metric : statistics[tenant]) {
+                fileOut.printf(",%f,%f,%f", metric.getMean(), metric.getVariance(), metric.getHalfWidth(confidence));
+            }
+            fileOut.println();
+        }
+    }
+
+    /**
+     * @return The number of values the sweep loops take from min to max.
+     */
+    private static int countSteps(double min, double max, double step) {
+        int steps = 0;
+        for (double value = min; value <= max + (step / 2.0); value += step) {
+            steps++;
+        }
+        return steps;
+    }
+
+    /**
+     * @return The quota given on the command line, where 0 means unlimited.
+     */
+    private static int getQuota(String value) {
+        int quota = Integer.parseInt(value);
+        if (quota < 0) {
+            throw new IllegalCWSArgumentException("Invalid VM quota: " + quota);
+        }
+        return quota == 0 ? Cloud.UNLIMITED : quota;
+    }
+
+    private static String getPercentileColumns(String name) {
+        StringBuilder columns = new StringBuilder();
+        for (double percentile : PERCENTILES) {
+            columns.append(String.format("%sP%d,", name, (int) percentile));
+        }
+        return columns.append(name).append("Max").toString();
+    }
+
+    /**
+     * Returns the values at {@link #PERCENTILES} and the maximum, separated by commas.
+     */
+    private static String getPercentiles(Histogram histogram) {
+        StringBuilder values = new StringBuilder();
+        for (double percentile : PERCENTILES) {
+            values.append(String.format("%f,", histogram.getValueAtPercentile(percentile)));
+        }
+        return values.append(String.format("%f", histogram.getMax())).toString();
     }
 
     private void logVMType(VMType vmType) {
@@ -481,17 +807,20 @@ public class Simulation {
         System.out.printf("GS latency = %f\n", globalStorageParams.getLatency());
         System.out.printf("GS chunk transfer time = %f\n", globalStorageParams.getChunkTransferTime());
         System.out.printf("GS replicas number = %d\n", globalStorageParams.getNumReplicas());
+        System.out.printf("GS prefetch budget = %d\n", globalStorageParams.getPrefetchBudget());
+        System.out.printf("GS transfer parallelism = %d\n", globalStorageParams.getTransferParallelism());
+        System.out.printf("GS write behind buffer = %d\n", globalStorageParams.getWriteBehindBuffer());
     }
 
     /**
      * Crates algorithm instance from the given input params.
      * @param environment
+     * @param ensembleStatistics Statistics of the algorithm, registered right before it.
      * @return The newly created algorithm instance.
      */
     protected Algorithm createAlgorithm(double alpha, double maxScaling, String algorithmName,
-            CloudSimWrapper cloudsim, List<DAG> dags, double budget, double deadline, Environment environment) {
-        AlgorithmStatistics ensembleStatistics = new AlgorithmStatistics(dags, budget, deadline, cloudsim);
-
+            CloudSimWrapper cloudsim, List<DAG> dags, double budget, double deadline, Environment environment,
+            AlgorithmStatistics ensembleStatistics) {
         if ("SPSS".equals(algorithmName)) {
             return new SPSS(budget, deadline, dags, alpha, ensembleStatistics, environment, cloudsim);
         } else if ("DPDS".equals(algorithmName)) {
@@ -502,6 +831,8 @@ public class Simulation {
             return new StorageAwareSPSS(budget, deadline, dags, alpha, ensembleStatistics, environment, cloudsim);
         } else if ("SA-WADPDS".equals(algorithmName)) {
             return new StorageAwareWADPDS(budget, deadline, dags, maxScaling, ensembleStatistics, environment, cloudsim);
+        } else if ("LA-DPDS".equals(algorithmName)) {
+            return new LocalityAwareDPDS(budget, deadline, dags, maxScaling, ensembleStatistics, environment, cloudsim);
         } else {
             throw new IllegalCWSArgumentException("Unknown algorithm: " + algorithmName);
         }
@@ -3,6 +3,7 @@ package cws.core.simulation;
 import java.util.Properties;
 
 import cws.core.storage.global.GlobalStorageParams;
+import cws.core.storage.p2p.PeerToPeerStorageParams;
 
 /**
  * Storage related parameters for simulations.
@@ -11,6 +12,8 @@ public class StorageSimulationParams {
     private StorageType storageType;
     private GlobalStorageParams storageParams;
     private StorageCacheType storageCacheType;
+    /** Network parameters, used only with {@link StorageType#P2P} */
+    private PeerToPeerStorageParams peerToPeerParams = new PeerToPeerStorageParams();
 
     public StorageSimulationParams(StorageType storageType, GlobalStorageParams storageParams,
             StorageCacheType storageCacheType) {
@@ -32,6 +35,9 @@ public class StorageSimulationParams {
         if (storageParams != null) {
             storageParams.storeProperties(properties);
         }
+        if (storageType == StorageType.P2P) {
+            peerToPeerParams.storeProperties(properties);
+        }
     }
 
     /**
@@ -42,6 +48,9 @@ public class StorageSimulationParams {
         if (storageParams != null) {
             ret += storageParams.getName();
         }
+        if (storageType == StorageType.P2P) {
+            ret += peerToPeerParams.getName();
+        }
         return ret;
     }
 
@@ -56,9 +65,12 @@ public class StorageSimulationParams {
             params.storageType = StorageType.valueOf(properties.getProperty("storageType"));
         if (properties.getProperty("storageCacheType") != null)
             params.storageCacheType = StorageCacheType.valueOf(properties.getProperty("storageCacheType"));
-        if (params.storageType == StorageType.GLOBAL) {
+        if (params.storageType == StorageType.GLOBAL || params.storageType == StorageType.P2P) {
             params.storageParams = GlobalStorageParams.readProperties(properties);
         }
+        if (params.storageType == StorageType.P2P) {
+            params.peerToPeerParams = PeerToPeerStorageParams.readProperties(properties);
+        }
         return params;
     }
 
@@ -70,6 +82,14 @@ public class StorageSimulationParams {
         return storageParams;
     }
 
+    public PeerToPeerStorageParams getPeerToPeerParams() {
+        return peerToPeerParams;
+    }
+
+    public void setPeerToPeerParams(PeerToPeerStorageParams peerToPeerParams) {
+        this.peerToPeerParams = peerToPeerParams;
+    }
+
     public StorageType getStorageType() {
         return storageType;
     }
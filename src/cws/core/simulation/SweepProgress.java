@@ -0,0 +1,186 @@
+package cws.core.simulation;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import cws.core.Cloud;
+import cws.core.WorkflowEngine;
+import cws.core.algorithms.Algorithm;
+import cws.core.cloudsim.CloudSimWrapper;
+
+/**
+ * Tracks the progress of a sweep for {@link SweepProgressMBean}. It is updated by the simulation thread at the start
+ * and the end of each cell, and read by JMX threads at any time, so it only keeps volatile references to the current
+ * cell and reads the cell's state without synchronization.
+ */
+class SweepProgress implements SweepProgressMBean {
+    private final int cells;
+    private final CloudSimWrapper cloudsim;
+    private final long sweepStartTime = System.nanoTime();
+
+    private volatile int cellsDone = 0;
+    private volatile String algorithm = "";
+    private volatile double budget;
+    private volatile double deadline;
+    private volatile Cloud cloud;
+    private volatile List<Algorithm> tenants = new ArrayList<Algorithm>();
+    private volatile long cellStartTime = sweepStartTime;
+    private volatile long cellStartEvents = 0;
+
+    /** Name under which this object is registered, null if it isn't */
+    private ObjectName name;
+
+    /**
+     * @param cells - number of cells of the sweep.
+     * @param cloudsim - the wrapper used by all the cells.
+     */
+    public SweepProgress(int cells, CloudSimWrapper cloudsim) {
+        this.cells = cells;
+        this.cloudsim = cloudsim;
+    }
+
+    /**
+     * Registers this object in the platform MBean server.
+     * @param sweep - name of the sweep, distinguishes sweeps running in the same JVM.
+     */
+    public void register(String sweep) {
+        try {
+            name = new ObjectName("cws.core.simulation:type=SweepProgress,name=" + ObjectName.quote(sweep));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+        } catch (JMException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public void unregister() {
+        if (name == null) {
+            return;
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        } catch (JMException e) {
+            throw new RuntimeException(e);
+        } finally {
+            name = null;
+        }
+    }
+
+    public void startCell(String algorithm, double budget, double deadline, Cloud cloud, List<Algorithm> tenants) {
+        this.algorithm = algorithm;
+        this.budget = budget;
+        this.deadline = deadline;
+        this.cloud = cloud;
+        this.tenants = new ArrayList<Algorithm>(tenants);
+        this.cellStartEvents = cloudsim.getEventsProcessed();
+        this.cellStartTime = System.nanoTime();
+    }
+
+    public void finishCell() {
+        cellsDone++;
+    }
+
+    @Override
+    public String getAlgorithm() {
+        return algorithm;
+    }
+
+    @Override
+    public double getBudget() {
+        return budget;
+    }
+
+    @Override
+    public double getDeadline() {
+        return deadline;
+    }
+
+    @Override
+    public int getCells() {
+        return cells;
+    }
+
+    @Override
+    public int getCellsDone() {
+        return cellsDone;
+    }
+
+    @Override
+    public int getCellsRemaining() {
+        return cells - cellsDone;
+    }
+
+    @Override
+    public double getSimulatedClock() {
+        return cloudsim.clock();
+    }
+
+    @Override
+    public long getEventsProcessed() {
+        return cloudsim.getEventsProcessed();
+    }
+
+    @Override
+    public double getEventsPerSecond() {
+        double seconds = (System.nanoTime() - cellStartTime) / 1.0e9;
+        if (seconds <= 0) {
+            return 0.0;
+        }
+        return (cloudsim.getEventsProcessed() - cellStartEvents) / seconds;
+    }
+
+    @Override
+    public int getActiveVMs() {
+        Cloud current = cloud;
+        return current == null ? 0 : current.getAllVms().size();
+    }
+
+    @Override
+    public int getQueuedJobs() {
+        int queued = 0;
+        for (Algorithm tenant : tenants) {
+            // the engine is created when the simulation is prepared
+            WorkflowEngine engine = tenant.getWorkflowEngine();
+            if (engine != null) {
+                queued += engine.getQueuedJobs().size();
+            }
+        }
+        return queued;
+    }
+
+    @Override
+    public long getHeapUsedBytes() {
+        return getHeapUsage().getUsed();
+    }
+
+    @Override
+    public long getHeapMaxBytes() {
+        return getHeapUsage().getMax();
+    }
+
+    private static MemoryUsage getHeapUsage() {
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+    }
+
+    @Override
+    public double getElapsedSeconds() {
+        return (System.nanoTime() - sweepStartTime) / 1.0e9;
+    }
+
+    @Override
+    public double getEstimatedSecondsRemaining() {
+        int done = cellsDone;
+        if (done == 0) {
+            return 0.0;
+        }
+        return getElapsedSeconds() / done * (cells - done);
+    }
+}
@@ -0,0 +1,68 @@
+package cws.core.simulation;
+
+/**
+ * Progress of a running sweep, registered over JMX so that long sweeps can be watched with jconsole or any other JMX
+ * client. Values describing the current cell are read while the cell is being simulated, so they are approximate.
+ */
+public interface SweepProgressMBean {
+    /**
+     * @return Algorithms of the tenants of the current cell, comma separated.
+     */
+    String getAlgorithm();
+
+    /**
+     * @return Budget of the current cell.
+     */
+    double getBudget();
+
+    /**
+     * @return Deadline of the current cell.
+     */
+    double getDeadline();
+
+    int getCells();
+
+    int getCellsDone();
+
+    int getCellsRemaining();
+
+    /**
+     * @return Simulated time of the current cell in seconds.
+     */
+    double getSimulatedClock();
+
+    /**
+     * @return Number of events processed by all the cells so far.
+     */
+    long getEventsProcessed();
+
+    /**
+     * @return Events processed per wall clock second in the current cell.
+     */
+    double getEventsPerSecond();
+
+    /**
+     * @return Number of VMs launched and not yet terminated in the current cell.
+     */
+    int getActiveVMs();
+
+    /**
+     * @return Number of ready jobs waiting for a VM in the current cell, summed over all tenants.
+     */
+    int getQueuedJobs();
+
+    long getHeapUsedBytes();
+
+    long getHeapMaxBytes();
+
+    /**
+     * @return Wall clock time since the sweep started in seconds.
+     */
+    double getElapsedSeconds();
+
+    /**
+     * @return Wall clock time until the sweep finishes in seconds, assuming the remaining cells take as long as the
+     *         finished ones on average. 0 before the first cell finishes.
+     */
+    double getEstimatedSecondsRemaining();
+}
@@ -1,8 +1,11 @@
 package cws.core.storage;
 
+import java.util.List;
+
 import org.cloudbus.cloudsim.core.SimEntity;
 import org.cloudbus.cloudsim.core.SimEvent;
 
+import cws.core.VM;
 import cws.core.jobs.Job;
 import cws.core.WorkflowEvent;
 import cws.core.cloudsim.CWSSimEntity;
@@ -11,6 +14,7 @@ import cws.core.cloudsim.CloudSimWrapper;
 import cws.core.dag.DAGFile;
 import cws.core.dag.Task;
 import cws.core.exception.UnknownWorkflowEventException;
+import cws.core.storage.cache.VMCacheListener;
 
 /**
  * Abstract class for all storage managers. It should be subclassed and implemented.
@@ -28,6 +32,18 @@ public abstract class StorageManager extends CWSSimEntity implements WorkflowEve
      */
     public StorageManager(CloudSimWrapper cloudsim) {
         super("StorageManager", cloudsim);
+        cloudsim.setStorageManagerId(getId());
+    }
+
+    /**
+     * Registers this storage manager with a new simulation and clears its statistics. Implementations clear their
+     * transfers and the entities they use are registered in the order they were created.
+     */
+    @Override
+    public void reset() {
+        super.reset();
+        statistics.reset();
+        getCloudsim().setStorageManagerId(getId());
     }
 
     /**
@@ -49,10 +65,24 @@ public abstract class StorageManager extends CWSSimEntity implements WorkflowEve
      */
     protected abstract void onAfterTaskCompleted(Job job);
 
+    /**
+     * Called when a VM has been terminated by the cloud, so that the state kept for it can be dropped.
+     */
+    protected void onVMTerminated(VM vm) {
+        // nothing is kept for VMs by default
+    }
+
     public StorageManagerStatistics getStorageManagerStatistics() {
         return this.statistics;
     }
 
+    /**
+     * Registers a listener of VMs' cache contents. Storage managers without VM caches never notify it.
+     */
+    public void addCacheListener(VMCacheListener listener) {
+        // no caches by default
+    }
+
     /**
      * @see SimEntity#processEvent(SimEvent)
      */
@@ -60,12 +90,14 @@ public abstract class StorageManager extends CWSSimEntity implements WorkflowEve
     public void processEvent(CWSSimEvent ev) {
         switch (ev.getTag()) {
         case WorkflowEvent.STORAGE_BEFORE_TASK_START:
-            Job job = (Job) ev.getData();
-            for (DAGFile file : job.getTask().getInputFiles()) {
-                statistics.addBytesToRead(file.getSize());
+            beforeTaskStart((Job) ev.getData());
+            break;
+        case WorkflowEvent.STORAGE_BEFORE_TASK_START_BATCH:
+            @SuppressWarnings("unchecked")
+            List<Job> jobs = (List<Job>) ev.getData();
+            for (Job job : jobs) {
+                beforeTaskStart(job);
             }
-            statistics.addTotalFilesToRead(job.getTask().getInputFiles().size());
-            onBeforeTaskStart(job);
             break;
         case WorkflowEvent.STORAGE_AFTER_TASK_COMPLETED:
             Job jobAfter = (Job) ev.getData();
@@ -75,12 +107,23 @@ public abstract class StorageManager extends CWSSimEntity implements WorkflowEve
             statistics.addTotalFilesToWrite(jobAfter.getTask().getOutputFiles().size());
             onAfterTaskCompleted(jobAfter);
             break;
+        case WorkflowEvent.VM_TERMINATED:
+            onVMTerminated((VM) ev.getData());
+            break;
         default:
             onUnknownSimEvent(ev);
             break;
         }
     }
 
+    private void beforeTaskStart(Job job) {
+        for (DAGFile file : job.getTask().getInputFiles()) {
+            statistics.addBytesToRead(file.getSize());
+        }
+        statistics.addTotalFilesToRead(job.getTask().getInputFiles().size());
+        onBeforeTaskStart(job);
+    }
+
     /**
      * Notifies parent VM that all input transfers have completed and thus the job can be started.
      * 
@@ -4,10 +4,14 @@ import cws.core.cloudsim.CloudSimWrapper;
 import cws.core.simulation.StorageCacheType;
 import cws.core.simulation.StorageSimulationParams;
 import cws.core.simulation.StorageType;
+import cws.core.storage.cache.ARCCacheManager;
 import cws.core.storage.cache.FIFOCacheManager;
+import cws.core.storage.cache.LFUCacheManager;
+import cws.core.storage.cache.LRUCacheManager;
 import cws.core.storage.cache.VMCacheManager;
 import cws.core.storage.cache.VoidCacheManager;
 import cws.core.storage.global.GlobalStorageManager;
+import cws.core.storage.p2p.PeerToPeerStorageManager;
 
 public class StorageManagerFactory {
 
@@ -15,12 +19,21 @@ public class StorageManagerFactory {
         VMCacheManager cacheManager;
         if (simulationParams.getStorageCacheType() == StorageCacheType.FIFO) {
             cacheManager = new FIFOCacheManager(cloudsim);
+        } else if (simulationParams.getStorageCacheType() == StorageCacheType.LRU) {
+            cacheManager = new LRUCacheManager(cloudsim);
+        } else if (simulationParams.getStorageCacheType() == StorageCacheType.LFU) {
+            cacheManager = new LFUCacheManager(cloudsim);
+        } else if (simulationParams.getStorageCacheType() == StorageCacheType.ARC) {
+            cacheManager = new ARCCacheManager(cloudsim);
         } else {
             cacheManager = new VoidCacheManager(cloudsim);
         }
         StorageManager storageManager;
         if (simulationParams.getStorageType() == StorageType.GLOBAL) {
             storageManager = new GlobalStorageManager(simulationParams.getStorageParams(), cacheManager, cloudsim);
+        } else if (simulationParams.getStorageType() == StorageType.P2P) {
+            storageManager = new PeerToPeerStorageManager(simulationParams.getStorageParams(),
+                    simulationParams.getPeerToPeerParams(), cacheManager, cloudsim);
         } else {
             storageManager = new VoidStorageManager(cloudsim);
         }
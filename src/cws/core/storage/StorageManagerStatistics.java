@@ -17,6 +17,36 @@ public class StorageManagerStatistics {
     private int totalFilesToWrite;
     /** Actual number of files read (may be lower than totalFilesToRead beacause of cache) */
     private int actualFilesRead;
+    /** Bytes read directly from other VMs, not from the global storage */
+    private long peerBytesRead;
+    /** Bytes read from the global storage ahead of time for jobs queued on VMs */
+    private long prefetchedBytes;
+    /** Bytes of outputs uploaded after the job's core had been freed */
+    private long writtenBehindBytes;
+    /** Bytes of requested files found in VMs' caches */
+    private long cacheHitBytes;
+    /** Bytes of requested files not found in VMs' caches */
+    private long cacheMissBytes;
+    /** Bytes of files evicted from VMs' caches to make room for other files */
+    private long cacheEvictedBytes;
+
+    /**
+     * Sets all the statistics back to zero.
+     */
+    public void reset() {
+        totalBytesToRead = 0;
+        totalBytesToWrite = 0;
+        actualBytesRead = 0;
+        totalFilesToRead = 0;
+        totalFilesToWrite = 0;
+        actualFilesRead = 0;
+        peerBytesRead = 0;
+        prefetchedBytes = 0;
+        writtenBehindBytes = 0;
+        cacheHitBytes = 0;
+        cacheMissBytes = 0;
+        cacheEvictedBytes = 0;
+    }
 
     public long getTotalBytesToRead() {
         return totalBytesToRead;
@@ -65,4 +95,52 @@ public class StorageManagerStatistics {
     public void addActualFilesRead(int actualFilesRead) {
         this.actualFilesRead += actualFilesRead;
     }
+
+    public long getPeerBytesRead() {
+        return peerBytesRead;
+    }
+
+    public void addPeerBytesRead(long num) {
+        this.peerBytesRead += num;
+    }
+
+    public long getPrefetchedBytes() {
+        return prefetchedBytes;
+    }
+
+    public void addPrefetchedBytes(long num) {
+        this.prefetchedBytes += num;
+    }
+
+    public long getWrittenBehindBytes() {
+        return writtenBehindBytes;
+    }
+
+    public void addWrittenBehindBytes(long num) {
+        this.writtenBehindBytes += num;
+    }
+
+    public long getCacheHitBytes() {
+        return cacheHitBytes;
+    }
+
+    public void addCacheHitBytes(long num) {
+        this.cacheHitBytes += num;
+    }
+
+    public long getCacheMissBytes() {
+        return cacheMissBytes;
+    }
+
+    public void addCacheMissBytes(long num) {
+        this.cacheMissBytes += num;
+    }
+
+    public long getCacheEvictedBytes() {
+        return cacheEvictedBytes;
+    }
+
+    public void addCacheEvictedBytes(long num) {
+        this.cacheEvictedBytes += num;
+    }
 }
@@ -17,6 +17,12 @@ public class VoidStorageManager extends StorageManager {
         super(cloudsim);
     }
 
+    @Override
+    public void reset() {
+        super.reset();
+        transferId = 0;
+    }
+
     @Override
     public void onBeforeTaskStart(Job job) {
         for (DAGFile file : job.getTask().getInputFiles()) {
@@ -0,0 +1,144 @@
+package cws.core.storage.cache;
+
+import java.util.LinkedHashSet;
+
+import cws.core.VM;
+import cws.core.cloudsim.CloudSimWrapper;
+import cws.core.dag.DAGFile;
+
+/**
+ * Cache manager which uses Adaptive Replacement Cache (Megiddo and Modha, FAST 2003), with sizes counted in bytes.
+ * Files used once are kept in T1 and files used at least twice in T2. Ghost lists B1 and B2 remember files evicted
+ * from T1 and T2, and hits on them move the target size of T1 up or down. Both reading a file from the cache and
+ * putting it there count as a use.
+ */
+public class ARCCacheManager extends PerVMCacheManager {
+    public ARCCacheManager(CloudSimWrapper cloudsim) {
+        super(cloudsim);
+    }
+
+    @Override
+    protected VMCache createCache(VM vm) {
+        return new ARCCache(vm);
+    }
+
+    /**
+     * List of files from the least to the most recently used, with the sum of their sizes.
+     */
+    private static class FileList {
+        private final LinkedHashSet<DAGFile> files = new LinkedHashSet<DAGFile>();
+        private long bytes = 0;
+
+        public boolean contains(DAGFile file) {
+            return files.contains(file);
+        }
+
+        public void addMostRecent(DAGFile file) {
+            files.add(file);
+            bytes += file.getSize();
+        }
+
+        public boolean remove(DAGFile file) {
+            if (!files.remove(file)) {
+                return false;
+            }
+            bytes -= file.getSize();
+            return true;
+        }
+
+        public DAGFile removeLeastRecent() {
+            DAGFile file = files.iterator().next();
+            remove(file);
+            return file;
+        }
+
+        public boolean isEmpty() {
+            return files.isEmpty();
+        }
+    }
+
+    private class ARCCache extends VMCache {
+        private final FileList t1 = new FileList();
+        private final FileList t2 = new FileList();
+        private final FileList b1 = new FileList();
+        private final FileList b2 = new FileList();
+
+        /** Target size of T1 in bytes */
+        private long target = 0;
+
+        public ARCCache(VM vm) {
+            super(vm);
+        }
+
+        @Override
+        protected boolean get(DAGFile file) {
+            if (t1.remove(file) || t2.remove(file)) {
+                t2.addMostRecent(file);
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        protected boolean contains(DAGFile file) {
+            return t1.contains(file) || t2.contains(file);
+        }
+
+        @Override
+        protected void put(DAGFile file) {
+            if (get(file)) {
+                return;
+            }
+            if (b1.remove(file)) {
+                target = Math.min(capacity, target + Math.max(b2.bytes / Math.max(b1.bytes, 1), 1) * file.getSize());
+                makeRoom(file, false);
+                add(t2, file);
+                return;
+            }
+            if (b2.remove(file)) {
+                target = Math.max(0, target - Math.max(b1.bytes / Math.max(b2.bytes, 1), 1) * file.getSize());
+                makeRoom(file, true);
+                add(t2, file);
+                return;
+            }
+            // new file, keep T1 + B1 and the whole directory within their limits
+            while (t1.bytes + b1.bytes + file.getSize() > capacity && !b1.isEmpty()) {
+                b1.removeLeastRecent();
+            }
+            while (t1.bytes + b1.bytes + file.getSize() > capacity && !t1.isEmpty()) {
+                evict(t1.removeLeastRecent(), null);
+            }
+            while (t1.bytes + t2.bytes + b1.bytes + b2.bytes + file.getSize() > 2 * capacity && !b2.isEmpty()) {
+                b2.removeLeastRecent();
+            }
+            makeRoom(file, false);
+            add(t1, file);
+        }
+
+        /**
+         * Evicts files from T1 or T2, depending on the target size of T1, until the file fits.
+         */
+        private void makeRoom(DAGFile file, boolean hitInB2) {
+            while (!fits(file)) {
+                boolean overTarget = t1.bytes > target || (hitInB2 && t1.bytes == target);
+                if (!t1.isEmpty() && (overTarget || t2.isEmpty())) {
+                    evict(t1.removeLeastRecent(), b1);
+                } else {
+                    evict(t2.removeLeastRecent(), b2);
+                }
+            }
+        }
+
+        private void evict(DAGFile file, FileList ghosts) {
+            if (ghosts != null) {
+                ghosts.addMostRecent(file);
+            }
+            evicted(file);
+        }
+
+        private void add(FileList list, DAGFile file) {
+            list.addMostRecent(file);
+            cached(file);
+        }
+    }
+}
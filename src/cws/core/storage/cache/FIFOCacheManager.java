@@ -21,10 +21,23 @@ public class FIFOCacheManager extends VMCacheManager {
 
     private Map<VM, VMCache> cache = new HashMap<VM, FIFOCacheManager.VMCache>();
 
+    @Override
+    public void reset() {
+        super.reset();
+        cache.clear();
+    }
+
+    @Override
+    public void vmTerminated(VM vm) {
+        cache.remove(vm);
+        super.vmTerminated(vm);
+    }
+
     /**
      * Since we use per-VM cache this inner class is convenient.
      */
     private class VMCache {
+        private final VM vm;
         private long size = 0;
         private long remainingSize = 0;
         // didn't use LinkedHashSet because it doesn't have push/poll methods
@@ -32,24 +45,30 @@ public class FIFOCacheManager extends VMCacheManager {
         private Set<DAGFile> filesSet = new HashSet<DAGFile>();
 
         public VMCache(VM vm) {
+            this.vm = vm;
             this.size = vm.getVmType().getCacheSize();
             this.remainingSize = this.size;
         }
 
         /**
-         * Puts the file to the local cache.
+         * Puts the file to the local cache. A file which is already cached keeps its place in the queue.
          */
         public void putFileToCache(DAGFile file) {
+            if (filesSet.contains(file)) {
+                return;
+            }
             if (file.getSize() <= size) {
                 while (remainingSize < file.getSize() && filesSet.size() > 0) {
                     DAGFile df = filesList.pollLast();
                     filesSet.remove(df);
                     remainingSize += df.getSize();
+                    fileEvicted(df, vm);
                 }
                 if (remainingSize >= file.getSize()) {
                     filesSet.add(file);
                     filesList.push(file);
                     remainingSize -= file.getSize();
+                    fileCached(file, vm);
                 }
             }
         }
@@ -64,12 +83,22 @@ public class FIFOCacheManager extends VMCacheManager {
 
     @Override
     public void putFileToCache(DAGFile file, Job job) {
+        // its cache is already dropped
+        if (job.getVM().isTerminated()) {
+            return;
+        }
         if (cache.get(job.getVM()) == null) {
             cache.put(job.getVM(), new VMCache(job.getVM()));
         }
         cache.get(job.getVM()).putFileToCache(file);
     }
 
+    @Override
+    public boolean isCached(DAGFile file, VM vm) {
+        VMCache vmCache = cache.get(vm);
+        return vmCache != null && vmCache.getFileFromCache(file);
+    }
+
     @Override
     public boolean getFileFromCache(DAGFile file, Job job) {
         VMCache vmCache = cache.get(job.getVM());
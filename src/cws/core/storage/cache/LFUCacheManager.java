@@ -0,0 +1,118 @@
+package cws.core.storage.cache;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+
+import cws.core.VM;
+import cws.core.cloudsim.CloudSimWrapper;
+import cws.core.dag.DAGFile;
+
+/**
+ * Cache manager which evicts the least frequently used files first, and the least recently used ones among files used
+ * equally often. Both reading a file from the cache and putting it there count as a use.
+ *
+ * Files are kept in a list of frequency buckets ordered by frequency, so every operation is O(1).
+ */
+public class LFUCacheManager extends PerVMCacheManager {
+    public LFUCacheManager(CloudSimWrapper cloudsim) {
+        super(cloudsim);
+    }
+
+    @Override
+    protected VMCache createCache(VM vm) {
+        return new LFUCache(vm);
+    }
+
+    /**
+     * Files used the same number of times, from the least to the most recently used.
+     */
+    private static class Bucket {
+        private final long frequency;
+        private final LinkedHashSet<DAGFile> files = new LinkedHashSet<DAGFile>();
+        private Bucket prev;
+        private Bucket next;
+
+        public Bucket(long frequency) {
+            this.frequency = frequency;
+        }
+    }
+
+    private class LFUCache extends VMCache {
+        /** Sentinel of the bucket list, head.next has the lowest frequency */
+        private final Bucket head = new Bucket(0);
+
+        /** Bucket of each cached file */
+        private final Map<DAGFile, Bucket> buckets = new HashMap<DAGFile, Bucket>();
+
+        public LFUCache(VM vm) {
+            super(vm);
+            head.prev = head;
+            head.next = head;
+        }
+
+        @Override
+        protected boolean contains(DAGFile file) {
+            return buckets.containsKey(file);
+        }
+
+        @Override
+        protected boolean get(DAGFile file) {
+            Bucket bucket = buckets.get(file);
+            if (bucket == null) {
+                return false;
+            }
+            Bucket next = bucket.next;
+            if (next == head || next.frequency != bucket.frequency + 1) {
+                next = insertAfter(bucket, bucket.frequency + 1);
+            }
+            bucket.files.remove(file);
+            next.files.add(file);
+            buckets.put(file, next);
+            if (bucket.files.isEmpty()) {
+                unlink(bucket);
+            }
+            return true;
+        }
+
+        @Override
+        protected void put(DAGFile file) {
+            if (get(file)) {
+                return;
+            }
+            while (!fits(file)) {
+                Bucket lowest = head.next;
+                Iterator<DAGFile> lru = lowest.files.iterator();
+                DAGFile evicted = lru.next();
+                lru.remove();
+                buckets.remove(evicted);
+                if (lowest.files.isEmpty()) {
+                    unlink(lowest);
+                }
+                evicted(evicted);
+            }
+            Bucket first = head.next;
+            if (first == head || first.frequency != 1) {
+                first = insertAfter(head, 1);
+            }
+            first.files.add(file);
+            buckets.put(file, first);
+            cached(file);
+        }
+
+        private Bucket insertAfter(Bucket bucket, long frequency) {
+            Bucket inserted = new Bucket(frequency);
+            inserted.prev = bucket;
+            inserted.next = bucket.next;
+            bucket.next.prev = inserted;
+            bucket.next = inserted;
+            return inserted;
+        }
+
+        private void unlink(Bucket bucket) {
+            bucket.prev.next = bucket.next;
+            bucket.next.prev = bucket.prev;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package cws.core.storage.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+
+import cws.core.VM;
+import cws.core.cloudsim.CloudSimWrapper;
+import cws.core.dag.DAGFile;
+
+/**
+ * Cache manager which evicts the least recently used files first. Both reading a file from the cache and putting it
+ * there count as a use.
+ */
+public class LRUCacheManager extends PerVMCacheManager {
+    public LRUCacheManager(CloudSimWrapper cloudsim) {
+        super(cloudsim);
+    }
+
+    @Override
+    protected VMCache createCache(VM vm) {
+        return new LRUCache(vm);
+    }
+
+    private class LRUCache extends VMCache {
+        /** Cached files, from the least to the most recently used */
+        private final LinkedHashSet<DAGFile> files = new LinkedHashSet<DAGFile>();
+
+        public LRUCache(VM vm) {
+            super(vm);
+        }
+
+        @Override
+        protected boolean get(DAGFile file) {
+            if (!files.remove(file)) {
+                return false;
+            }
+            files.add(file);
+            return true;
+        }
+
+        @Override
+        protected boolean contains(DAGFile file) {
+            return files.contains(file);
+        }
+
+        @Override
+        protected void put(DAGFile file) {
+            if (get(file)) {
+                return;
+            }
+            Iterator<DAGFile> lru = files.iterator();
+            while (!fits(file)) {
+                DAGFile evicted = lru.next();
+                lru.remove();
+                evicted(evicted);
+            }
+            files.add(file);
+            cached(file);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package cws.core.storage.cache;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import cws.core.VM;
+import cws.core.cloudsim.CloudSimWrapper;
+import cws.core.dag.DAGFile;
+import cws.core.jobs.Job;
+
+/**
+ * Base class for cache managers which keep a separate, size bounded cache on each VM. Subclasses implement the
+ * replacement policy in their {@link VMCache}. Files bigger than VM's cache are never passed to it.
+ */
+public abstract class PerVMCacheManager extends VMCacheManager {
+    private final Map<VM, VMCache> caches = new HashMap<VM, VMCache>();
+
+    public PerVMCacheManager(CloudSimWrapper cloudsim) {
+        super(cloudsim);
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        caches.clear();
+    }
+
+    @Override
+    public void vmTerminated(VM vm) {
+        caches.remove(vm);
+        super.vmTerminated(vm);
+    }
+
+    /**
+     * @return a new, empty cache for the given VM.
+     */
+    protected abstract VMCache createCache(VM vm);
+
+    @Override
+    public void putFileToCache(DAGFile file, Job job) {
+        VM vm = job.getVM();
+        // its cache is already dropped
+        if (vm.isTerminated()) {
+            return;
+        }
+        VMCache vmCache = caches.get(vm);
+        if (vmCache == null) {
+            vmCache = createCache(vm);
+            caches.put(vm, vmCache);
+        }
+        if (file.getSize() <= vmCache.capacity) {
+            vmCache.put(file);
+        }
+    }
+
+    @Override
+    public boolean getFileFromCache(DAGFile file, Job job) {
+        VMCache vmCache = caches.get(job.getVM());
+        return vmCache != null && vmCache.get(file);
+    }
+
+    @Override
+    public boolean isCached(DAGFile file, VM vm) {
+        VMCache vmCache = caches.get(vm);
+        return vmCache != null && vmCache.contains(file);
+    }
+
+    /**
+     * Cache space of one VM.
+     */
+    protected abstract class VMCache {
+        protected final VM vm;
+        /** Size of the cache in bytes */
+        protected final long capacity;
+        /** Bytes taken by cached files */
+        protected long used = 0;
+
+        public VMCache(VM vm) {
+            this.vm = vm;
+            this.capacity = vm.getVmType().getCacheSize();
+        }
+
+        /**
+         * Looks the file up, counting it as an access.
+         * @return true if the file is in the cache, false otherwise.
+         */
+        protected abstract boolean get(DAGFile file);
+
+        /**
+         * Looks the file up without counting it as an access.
+         * @return true if the file is in the cache, false otherwise.
+         */
+        protected abstract boolean contains(DAGFile file);
+
+        /**
+         * Puts the file into the cache, evicting other files if needed. The file is not bigger than the cache.
+         */
+        protected abstract void put(DAGFile file);
+
+        /**
+         * Must be called by subclasses after they have added the file to the cache.
+         */
+        protected void cached(DAGFile file) {
+            used += file.getSize();
+            fileCached(file, vm);
+        }
+
+        /**
+         * Must be called by subclasses after they have removed the file from the cache to make room.
+         */
+        protected void evicted(DAGFile file) {
+            used -= file.getSize();
+            fileEvicted(file, vm);
+        }
+
+        /**
+         * @return whether the file fits into the free space.
+         */
+        protected boolean fits(DAGFile file) {
+            return used + file.getSize() <= capacity;
+        }
+    }
+}
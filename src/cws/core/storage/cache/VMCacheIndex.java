@@ -0,0 +1,91 @@
+package cws.core.storage.cache;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import cws.core.VM;
+import cws.core.dag.DAGFile;
+
+/**
+ * Inverted index of VMs' caches: for each file, the VMs which cache it. It follows the caches through
+ * {@link VMCacheListener} callbacks, so looking a file up doesn't touch the cache managers. Terminated VMs are
+ * forgotten, so the index only grows with the files cached on running VMs.
+ */
+public class VMCacheIndex implements VMCacheListener {
+    private final Map<DAGFile, Set<VM>> vmsByFile = new HashMap<DAGFile, Set<VM>>();
+
+    /** Files cached on each VM, to forget the VM when it terminates */
+    private final Map<VM, Set<DAGFile>> filesByVM = new HashMap<VM, Set<DAGFile>>();
+
+    @Override
+    public void fileCached(DAGFile file, VM vm) {
+        Set<VM> vms = vmsByFile.get(file);
+        if (vms == null) {
+            // linked, so that VMs are visited in the order they cached the file
+            vms = new LinkedHashSet<VM>();
+            vmsByFile.put(file, vms);
+        }
+        vms.add(vm);
+
+        Set<DAGFile> files = filesByVM.get(vm);
+        if (files == null) {
+            files = new HashSet<DAGFile>();
+            filesByVM.put(vm, files);
+        }
+        files.add(file);
+    }
+
+    @Override
+    public void fileEvicted(DAGFile file, VM vm) {
+        removeVM(file, vm);
+        Set<DAGFile> files = filesByVM.get(vm);
+        if (files != null) {
+            files.remove(file);
+            if (files.isEmpty()) {
+                filesByVM.remove(vm);
+            }
+        }
+    }
+
+    @Override
+    public void vmTerminated(VM vm) {
+        Set<DAGFile> files = filesByVM.remove(vm);
+        if (files != null) {
+            for (DAGFile file : files) {
+                removeVM(file, vm);
+            }
+        }
+    }
+
+    private void removeVM(DAGFile file, VM vm) {
+        Set<VM> vms = vmsByFile.get(file);
+        if (vms != null) {
+            vms.remove(vm);
+            if (vms.isEmpty()) {
+                vmsByFile.remove(file);
+            }
+        }
+    }
+
+    /**
+     * @return the VMs caching the file, in the order they cached it. Read-only.
+     */
+    public Set<VM> getVMs(DAGFile file) {
+        Set<VM> vms = vmsByFile.get(file);
+        if (vms == null) {
+            return Collections.emptySet();
+        }
+        return Collections.unmodifiableSet(vms);
+    }
+
+    /**
+     * @return the number of VMs caching at least one file.
+     */
+    public int getVMCount() {
+        return filesByVM.size();
+    }
+}
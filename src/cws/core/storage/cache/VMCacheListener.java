@@ -0,0 +1,24 @@
+package cws.core.storage.cache;
+
+import cws.core.VM;
+import cws.core.dag.DAGFile;
+
+/**
+ * Gets notified by a {@link VMCacheManager} whenever a file enters or leaves a VM's cache.
+ */
+public interface VMCacheListener {
+    /**
+     * The file has been put into the VM's cache.
+     */
+    public void fileCached(DAGFile file, VM vm);
+
+    /**
+     * The file has been removed from the VM's cache.
+     */
+    public void fileEvicted(DAGFile file, VM vm);
+
+    /**
+     * The VM has been terminated and its cache is gone. Its files are not reported as evicted one by one.
+     */
+    public void vmTerminated(VM vm);
+}
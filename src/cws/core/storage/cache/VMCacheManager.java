@@ -1,9 +1,14 @@
 package cws.core.storage.cache;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import cws.core.VM;
 import cws.core.cloudsim.CWSSimEntity;
 import cws.core.cloudsim.CloudSimWrapper;
 import cws.core.dag.DAGFile;
 import cws.core.jobs.Job;
+import cws.core.storage.StorageManagerStatistics;
 
 /**
  * Cache manager. It is intended to store ("cache") input and output files in VM's cache space. <br>
@@ -13,14 +18,75 @@ import cws.core.jobs.Job;
  * <li>{@link #getFileFromCache(DAGFile, Job)} can return true if and only if {@link #putFileToCache(DAGFile, Job)} was
  * called before with the same arguments.</li>
  * <li>Files bigger than VM's cache cannot be put into it.</li>
+ * <li>Nothing is put into the cache of a terminated VM, e.g. by a transfer which finishes after the termination.</li>
+ * <li>Implementations call {@link #fileCached(DAGFile, VM)} and {@link #fileEvicted(DAGFile, VM)} whenever a file
+ * enters or leaves VM's cache, so that {@link VMCacheListener}s can follow the contents of the caches.</li>
  * </ul>
  * @see {@link cws.core.core.VMType#getCacheSize()}
  */
 public abstract class VMCacheManager extends CWSSimEntity {
+    /** Statistics of the storage manager which uses this cache, evictions are counted there */
+    private StorageManagerStatistics statistics;
+
+    /** Listeners notified about files put into and evicted from VMs' caches */
+    private final List<VMCacheListener> listeners = new ArrayList<VMCacheListener>();
+
     public VMCacheManager(CloudSimWrapper cloudsim) {
         super("VMCacheManager", cloudsim);
     }
 
+    /**
+     * Sets the statistics where evicted files are counted. Called by the storage manager using this cache.
+     */
+    public final void setStatistics(StorageManagerStatistics statistics) {
+        this.statistics = statistics;
+    }
+
+    /**
+     * Registers this cache manager with a new simulation. The caches and listeners belong to the previous one, so they
+     * are dropped. Implementations clear their caches.
+     */
+    @Override
+    public void reset() {
+        super.reset();
+        listeners.clear();
+    }
+
+    public void addListener(VMCacheListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Must be called by implementations whenever they put a file into VM's cache.
+     */
+    protected void fileCached(DAGFile file, VM vm) {
+        for (VMCacheListener listener : listeners) {
+            listener.fileCached(file, vm);
+        }
+    }
+
+    /**
+     * Must be called by implementations whenever they remove a file from VM's cache to make room for another one.
+     */
+    protected void fileEvicted(DAGFile file, VM vm) {
+        if (statistics != null) {
+            statistics.addCacheEvictedBytes(file.getSize());
+        }
+        for (VMCacheListener listener : listeners) {
+            listener.fileEvicted(file, vm);
+        }
+    }
+
+    /**
+     * Drops the cache of a terminated VM and tells the listeners, so that nothing keeps the VM. Implementations
+     * remove the VM's cache and call this.
+     */
+    public void vmTerminated(VM vm) {
+        for (VMCacheListener listener : listeners) {
+            listener.vmTerminated(vm);
+        }
+    }
+
     /**
      * Instructs the manager to put the file to the cache. This is only suggestion and implementations are free to
      * decide what to do.<br>
@@ -37,4 +103,11 @@ public abstract class VMCacheManager extends CWSSimEntity {
      * @return true if the file is in the cache, false otherwise.
      */
     public abstract boolean getFileFromCache(DAGFile file, Job job);
+
+    /**
+     * Unlike {@link #getFileFromCache(DAGFile, Job)}, this is not an access to the file, so it doesn't change what the
+     * cache evicts next.
+     * @return true if the file is in the VM's cache, false otherwise.
+     */
+    public abstract boolean isCached(DAGFile file, VM vm);
 }
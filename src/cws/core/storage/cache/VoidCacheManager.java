@@ -1,5 +1,6 @@
 package cws.core.storage.cache;
 
+import cws.core.VM;
 import cws.core.cloudsim.CloudSimWrapper;
 import cws.core.dag.DAGFile;
 import cws.core.jobs.Job;
@@ -25,4 +26,9 @@ public class VoidCacheManager extends VMCacheManager {
         // There's no file in the cache, so let's return false.
         return false;
     }
+
+    @Override
+    public boolean isCached(DAGFile file, VM vm) {
+        return false;
+    }
 }
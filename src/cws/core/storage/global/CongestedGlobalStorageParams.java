@@ -15,8 +15,17 @@ public class CongestedGlobalStorageParams {
     private int numWrites;
 
     public CongestedGlobalStorageParams(GlobalStorageParams params) {
+        reset(params);
+    }
+
+    /**
+     * Goes back to the uncongested speeds with no active transfers.
+     */
+    public void reset(GlobalStorageParams params) {
         this.readSpeed = params.getReadSpeed();
         this.writeSpeed = params.getWriteSpeed();
+        this.numReads = 0;
+        this.numWrites = 0;
     }
 
     public double getReadSpeed() {
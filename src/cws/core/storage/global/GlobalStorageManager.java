@@ -2,9 +2,13 @@ package cws.core.storage.global;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
+import cws.core.VM;
 import cws.core.WorkflowEvent;
 import cws.core.cloudsim.CWSSimEvent;
 import cws.core.cloudsim.CloudSimWrapper;
@@ -12,12 +16,24 @@ import cws.core.dag.DAGFile;
 import cws.core.dag.Task;
 import cws.core.jobs.Job;
 import cws.core.storage.StorageManager;
+import cws.core.storage.cache.VMCacheListener;
 import cws.core.storage.cache.VMCacheManager;
 
 /**
  * Manager which stores files on a global storage. This should loosely resemble Amazon's S3 storage.<br>
  * 
- * GlobalStorageManager uses {@link VMCacheManager} for caching.
+ * GlobalStorageManager uses {@link VMCacheManager} for caching.<br>
+ * 
+ * When {@link GlobalStorageParams#getPrefetchBudget()} is set, the inputs of the next task to run on a VM are read into
+ * the VM's cache while the VM computes, so the task's job finds them in the cache, or being read, when it starts. Only
+ * the inputs which are already in the storage are prefetched, i.e. workflow inputs and outputs of finished parents.
+ * 
+ * When {@link GlobalStorageParams#getWriteBehindBuffer()} is set, the outputs of a job which fit into its VM's upload
+ * buffer are staged into the VM's cache and the VM is notified right away, so the core is free while they are
+ * uploaded. Children on the same VM find them in the cache, the other ones wait for the upload before reading them.
+ * The VM's cloud is told when the VM's buffer starts and stops holding outputs. A VM which is terminated meanwhile is
+ * still billed, and its uploads still run, until the buffer is drained. Outputs of jobs which finish on a VM that is
+ * already being terminated are not written behind.
  * 
  * TODO(bryk): randomize parameters under some distribution
  */
@@ -34,6 +50,36 @@ public class GlobalStorageManager extends StorageManager {
     /** Map of jobs' files remaining to read. */
     private final Map<Job, List<DAGFile>> remainingToWrite = new HashMap<Job, List<DAGFile>>();
 
+    /**
+     * Files being read to each VM, with the jobs which wait for them. Jobs running on different cores of the same VM
+     * share these reads instead of transferring the same file twice.
+     */
+    private final Map<VM, Map<DAGFile, List<Job>>> sharedReads = new HashMap<VM, Map<DAGFile, List<Job>>>();
+
+    /** Number of shared reads (see {@link #sharedReads}) each job waits for */
+    private final Map<Job, Integer> waitingReads = new HashMap<Job, Integer>();
+
+    /** Bytes prefetched, or being prefetched, for each task which hasn't started yet */
+    private final Map<Task, Long> prefetchedTaskBytes = new HashMap<Task, Long>();
+
+    /** VM for which each task in {@link #prefetchedTaskBytes} was prefetched */
+    private final Map<Task, VM> prefetchedTaskVMs = new HashMap<Task, VM>();
+
+    /** Part of each VM's prefetch budget taken by tasks in {@link #prefetchedTaskBytes} */
+    private final Map<VM, Long> prefetchedVMBytes = new HashMap<VM, Long>();
+
+    /** Output files written to the storage, collected only when prefetching */
+    private final Set<DAGFile> storedFiles = new HashSet<DAGFile>();
+
+    /** Jobs whose outputs are written behind, i.e. the VM has already been notified */
+    private final Set<Job> writeBehindJobs = new HashSet<Job>();
+
+    /** Files being written behind, with the jobs which wait to read them */
+    private final Map<DAGFile, List<Job>> uploadingFiles = new HashMap<DAGFile, List<Job>>();
+
+    /** Bytes of each VM's upload buffer taken by files being written behind */
+    private final Map<VM, Long> stagedVMBytes = new HashMap<VM, Long>();
+
     /** A set of parameters for this storage */
     private final GlobalStorageParams params;
 
@@ -50,37 +96,188 @@ public class GlobalStorageManager extends StorageManager {
         super(cloudsim);
         this.params = params;
         this.cacheManager = cacheManager;
+        this.cacheManager.setStatistics(statistics);
         this.congestedParams = new CongestedGlobalStorageParams(params);
     }
 
     /**
-     * 1. If the job has no input files the method finishes immediately.
-     * 2. Else it creates transfer for each input file. The transfers are then handled by the event system.
+     * The cache manager is created before this storage manager, so it is registered first.
+     */
+    @Override
+    public void reset() {
+        cacheManager.reset();
+        super.reset();
+        reads.clear();
+        writes.clear();
+        remainingToRead.clear();
+        remainingToWrite.clear();
+        sharedReads.clear();
+        waitingReads.clear();
+        prefetchedTaskBytes.clear();
+        prefetchedTaskVMs.clear();
+        prefetchedVMBytes.clear();
+        storedFiles.clear();
+        writeBehindJobs.clear();
+        uploadingFiles.clear();
+        stagedVMBytes.clear();
+        congestedParams.reset(params);
+        lastNumReads = -1;
+        lastNumWrites = -1;
+    }
+
+    /**
+     * 1. Input files found in the VM's cache are not transferred.
+     * 2. The remaining files are read by {@link #readFiles(Job, List)}.
      * 
      * @see StorageManager#onBeforeTaskStart(Job)
      */
     @Override
     protected void onBeforeTaskStart(Job job) {
+        releasePrefetchBudget(job.getTask());
         List<DAGFile> notCachedFiles = new ArrayList<DAGFile>();
         for (DAGFile file : job.getTask().getInputFiles()) {
-            if (!cacheManager.getFileFromCache(file, job)) {
+            if (cacheManager.getFileFromCache(file, job)) {
+                statistics.addCacheHitBytes(file.getSize());
+            } else {
+                statistics.addCacheMissBytes(file.getSize());
                 notCachedFiles.add(file);
             }
         }
-        if (notCachedFiles.size() == 0) {
+        readFiles(job, notCachedFiles);
+    }
+
+    /**
+     * 1. If there are no files to read the method finishes immediately.
+     * 2. Else it creates transfer for each file, up to {@link GlobalStorageParams#getTransferParallelism()} at a time.
+     * The transfers are then handled by the event system.
+     * 
+     * @param job - the job which needs the files on its VM.
+     * @param files - the files to read from the global storage.
+     */
+    protected void readFiles(Job job, List<DAGFile> files) {
+        if (files.size() == 0) {
             notifyThatBeforeTransfersCompleted(job);
         } else {
             if (remainingToRead.containsKey(job)) {
                 throw new IllegalStateException("There should be no remaining read transfers");
             }
-            remainingToRead.put(job, notCachedFiles);
-            startFileReadForJob(job);
+            remainingToRead.put(job, files);
+            startFileReadsForJob(job);
+        }
+    }
+
+    /**
+     * Reads one more file for the job, e.g. one which couldn't be transferred from elsewhere. The job's other reads may
+     * still be in progress or have finished already, the job is notified once all of them have finished.
+     */
+    protected void readFile(Job job, DAGFile file) {
+        List<DAGFile> remainingFiles = remainingToRead.get(job);
+        if (remainingFiles == null) {
+            remainingFiles = new ArrayList<DAGFile>();
+            remainingToRead.put(job, remainingFiles);
+        }
+        remainingFiles.add(file);
+        startFileReadsForJob(job);
+    }
+
+    /**
+     * Once the job's inputs are in place the VM computes, so this is when the next task's inputs are prefetched.
+     */
+    @Override
+    protected void notifyThatBeforeTransfersCompleted(Job job) {
+        super.notifyThatBeforeTransfersCompleted(job);
+        if (params.getPrefetchBudget() > 0) {
+            prefetchInputs(job);
+        }
+    }
+
+    /**
+     * Starts reads of the input files of the next task to run on the job's VM (the next queued job, or else the task
+     * planned next) which are in the storage, but neither cached nor being read to the VM, as long as they fit into
+     * the VM's prefetch budget. The reads are done on behalf of the job, as the next task has no job on the VM yet.
+     */
+    private void prefetchInputs(Job job) {
+        VM vm = job.getVM();
+        Job nextJob = vm.getNextQueuedJob();
+        Task next = nextJob != null ? nextJob.getTask() : vm.getNextPlannedTask();
+        if (next == null || prefetchedTaskBytes.containsKey(next)) {
+            return;
+        }
+        Long taken = prefetchedVMBytes.get(vm);
+        long budget = Math.min(params.getPrefetchBudget(), vm.getVmType().getCacheSize())
+                - (taken == null ? 0 : taken);
+        Set<DAGFile> parentOutputs = new HashSet<DAGFile>();
+        for (Task parent : next.getParents()) {
+            parentOutputs.addAll(parent.getOutputFiles());
+        }
+        long prefetched = 0;
+        Map<DAGFile, List<Job>> vmReads = sharedReads.get(vm);
+        for (DAGFile file : next.getInputFiles()) {
+            if (file.getSize() > budget - prefetched || (parentOutputs.contains(file) && !storedFiles.contains(file))
+                    || (vmReads != null && vmReads.containsKey(file)) || cacheManager.isCached(file, vm)) {
+                continue;
+            }
+            if (vmReads == null) {
+                vmReads = new HashMap<DAGFile, List<Job>>();
+                sharedReads.put(vm, vmReads);
+            }
+            vmReads.put(file, new ArrayList<Job>());
+            GlobalStorageTransfer read = GlobalStorageTransfer.obtain(job, file, getCloudsim());
+            read.setPrefetch(true);
+            getCloudsim().log(
+                    String.format("Global prefetch transfer %s started: %s, size: %s, vm: %s, task_id: %s",
+                            read.getId(), file.getName(), file.getSize(), vm.getId(), next.getId()));
+            getCloudsim().send(getId(), getId(), params.getLatency(), WorkflowEvent.GLOBAL_STORAGE_READ_PROGRESS, read);
+            congestedParams.addReads(1);
+            prefetched += file.getSize();
+        }
+        // the task is marked even if nothing was prefetched, so that it isn't considered again
+        prefetchedTaskBytes.put(next, prefetched);
+        prefetchedTaskVMs.put(next, vm);
+        if (prefetched > 0) {
+            prefetchedVMBytes.put(vm, (taken == null ? 0 : taken) + prefetched);
+            updateSpeedCongestion();
+        }
+    }
+
+    /**
+     * Called when the task starts, inputs prefetched for it are now ordinary cached files. The task may start on
+     * another VM than the one it was prefetched for, the budget is returned to the latter.
+     */
+    private void releasePrefetchBudget(Task task) {
+        Long bytes = prefetchedTaskBytes.remove(task);
+        VM vm = prefetchedTaskVMs.remove(task);
+        if (bytes != null && bytes > 0) {
+            long taken = prefetchedVMBytes.get(vm) - bytes;
+            if (taken > 0) {
+                prefetchedVMBytes.put(vm, taken);
+            } else {
+                prefetchedVMBytes.remove(vm);
+            }
+        }
+    }
+
+    /**
+     * Drops the prefetch reservations of a terminated VM, so that its tasks can be prefetched for other VMs.
+     */
+    private void releasePrefetchBudget(VM vm) {
+        prefetchedVMBytes.remove(vm);
+        Iterator<Map.Entry<Task, VM>> it = prefetchedTaskVMs.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Task, VM> entry = it.next();
+            if (entry.getValue() == vm) {
+                prefetchedTaskBytes.remove(entry.getKey());
+                it.remove();
+            }
         }
     }
 
     /**
      * 1. If the job has no output files the method finishes immediately.
-     * 2. Else it creates transfer for each output file. The transfers are then handled by the event system.
+     * 2. Else it creates transfer for each output file, up to {@link GlobalStorageParams#getTransferParallelism()} at
+     * a time. The transfers are then handled by the event system.
+     * 3. If the files fit into the VM's upload buffer they are written behind, i.e. the method finishes immediately
+     * and the transfers run in the background.
      * 
      * @see StorageManager#onAfterTaskCompleted(Job)
      */
@@ -93,11 +290,98 @@ public class GlobalStorageManager extends StorageManager {
             if (remainingToWrite.containsKey(job)) {
                 throw new IllegalStateException("There should be no remaining write transfers");
             }
-            remainingToWrite.put(job, files);
+            // copied, the task's output files must stay intact
+            remainingToWrite.put(job, new ArrayList<DAGFile>(files));
+            stageOutputs(job, files);
+            startFileWritesForJob(job);
+        }
+    }
+
+    /**
+     * Stages the outputs for writing behind if {@link #isWrittenBehind(Job, long)} says so.
+     */
+    private void stageOutputs(Job job, List<DAGFile> files) {
+        VM vm = job.getVM();
+        if (vm.isTerminated()) {
+            return;
+        }
+        long size = 0;
+        for (DAGFile file : files) {
+            size += file.getSize();
+        }
+        if (!isWrittenBehind(job, size)) {
+            return;
+        }
+        Long staged = stagedVMBytes.get(vm);
+        if (staged == null) {
+            // the cloud keeps the VM until the buffer is drained
+            getCloudsim().sendNow(getId(), vm.getCloud(), WorkflowEvent.STORAGE_VM_UPLOADS_STARTED, vm);
+        }
+        stagedVMBytes.put(vm, (staged == null ? 0 : staged) + size);
+        writeBehindJobs.add(job);
+        for (DAGFile file : files) {
+            // the same file may be uploaded again, e.g. by a retried job
+            if (!uploadingFiles.containsKey(file)) {
+                uploadingFiles.put(file, new ArrayList<Job>());
+            }
+            cacheManager.putFileToCache(file, job);
+        }
+        statistics.addWrittenBehindBytes(size);
+        notifyThatAfterTransfersCompleted(job);
+    }
+
+    /**
+     * @param size - total size of the job's output files.
+     * @return whether the job's outputs are written behind, i.e. whether they fit into the free part of its VM's
+     *         upload buffer.
+     */
+    protected boolean isWrittenBehind(Job job, long size) {
+        if (params.getWriteBehindBuffer() <= 0) {
+            return false;
+        }
+        Long staged = stagedVMBytes.get(job.getVM());
+        return size <= params.getWriteBehindBuffer() - (staged == null ? 0 : staged);
+    }
+
+    /**
+     * @return whether the file is being written behind, i.e. it is still in the upload buffer of the VM which
+     *         produced it.
+     */
+    protected boolean isUploading(DAGFile file) {
+        return uploadingFiles.containsKey(file);
+    }
+
+    /**
+     * Starts file writes from the job's write queue until it has as many writes in progress as allowed.
+     */
+    private void startFileWritesForJob(Job job) {
+        List<DAGFile> remainingFiles = remainingToWrite.get(job);
+        while (!remainingFiles.isEmpty() && getTransfersInProgress(writes, job) < params.getTransferParallelism()) {
             startFileWriteForJob(job);
         }
     }
 
+    /**
+     * Starts file reads from the job's read queue until it has as many reads in progress, or shared reads it waits
+     * for, as allowed.
+     */
+    private void startFileReadsForJob(Job job) {
+        List<DAGFile> remainingFiles = remainingToRead.get(job);
+        while (!remainingFiles.isEmpty() && getReadsInProgress(job) < params.getTransferParallelism()) {
+            startFileReadForJob(job);
+        }
+    }
+
+    private int getReadsInProgress(Job job) {
+        Integer waiting = waitingReads.get(job);
+        return getTransfersInProgress(reads, job) + (waiting == null ? 0 : waiting);
+    }
+
+    private static int getTransfersInProgress(Map<Job, List<GlobalStorageTransfer>> transfers, Job job) {
+        List<GlobalStorageTransfer> jobTransfers = transfers.get(job);
+        return jobTransfers == null ? 0 : jobTransfers.size();
+    }
+
     /**
      * Starts file write for one of the files in its write queue.
      */
@@ -108,9 +392,35 @@ public class GlobalStorageManager extends StorageManager {
     }
 
     /**
-     * Starts file read for one of the files in its read queue.
+     * Starts file read for one of the files in its read queue. If the file is already being read to the job's VM the
+     * job waits for that read instead. If the file is still being written behind the job waits for the write, and
+     * reads the file afterwards.
      */
     private void startFileReadForJob(Job job) {
+        List<DAGFile> remainingFiles = remainingToRead.get(job);
+        DAGFile file = remainingFiles.get(remainingFiles.size() - 1);
+        List<Job> uploadWaitingJobs = uploadingFiles.get(file);
+        if (uploadWaitingJobs != null) {
+            remainingFiles.remove(remainingFiles.size() - 1);
+            uploadWaitingJobs.add(job);
+            Integer waiting = waitingReads.get(job);
+            waitingReads.put(job, waiting == null ? 1 : waiting + 1);
+            return;
+        }
+        Map<DAGFile, List<Job>> vmReads = sharedReads.get(job.getVM());
+        if (vmReads == null) {
+            vmReads = new HashMap<DAGFile, List<Job>>();
+            sharedReads.put(job.getVM(), vmReads);
+        }
+        List<Job> waitingJobs = vmReads.get(file);
+        if (waitingJobs != null) {
+            remainingFiles.remove(remainingFiles.size() - 1);
+            waitingJobs.add(job);
+            Integer waiting = waitingReads.get(job);
+            waitingReads.put(job, waiting == null ? 1 : waiting + 1);
+            return;
+        }
+        vmReads.put(file, new ArrayList<Job>());
         startTransfers(remainingToRead, job, reads, WorkflowEvent.GLOBAL_STORAGE_READ_PROGRESS, "read");
         congestedParams.addReads(1);
         updateSpeedCongestion();
@@ -139,7 +449,7 @@ public class GlobalStorageManager extends StorageManager {
             throw new IllegalStateException("Remaining files cannot be empty");
         }
         DAGFile file = remainingFiles.remove(remainingFiles.size() - 1);
-        GlobalStorageTransfer write = new GlobalStorageTransfer(job, file);
+        GlobalStorageTransfer write = GlobalStorageTransfer.obtain(job, file, getCloudsim());
         jobTransfers.add(write);
         String logMsg = String.format("Global %s transfer %s started: %s, size: %s, vm: %s, job_id: %d", transferType,
                 write.getId(), write.getFile().getName(), write.getFile().getSize(), job.getVM().getId(), job.getID());
@@ -151,30 +461,114 @@ public class GlobalStorageManager extends StorageManager {
      * Called after a write has finished. Logs message. If all writes have completed then notifies appropriate VM.
      */
     private void onWriteFinished(GlobalStorageTransfer write) {
-        if (onTransferFinished(write, writes, "write", remainingToWrite)) {
-            notifyThatAfterTransfersCompleted(write.getJob());
+        if (params.getPrefetchBudget() > 0) {
+            storedFiles.add(write.getFile());
+        }
+        Job job = write.getJob();
+        boolean writtenBehind = writeBehindJobs.contains(job);
+        onTransferFinished(write, writes, "write");
+        if (remainingToWrite.get(job).isEmpty() && getTransfersInProgress(writes, job) == 0) {
+            remainingToWrite.remove(job);
+            writes.remove(job);
+            if (!writtenBehind) {
+                notifyThatAfterTransfersCompleted(job);
+            } else {
+                writeBehindJobs.remove(job);
+            }
         } else {
-            startFileWriteForJob(write.getJob());
+            startFileWritesForJob(job);
+        }
+        if (writtenBehind) {
+            onWriteBehindFinished(write);
+        } else {
+            cacheManager.putFileToCache(write.getFile(), write.getJob());
         }
-        cacheManager.putFileToCache(write.getFile(), write.getJob());
         congestedParams.removeWrites(1);
         updateSpeedCongestion();
+        GlobalStorageTransfer.release(write, getCloudsim());
     }
 
     /**
-     * Called after a read has finished. Logs message. If all reads have completed then notifies appropriate VM.
+     * Frees the file's part of the upload buffer and lets the jobs waiting for the file read it, unless another upload
+     * of the file has already done so. The file has been put to the cache when it was staged.
      */
-    private void onReadFinished(GlobalStorageTransfer read) {
-        if (onTransferFinished(read, reads, "read", remainingToRead)) {
-            notifyThatBeforeTransfersCompleted(read.getJob());
+    private void onWriteBehindFinished(GlobalStorageTransfer write) {
+        DAGFile file = write.getFile();
+        VM vm = write.getJob().getVM();
+        long staged = stagedVMBytes.get(vm) - file.getSize();
+        if (staged > 0) {
+            stagedVMBytes.put(vm, staged);
         } else {
-            startFileReadForJob(read.getJob());
+            stagedVMBytes.remove(vm);
+            getCloudsim().sendNow(getId(), vm.getCloud(), WorkflowEvent.STORAGE_VM_UPLOADS_DRAINED, vm);
+        }
+        List<Job> waitingJobs = uploadingFiles.remove(file);
+        if (waitingJobs == null) {
+            return;
+        }
+        for (Job job : waitingJobs) {
+            int waiting = waitingReads.get(job) - 1;
+            if (waiting > 0) {
+                waitingReads.put(job, waiting);
+            } else {
+                waitingReads.remove(job);
+            }
+            remainingToRead.get(job).add(file);
+            startFileReadsForJob(job);
+        }
+    }
+
+    /**
+     * Called after a read has finished. Logs message. If all reads have completed then notifies appropriate VM. A
+     * prefetch only notifies the jobs which have started meanwhile and wait for it.
+     */
+    private void onReadFinished(GlobalStorageTransfer read) {
+        Map<DAGFile, List<Job>> vmReads = sharedReads.get(read.getJob().getVM());
+        List<Job> waitingJobs = vmReads.remove(read.getFile());
+        if (vmReads.isEmpty()) {
+            sharedReads.remove(read.getJob().getVM());
         }
+        // cached before notifying, so that prefetching started by the notifications doesn't read the file again
         cacheManager.putFileToCache(read.getFile(), read.getJob());
+        if (read.isPrefetch()) {
+            if (!read.getJob().getVM().isTerminated()) {
+                getCloudsim().log(
+                        String.format("Global prefetch transfer %s finished: %s, bytes transferred: %d, duration: %f",
+                                read.getId(), read.getFile().getName(), read.getFile().getSize(), read.getDuration()));
+            }
+            statistics.addPrefetchedBytes(read.getBytesTransferred());
+        } else {
+            onTransferFinished(read, reads, "read");
+            onJobReadFinished(read.getJob());
+        }
+        for (Job job : waitingJobs) {
+            int waiting = waitingReads.get(job) - 1;
+            if (waiting > 0) {
+                waitingReads.put(job, waiting);
+            } else {
+                waitingReads.remove(job);
+            }
+            onJobReadFinished(job);
+        }
         congestedParams.removeReads(1);
         updateSpeedCongestion();
         statistics.addActualBytesRead(read.getBytesTransferred());
         statistics.addActualFilesRead(1);
+        GlobalStorageTransfer.release(read, getCloudsim());
+    }
+
+    /**
+     * Called after one of the job's reads, or a shared read it waited for, has finished. Notifies the VM if it was the
+     * last one, otherwise starts more reads.
+     */
+    private void onJobReadFinished(Job job) {
+        if (remainingToRead.get(job).isEmpty() && getReadsInProgress(job) == 0) {
+            remainingToRead.remove(job);
+            reads.remove(job);
+            notifyThatBeforeTransfersCompleted(job);
+        } else {
+            startFileReadsForJob(job);
+        }
     }
 
     /**
@@ -182,23 +576,27 @@ public class GlobalStorageManager extends StorageManager {
      * @param transfer - the transfer that has finished.
      * @param transfers - the map with active transfers this transfer belongs to (e.g. writes or reads).
      * @param transferType - the type of this transfer, e.g. "write".
-     * @return true if this was the last transfer in the job, false otherwise.
      */
-    private boolean onTransferFinished(GlobalStorageTransfer transfer, Map<Job, List<GlobalStorageTransfer>> transfers,
-            String transferType, Map<Job, List<DAGFile>> remainingFiles) {
+    private void onTransferFinished(GlobalStorageTransfer transfer, Map<Job, List<GlobalStorageTransfer>> transfers,
+            String transferType) {
         if (!transfer.getJob().getVM().isTerminated()) {
             String logMsg = String.format("Global %s transfer %s finished: %s, bytes transferred: %d, duration: %f",
                     transferType, transfer.getId(), transfer.getFile().getName(), transfer.getFile().getSize(),
                     transfer.getDuration());
             getCloudsim().log(logMsg);
         }
-        List<GlobalStorageTransfer> jobTransfers = transfers.get(transfer.getJob());
-        jobTransfers.remove(transfer);
-        if (remainingFiles.get(transfer.getJob()).isEmpty()) {
-            return true;
-        } else {
-            return false;
+        // removed by identity, transfers of the same job are equal and this one is about to be recycled
+        Iterator<GlobalStorageTransfer> jobTransfers = transfers.get(transfer.getJob()).iterator();
+        while (jobTransfers.next() != transfer) {
+            // look further
         }
+        jobTransfers.remove();
+    }
+
+    @Override
+    protected void onVMTerminated(VM vm) {
+        cacheManager.vmTerminated(vm);
+        releasePrefetchBudget(vm);
     }
 
     @Override
@@ -244,9 +642,13 @@ public class GlobalStorageManager extends StorageManager {
         return lastNumReads == congestedParams.getNumReads() && lastNumWrites == congestedParams.getNumWrites();
     }
 
-    /** Called on GLOBAL_STORAGE_WRITE_PROGRESS event. */
+    /**
+     * Called on GLOBAL_STORAGE_WRITE_PROGRESS event. Writes of a terminated VM are cancelled, except the ones written
+     * behind, the cloud keeps the VM until they finish.
+     */
     private void onWriteProgress(GlobalStorageTransfer write) {
-        if (write.isCompleted() || write.getJob().getVM().isTerminated()) {
+        if (write.isCompleted()
+                || (write.getJob().getVM().isTerminated() && !writeBehindJobs.contains(write.getJob()))) {
             getCloudsim().sendNow(getId(), getId(), WorkflowEvent.GLOBAL_STORAGE_WRITE_FINISHED, write);
         } else {
             progressTransfer(write, WorkflowEvent.GLOBAL_STORAGE_WRITE_PROGRESS, congestedParams.getWriteSpeed());
@@ -336,4 +738,9 @@ public class GlobalStorageManager extends StorageManager {
     public VMCacheManager getCacheManager() {
         return cacheManager;
     }
+
+    @Override
+    public void addCacheListener(VMCacheListener listener) {
+        cacheManager.addListener(listener);
+    }
 }
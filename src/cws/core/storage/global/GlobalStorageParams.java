@@ -14,6 +14,12 @@ public class GlobalStorageParams {
 
     private static final double DEFAULT_CHUNK_TRANSFER_TIME = 1;
 
+    private static final long DEFAULT_PREFETCH_BUDGET = 0;
+
+    private static final int DEFAULT_TRANSFER_PARALLELISM = 1;
+
+    private static final long DEFAULT_WRITE_BEHIND_BUFFER = 0;
+
     /** Average read speed of the storage, in bytes per second.*/
     private double readSpeed;
 
@@ -32,12 +38,33 @@ public class GlobalStorageParams {
      */
     private double chunkTransferTime = DEFAULT_CHUNK_TRANSFER_TIME;
 
+    /**
+     * Bytes of each VM's cache which may hold inputs read ahead of time for the next job queued on the VM. Zero
+     * disables prefetching.
+     */
+    private long prefetchBudget = DEFAULT_PREFETCH_BUDGET;
+
+    /**
+     * Maximum number of files each job reads (or writes) at the same time. All of them share the storage bandwidth
+     * like any other concurrent transfers, so the gain is in overlapping the latencies.
+     */
+    private int transferParallelism = DEFAULT_TRANSFER_PARALLELISM;
+
+    /**
+     * Bytes of each VM's outputs which may be waiting for upload while the VM runs other jobs. Zero disables writing
+     * behind, i.e. cores wait for their outputs to be uploaded.
+     */
+    private long writeBehindBuffer = DEFAULT_WRITE_BEHIND_BUFFER;
+
     public void storeProperties(Properties properties) {
         properties.setProperty("readSpeed", "" + readSpeed);
         properties.setProperty("writeSpeed", "" + writeSpeed);
         properties.setProperty("chunkTransferTime", "" + chunkTransferTime);
         properties.setProperty("latency", "" + latency);
         properties.setProperty("numReplicas", "" + numReplicas);
+        properties.setProperty("prefetchBudget", "" + prefetchBudget);
+        properties.setProperty("transferParallelism", "" + transferParallelism);
+        properties.setProperty("writeBehindBuffer", "" + writeBehindBuffer);
     }
 
     public static GlobalStorageParams readProperties(Properties properties) {
@@ -48,6 +75,11 @@ public class GlobalStorageParams {
                 DEFAULT_CHUNK_TRANSFER_TIME + ""));
         params.latency = Double.valueOf(properties.getProperty("latency", DEFAULT_LATENCY + ""));
         params.numReplicas = Integer.valueOf(properties.getProperty("numReplicas", DEFAULT_NUM_REPLICAS + ""));
+        params.prefetchBudget = Long.valueOf(properties.getProperty("prefetchBudget", DEFAULT_PREFETCH_BUDGET + ""));
+        params.transferParallelism = Integer.valueOf(properties.getProperty("transferParallelism",
+                DEFAULT_TRANSFER_PARALLELISM + ""));
+        params.writeBehindBuffer = Long.valueOf(properties.getProperty("writeBehindBuffer",
+                DEFAULT_WRITE_BEHIND_BUFFER + ""));
         return params;
     }
 
@@ -55,8 +87,18 @@ public class GlobalStorageParams {
      * @return Properties file name prefix based on this prams' state.
      */
     public String getName() {
-        return "rs_" + readSpeed + "ws_" + writeSpeed + "ctt_" + chunkTransferTime + "l_" + latency + "nr_"
+        String name = "rs_" + readSpeed + "ws_" + writeSpeed + "ctt_" + chunkTransferTime + "l_" + latency + "nr_"
                 + numReplicas;
+        if (prefetchBudget > 0) {
+            name += "pb_" + prefetchBudget;
+        }
+        if (transferParallelism > 1) {
+            name += "tp_" + transferParallelism;
+        }
+        if (writeBehindBuffer > 0) {
+            name += "wb_" + writeBehindBuffer;
+        }
+        return name;
     }
 
     public double getReadSpeed() {
@@ -101,4 +143,37 @@ public class GlobalStorageParams {
         }
         this.numReplicas = numReplicas;
     }
+
+    public long getPrefetchBudget() {
+        return prefetchBudget;
+    }
+
+    public void setPrefetchBudget(long prefetchBudget) {
+        if (prefetchBudget < 0) {
+            throw new IllegalCWSArgumentException("Prefetch budget must be >= 0");
+        }
+        this.prefetchBudget = prefetchBudget;
+    }
+
+    public int getTransferParallelism() {
+        return transferParallelism;
+    }
+
+    public void setTransferParallelism(int transferParallelism) {
+        if (transferParallelism < 1) {
+            throw new IllegalCWSArgumentException("Transfer parallelism must be >= 1");
+        }
+        this.transferParallelism = transferParallelism;
+    }
+
+    public long getWriteBehindBuffer() {
+        return writeBehindBuffer;
+    }
+
+    public void setWriteBehindBuffer(long writeBehindBuffer) {
+        if (writeBehindBuffer < 0) {
+            throw new IllegalCWSArgumentException("Write behind buffer must be >= 0");
+        }
+        this.writeBehindBuffer = writeBehindBuffer;
+    }
 }
@@ -1,12 +1,15 @@
 package cws.core.storage.global;
 
+import cws.core.cloudsim.CloudSimWrapper;
+import cws.core.cloudsim.ObjectPool;
+import cws.core.cloudsim.Recyclable;
 import cws.core.dag.DAGFile;
 import cws.core.jobs.Job;
 
 /**
  * Describes global storage transfer. This can be either read or write.
  */
-public class GlobalStorageTransfer {
+public class GlobalStorageTransfer implements Recyclable {
 
     /** The job this transfer transfers file from/to */
     private Job job;
@@ -34,15 +37,62 @@ public class GlobalStorageTransfer {
      */
     private boolean isTerminated;
 
+    /** Whether this is a read started ahead of time, for a job which hasn't started yet */
+    private boolean isPrefetch;
+
     /**
      * @param job - the job this transfer transfers file from/to
      * @param file - the transferred file
      */
     public GlobalStorageTransfer(Job job, DAGFile file) {
+        init(job, file);
+    }
+
+    /**
+     * Returns a new transfer, or a recycled one if the simulation recycles objects. Recycled transfers get a new id like
+     * new ones and go back to the pool when they finish, see {@link #release(GlobalStorageTransfer, CloudSimWrapper)}.
+     */
+    public static GlobalStorageTransfer obtain(Job job, DAGFile file, CloudSimWrapper cloudsim) {
+        ObjectPool<GlobalStorageTransfer> pool = cloudsim.getPool(GlobalStorageTransfer.class);
+        if (pool == null) {
+            return new GlobalStorageTransfer(job, file);
+        }
+        GlobalStorageTransfer transfer = pool.reuse();
+        if (transfer == null) {
+            transfer = new GlobalStorageTransfer(job, file);
+        } else {
+            transfer.init(job, file);
+        }
+        return transfer;
+    }
+
+    /**
+     * Returns the transfer to the pool if the simulation recycles objects. Called by the storage once the transfer has
+     * finished, nothing references it then. Transfers still running at the end of the cell are left to the garbage
+     * collector.
+     */
+    public static void release(GlobalStorageTransfer transfer, CloudSimWrapper cloudsim) {
+        ObjectPool<GlobalStorageTransfer> pool = cloudsim.getPool(GlobalStorageTransfer.class);
+        if (pool != null) {
+            pool.release(transfer);
+        }
+    }
+
+    @Override
+    public void recycle() {
+        this.job = null;
+        this.file = null;
+    }
+
+    private void init(Job job, DAGFile file) {
         this.id = next_id++;
 
         this.job = job;
         this.file = file;
+        this.bytesTransferred = 0;
+        this.duration = 0;
+        this.isTerminated = false;
+        this.isPrefetch = false;
     }
 
     /**
@@ -105,4 +155,12 @@ public class GlobalStorageTransfer {
     public boolean isTerminated() {
         return this.isTerminated;
     }
+
+    public void setPrefetch(boolean isPrefetch) {
+        this.isPrefetch = isPrefetch;
+    }
+
+    public boolean isPrefetch() {
+        return this.isPrefetch;
+    }
 }
@@ -0,0 +1,281 @@
+package cws.core.storage.p2p;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import cws.core.VM;
+import cws.core.WorkflowEvent;
+import cws.core.cloudsim.CWSSimEvent;
+import cws.core.cloudsim.CloudSimWrapper;
+import cws.core.dag.DAGFile;
+import cws.core.jobs.Job;
+import cws.core.storage.cache.VMCacheManager;
+import cws.core.storage.global.GlobalStorageManager;
+import cws.core.storage.global.GlobalStorageParams;
+import cws.core.transfer.Link;
+import cws.core.transfer.Port;
+import cws.core.transfer.Transfer;
+import cws.core.transfer.TransferManager;
+
+/**
+ * Storage manager in which output files stay on the VM which produced them. Jobs on other VMs fetch them directly from
+ * that VM, through the VMs' {@link Port}s and a {@link Link} shared by all VMs, simulated by a
+ * {@link TransferManager}, as long as the VM still holds them, i.e. they are in its cache or still being uploaded
+ * from it. Other files, e.g. the ones whose producer has been terminated or has evicted them, and the workflows' input
+ * files, are read from the global storage as in {@link GlobalStorageManager}.<br>
+ * 
+ * Output files are written behind to the global storage too, so that they are still available after their producer
+ * is terminated. Jobs don't wait for these writes, the VM is kept until they finish. VM-to-VM transfers from a VM
+ * which is terminated meanwhile are cancelled and their files read from the global storage instead, transfers to it
+ * are cancelled too.
+ */
+public class PeerToPeerStorageManager extends GlobalStorageManager {
+    /** Network parameters of VM-to-VM transfers */
+    private final PeerToPeerStorageParams peerParams;
+
+    /** Simulates VM-to-VM transfers */
+    private final TransferManager transferManager;
+
+    /** The link shared by all VM-to-VM transfers */
+    private final Link link;
+
+    /** Incoming and outgoing port of each VM, created on first transfer */
+    private final Map<VM, Port[]> ports = new HashMap<VM, Port[]>();
+
+    /** VM which produced each output file */
+    private final Map<DAGFile, VM> producers = new HashMap<DAGFile, VM>();
+
+    /** Files in {@link #producers} produced by each VM, to forget them when the VM is terminated */
+    private final Map<VM, Set<DAGFile>> producedFiles = new HashMap<VM, Set<DAGFile>>();
+
+    /** Active VM-to-VM transfers with the jobs and files they are for */
+    private final Map<Transfer, PeerRead> peerReads = new HashMap<Transfer, PeerRead>();
+
+    /** Number of unfinished VM-to-VM transfers of each job */
+    private final Map<Job, Integer> remainingPeerReads = new HashMap<Job, Integer>();
+
+    /** Jobs whose global storage reads have finished, but which still wait for VM-to-VM transfers */
+    private final Set<Job> globalReadsFinished = new HashSet<Job>();
+
+    /**
+     * A file transferred from its producer to the VM of a job.
+     */
+    private static class PeerRead {
+        private final Job job;
+        private final DAGFile file;
+        private final VM producer;
+
+        public PeerRead(Job job, DAGFile file, VM producer) {
+            this.job = job;
+            this.file = file;
+            this.producer = producer;
+        }
+    }
+
+    public PeerToPeerStorageManager(GlobalStorageParams params, PeerToPeerStorageParams peerParams,
+            VMCacheManager cacheManager, CloudSimWrapper cloudsim) {
+        super(params, cacheManager, cloudsim);
+        this.peerParams = peerParams;
+        this.transferManager = new TransferManager(cloudsim);
+        this.link = new Link(peerParams.getLinkBandwidth(), peerParams.getLinkRTT());
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        transferManager.reset();
+        ports.clear();
+        producers.clear();
+        producedFiles.clear();
+        peerReads.clear();
+        remainingPeerReads.clear();
+        globalReadsFinished.clear();
+    }
+
+    /**
+     * Files which another running VM produced and still holds are transferred from it, the rest is read from the
+     * global storage.
+     */
+    @Override
+    protected void readFiles(Job job, List<DAGFile> files) {
+        List<DAGFile> globalFiles = new ArrayList<DAGFile>();
+        List<DAGFile> peerFiles = new ArrayList<DAGFile>();
+        for (DAGFile file : files) {
+            VM producer = producers.get(file);
+            if (producer != null && producer != job.getVM() && !producer.isTerminated() && holds(producer, file)) {
+                peerFiles.add(file);
+            } else {
+                globalFiles.add(file);
+            }
+        }
+        // register VM-to-VM transfers first, global reads may finish right away
+        if (!peerFiles.isEmpty()) {
+            remainingPeerReads.put(job, peerFiles.size());
+            for (DAGFile file : peerFiles) {
+                startPeerRead(job, file);
+            }
+        }
+        super.readFiles(job, globalFiles);
+    }
+
+    private boolean holds(VM producer, DAGFile file) {
+        return getCacheManager().isCached(file, producer) || isUploading(file);
+    }
+
+    private void startPeerRead(Job job, DAGFile file) {
+        VM producer = producers.get(file);
+        Transfer transfer = new Transfer(getPorts(producer)[1], getPorts(job.getVM())[0], link, file.getSize(),
+                getId(), getCloudsim());
+        peerReads.put(transfer, new PeerRead(job, file, producer));
+        getCloudsim().log(
+                String.format("Peer read started: %s, size: %s, from vm: %s, to vm: %s, job_id: %d", file.getName(),
+                        file.getSize(), producer.getId(), job.getVM().getId(), job.getID()));
+        getCloudsim().send(getId(), transferManager.getId(), 0.0, WorkflowEvent.NEW_TRANSFER, transfer);
+    }
+
+    /**
+     * @return incoming (0) and outgoing (1) port of the VM.
+     */
+    private Port[] getPorts(VM vm) {
+        Port[] vmPorts = ports.get(vm);
+        if (vmPorts == null) {
+            vmPorts = new Port[] { new Port(peerParams.getPortBandwidth()), new Port(peerParams.getPortBandwidth()) };
+            ports.put(vm, vmPorts);
+        }
+        return vmPorts;
+    }
+
+    private void onPeerReadFinished(Transfer transfer) {
+        PeerRead read = peerReads.remove(transfer);
+        if (read == null) {
+            // cancelled when it had already completed
+            return;
+        }
+        Job job = read.job;
+        getCloudsim().log(
+                String.format("Peer read finished: %s, bytes transferred: %d, duration: %f", read.file.getName(),
+                        transfer.getDataSize(), transfer.getTransferTime()));
+        getCacheManager().putFileToCache(read.file, job);
+        statistics.addPeerBytesRead(transfer.getDataSize());
+
+        if (peerReadDone(job) && globalReadsFinished.remove(job)) {
+            super.notifyThatBeforeTransfersCompleted(job);
+        }
+    }
+
+    /**
+     * @return whether it was the last VM-to-VM transfer of the job.
+     */
+    private boolean peerReadDone(Job job) {
+        int remaining = remainingPeerReads.get(job) - 1;
+        if (remaining > 0) {
+            remainingPeerReads.put(job, remaining);
+            return false;
+        }
+        remainingPeerReads.remove(job);
+        return true;
+    }
+
+    /**
+     * Cancels the VM-to-VM transfers from and to the terminated VM. The files of the transfers from it are read from
+     * the global storage instead, the job is notified once that read and its other reads have finished.
+     */
+    private void cancelPeerReads(VM vm) {
+        Iterator<Map.Entry<Transfer, PeerRead>> it = peerReads.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Transfer, PeerRead> entry = it.next();
+            PeerRead read = entry.getValue();
+            Job job = read.job;
+            if (read.producer != vm && job.getVM() != vm) {
+                continue;
+            }
+            it.remove();
+            getCloudsim().send(getId(), transferManager.getId(), 0.0, WorkflowEvent.CANCEL_TRANSFER, entry.getKey());
+            getCloudsim().log(
+                    String.format("Peer read cancelled: %s, from vm: %s, to vm: %s, job_id: %d", read.file.getName(),
+                            read.producer.getId(), job.getVM().getId(), job.getID()));
+            if (job.getVM() == vm) {
+                // nothing waits for the job anymore
+                remainingPeerReads.remove(job);
+                globalReadsFinished.remove(job);
+            } else {
+                peerReadDone(job);
+                // the job is notified again by the global storage read
+                globalReadsFinished.remove(job);
+                readFile(job, read.file);
+            }
+        }
+    }
+
+    /**
+     * Holds the notification back until VM-to-VM transfers of the job have finished too.
+     */
+    @Override
+    protected void notifyThatBeforeTransfersCompleted(Job job) {
+        if (remainingPeerReads.containsKey(job)) {
+            globalReadsFinished.add(job);
+        } else {
+            super.notifyThatBeforeTransfersCompleted(job);
+        }
+    }
+
+    /**
+     * Output files are written behind to the global storage and stay on the VM which produced them.
+     */
+    @Override
+    protected void onAfterTaskCompleted(Job job) {
+        VM vm = job.getVM();
+        for (DAGFile file : job.getTask().getOutputFiles()) {
+            VM previous = producers.put(file, vm);
+            if (previous != null && previous != vm) {
+                producedFiles.get(previous).remove(file);
+            }
+            Set<DAGFile> files = producedFiles.get(vm);
+            if (files == null) {
+                files = new HashSet<DAGFile>();
+                producedFiles.put(vm, files);
+            }
+            files.add(file);
+        }
+        super.onAfterTaskCompleted(job);
+    }
+
+    /**
+     * All outputs are written behind, whatever the size of the upload buffer.
+     */
+    @Override
+    protected boolean isWrittenBehind(Job job, long size) {
+        return true;
+    }
+
+    @Override
+    protected void onVMTerminated(VM vm) {
+        super.onVMTerminated(vm);
+        cancelPeerReads(vm);
+        ports.remove(vm);
+        Set<DAGFile> files = producedFiles.remove(vm);
+        if (files != null) {
+            for (DAGFile file : files) {
+                producers.remove(file);
+            }
+        }
+    }
+
+    @Override
+    protected void onUnknownSimEvent(CWSSimEvent ev) {
+        if (ev.getTag() == WorkflowEvent.TRANSFER_COMPLETE) {
+            onPeerReadFinished((Transfer) ev.getData());
+        } else {
+            super.onUnknownSimEvent(ev);
+        }
+    }
+
+    public PeerToPeerStorageParams getPeerParams() {
+        return peerParams;
+    }
+}
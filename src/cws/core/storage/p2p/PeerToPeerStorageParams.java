@@ -0,0 +1,69 @@
+package cws.core.storage.p2p;
+
+import java.util.Properties;
+
+/**
+ * Class containing network parameters for {@link PeerToPeerStorageManager}. Storage parameters of the global storage
+ * it falls back to are in {@link cws.core.storage.global.GlobalStorageParams}.
+ */
+public class PeerToPeerStorageParams {
+    private static final double DEFAULT_PORT_BANDWIDTH = 1000;
+
+    private static final double DEFAULT_LINK_BANDWIDTH = 10000;
+
+    private static final double DEFAULT_LINK_RTT = 0.5;
+
+    /** Bandwidth of each VM's incoming and outgoing port, in Mbps */
+    private double portBandwidth = DEFAULT_PORT_BANDWIDTH;
+
+    /** Bandwidth of the link shared by all VM-to-VM transfers, in Mbps */
+    private double linkBandwidth = DEFAULT_LINK_BANDWIDTH;
+
+    /** Round-trip latency of the shared link, in ms */
+    private double linkRTT = DEFAULT_LINK_RTT;
+
+    public void storeProperties(Properties properties) {
+        properties.setProperty("portBandwidth", "" + portBandwidth);
+        properties.setProperty("linkBandwidth", "" + linkBandwidth);
+        properties.setProperty("linkRTT", "" + linkRTT);
+    }
+
+    public static PeerToPeerStorageParams readProperties(Properties properties) {
+        PeerToPeerStorageParams params = new PeerToPeerStorageParams();
+        params.portBandwidth = Double.valueOf(properties.getProperty("portBandwidth", DEFAULT_PORT_BANDWIDTH + ""));
+        params.linkBandwidth = Double.valueOf(properties.getProperty("linkBandwidth", DEFAULT_LINK_BANDWIDTH + ""));
+        params.linkRTT = Double.valueOf(properties.getProperty("linkRTT", DEFAULT_LINK_RTT + ""));
+        return params;
+    }
+
+    /**
+     * @return Properties file name prefix based on this prams' state.
+     */
+    public String getName() {
+        return "pb_" + portBandwidth + "lb_" + linkBandwidth + "lrtt_" + linkRTT;
+    }
+
+    public double getPortBandwidth() {
+        return portBandwidth;
+    }
+
+    public void setPortBandwidth(double portBandwidth) {
+        this.portBandwidth = portBandwidth;
+    }
+
+    public double getLinkBandwidth() {
+        return linkBandwidth;
+    }
+
+    public void setLinkBandwidth(double linkBandwidth) {
+        this.linkBandwidth = linkBandwidth;
+    }
+
+    public double getLinkRTT() {
+        return linkRTT;
+    }
+
+    public void setLinkRTT(double linkRTT) {
+        this.linkRTT = linkRTT;
+    }
+}
@@ -50,15 +50,26 @@ public class TransferManager extends CWSSimEntity {
     /** All the incomplete transfers */
     private HashSet<Transfer> activeTransfers;
 
+    /** Cancelled transfers which are not active, i.e. still in their handshake or waiting for their final ACK */
+    private HashSet<Transfer> cancelledTransfers;
+
     /** Listeners for transfer events */
     private HashSet<TransferListener> listeners;
 
     public TransferManager(CloudSimWrapper cloudsim) {
         super("TransferManager", cloudsim);
         activeTransfers = new HashSet<Transfer>();
+        cancelledTransfers = new HashSet<Transfer>();
         listeners = new HashSet<TransferListener>();
     }
 
+    @Override
+    public void reset() {
+        super.reset();
+        activeTransfers.clear();
+        cancelledTransfers.clear();
+    }
+
     public void addListener(TransferListener tl) {
         listeners.add(tl);
     }
@@ -87,6 +98,9 @@ public class TransferManager extends CWSSimEntity {
         case WorkflowEvent.FINAL_ACK_RECEIVED:
             finalAckReceived((Transfer) ev.getData());
             break;
+        case WorkflowEvent.CANCEL_TRANSFER:
+            cancelTransfer((Transfer) ev.getData());
+            break;
         default:
             throw new UnknownWorkflowEventException("Unknown event: " + ev);
         }
@@ -119,6 +133,9 @@ public class TransferManager extends CWSSimEntity {
 
     /** Called when the initial handshake for a transfer is complete */
     private void handshakeComplete(Transfer t) {
+        if (cancelledTransfers.remove(t)) {
+            return;
+        }
 
         // Set the initial bandwidth to 0
         t.updateBandwidth(0.0);
@@ -130,6 +147,19 @@ public class TransferManager extends CWSSimEntity {
         updateProgress();
     }
 
+    /**
+     * Called when a transfer is cancelled. An active transfer stops using bandwidth right away, the others are dropped
+     * once their handshake or final ACK is over. The owner is not informed.
+     */
+    private void cancelTransfer(Transfer t) {
+        if (activeTransfers.remove(t)) {
+            // The other transfers get the bandwidth
+            updateProgress();
+        } else {
+            cancelledTransfers.add(t);
+        }
+    }
+
     /** Update progress of active transfers */
     private void updateProgress() {
         // Log.printLine(CloudSim.clock() + " Transfer manager: updating progress, active transfers: " +
@@ -266,10 +296,11 @@ public class TransferManager extends CWSSimEntity {
         int nnodes = nodes.size();
         while (nnodes > 0) {
 
-            // Find the node with the smallest remaining fair share
+            // Find the node with the smallest remaining fair share, nodes past nnodes have no flows left
             Node minNode = null;
             double minShare = Double.MAX_VALUE;
-            for (Node n : nodes) {
+            for (int j = 0; j < nnodes; j++) {
+                Node n = nodes.get(j);
                 double share = n.capacity / n.flows.size();
                 if (share <= minShare) {
                     minShare = share;
@@ -311,7 +342,10 @@ public class TransferManager extends CWSSimEntity {
 
     /** Called when the final ACK for a transfer is received */
     private void finalAckReceived(Transfer t) {
-        System.out.println("Transfer Complete " + t);
+        if (cancelledTransfers.remove(t)) {
+            return;
+        }
+        getCloudsim().log("Transfer Complete " + t);
 
         // Finish the transfer
         t.finish();
@@ -0,0 +1,149 @@
+package cws.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import cws.core.cloudsim.CWSSimEntity;
+import cws.core.cloudsim.CloudSimWrapper;
+import cws.core.core.VMType;
+import cws.core.core.VMTypeBuilder;
+import cws.core.storage.VoidStorageManager;
+
+public class CloudTest {
+    private CloudSimWrapper cloudsim;
+    private Cloud cloud;
+    private VMType vmType;
+    private Tenant first;
+    private Tenant second;
+
+    private class Tenant extends CWSSimEntity {
+        public Tenant(String name, CloudSimWrapper cloudsim) {
+            super(name, cloudsim);
+        }
+
+        public VM launch() {
+            VM vm = VMFactory.createVM(vmType, cloudsim);
+            cloudsim.send(getId(), cloud.getId(), 0.0, WorkflowEvent.VM_LAUNCH, vm);
+            return vm;
+        }
+
+        public void terminate(VM vm, double time) {
+            cloudsim.send(getId(), cloud.getId(), time, WorkflowEvent.VM_TERMINATE, vm);
+        }
+    }
+
+    private static class LaunchRecorder implements VMListener {
+        private final List<VM> launched = new ArrayList<VM>();
+
+        @Override
+        public void vmLaunched(VM vm) {
+            launched.add(vm);
+        }
+
+        @Override
+        public void vmTerminated(VM vm) {
+        }
+    }
+
+    @Before
+    public void setUp() {
+        cloudsim = new CloudSimWrapper();
+        cloudsim.init();
+        new VoidStorageManager(cloudsim);
+        cloud = new Cloud(cloudsim);
+        // VMs are ready right away and deprovisioned in 10 seconds
+        vmType = VMTypeBuilder.newBuilder().mips(1).cores(1).price(1.0).build();
+        first = new Tenant("FirstTenant", cloudsim);
+        second = new Tenant("SecondTenant", cloudsim);
+    }
+
+    @Test
+    public void shouldQueueLaunchesOverVMQuota() {
+        cloud.setVMQuota(1);
+        VM vm1 = first.launch();
+        VM vm2 = second.launch();
+        first.terminate(vm1, 100.0);
+        second.terminate(vm2, 200.0);
+
+        cloudsim.startSimulation();
+
+        assertEquals(0.0, vm1.getLaunchTime(), 0.0);
+        assertEquals(110.0, vm2.getLaunchTime(), 0.0);
+        assertEquals(0, cloud.getQueuedLaunches(first.getId()));
+        assertEquals(1, cloud.getQueuedLaunches(second.getId()));
+        assertEquals(110.0, cloud.getLaunchQueueWaitTime(second.getId()), 0.0);
+    }
+
+    @Test
+    public void shouldNotBlockOtherTenantsOverTenantVMQuota() {
+        cloud.setTenantVMQuota(1);
+        VM vm1 = first.launch();
+        VM vm2 = first.launch();
+        VM vm3 = second.launch();
+        first.terminate(vm1, 100.0);
+        first.terminate(vm2, 200.0);
+        second.terminate(vm3, 50.0);
+
+        cloudsim.startSimulation();
+
+        assertEquals(0.0, vm1.getLaunchTime(), 0.0);
+        assertEquals(110.0, vm2.getLaunchTime(), 0.0);
+        assertEquals(0.0, vm3.getLaunchTime(), 0.0);
+    }
+
+    @Test
+    public void shouldCancelQueuedLaunchOnTerminate() {
+        cloud.setVMQuota(1);
+        VM vm1 = first.launch();
+        VM vm2 = first.launch();
+        first.terminate(vm2, 10.0);
+
+        assertTrue(cloud.hasQuota());
+        cloudsim.startSimulation();
+
+        assertTrue(vm2.isTerminated());
+        assertFalse(cloud.getAllVms().contains(vm2));
+        assertTrue(cloud.getQueuedVMs(first.getId()).isEmpty());
+        assertEquals(1, cloud.getVMs(first.getId()).size());
+        assertTrue(cloud.getVMs(first.getId()).contains(vm1));
+    }
+
+    @Test
+    public void shouldNotCountQueuedVMsAsLaunched() {
+        cloud.setVMQuota(1);
+        VM vm1 = first.launch();
+        VM vm2 = first.launch();
+
+        cloudsim.startSimulation();
+
+        assertEquals(2, cloud.getVMs(first.getId()).size());
+        assertEquals(1, cloud.getLaunchedVMs(first.getId()).size());
+        assertTrue(cloud.getLaunchedVMs(first.getId()).contains(vm1));
+        assertTrue(cloud.getQueuedVMs(first.getId()).contains(vm2));
+    }
+
+    @Test
+    public void shouldInformListenersAboutTheirOwnerOnly() {
+        LaunchRecorder firstListener = new LaunchRecorder();
+        LaunchRecorder allListener = new LaunchRecorder();
+        cloud.addVMListener(first.getId(), firstListener);
+        cloud.addVMListener(allListener);
+        VM vm1 = first.launch();
+        VM vm2 = second.launch();
+
+        assertFalse(cloud.hasQuota());
+        cloudsim.startSimulation();
+
+        assertEquals(1, firstListener.launched.size());
+        assertTrue(firstListener.launched.contains(vm1));
+        assertEquals(2, allListener.launched.size());
+        assertTrue(allListener.launched.contains(vm2));
+    }
+}
@@ -0,0 +1,92 @@
+package cws.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import cws.core.cloudsim.CloudSimWrapper;
+import cws.core.core.VMType;
+import cws.core.core.VMTypeBuilder;
+
+public class CostAccumulatorTest {
+    private CloudSimWrapper cloudsim;
+    private CostAccumulator accumulator;
+    private VMType vmType;
+
+    @Before
+    public void setUp() {
+        cloudsim = mock(CloudSimWrapper.class);
+        when(cloudsim.getRandomStreams()).thenReturn(new RandomStreams(0));
+        accumulator = new CostAccumulator(cloudsim);
+        vmType = VMTypeBuilder.newBuilder().mips(1).cores(1).price(0.4).billingTimeInSeconds(100).build();
+    }
+
+    private void setClock(double time) {
+        when(cloudsim.clock()).thenReturn(time);
+    }
+
+    private VM launch(VMType type, double time) {
+        setClock(time);
+        VM vm = VMFactory.createVM(type, cloudsim);
+        vm.setLaunchTime(time);
+        accumulator.vmLaunched(vm);
+        return vm;
+    }
+
+    private void terminate(VM vm, double time) {
+        setClock(time);
+        vm.setTerminated(true);
+        vm.setTerminateTime(time);
+        accumulator.vmTerminated(vm);
+    }
+
+    @Test
+    public void shouldCountBillingUnitsOfRunningVM() {
+        launch(vmType, 0.0);
+        assertEquals(0.0, accumulator.getCost(), 1e-12);
+        setClock(1.0);
+        assertEquals(0.4, accumulator.getCost(), 1e-12);
+        setClock(100.0);
+        assertEquals(0.4, accumulator.getCost(), 1e-12);
+        setClock(100.5);
+        assertEquals(0.8, accumulator.getCost(), 1e-12);
+        setClock(1000.0);
+        assertEquals(4.0, accumulator.getCost(), 1e-12);
+    }
+
+    @Test
+    public void shouldFixCostOfTerminatedVM() {
+        VM vm = launch(vmType, 0.0);
+        terminate(vm, 150.0);
+        assertEquals(0.8, accumulator.getCost(), 1e-12);
+        setClock(1000.0);
+        assertEquals(0.8, accumulator.getCost(), 1e-12);
+    }
+
+    @Test
+    public void shouldMatchSumOfVMCosts() {
+        VMType otherType = VMTypeBuilder.newBuilder().mips(1).cores(1).price(1.5).billingTimeInSeconds(60).build();
+        List<VM> vms = new ArrayList<VM>();
+        for (int i = 0; i < 20; i++) {
+            vms.add(launch(i % 2 == 0 ? vmType : otherType, i * 7.0));
+        }
+        for (int step = 0; step < 100; step++) {
+            double time = 140.0 + step * 13.3;
+            if (step % 5 == 0) {
+                terminate(vms.get(step / 5), time);
+            }
+            setClock(time);
+            double expected = 0;
+            for (VM vm : vms) {
+                expected += vm.getCost();
+            }
+            assertEquals(expected, accumulator.getCost(), 1e-9);
+        }
+    }
+}
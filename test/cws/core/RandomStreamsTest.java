@@ -0,0 +1,40 @@
+package cws.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.SplittableRandom;
+
+import org.junit.Test;
+
+public class RandomStreamsTest {
+    @Test
+    public void shouldGiveSameStreamForSamePath() {
+        SplittableRandom first = new RandomStreams(7).child(3).stream(RandomStreams.VM_RUNTIMES, 11);
+        SplittableRandom second = new RandomStreams(7).child(3).stream(RandomStreams.VM_RUNTIMES, 11);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(first.nextLong(), second.nextLong());
+        }
+    }
+
+    @Test
+    public void shouldNotDependOnDrawsFromOtherStreams() {
+        RandomStreams streams = new RandomStreams(7);
+        double expected = streams.stream(RandomStreams.VM_FAILURES, 2).nextDouble();
+        SplittableRandom other = streams.stream(RandomStreams.VM_FAILURES, 1);
+        for (int i = 0; i < 100; i++) {
+            other.nextDouble();
+        }
+        assertEquals(expected, streams.stream(RandomStreams.VM_FAILURES, 2).nextDouble(), 0.0);
+    }
+
+    @Test
+    public void shouldGiveDifferentStreamsForDifferentPaths() {
+        RandomStreams streams = new RandomStreams(7);
+        long value = streams.stream(RandomStreams.VM_RUNTIMES, 1).nextLong();
+        assertFalse(value == streams.stream(RandomStreams.VM_RUNTIMES, 2).nextLong());
+        assertFalse(value == streams.stream(RandomStreams.VM_FAILURES, 1).nextLong());
+        assertFalse(value == streams.child(1).stream(RandomStreams.VM_RUNTIMES, 1).nextLong());
+        assertFalse(value == new RandomStreams(8).stream(RandomStreams.VM_RUNTIMES, 1).nextLong());
+    }
+}
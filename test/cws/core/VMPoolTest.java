@@ -0,0 +1,194 @@
+package cws.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import cws.core.core.VMTypeBuilder;
+
+public class VMPoolTest {
+    private VMPool pool;
+
+    @Before
+    public void setUp() {
+        pool = new VMPool();
+    }
+
+    @Test
+    public void shouldIterateFreeVMsInLaunchOrder() {
+        VM vm1 = createVMMock(1);
+        VM vm2 = createVMMock(1);
+        VM vm3 = createVMMock(1);
+        pool.add(vm1);
+        pool.add(vm2);
+        pool.add(vm3);
+
+        assertEquals(Arrays.asList(vm1, vm2, vm3), new ArrayList<VM>(pool.getFreeVMs()));
+        assertEquals(Arrays.asList(vm1, vm2, vm3), pool.getVMs());
+        assertTrue(pool.getBusyVMs().isEmpty());
+    }
+
+    @Test
+    public void shouldIterateFreeVMsInLaunchOrderAfterRemove() {
+        VM vm1 = createVMMock(1);
+        VM vm2 = createVMMock(1);
+        VM vm3 = createVMMock(1);
+        VM vm4 = createVMMock(1);
+        pool.add(vm1);
+        pool.add(vm2);
+        pool.add(vm3);
+        pool.jobStarted(vm3);
+
+        pool.remove(vm1);
+        pool.add(vm4);
+        pool.jobFinished(vm3, true);
+
+        assertEquals(Arrays.asList(vm2, vm3, vm4), new ArrayList<VM>(pool.getFreeVMs()));
+        assertEquals(Arrays.asList(vm2, vm3, vm4), pool.getVMs());
+        assertEquals(0, pool.getRunningJobs(vm3));
+    }
+
+    @Test
+    public void shouldMoveVMBetweenFreeAndBusy() {
+        VM vm = createVMMock(1);
+        pool.add(vm);
+
+        pool.jobStarted(vm);
+        assertFalse(pool.getFreeVMs().contains(vm));
+        assertTrue(pool.getBusyVMs().contains(vm));
+        assertEquals(1, pool.getBusyVMs().size());
+
+        pool.jobFinished(vm, true);
+        assertTrue(pool.getFreeVMs().contains(vm));
+        assertTrue(pool.getBusyVMs().isEmpty());
+        assertEquals(0, pool.getRunningJobs(vm));
+    }
+
+    @Test
+    public void shouldKeepMultiCoreVMFreeUntilAllCoresRunJobs() {
+        VM vm = createVMMock(2);
+        pool.add(vm);
+
+        pool.jobStarted(vm);
+        assertTrue(pool.getFreeVMs().contains(vm));
+        pool.jobStarted(vm);
+        assertTrue(pool.getBusyVMs().contains(vm));
+        pool.jobFinished(vm, true);
+        assertTrue(pool.getFreeVMs().contains(vm));
+        assertEquals(1, pool.getRunningJobs(vm));
+    }
+
+    @Test
+    public void shouldNotCountJobsWhichHaveNotStarted() {
+        VM vm = createVMMock(1);
+        pool.add(vm);
+        pool.jobStarted(vm);
+
+        pool.jobFinished(vm, false);
+
+        assertTrue(pool.getBusyVMs().contains(vm));
+        assertEquals(1, pool.getRunningJobs(vm));
+    }
+
+    @Test
+    public void shouldKeepLaunchOrderAndStateOfVMsOnRemove() {
+        VM vm1 = createVMMock(1);
+        VM vm2 = createVMMock(1);
+        VM vm3 = createVMMock(1);
+        pool.add(vm1);
+        pool.add(vm2);
+        pool.add(vm3);
+        pool.jobStarted(vm3);
+
+        pool.remove(vm1);
+
+        assertEquals(Arrays.asList(vm2, vm3), pool.getVMs());
+        assertEquals(Collections.singletonList(vm2), new ArrayList<VM>(pool.getFreeVMs()));
+        assertEquals(Collections.singletonList(vm3), new ArrayList<VM>(pool.getBusyVMs()));
+        assertEquals(1, pool.getRunningJobs(vm3));
+        assertFalse(pool.getFreeVMs().contains(vm1));
+    }
+
+    @Test
+    public void shouldNotMakeRemovedFromViewVMFreeAgain() {
+        VM vm1 = createVMMock(1);
+        VM vm2 = createVMMock(1);
+        pool.add(vm1);
+        pool.add(vm2);
+        pool.jobStarted(vm1);
+
+        pool.getBusyVMs().removeAll(Arrays.asList(vm1, vm2));
+        pool.getFreeVMs().removeAll(Arrays.asList(vm1, vm2));
+        pool.jobFinished(vm1, true);
+
+        assertTrue(pool.getFreeVMs().isEmpty());
+        assertTrue(pool.getBusyVMs().isEmpty());
+        assertEquals(2, pool.size());
+    }
+
+    @Test
+    public void shouldKeepLaunchOrderAndStateWhenEmptySlotsAreCompacted() {
+        List<VM> launched = new ArrayList<VM>();
+        for (int i = 0; i < 10; i++) {
+            VM vm = createVMMock(1);
+            pool.add(vm);
+            launched.add(vm);
+        }
+        pool.jobStarted(launched.get(7));
+        pool.jobStarted(launched.get(9));
+
+        // six of ten slots are emptied, so they are compacted on the way
+        for (int i : new int[] { 0, 2, 3, 5, 6, 8 }) {
+            pool.remove(launched.get(i));
+        }
+        VM added = createVMMock(1);
+        pool.add(added);
+        pool.jobFinished(launched.get(9), true);
+
+        assertEquals(5, pool.size());
+        assertEquals(Arrays.asList(launched.get(1), launched.get(4), launched.get(7), launched.get(9), added),
+                new ArrayList<VM>(pool.getVMs()));
+        assertEquals(Arrays.asList(launched.get(1), launched.get(4), launched.get(9), added), new ArrayList<VM>(
+                pool.getFreeVMs()));
+        assertEquals(Collections.singletonList(launched.get(7)), new ArrayList<VM>(pool.getBusyVMs()));
+        assertEquals(1, pool.getRunningJobs(launched.get(7)));
+        assertEquals(0, pool.getRunningJobs(launched.get(9)));
+        assertFalse(pool.getFreeVMs().contains(launched.get(0)));
+    }
+
+    @Test
+    public void shouldSkipEmptySlotsWhenIterating() {
+        VM vm1 = createVMMock(1);
+        VM vm2 = createVMMock(1);
+        VM vm3 = createVMMock(1);
+        pool.add(vm1);
+        pool.add(vm2);
+        pool.add(vm3);
+
+        pool.remove(vm2);
+
+        List<VM> iterated = new ArrayList<VM>();
+        for (VM vm : pool.getVMs()) {
+            iterated.add(vm);
+        }
+        assertEquals(Arrays.asList(vm1, vm3), iterated);
+        assertEquals(2, pool.getVMs().size());
+        assertEquals(vm3, pool.getVMs().get(1));
+    }
+
+    private VM createVMMock(int cores) {
+        VM vm = mock(VM.class);
+        when(vm.getVmType()).thenReturn(VMTypeBuilder.newBuilder().mips(1).cores(cores).price(1.0).build());
+        return vm;
+    }
+}
@@ -1,9 +1,12 @@
 package cws.core;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
 
 import org.junit.Before;
-import org.junit.Ignore;
 import org.junit.Test;
 
 import cws.core.cloudsim.CWSSimEntity;
@@ -15,6 +18,8 @@ import cws.core.dag.DAG;
 import cws.core.dag.DAGJob;
 import cws.core.dag.Task;
 import cws.core.jobs.Job;
+import cws.core.jobs.RuntimeDistribution;
+import cws.core.jobs.UniformRuntimeDistribution;
 import cws.core.storage.StorageManager;
 import cws.core.storage.VoidStorageManager;
 
@@ -28,6 +33,8 @@ public class VMTest {
     private class VMDriver extends CWSSimEntity {
         private VM vm;
         private Job[] jobs;
+        private boolean submitAsBatch;
+        private int startedBatches;
 
         public VMDriver(VM vm, CloudSimWrapper cloudsim) {
             super("VMDriver", cloudsim);
@@ -38,11 +45,20 @@ public class VMTest {
             this.jobs = jobs;
         }
 
+        public void setJobsBatch(Job[] jobs) {
+            this.jobs = jobs;
+            this.submitAsBatch = true;
+        }
+
         @Override
         public void startEntity() {
             sendNow(vm.getId(), WorkflowEvent.VM_LAUNCH);
 
             // Submit all the jobs
+            if (submitAsBatch) {
+                getCloudsim().send(getId(), vm.getId(), 0.0, WorkflowEvent.JOB_SUBMIT_BATCH, Arrays.asList(jobs));
+                return;
+            }
             for (Job j : jobs) {
                 getCloudsim().send(getId(), vm.getId(), 0.0, WorkflowEvent.JOB_SUBMIT, j);
             }
@@ -56,6 +72,15 @@ public class VMTest {
                 assertEquals(Job.State.RUNNING, j.getState());
                 break;
             }
+            case WorkflowEvent.JOB_STARTED_BATCH: {
+                @SuppressWarnings("unchecked")
+                List<Job> batch = (List<Job>) ev.getData();
+                for (Job j : batch) {
+                    assertEquals(Job.State.RUNNING, j.getState());
+                }
+                startedBatches++;
+                break;
+            }
             case WorkflowEvent.JOB_FINISHED: {
                 Job j = (Job) ev.getData();
                 assertEquals(Job.State.TERMINATED, j.getState());
@@ -121,11 +146,7 @@ public class VMTest {
         assertEquals(20.0, j2.getFinishTime(), 0.0);
     }
 
-    /**
-     * We cancel support of multicore VMs. Once it is reintrucuded, then we should unignore this.
-     */
     @Test
-    @Ignore
     public void testMultiCoreVM() {
         VMType vmType = VMTypeBuilder.newBuilder().mips(100).cores(2).price(0.40).build();
         VM vm = VMFactory.createVM(vmType, cloudsim);
@@ -149,6 +170,78 @@ public class VMTest {
         assertEquals(10.0, j2.getFinishTime(), 0.0);
     }
 
+    @Test
+    public void testCommonRandomNumbersDependOnTaskNotVM() {
+        VMType vmType = VMTypeBuilder.newBuilder().mips(100).cores(1).price(0.40).build();
+        RuntimeDistribution runtimeDistribution = VMFactory.getRuntimeDistribution();
+        VMFactory.setRuntimeDistribution(new UniformRuntimeDistribution(0, 0.5));
+        VMFactory.setCommonRandomNumbers(true);
+        try {
+            VM vm1 = VMFactory.createVM(vmType, cloudsim);
+            VM vm2 = VMFactory.createVM(vmType, cloudsim);
+            VMDriver driver1 = new VMDriver(vm1, cloudsim);
+            VMDriver driver2 = new VMDriver(vm2, cloudsim);
+
+            DAG dag = new DAG();
+            dag.setId("0");
+            Task task = new Task("task_id1", "transformation", 1000);
+            Task other = new Task("task_id2", "transformation", 1000);
+            dag.addTask(task);
+            dag.addTask(other);
+            DAGJob dagJob = new DAGJob(dag, 1);
+            Job j1 = new Job(dagJob, task, driver1.getId(), cloudsim);
+            Job j2 = new Job(dagJob, task, driver2.getId(), cloudsim);
+            Job j3 = new Job(dagJob, other, driver2.getId(), cloudsim);
+            Job j4 = new Job(dagJob, task, driver1.getId(), cloudsim);
+            j4.setAttempt(1);
+
+            driver1.setJobs(new Job[] { j1, j4 });
+            driver2.setJobs(new Job[] { j2, j3 });
+
+            cloudsim.startSimulation();
+
+            double runtime = j1.getFinishTime() - j1.getStartTime();
+            assertEquals(runtime, j2.getFinishTime() - j2.getStartTime(), 0.0);
+            assertTrue(runtime != j3.getFinishTime() - j3.getStartTime());
+            assertTrue(runtime != j4.getFinishTime() - j4.getStartTime());
+        } finally {
+            VMFactory.setRuntimeDistribution(runtimeDistribution);
+            VMFactory.setCommonRandomNumbers(false);
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testVMShouldNotStartWithoutStorageManager() {
+        CloudSimWrapper cloudsimWithoutStorage = new CloudSimWrapper();
+        cloudsimWithoutStorage.init();
+        VM vm = VMFactory.createVM(testDefaultVMType, cloudsimWithoutStorage);
+        cloudsimWithoutStorage.send(0, vm.getId(), 0.1, WorkflowEvent.VM_LAUNCH);
+        cloudsimWithoutStorage.startSimulation();
+    }
+
+    @Test
+    public void testMultiCoreVMBatchSubmit() {
+        VMType vmType = VMTypeBuilder.newBuilder().mips(100).cores(2).price(0.40).build();
+        VM vm = VMFactory.createVM(vmType, cloudsim);
+        VMDriver driver = new VMDriver(vm, cloudsim);
+
+        Job j1 = new Job(new DAGJob(new DAG(), 1), new Task("task_id1", "transformation", 1000), driver.getId(), cloudsim);
+        Job j2 = new Job(new DAGJob(new DAG(), 1), new Task("task_id2", "transformation", 1000), driver.getId(), cloudsim);
+        Job j3 = new Job(new DAGJob(new DAG(), 1), new Task("task_id3", "transformation", 1000), driver.getId(), cloudsim);
+
+        driver.setJobsBatch(new Job[] { j1, j2, j3 });
+
+        cloudsim.startSimulation();
+
+        assertEquals(1, driver.startedBatches);
+        assertEquals(0.0, j1.getStartTime(), 0.0);
+        assertEquals(10.0, j1.getFinishTime(), 0.0);
+        assertEquals(0.0, j2.getStartTime(), 0.0);
+        assertEquals(10.0, j2.getFinishTime(), 0.0);
+        assertEquals(10.0, j3.getStartTime(), 0.0);
+        assertEquals(20.0, j3.getFinishTime(), 0.0);
+    }
+
     @Test
     public void testVMShouldNotStartAutomatically() {
         VM vm = VMFactory.createVM(testDefaultVMType, cloudsim);
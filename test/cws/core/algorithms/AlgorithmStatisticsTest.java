@@ -0,0 +1,59 @@
+package cws.core.algorithms;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import cws.core.cloudsim.CloudSimWrapper;
+import cws.core.dag.DAG;
+import cws.core.jobs.Job;
+
+public class AlgorithmStatisticsTest {
+    private AlgorithmStatistics statistics;
+
+    @Before
+    public void setUp() {
+        CloudSimWrapper cloudsim = new CloudSimWrapper();
+        cloudsim.init();
+        statistics = new AlgorithmStatistics(new ArrayList<DAG>(), 1.0, 1.0, cloudsim);
+    }
+
+    private Job createJob(Job.State state) {
+        Job job = mock(Job.class);
+        when(job.getState()).thenReturn(state);
+        when(job.getResult()).thenReturn(Job.Result.SUCCESS);
+        when(job.getReleaseTime()).thenReturn(1.0);
+        when(job.getSubmitTime()).thenReturn(3.0);
+        when(job.getStartTime()).thenReturn(10.0);
+        when(job.getComputationStartTime()).thenReturn(14.0);
+        when(job.getComputationFinishTime()).thenReturn(114.0);
+        when(job.getFinishTime()).thenReturn(122.0);
+        return job;
+    }
+
+    @Test
+    public void shouldRecordJobPhases() {
+        Job job = createJob(Job.State.TERMINATED);
+        statistics.jobStarted(job);
+        statistics.jobFinished(job);
+
+        assertEquals(2.0, statistics.getQueueWaitHistogram().getMax(), 0.0);
+        assertEquals(4.0, statistics.getInputStagingHistogram().getMax(), 0.0);
+        assertEquals(100.0, statistics.getComputationHistogram().getMax(), 0.0);
+        assertEquals(8.0, statistics.getOutputStagingHistogram().getMax(), 0.0);
+    }
+
+    @Test
+    public void shouldNotRecordPhasesOfKilledJobs() {
+        statistics.jobFinished(createJob(Job.State.RUNNING));
+
+        assertEquals(0, statistics.getInputStagingHistogram().getTotalCount());
+        assertEquals(0, statistics.getComputationHistogram().getTotalCount());
+        assertEquals(0, statistics.getOutputStagingHistogram().getTotalCount());
+    }
+}
@@ -0,0 +1,60 @@
+package cws.core.algorithms;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import cws.core.exception.IllegalCWSArgumentException;
+
+public class HistogramTest {
+    @Test
+    public void shouldReturnZerosWhenEmpty() {
+        Histogram histogram = Histogram.forTimes();
+        assertEquals(0, histogram.getTotalCount());
+        assertEquals(0.0, histogram.getValueAtPercentile(50), 0.0);
+        assertEquals(0.0, histogram.getMax(), 0.0);
+    }
+
+    @Test
+    public void shouldComputePercentilesWithinRelativeError() {
+        Histogram histogram = Histogram.forTimes();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i);
+        }
+        assertEquals(1000, histogram.getTotalCount());
+        assertEquals(500, histogram.getValueAtPercentile(50), 500 * 0.01);
+        assertEquals(900, histogram.getValueAtPercentile(90), 900 * 0.01);
+        assertEquals(990, histogram.getValueAtPercentile(99), 990 * 0.01);
+        assertEquals(1000, histogram.getValueAtPercentile(100), 0.0);
+        assertEquals(1, histogram.getValueAtPercentile(0), 0.01);
+        assertEquals(1000, histogram.getMax(), 0.0);
+    }
+
+    @Test
+    public void shouldKeepExactExtremesOutOfRange() {
+        Histogram histogram = new Histogram(1, 10, 0.01);
+        histogram.record(0);
+        histogram.record(100);
+        assertEquals(0.0, histogram.getMin(), 0.0);
+        assertEquals(100.0, histogram.getMax(), 0.0);
+        assertEquals(1.0, histogram.getValueAtPercentile(50), 0.0);
+        assertEquals(100.0, histogram.getValueAtPercentile(100), 0.0);
+    }
+
+    @Test
+    public void shouldForgetValuesOnReset() {
+        Histogram histogram = Histogram.forTimes();
+        histogram.record(1000);
+        histogram.reset();
+        assertEquals(0, histogram.getTotalCount());
+        assertEquals(0.0, histogram.getMax(), 0.0);
+        histogram.record(10);
+        assertEquals(10, histogram.getValueAtPercentile(100), 0.0);
+        assertEquals(10, histogram.getMin(), 0.0);
+    }
+
+    @Test(expected = IllegalCWSArgumentException.class)
+    public void shouldRejectNegativeValues() {
+        Histogram.forTimes().record(-1);
+    }
+}
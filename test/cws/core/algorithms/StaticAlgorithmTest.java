@@ -0,0 +1,117 @@
+package cws.core.algorithms;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import cws.core.Cloud;
+import cws.core.VM;
+import cws.core.VMFactory;
+import cws.core.WorkflowEvent;
+import cws.core.cloudsim.CWSSimEntity;
+import cws.core.cloudsim.CloudSimWrapper;
+import cws.core.core.VMType;
+import cws.core.core.VMTypeBuilder;
+import cws.core.dag.DAG;
+import cws.core.dag.Task;
+import cws.core.engine.Environment;
+import cws.core.storage.VoidStorageManager;
+
+public class StaticAlgorithmTest {
+    private static final double DEADLINE = 1000.0;
+
+    private CloudSimWrapper cloudsim;
+    private Cloud cloud;
+    private VMType vmType;
+    private Environment environment;
+    private Tenant blocker;
+
+    /**
+     * Holds the only VM the quota allows until it terminates it.
+     */
+    private class Tenant extends CWSSimEntity {
+        public Tenant(CloudSimWrapper cloudsim) {
+            super("Tenant", cloudsim);
+        }
+
+        public void holdQuotaUntil(double time) {
+            VM vm = VMFactory.createVM(vmType, cloudsim);
+            cloudsim.send(getId(), cloud.getId(), 0.0, WorkflowEvent.VM_LAUNCH, vm);
+            cloudsim.send(getId(), cloud.getId(), time, WorkflowEvent.VM_TERMINATE, vm);
+        }
+    }
+
+    @Before
+    public void setUp() {
+        cloudsim = new CloudSimWrapper();
+        cloudsim.init();
+        VoidStorageManager storageManager = new VoidStorageManager(cloudsim);
+        cloud = new Cloud(cloudsim);
+        cloud.setVMQuota(1);
+        // VMs are ready right away and deprovisioned in 10 seconds
+        vmType = VMTypeBuilder.newBuilder().mips(1).cores(1).price(1.0).build();
+        environment = new Environment(vmType, storageManager);
+        blocker = new Tenant(cloudsim);
+    }
+
+    /**
+     * @return SPSS planning a single task DAG of each given runtime.
+     */
+    private SPSS newSPSS(double... runtimes) {
+        List<DAG> dags = new ArrayList<DAG>();
+        for (double runtime : runtimes) {
+            DAG dag = new DAG();
+            dag.addTask(new Task("t", "", runtime));
+            dags.add(dag);
+        }
+        AlgorithmStatistics statistics = new AlgorithmStatistics(dags, 10.0, DEADLINE, cloudsim);
+        SPSS spss = new SPSS(10.0, DEADLINE, dags, 0.7, statistics, environment, cloudsim);
+        spss.setCloud(cloud);
+        return spss;
+    }
+
+    @Test
+    public void shouldFollowPlanOfVMDequeuedInTime() {
+        blocker.holdQuotaUntil(100.0);
+        SPSS spss = newSPSS(100.0);
+
+        Algorithm.simulate(Collections.singletonList(spss));
+
+        assertEquals(1, spss.getAlgorithmStatistics().getFinishedDags().size());
+    }
+
+    @Test
+    public void shouldAbandonPlanOfVMDequeuedTooLate() {
+        // the VM is dequeued at 960, its task and deprovisioning would end at 1070
+        blocker.holdQuotaUntil(950.0);
+        SPSS spss = newSPSS(100.0);
+
+        Algorithm.simulate(Collections.singletonList(spss));
+
+        AlgorithmStatistics statistics = spss.getAlgorithmStatistics();
+        assertEquals(0, statistics.getFinishedDags().size());
+        // the task never runs and the VM is terminated as soon as it is ready
+        assertEquals(0.0, statistics.getLastJobFinishTime(), 0.0);
+        assertEquals(970.0, statistics.getLastVMFinishTime(), 0.0);
+    }
+
+    @Test
+    public void shouldAbandonOnlyDAGsPlannedOnVMDequeuedTooLate() {
+        cloud.setVMQuota(2);
+        blocker.holdQuotaUntil(400.0);
+        // the DAGs don't fit on one VM before the deadline, the second VM is dequeued at 410 while the first one runs
+        SPSS spss = newSPSS(600.0, 600.0);
+
+        Algorithm.simulate(Collections.singletonList(spss));
+
+        AlgorithmStatistics statistics = spss.getAlgorithmStatistics();
+        assertEquals(1, statistics.getFinishedDags().size());
+        assertEquals(600.0, statistics.getLastJobFinishTime(), 0.0);
+        assertEquals(610.0, statistics.getLastVMFinishTime(), 0.0);
+    }
+}
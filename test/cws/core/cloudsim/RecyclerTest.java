@@ -0,0 +1,71 @@
+package cws.core.cloudsim;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import cws.core.dag.DAG;
+import cws.core.dag.DAGJob;
+import cws.core.dag.Task;
+import cws.core.jobs.Job;
+
+public class RecyclerTest {
+    private CloudSimWrapper cloudsim;
+    private Recycler recycler;
+    private DAGJob dagJob;
+    private Task task;
+
+    @Before
+    public void setUp() {
+        cloudsim = new CloudSimWrapper();
+        cloudsim.init();
+        recycler = new Recycler();
+        cloudsim.setRecycler(recycler);
+        dagJob = new DAGJob(new DAG(), 0);
+        task = new Task("a", "", 1);
+    }
+
+    @Test
+    public void shouldNotPoolWithoutRecycler() {
+        cloudsim.setRecycler(null);
+        assertNull(cloudsim.getPool(Job.class));
+    }
+
+    @Test
+    public void shouldRetainJobsUntilEndOfCell() {
+        Job first = Job.obtain(dagJob, task, 1, cloudsim);
+        first.setResult(Job.Result.FAILURE);
+        first.setRetry(true);
+        Job second = Job.obtain(dagJob, task, 1, cloudsim);
+        assertNotSame(first, second);
+
+        recycler.endCell();
+        assertNull(first.getTask());
+        assertEquals(2, cloudsim.getPool(Job.class).getFreeCount());
+
+        Job reused = Job.obtain(dagJob, task, 2, cloudsim);
+        assertSame(second, reused);
+        assertEquals(first.getID() + 2, reused.getID());
+        assertSame(task, reused.getTask());
+        assertEquals(2, reused.getOwner());
+        assertEquals(Job.State.QUEUED, reused.getState());
+        assertEquals(Job.Result.NONE, reused.getResult());
+        assertFalse(reused.isRetry());
+    }
+
+    @Test
+    public void shouldReuseReleasedObjectsRightAway() {
+        ObjectPool<CWSSimEvent> pool = cloudsim.getPool(CWSSimEvent.class);
+        CWSSimEvent event = new CWSSimEvent(1, 2, 0.0, 3, "data");
+        pool.release(event);
+
+        assertNull(event.getData());
+        assertSame(event, pool.reuse());
+        assertNull(pool.reuse());
+    }
+}
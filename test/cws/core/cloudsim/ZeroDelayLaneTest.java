@@ -0,0 +1,88 @@
+package cws.core.cloudsim;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class ZeroDelayLaneTest {
+    private static final int START = 1;
+
+    private CloudSimWrapper cloudsim;
+    private List<String> delivered;
+
+    /**
+     * Records every event it gets (as time:name:tag) and sends the events given for that tag.
+     */
+    private class Recorder extends CWSSimEntity {
+        private List<int[]> reactions = new ArrayList<int[]>();
+        private boolean starter;
+
+        public Recorder(String name) {
+            super(name, cloudsim);
+        }
+
+        public void setStarter() {
+            starter = true;
+        }
+
+        /** On an event with the given tag sends an event with sendTag to dest after delay */
+        public void on(int tag, int dest, int sendTag, int delay) {
+            reactions.add(new int[] { tag, dest, sendTag, delay });
+        }
+
+        @Override
+        public void startEntity() {
+            if (starter) {
+                getCloudsim().send(getId(), getId(), 0.0, START);
+            }
+        }
+
+        @Override
+        public void processEvent(CWSSimEvent ev) {
+            delivered.add(ev.eventTime() + ":" + getName() + ":" + ev.getTag());
+            for (int[] reaction : reactions) {
+                if (reaction[0] == ev.getTag()) {
+                    getCloudsim().send(getId(), reaction[1], reaction[3], reaction[2], null);
+                }
+            }
+        }
+
+        @Override
+        public void shutdownEntity() {
+        }
+    }
+
+    @Before
+    public void setUp() {
+        cloudsim = new CloudSimWrapper();
+        cloudsim.init();
+        delivered = new ArrayList<String>();
+    }
+
+    @Test
+    public void shouldDeliverInCloudSimOrder() {
+        Recorder first = new Recorder("a");
+        Recorder second = new Recorder("b");
+        Recorder third = new Recorder("c");
+        first.setStarter();
+        first.on(START, third.getId(), 10, 0);
+        first.on(START, second.getId(), 11, 0);
+        first.on(START, third.getId(), 12, 0);
+        first.on(START, first.getId(), 13, 0);
+        first.on(START, second.getId(), 14, 1);
+        second.on(11, first.getId(), 15, 0);
+        third.on(10, third.getId(), 16, 0);
+
+        cloudsim.startSimulation();
+
+        // each entity gets its events in order of sending, entities in order of ids, and the events sent meanwhile
+        // come after them
+        assertEquals(Arrays.asList("0.0:a:1", "0.0:a:13", "0.0:b:11", "0.0:c:10", "0.0:c:12", "0.0:a:15",
+                "0.0:c:16", "1.0:b:14"), delivered);
+    }
+}
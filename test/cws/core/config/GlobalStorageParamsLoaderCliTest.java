@@ -176,4 +176,49 @@ public class GlobalStorageParamsLoaderCliTest {
         loader.overrideConfigFromFileWithCliArgs(config, args);
     }
 
+    @Test
+    public void shouldEnableToOverridePrefetchBudget() throws ParseException {
+        CommandLine args = CommandLineBuilder.fromOptions(options)
+                .addOption(GlobalStorageParamsLoader.GS_PREFETCH_BUDGET_OPTION_NAME, "1000000").build();
+
+        loader.overrideConfigFromFileWithCliArgs(config, args);
+
+        assertEquals(1000000L, config.get(GlobalStorageParamsLoader.GS_PREFETCH_BUDGET_CONFIG_ENTRY));
+    }
+
+    @Test(expected = IllegalCWSArgumentException.class)
+    public void shouldFailIfOverridePrefetchBudgetWithInvalidValue() throws ParseException {
+        CommandLine args = CommandLineBuilder.fromOptions(options)
+                .addOption(GlobalStorageParamsLoader.GS_PREFETCH_BUDGET_OPTION_NAME, "1.5").build();
+
+        loader.overrideConfigFromFileWithCliArgs(config, args);
+    }
+
+    @Test
+    public void shouldEnableToOverrideTransferParallelism() throws ParseException {
+        CommandLine args = CommandLineBuilder.fromOptions(options)
+                .addOption(GlobalStorageParamsLoader.GS_TRANSFER_PARALLELISM_OPTION_NAME, "4").build();
+
+        loader.overrideConfigFromFileWithCliArgs(config, args);
+
+        assertEquals(4, config.get(GlobalStorageParamsLoader.GS_TRANSFER_PARALLELISM_CONFIG_ENTRY));
+    }
+
+    @Test(expected = IllegalCWSArgumentException.class)
+    public void shouldFailIfOverrideTransferParallelismWithInvalidValue() throws ParseException {
+        CommandLine args = CommandLineBuilder.fromOptions(options)
+                .addOption(GlobalStorageParamsLoader.GS_TRANSFER_PARALLELISM_OPTION_NAME, "2.5").build();
+
+        loader.overrideConfigFromFileWithCliArgs(config, args);
+    }
+
+    @Test
+    public void shouldEnableToOverrideWriteBehindBuffer() throws ParseException {
+        CommandLine args = CommandLineBuilder.fromOptions(options)
+                .addOption(GlobalStorageParamsLoader.GS_WRITE_BEHIND_BUFFER_OPTION_NAME, "1000000").build();
+
+        loader.overrideConfigFromFileWithCliArgs(config, args);
+
+        assertEquals(1000000L, config.get(GlobalStorageParamsLoader.GS_WRITE_BEHIND_BUFFER_CONFIG_ENTRY));
+    }
 }
@@ -218,4 +218,65 @@ public class GlobalStorageParamsLoaderTest {
         loader.loadParams(config);
     }
 
+    @Test
+    public void shouldDisablePrefetchingIfPrefetchBudgetIsMissing() {
+        GlobalStorageParams globalStorageParams = loader.loadParams(config);
+
+        assertEquals(0, globalStorageParams.getPrefetchBudget());
+    }
+
+    @Test
+    public void shouldLoadPrefetchBudget() {
+        config.put(GlobalStorageParamsLoader.GS_PREFETCH_BUDGET_CONFIG_ENTRY, 5000000000L);
+
+        GlobalStorageParams globalStorageParams = loader.loadParams(config);
+
+        assertEquals(5000000000L, globalStorageParams.getPrefetchBudget());
+    }
+
+    @Test(expected = IllegalCWSArgumentException.class)
+    public void shouldFailIfPrefetchBudgetIsLessThanZero() {
+        config.put(GlobalStorageParamsLoader.GS_PREFETCH_BUDGET_CONFIG_ENTRY, -1);
+
+        loader.loadParams(config);
+    }
+
+    @Test
+    public void shouldTransferOneFileAtATimeIfTransferParallelismIsMissing() {
+        GlobalStorageParams globalStorageParams = loader.loadParams(config);
+
+        assertEquals(1, globalStorageParams.getTransferParallelism());
+    }
+
+    @Test
+    public void shouldLoadTransferParallelism() {
+        config.put(GlobalStorageParamsLoader.GS_TRANSFER_PARALLELISM_CONFIG_ENTRY, 4);
+
+        GlobalStorageParams globalStorageParams = loader.loadParams(config);
+
+        assertEquals(4, globalStorageParams.getTransferParallelism());
+    }
+
+    @Test(expected = IllegalCWSArgumentException.class)
+    public void shouldFailIfTransferParallelismIsZero() {
+        config.put(GlobalStorageParamsLoader.GS_TRANSFER_PARALLELISM_CONFIG_ENTRY, 0);
+
+        loader.loadParams(config);
+    }
+
+    @Test
+    public void shouldDisableWritingBehindIfWriteBehindBufferIsMissing() {
+        GlobalStorageParams globalStorageParams = loader.loadParams(config);
+
+        assertEquals(0, globalStorageParams.getWriteBehindBuffer());
+    }
+
+    @Test
+    public void shouldLoadWriteBehindBuffer() {
+        config.put(GlobalStorageParamsLoader.GS_WRITE_BEHIND_BUFFER_CONFIG_ENTRY, 1000000);
+
+        GlobalStorageParams globalStorageParams = loader.loadParams(config);
+
+        assertEquals(1000000, globalStorageParams.getWriteBehindBuffer());
+    }
 }
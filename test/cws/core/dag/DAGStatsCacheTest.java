@@ -0,0 +1,85 @@
+package cws.core.dag;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import cws.core.cloudsim.CloudSimWrapper;
+import cws.core.core.VMType;
+import cws.core.core.VMTypeBuilder;
+import cws.core.engine.Environment;
+import cws.core.storage.VoidStorageManager;
+
+public class DAGStatsCacheTest {
+    private static final File DAG_FILE = new File("dags/cptest.dag");
+
+    private File directory;
+    private DAGStatsCache cache;
+    private Environment environment;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = File.createTempFile("dagstats", "");
+        directory.delete();
+        cache = new DAGStatsCache(directory);
+
+        CloudSimWrapper cloudsim = new CloudSimWrapper();
+        cloudsim.init();
+        VMType vmType = VMTypeBuilder.newBuilder().mips(1).cores(1).price(1.0).build();
+        environment = new Environment(vmType, new VoidStorageManager(cloudsim));
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Test
+    public void shouldComputeStatsOnMiss() {
+        DAG dag = DAGParser.parseDAG(DAG_FILE);
+        DAGStats expected = new DAGStats(dag, environment);
+
+        DAGStats stats = cache.getStats(DAG_FILE, dag, 1.0, environment);
+
+        assertEquals(expected.getCriticalPath(), stats.getCriticalPath(), 0.0);
+        assertEquals(expected.getMinCost(), stats.getMinCost(), 0.0);
+        assertEquals(expected.getTotalRuntime(), stats.getTotalRuntime(), 0.0);
+        assertEquals(1, directory.listFiles().length);
+    }
+
+    @Test
+    public void shouldReadStoredStatsOnHit() {
+        DAG dag = DAGParser.parseDAG(DAG_FILE);
+        DAGStats expected = cache.getStats(DAG_FILE, dag, 1.0, environment);
+
+        // an empty DAG would have zero stats, so these have to come from the cache
+        DAGStats stats = new DAGStatsCache(directory).getStats(DAG_FILE, new DAG(), 1.0, environment);
+
+        assertEquals(expected.getCriticalPath(), stats.getCriticalPath(), 0.0);
+        assertEquals(expected.getMinCost(), stats.getMinCost(), 0.0);
+        assertEquals(expected.getTotalRuntime(), stats.getTotalRuntime(), 0.0);
+    }
+
+    @Test
+    public void shouldKeyByScalingFactorAndVMType() {
+        VMType vmType = environment.getVMType();
+        VMType faster = VMTypeBuilder.newBuilder().mips(2).cores(1).price(1.0).build();
+        String key = cache.getKey(DAG_FILE, 1.0, vmType);
+
+        assertFalse(key.equals(cache.getKey(DAG_FILE, 2.0, vmType)));
+        assertFalse(key.equals(cache.getKey(DAG_FILE, 1.0, faster)));
+        assertEquals(key, cache.getKey(DAG_FILE, 1.0, vmType));
+    }
+}
@@ -0,0 +1,89 @@
+package cws.core.dag;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import cws.core.dag.SyntheticDAGGenerator.Topology;
+
+public class SyntheticDAGGeneratorTest {
+    private static final int TASKS = 1000;
+
+    private static String generate(Topology topology, long seed, double fileSizeFactor) throws IOException {
+        StringWriter writer = new StringWriter();
+        new SyntheticDAGGenerator(topology, TASKS, seed, fileSizeFactor).write(writer);
+        return writer.toString();
+    }
+
+    private static DAG parse(String text) throws IOException {
+        File file = File.createTempFile("synthetic", ".dag");
+        try {
+            FileWriter writer = new FileWriter(file);
+            try {
+                writer.write(text);
+            } finally {
+                writer.close();
+            }
+            return DAGParser.parseDAG(file);
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void shouldGenerateParsableWorkflowsOfRequestedSize() throws IOException {
+        for (Topology topology : Topology.values()) {
+            DAG dag = parse(generate(topology, 0, 1.0));
+            assertTrue(topology + ": " + dag.numTasks(), Math.abs(dag.numTasks() - TASKS) <= TASKS / 10);
+        }
+    }
+
+    @Test
+    public void shouldReadOnlyWorkflowInputsOrParentOutputs() throws IOException {
+        for (Topology topology : Topology.values()) {
+            DAG dag = parse(generate(topology, 0, 1.0));
+            Map<DAGFile, Task> producers = new HashMap<DAGFile, Task>();
+            for (String id : dag.getTasks()) {
+                Task task = dag.getTaskById(id);
+                for (DAGFile output : task.getOutputFiles()) {
+                    assertFalse(output.getName(), producers.containsKey(output));
+                    producers.put(output, task);
+                }
+            }
+            for (String id : dag.getTasks()) {
+                Task task = dag.getTaskById(id);
+                for (DAGFile input : task.getInputFiles()) {
+                    Task producer = producers.get(input);
+                    assertTrue(id + " reads " + input.getName(),
+                            producer == null || task.getParents().contains(producer));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void shouldBeDeterministicForSeed() throws IOException {
+        for (Topology topology : Topology.values()) {
+            assertEquals(generate(topology, 7, 1.0), generate(topology, 7, 1.0));
+            assertFalse(generate(topology, 7, 1.0).equals(generate(topology, 8, 1.0)));
+        }
+    }
+
+    @Test
+    public void shouldScaleFileSizes() throws IOException {
+        DAG dag = parse(generate(Topology.MONTAGE, 0, 1.0));
+        DAG scaled = parse(generate(Topology.MONTAGE, 0, 1000.0));
+        for (String name : dag.getFiles()) {
+            assertEquals(dag.getFileSize(name) * 1000.0, scaled.getFileSize(name), 1000.0);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package cws.core.dag;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import cws.core.exception.IllegalCWSArgumentException;
+
+public class TaskDoubleMapTest {
+    private DAG dag;
+
+    @Before
+    public void setUp() {
+        dag = new DAG();
+        for (int i = 0; i < 5; i++) {
+            dag.addTask(new Task("t" + i, "", 1));
+        }
+    }
+
+    @Test
+    public void shouldStoreValuesByTask() {
+        TaskDoubleMap map = new TaskDoubleMap(dag.numTasks());
+        map.put(dag.getTaskById("t1"), 1.5);
+        map.put(dag.getTaskById("t3"), -2.0);
+        map.put(dag.getTaskById("t1"), 3.0);
+
+        assertEquals(3.0, map.get(dag.getTaskById("t1")), 0.0);
+        assertEquals(-2.0, map.get(dag.getTaskById("t3")), 0.0);
+        assertTrue(map.containsKey(dag.getTaskById("t3")));
+        assertFalse(map.containsKey(dag.getTaskById("t0")));
+    }
+
+    @Test
+    public void shouldGrowBeyondCapacity() {
+        TaskDoubleMap map = new TaskDoubleMap(1);
+        map.put(dag.getTaskById("t4"), 4.0);
+        assertEquals(4.0, map.get(dag.getTaskById("t4")), 0.0);
+        assertFalse(map.containsKey(dag.getTaskById("t2")));
+    }
+
+    @Test(expected = IllegalCWSArgumentException.class)
+    public void shouldFailForMissingValue() {
+        new TaskDoubleMap(dag.numTasks()).get(dag.getTaskById("t2"));
+    }
+
+    @Test(expected = IllegalCWSArgumentException.class)
+    public void shouldFailForTaskOutsideDAG() {
+        new TaskDoubleMap(1).put(new Task("x", "", 1), 1.0);
+    }
+}
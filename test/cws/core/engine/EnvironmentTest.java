@@ -0,0 +1,74 @@
+package cws.core.engine;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import cws.core.core.VMType;
+import cws.core.core.VMTypeBuilder;
+import cws.core.dag.DAG;
+import cws.core.dag.Task;
+import cws.core.storage.StorageManager;
+
+public class EnvironmentTest {
+    private StorageManager storageManager;
+    private Environment environment;
+    private DAG dag;
+    private Task a;
+    private Task b;
+
+    @Before
+    public void setUp() {
+        VMType vmType = VMTypeBuilder.newBuilder().mips(2).cores(1).price(1.0).build();
+        storageManager = mock(StorageManager.class);
+        environment = new Environment(vmType, storageManager);
+
+        dag = new DAG();
+        a = new Task("a", "", 10);
+        b = new Task("b", "", 30);
+        dag.addTask(a);
+        dag.addTask(b);
+        when(storageManager.getTransferTimeEstimation(a)).thenReturn(1.0);
+        when(storageManager.getTransferTimeEstimation(b)).thenReturn(3.0);
+    }
+
+    @Test
+    public void shouldComputeDAGTotals() {
+        assertEquals(20.0, environment.getComputationPredictedRuntime(dag), 0.0);
+        assertEquals(4.0, environment.getTransfersPredictedRuntime(dag), 0.0);
+    }
+
+    @Test
+    public void shouldReturnSameEstimatesAsForSingleTasks() {
+        assertEquals(environment.getComputationPredictedRuntime(a), environment.getComputationPredictedRuntime(dag, a),
+                0.0);
+        assertEquals(environment.getTransfersPredictedRuntime(b), environment.getTransfersPredictedRuntime(dag, b),
+                0.0);
+    }
+
+    @Test
+    public void shouldEstimateTransfersOnce() {
+        for (int i = 0; i < 3; i++) {
+            environment.getTransfersPredictedRuntime(dag);
+            environment.getTransfersPredictedRuntime(dag, a);
+            environment.getTransfersPredictedRuntime(dag, b);
+        }
+
+        verify(storageManager, times(2)).getTransferTimeEstimation(any(Task.class));
+    }
+
+    @Test
+    public void shouldEstimateTaskOfOtherDAG() {
+        DAG other = new DAG();
+        Task c = new Task("c", "", 50);
+        other.addTask(c);
+
+        assertEquals(25.0, environment.getComputationPredictedRuntime(dag, c), 0.0);
+    }
+}
@@ -15,6 +15,7 @@ import org.mockito.ArgumentMatcher;
 
 import cws.core.VM;
 import cws.core.WorkflowEngine;
+import cws.core.WorkflowEvent;
 import cws.core.cloudsim.CloudSimWrapper;
 import cws.core.dag.DAG;
 import cws.core.dag.DAGFile;
@@ -72,6 +73,25 @@ public class DAGDynamicSchedulerUnitTest {
         verify(cloudsim, times(1)).send(anyInt(), anyInt(), anyDouble(), anyInt(), eq(job));
     }
 
+    @Test
+    public void shouldScheduleOneJobPerIdleCore() {
+        Job job1 = createJobMock();
+        Job job2 = createJobMock();
+        Job job3 = createJobMock();
+        jobs.add(job1);
+        jobs.add(job2);
+        jobs.add(job3);
+        VM vm = createVMMock();
+        when(vm.getIdleCores()).thenReturn(2);
+        freeVMs.add(vm);
+
+        scheduler.scheduleJobs(engine);
+
+        assertTrue(jobs.size() == 1 && jobs.peek() == job3);
+        verify(cloudsim, times(1)).send(anyInt(), anyInt(), anyDouble(), eq(WorkflowEvent.JOB_SUBMIT_BATCH),
+                eq(Arrays.asList(job1, job2)));
+    }
+
     @Test
     public void shouldNotScheduleIfNoVMAvailable() {
         // empty VMs
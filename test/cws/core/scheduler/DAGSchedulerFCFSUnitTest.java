@@ -0,0 +1,99 @@
+package cws.core.scheduler;
+
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyDouble;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
+
+import java.util.*;
+
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.junit.Before;
+import org.junit.Test;
+
+import cws.core.VM;
+import cws.core.WorkflowEngine;
+import cws.core.WorkflowEvent;
+import cws.core.cloudsim.CloudSimWrapper;
+import cws.core.dag.DAG;
+import cws.core.dag.DAGJob;
+import cws.core.dag.Task;
+import cws.core.jobs.Job;
+
+public class DAGSchedulerFCFSUnitTest {
+    DAGSchedulerFCFS scheduler;
+    WorkflowEngine engine;
+    CloudSimWrapper cloudsim;
+    Queue<Job> jobs;
+    List<VM> vms;
+
+    @Before
+    public void setUp() throws Exception {
+        CloudSim.init(0, null, false);
+        cloudsim = mock(CloudSimWrapper.class);
+
+        scheduler = new DAGSchedulerFCFS(cloudsim);
+        engine = mock(WorkflowEngine.class);
+
+        jobs = new LinkedList<Job>();
+        vms = new ArrayList<VM>();
+
+        when(engine.getQueuedJobs()).thenReturn(jobs);
+        when(engine.getAvailableVMs()).thenReturn(vms);
+    }
+
+    @Test
+    public void shouldSubmitOneJobToVMWithEmptyQueue() {
+        Job job1 = createJobMock();
+        Job job2 = createJobMock();
+        jobs.add(job1);
+        jobs.add(job2);
+        vms.add(createVMMock(1));
+
+        scheduler.scheduleJobs(engine);
+
+        assertTrue(jobs.size() == 1 && jobs.peek() == job2);
+        verify(cloudsim, times(1)).send(anyInt(), anyInt(), anyDouble(), eq(WorkflowEvent.JOB_SUBMIT), eq(job1));
+    }
+
+    @Test
+    public void shouldSubmitJobsForIdleCoresInOneBatch() {
+        Job job1 = createJobMock();
+        Job job2 = createJobMock();
+        Job job3 = createJobMock();
+        jobs.add(job1);
+        jobs.add(job2);
+        jobs.add(job3);
+        vms.add(createVMMock(2));
+
+        scheduler.scheduleJobs(engine);
+
+        assertTrue(jobs.size() == 1 && jobs.peek() == job3);
+        verify(cloudsim, times(1)).send(anyInt(), anyInt(), anyDouble(), eq(WorkflowEvent.JOB_SUBMIT_BATCH),
+                eq(Arrays.asList(job1, job2)));
+    }
+
+    @Test
+    public void shouldNotSubmitToVMWithQueuedJobs() {
+        jobs.add(createJobMock());
+        VM vm = createVMMock(1);
+        when(vm.getQueueLength()).thenReturn(1);
+        vms.add(vm);
+
+        scheduler.scheduleJobs(engine);
+
+        assertTrue(jobs.size() == 1);
+        verify(cloudsim, never()).send(anyInt(), anyInt(), anyDouble(), anyInt(), any());
+    }
+
+    private Job createJobMock() {
+        return new Job(new DAGJob(new DAG(), 2), mock(Task.class), -1, cloudsim);
+    }
+
+    private VM createVMMock(int idleCores) {
+        VM vm = mock(VM.class);
+        when(vm.getIdleCores()).thenReturn(idleCores);
+        return vm;
+    }
+}
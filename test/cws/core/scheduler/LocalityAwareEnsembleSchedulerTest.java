@@ -0,0 +1,212 @@
+package cws.core.scheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import cws.core.VM;
+import cws.core.WorkflowEngine;
+import cws.core.cloudsim.CloudSimWrapper;
+import cws.core.dag.DAG;
+import cws.core.dag.DAGFile;
+import cws.core.dag.DAGJob;
+import cws.core.dag.Task;
+import cws.core.engine.Environment;
+import cws.core.jobs.Job;
+import cws.core.storage.cache.VMCacheIndex;
+import cws.core.storage.cache.VMCacheListener;
+
+public class LocalityAwareEnsembleSchedulerTest {
+    LocalityAwareEnsembleScheduler scheduler;
+    VMCacheListener cacheListener;
+    WorkflowEngine engine;
+    CloudSimWrapper cloudsim;
+    Queue<Job> jobs;
+    Set<VM> freeVMs;
+
+    @Before
+    public void setUp() throws Exception {
+        CloudSim.init(0, null, false);
+        cloudsim = mock(CloudSimWrapper.class);
+        Environment environment = mock(Environment.class);
+
+        scheduler = new LocalityAwareEnsembleScheduler(cloudsim, environment);
+        ArgumentCaptor<VMCacheListener> listener = ArgumentCaptor.forClass(VMCacheListener.class);
+        verify(environment).addCacheListener(listener.capture());
+        cacheListener = listener.getValue();
+
+        engine = mock(WorkflowEngine.class);
+        jobs = new LinkedList<Job>();
+        freeVMs = new LinkedHashSet<VM>();
+        when(engine.getQueuedJobs()).thenReturn(jobs);
+        when(engine.getFreeVMs()).thenReturn(freeVMs);
+        when(engine.getDeadline()).thenReturn(Double.MAX_VALUE);
+    }
+
+    @Test
+    public void shouldScheduleJobOnVMCachingMostInputBytes() {
+        VM first = createVMMock();
+        VM second = createVMMock();
+        freeVMs.add(first);
+        freeVMs.add(second);
+        DAGFile small = new DAGFile("small", 10);
+        DAGFile big = new DAGFile("big", 1000);
+        cacheListener.fileCached(small, first);
+        cacheListener.fileCached(big, second);
+        Job job = createJob(small, big);
+        jobs.add(job);
+
+        scheduler.scheduleJobs(engine);
+
+        assertEquals(second, job.getVM());
+        assertTrue(jobs.isEmpty());
+    }
+
+    @Test
+    public void shouldScheduleOnFirstFreeVMWhenNothingIsCached() {
+        VM first = createVMMock();
+        VM second = createVMMock();
+        freeVMs.add(first);
+        freeVMs.add(second);
+        Job job = createJob(new DAGFile("a", 100));
+        jobs.add(job);
+
+        scheduler.scheduleJobs(engine);
+
+        assertEquals(first, job.getVM());
+    }
+
+    @Test
+    public void shouldIgnoreEvictedFiles() {
+        VM first = createVMMock();
+        VM second = createVMMock();
+        freeVMs.add(first);
+        freeVMs.add(second);
+        DAGFile file = new DAGFile("a", 100);
+        cacheListener.fileCached(file, second);
+        cacheListener.fileEvicted(file, second);
+        Job job = createJob(file);
+        jobs.add(job);
+
+        scheduler.scheduleJobs(engine);
+
+        assertEquals(first, job.getVM());
+    }
+
+    @Test
+    public void shouldForgetTerminatedVMs() {
+        VM first = createVMMock();
+        VM second = createVMMock();
+        VM terminated = createVMMock();
+        DAGFile file = new DAGFile("a", 100);
+        DAGFile other = new DAGFile("b", 100);
+        cacheListener.fileCached(file, second);
+        cacheListener.fileCached(file, terminated);
+        cacheListener.fileCached(other, terminated);
+
+        cacheListener.vmTerminated(terminated);
+
+        VMCacheIndex index = (VMCacheIndex) cacheListener;
+        assertEquals(Collections.singleton(second), index.getVMs(file));
+        assertTrue(index.getVMs(other).isEmpty());
+        assertEquals(1, index.getVMCount());
+
+        freeVMs.add(first);
+        freeVMs.add(second);
+        Job job = createJob(file);
+        jobs.add(job);
+        scheduler.scheduleJobs(engine);
+        assertEquals(second, job.getVM());
+    }
+
+    @Test
+    public void shouldFillMultiCoreVMsBeforeMovingOn() {
+        VM first = createVMMock();
+        VM second = createVMMock();
+        when(first.getIdleCores()).thenReturn(2);
+        freeVMs.add(first);
+        freeVMs.add(second);
+        DAGFile file = new DAGFile("a", 100);
+        cacheListener.fileCached(file, second);
+        Job cached = createJob(file);
+        Job job1 = createJob(new DAGFile("b", 100));
+        Job job2 = createJob(new DAGFile("c", 100));
+        Job job3 = createJob(new DAGFile("d", 100));
+        jobs.addAll(Arrays.asList(cached, job1, job2, job3));
+
+        scheduler.scheduleJobs(engine);
+
+        // the cached job takes the second VM, the others fill the first one
+        assertEquals(second, cached.getVM());
+        int onFirst = 0;
+        for (Job job : Arrays.asList(job1, job2, job3)) {
+            if (job.getVM() == first) {
+                onFirst++;
+            }
+        }
+        assertEquals(2, onFirst);
+        assertEquals(1, scheduler.prioritizedJobs.size());
+    }
+
+    @Test
+    public void shouldMoveToOtherVMsOnceCachingVMIsFull() {
+        VM first = createVMMock();
+        VM second = createVMMock();
+        freeVMs.add(first);
+        freeVMs.add(second);
+        DAGFile file = new DAGFile("a", 100);
+        cacheListener.fileCached(file, second);
+        Job job1 = createJob(file);
+        Job job2 = createJob(file);
+        Job job3 = createJob(file);
+        jobs.add(job1);
+        jobs.add(job2);
+        jobs.add(job3);
+
+        scheduler.scheduleJobs(engine);
+
+        // jobs of the same priority may be taken in any order
+        Set<VM> used = new LinkedHashSet<VM>();
+        for (Job job : Arrays.asList(job1, job2, job3)) {
+            if (job.getVM() != null) {
+                used.add(job.getVM());
+            }
+        }
+        assertEquals(2, used.size());
+        assertEquals(1, scheduler.prioritizedJobs.size());
+    }
+
+    private Job createJob(DAGFile... inputs) {
+        Task task = mock(Task.class);
+        List<DAGFile> files = new ArrayList<DAGFile>();
+        for (DAGFile file : inputs) {
+            files.add(file);
+        }
+        when(task.getInputFiles()).thenReturn(files);
+        when(task.getOutputFiles()).thenReturn(new ArrayList<DAGFile>());
+        when(task.getId()).thenReturn("");
+        return new Job(new DAGJob(new DAG(), 2), task, -1, cloudsim);
+    }
+
+    private VM createVMMock() {
+        VM vm = mock(VM.class);
+        when(vm.getIdleCores()).thenReturn(1);
+        return vm;
+    }
+}
@@ -43,6 +43,7 @@ public class WorkflowAwareEnsembleSchedulerUnitTest {
         environment = mock(Environment.class);
 
         when(environment.getSingleVMPrice()).thenReturn(1.0);
+        when(environment.getSingleCorePrice()).thenReturn(1.0);
         when(environment.getBillingTimeInSeconds()).thenReturn(3600.0);
 
         scheduler = new WorkflowAwareEnsembleScheduler(cloudsim, environment);
@@ -0,0 +1,61 @@
+package cws.core.simulation;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import cws.core.cloudsim.CloudSimWrapper;
+import cws.core.core.VMType;
+import cws.core.core.VMTypeBuilder;
+import cws.core.dag.DAG;
+import cws.core.dag.DAGParser;
+import cws.core.dag.DAGStats;
+import cws.core.engine.Environment;
+import cws.core.storage.VoidStorageManager;
+
+public class EnsembleLoaderTest {
+    private static final String[] NAMES = { "dags/cptest.dag", "dags/CyberShake_30.dag", "dags/Montage_25.dag",
+            "dags/cptest.dag", "dags/CyberShake_50.dag" };
+
+    private Environment environment;
+
+    @Before
+    public void setUp() {
+        CloudSimWrapper cloudsim = new CloudSimWrapper();
+        cloudsim.init();
+        VMType vmType = VMTypeBuilder.newBuilder().mips(1).cores(1).price(1.0).build();
+        environment = new Environment(vmType, new VoidStorageManager(cloudsim));
+    }
+
+    @Test
+    public void shouldKeepOrderOfFiles() {
+        EnsembleLoader loader = new EnsembleLoader(1.0, environment, null);
+        loader.load(NAMES);
+
+        List<DAG> dags = loader.getDAGs();
+        List<DAGStats> stats = loader.getStats();
+        assertEquals(NAMES.length, dags.size());
+        for (int i = 0; i < NAMES.length; i++) {
+            DAG expected = DAGParser.parseDAG(new File(NAMES[i]));
+            assertEquals(Integer.toString(i), dags.get(i).getId());
+            assertEquals(expected.numTasks(), dags.get(i).numTasks());
+            assertEquals(new DAGStats(expected, environment).getCriticalPath(), stats.get(i).getCriticalPath(), 0.0);
+        }
+    }
+
+    @Test
+    public void shouldScaleTasks() {
+        EnsembleLoader loader = new EnsembleLoader(2.0, environment, null);
+        loader.load(NAMES);
+
+        DAG expected = DAGParser.parseDAG(new File(NAMES[0]));
+        DAG scaled = loader.getDAGs().get(0);
+        for (String taskName : expected.getTasks()) {
+            assertEquals(2.0 * expected.getTaskById(taskName).getSize(), scaled.getTaskById(taskName).getSize(), 0.0);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package cws.core.simulation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class ReplicationStatisticsTest {
+    private ReplicationStatistics statistics;
+
+    @Before
+    public void setUp() {
+        statistics = new ReplicationStatistics();
+    }
+
+    @Test
+    public void shouldComputeMeanAndVariance() {
+        for (double value : new double[] { 2, 4, 4, 4, 5, 5, 7, 9 }) {
+            statistics.add(value);
+        }
+
+        assertEquals(8, statistics.getCount());
+        assertEquals(5.0, statistics.getMean(), 1e-12);
+        assertEquals(32.0 / 7.0, statistics.getVariance(), 1e-12);
+    }
+
+    @Test
+    public void shouldComputeHalfWidthWithStudentQuantiles() {
+        statistics.add(1.0);
+        assertEquals(Double.POSITIVE_INFINITY, statistics.getHalfWidth(0.95), 0.0);
+
+        statistics.add(3.0);
+        // t(0.975, 1) = 12.706, standard error = 1
+        assertEquals(12.706, statistics.getHalfWidth(0.95), 1e-3);
+
+        statistics.add(2.0);
+        statistics.add(2.0);
+        statistics.add(2.0);
+        // t(0.975, 4) = 2.776, standard error = sqrt(0.5 / 5)
+        assertEquals(2.776 * Math.sqrt(0.1), statistics.getHalfWidth(0.95), 1e-3);
+    }
+
+    @Test
+    public void shouldApproximateQuantiles() {
+        assertEquals(1.960, ReplicationStatistics.getNormalQuantile(0.975), 1e-3);
+        assertEquals(-2.326, ReplicationStatistics.getNormalQuantile(0.01), 1e-3);
+        assertEquals(4.303, ReplicationStatistics.getStudentQuantile(0.975, 2), 1e-3);
+        assertEquals(3.182, ReplicationStatistics.getStudentQuantile(0.975, 3), 1e-2);
+        assertEquals(2.228, ReplicationStatistics.getStudentQuantile(0.975, 10), 1e-3);
+        assertEquals(2.042, ReplicationStatistics.getStudentQuantile(0.975, 30), 1e-3);
+    }
+
+    @Test
+    public void shouldBePreciseWhenReplicationsAgree() {
+        statistics.add(10.0);
+        statistics.add(10.0);
+        assertTrue(statistics.isPrecise(0.95, 0.01));
+
+        statistics.add(20.0);
+        assertFalse(statistics.isPrecise(0.95, 0.01));
+
+        statistics.reset();
+        assertEquals(0, statistics.getCount());
+        assertEquals(0.0, statistics.getVariance(), 0.0);
+    }
+}
@@ -0,0 +1,52 @@
+package cws.core.simulation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.List;
+import java.util.jar.Attributes;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ReplicatorTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void shouldAddLibrariesOfJarManifest() throws IOException {
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        manifest.getMainAttributes().put(Attributes.Name.CLASS_PATH, "lib/cloudsim.jar  lib/commons-cli.jar");
+        File jar = new File(folder.getRoot(), "cws.jar");
+        new JarOutputStream(new FileOutputStream(jar), manifest).close();
+        URL location = jar.toURI().toURL();
+
+        List<URL> classpath = Arrays.asList(Replicator.getClasspath(location));
+
+        assertEquals(location, classpath.get(0));
+        assertEquals(new File(folder.getRoot(), "lib/cloudsim.jar").toURI().toURL(), classpath.get(1));
+        assertEquals(new File(folder.getRoot(), "lib/commons-cli.jar").toURI().toURL(), classpath.get(2));
+    }
+
+    @Test
+    public void shouldStartWithClassesDirectory() throws IOException {
+        URL location = folder.newFolder("classes").toURI().toURL();
+
+        List<URL> classpath = Arrays.asList(Replicator.getClasspath(location));
+
+        assertEquals(location, classpath.get(0));
+        // the libraries given with -cp
+        for (String entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+            assertTrue(classpath.contains(new File(entry).toURI().toURL()));
+        }
+    }
+}
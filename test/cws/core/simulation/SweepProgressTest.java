@@ -0,0 +1,66 @@
+package cws.core.simulation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import cws.core.Cloud;
+import cws.core.algorithms.Algorithm;
+import cws.core.cloudsim.CloudSimWrapper;
+
+public class SweepProgressTest {
+    private static final String SWEEP = "/tmp/sweep,1.csv";
+
+    private CloudSimWrapper cloudsim;
+    private SweepProgress progress;
+    private MBeanServer server;
+    private ObjectName name;
+
+    @Before
+    public void setUp() throws Exception {
+        cloudsim = new CloudSimWrapper();
+        cloudsim.init();
+        progress = new SweepProgress(4, cloudsim);
+        server = ManagementFactory.getPlatformMBeanServer();
+        name = new ObjectName("cws.core.simulation:type=SweepProgress,name=" + ObjectName.quote(SWEEP));
+    }
+
+    @After
+    public void tearDown() {
+        progress.unregister();
+    }
+
+    @Test
+    public void shouldShowCurrentCellOverJMX() throws Exception {
+        progress.register(SWEEP);
+        progress.startCell("DPDS,SPSS", 10.0, 3600.0, new Cloud(cloudsim), new ArrayList<Algorithm>());
+        progress.finishCell();
+        progress.startCell("DPDS,SPSS", 20.0, 3600.0, new Cloud(cloudsim), new ArrayList<Algorithm>());
+
+        assertEquals("DPDS,SPSS", server.getAttribute(name, "Algorithm"));
+        assertEquals(20.0, server.getAttribute(name, "Budget"));
+        assertEquals(1, server.getAttribute(name, "CellsDone"));
+        assertEquals(3, server.getAttribute(name, "CellsRemaining"));
+        assertEquals(0, server.getAttribute(name, "ActiveVMs"));
+        assertEquals(0, server.getAttribute(name, "QueuedJobs"));
+        assertTrue((Long) server.getAttribute(name, "HeapUsedBytes") > 0);
+    }
+
+    @Test
+    public void shouldUnregister() {
+        progress.register(SWEEP);
+        assertTrue(server.isRegistered(name));
+        progress.unregister();
+        assertFalse(server.isRegistered(name));
+    }
+}
@@ -161,6 +161,29 @@ public abstract class StorageManagerTest {
         Assert.assertEquals(0, storageManager.getStorageManagerStatistics().getTotalFilesToWrite());
     }
 
+    @Test
+    public void testStorageManagerCanBeReusedAfterReset() {
+        List<DAGFile> files = new ArrayList<DAGFile>();
+        files.add(new DAGFile("abc.txt", 222));
+        files.add(new DAGFile("def.txt", 333));
+        Mockito.when(task.getInputFiles()).thenReturn(files);
+        skipEvent(100, WorkflowEvent.STORAGE_ALL_BEFORE_TRANSFERS_COMPLETED, cloudsim);
+        CloudSim.send(-1, storageManager.getId(), random.nextDouble(), WorkflowEvent.STORAGE_BEFORE_TASK_START, job);
+        CloudSim.startSimulation();
+
+        cloudsim.reset();
+        storageManager.reset();
+        Assert.assertEquals(storageManager.getId(), cloudsim.getStorageManagerId());
+        Assert.assertEquals(0, storageManager.getStorageManagerStatistics().getTotalBytesToRead());
+
+        CloudSim.send(-1, storageManager.getId(), random.nextDouble(), WorkflowEvent.STORAGE_BEFORE_TASK_START, job);
+        CloudSim.startSimulation();
+        Assert.assertEquals(555, storageManager.getStorageManagerStatistics().getTotalBytesToRead());
+        Assert.assertEquals(2, storageManager.getStorageManagerStatistics().getTotalFilesToRead());
+        Mockito.verify(cloudsim, Mockito.times(2)).send(Matchers.anyInt(), Matchers.eq(100), Matchers.anyDouble(),
+                Matchers.eq(WorkflowEvent.STORAGE_ALL_BEFORE_TRANSFERS_COMPLETED), Matchers.any());
+    }
+
     /** Skips event sent to by cloudsim obj. The rest is forwarded to the underlying CloudSim. */
     public static void skipEvent(int dst, int event, CloudSimWrapper cloudsim) {
         Mockito.doNothing().when(cloudsim)
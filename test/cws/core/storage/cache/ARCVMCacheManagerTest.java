@@ -0,0 +1,80 @@
+package cws.core.storage.cache;
+
+import junit.framework.Assert;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import cws.core.dag.DAGFile;
+
+/**
+ * Tests for {@link ARCCacheManager}
+ */
+public class ARCVMCacheManagerTest extends VMCacheManagerTest {
+    @Before
+    public void setUp() {
+        cm = new ARCCacheManager(cloudsim);
+    }
+
+    @Test
+    public void shouldCacheOneFile() {
+        Mockito.when(vmType.getCacheSize()).thenReturn((long) 100);
+        DAGFile df = new DAGFile("xxxxxx", 100);
+        cm.putFileToCache(df, job);
+        Assert.assertTrue(cm.getFileFromCache(df, job));
+    }
+
+    @Test
+    public void shouldKeepReusedFileWhenScanning() {
+        Mockito.when(vmType.getCacheSize()).thenReturn((long) 300);
+        DAGFile shared = new DAGFile("shared", 100);
+        cm.putFileToCache(shared, job);
+        cm.getFileFromCache(shared, job);
+
+        // a scan of files used once shouldn't push out the file used twice
+        for (int i = 0; i < 10; i++) {
+            cm.putFileToCache(new DAGFile("scan" + i, 100), job);
+        }
+
+        Assert.assertTrue(cm.getFileFromCache(shared, job));
+        Assert.assertTrue(cm.getFileFromCache(new DAGFile("scan9", 100), job));
+        Assert.assertFalse(cm.getFileFromCache(new DAGFile("scan0", 100), job));
+    }
+
+    @Test
+    public void shouldNeverExceedCacheSize() {
+        Mockito.when(vmType.getCacheSize()).thenReturn((long) 1000);
+        int sz = 79;
+        int nfiles = 30;
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < nfiles; i += round + 1) {
+                cm.putFileToCache(new DAGFile("f" + i, sz), job);
+            }
+        }
+        int cached = 0;
+        for (int i = 0; i < nfiles; i++) {
+            if (cm.getFileFromCache(new DAGFile("f" + i, sz), job)) {
+                cached++;
+            }
+        }
+        Assert.assertTrue(cached > 0);
+        Assert.assertTrue(cached <= 1000 / sz);
+    }
+
+    @Test
+    public void shouldNotAddAndEvictOnTooBigFile() {
+        Mockito.when(vmType.getCacheSize()).thenReturn((long) 100);
+        DAGFile df = new DAGFile("xxxxxx", 20);
+        cm.putFileToCache(df, job);
+        DAGFile dfBig = new DAGFile("xxxxxx222", 101);
+        cm.putFileToCache(dfBig, job);
+        Assert.assertTrue(cm.getFileFromCache(df, job));
+        Assert.assertFalse(cm.getFileFromCache(dfBig, job));
+    }
+
+    @Test
+    public void shouldNotCountProbingAsAccess() {
+        assertProbingIsNotAnAccess();
+    }
+}
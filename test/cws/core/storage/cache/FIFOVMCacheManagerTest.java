@@ -7,6 +7,7 @@ import org.junit.Test;
 import org.mockito.Mockito;
 
 import cws.core.dag.DAGFile;
+import cws.core.storage.StorageManagerStatistics;
 
 /**
  * Tests for {@link FIFOCacheManager}
@@ -57,4 +58,37 @@ public class FIFOVMCacheManagerTest extends VMCacheManagerTest {
         Assert.assertTrue(cm.getFileFromCache(df, job));
         Assert.assertFalse(cm.getFileFromCache(dfBig, job));
     }
+
+    @Test
+    public void shouldNotCountProbingAsAccess() {
+        assertProbingIsNotAnAccess();
+    }
+
+    @Test
+    public void shouldReportFileCachedAgainOnce() {
+        Mockito.when(vmType.getCacheSize()).thenReturn((long) 100);
+        VMCacheListener listener = Mockito.mock(VMCacheListener.class);
+        cm.addListener(listener);
+        DAGFile df = new DAGFile("xxxxxx", 100);
+        cm.putFileToCache(df, job);
+        cm.putFileToCache(df, job);
+        Mockito.verify(listener, Mockito.times(1)).fileCached(df, vm);
+        Mockito.verify(listener, Mockito.never()).fileEvicted(df, vm);
+        Assert.assertTrue(cm.getFileFromCache(df, job));
+    }
+
+    @Test
+    public void shouldNotTakeSpaceTwiceForFileCachedAgain() {
+        Mockito.when(vmType.getCacheSize()).thenReturn((long) 200);
+        StorageManagerStatistics statistics = new StorageManagerStatistics();
+        cm.setStatistics(statistics);
+        DAGFile a = new DAGFile("a", 100);
+        DAGFile b = new DAGFile("b", 100);
+        cm.putFileToCache(a, job);
+        cm.putFileToCache(a, job);
+        cm.putFileToCache(b, job);
+        Assert.assertTrue(cm.getFileFromCache(a, job));
+        Assert.assertTrue(cm.getFileFromCache(b, job));
+        Assert.assertEquals(0, statistics.getCacheEvictedBytes());
+    }
 }
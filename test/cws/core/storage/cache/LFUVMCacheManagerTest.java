@@ -0,0 +1,82 @@
+package cws.core.storage.cache;
+
+import junit.framework.Assert;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import cws.core.dag.DAGFile;
+
+/**
+ * Tests for {@link LFUCacheManager}
+ */
+public class LFUVMCacheManagerTest extends VMCacheManagerTest {
+    @Before
+    public void setUp() {
+        cm = new LFUCacheManager(cloudsim);
+    }
+
+    @Test
+    public void shouldCacheOneFile() {
+        Mockito.when(vmType.getCacheSize()).thenReturn((long) 100);
+        DAGFile df = new DAGFile("xxxxxx", 100);
+        cm.putFileToCache(df, job);
+        Assert.assertTrue(cm.getFileFromCache(df, job));
+    }
+
+    @Test
+    public void shouldEvictLeastFrequentlyUsedFile() {
+        Mockito.when(vmType.getCacheSize()).thenReturn((long) 300);
+        DAGFile a = new DAGFile("a", 100);
+        DAGFile b = new DAGFile("b", 100);
+        DAGFile c = new DAGFile("c", 100);
+        DAGFile d = new DAGFile("d", 100);
+        cm.putFileToCache(a, job);
+        cm.putFileToCache(b, job);
+        cm.putFileToCache(c, job);
+        // a used 3 times, b once, c twice
+        cm.getFileFromCache(a, job);
+        cm.getFileFromCache(a, job);
+        cm.getFileFromCache(c, job);
+
+        cm.putFileToCache(d, job);
+
+        Assert.assertFalse(cm.getFileFromCache(b, job));
+        Assert.assertTrue(cm.getFileFromCache(a, job));
+        Assert.assertTrue(cm.getFileFromCache(c, job));
+        Assert.assertTrue(cm.getFileFromCache(d, job));
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedAmongEquallyFrequent() {
+        Mockito.when(vmType.getCacheSize()).thenReturn((long) 200);
+        DAGFile a = new DAGFile("a", 100);
+        DAGFile b = new DAGFile("b", 100);
+        DAGFile c = new DAGFile("c", 100);
+        cm.putFileToCache(a, job);
+        cm.putFileToCache(b, job);
+
+        cm.putFileToCache(c, job);
+
+        Assert.assertFalse(cm.getFileFromCache(a, job));
+        Assert.assertTrue(cm.getFileFromCache(b, job));
+        Assert.assertTrue(cm.getFileFromCache(c, job));
+    }
+
+    @Test
+    public void shouldNotAddAndEvictOnTooBigFile() {
+        Mockito.when(vmType.getCacheSize()).thenReturn((long) 100);
+        DAGFile df = new DAGFile("xxxxxx", 20);
+        cm.putFileToCache(df, job);
+        DAGFile dfBig = new DAGFile("xxxxxx222", 101);
+        cm.putFileToCache(dfBig, job);
+        Assert.assertTrue(cm.getFileFromCache(df, job));
+        Assert.assertFalse(cm.getFileFromCache(dfBig, job));
+    }
+
+    @Test
+    public void shouldNotCountProbingAsAccess() {
+        assertProbingIsNotAnAccess();
+    }
+}
@@ -0,0 +1,105 @@
+package cws.core.storage.cache;
+
+import junit.framework.Assert;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import cws.core.dag.DAGFile;
+import cws.core.storage.StorageManagerStatistics;
+
+/**
+ * Tests for {@link LRUCacheManager}
+ */
+public class LRUVMCacheManagerTest extends VMCacheManagerTest {
+    @Before
+    public void setUp() {
+        cm = new LRUCacheManager(cloudsim);
+    }
+
+    @Test
+    public void shouldCacheOneFile() {
+        Mockito.when(vmType.getCacheSize()).thenReturn((long) 100);
+        DAGFile df = new DAGFile("xxxxxx", 100);
+        cm.putFileToCache(df, job);
+        Assert.assertTrue(cm.getFileFromCache(df, job));
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedFile() {
+        Mockito.when(vmType.getCacheSize()).thenReturn((long) 300);
+        DAGFile a = new DAGFile("a", 100);
+        DAGFile b = new DAGFile("b", 100);
+        DAGFile c = new DAGFile("c", 100);
+        DAGFile d = new DAGFile("d", 100);
+        cm.putFileToCache(a, job);
+        cm.putFileToCache(b, job);
+        cm.putFileToCache(c, job);
+        Assert.assertTrue(cm.getFileFromCache(a, job));
+
+        cm.putFileToCache(d, job);
+
+        Assert.assertTrue(cm.getFileFromCache(a, job));
+        Assert.assertFalse(cm.getFileFromCache(b, job));
+        Assert.assertTrue(cm.getFileFromCache(c, job));
+        Assert.assertTrue(cm.getFileFromCache(d, job));
+    }
+
+    @Test
+    public void shouldEvictUntilBigFileFits() {
+        Mockito.when(vmType.getCacheSize()).thenReturn((long) 300);
+        StorageManagerStatistics statistics = new StorageManagerStatistics();
+        cm.setStatistics(statistics);
+        DAGFile a = new DAGFile("a", 100);
+        DAGFile b = new DAGFile("b", 100);
+        DAGFile c = new DAGFile("c", 100);
+        DAGFile big = new DAGFile("big", 250);
+        cm.putFileToCache(a, job);
+        cm.putFileToCache(b, job);
+        cm.putFileToCache(c, job);
+
+        cm.putFileToCache(big, job);
+
+        Assert.assertFalse(cm.getFileFromCache(a, job));
+        Assert.assertFalse(cm.getFileFromCache(b, job));
+        Assert.assertFalse(cm.getFileFromCache(c, job));
+        Assert.assertTrue(cm.getFileFromCache(big, job));
+        Assert.assertEquals(300, statistics.getCacheEvictedBytes());
+    }
+
+    @Test
+    public void shouldNotAddAndEvictOnTooBigFile() {
+        Mockito.when(vmType.getCacheSize()).thenReturn((long) 100);
+        DAGFile df = new DAGFile("xxxxxx", 20);
+        cm.putFileToCache(df, job);
+        DAGFile dfBig = new DAGFile("xxxxxx222", 101);
+        cm.putFileToCache(dfBig, job);
+        Assert.assertTrue(cm.getFileFromCache(df, job));
+        Assert.assertFalse(cm.getFileFromCache(dfBig, job));
+    }
+
+    @Test
+    public void shouldNotifyListenersAboutCachedAndEvictedFiles() {
+        Mockito.when(vmType.getCacheSize()).thenReturn((long) 200);
+        VMCacheIndex index = new VMCacheIndex();
+        cm.addListener(index);
+        DAGFile a = new DAGFile("a", 100);
+        DAGFile b = new DAGFile("b", 100);
+        DAGFile c = new DAGFile("c", 100);
+        cm.putFileToCache(a, job);
+        cm.putFileToCache(b, job);
+        Assert.assertTrue(index.getVMs(a).contains(vm));
+
+        cm.putFileToCache(c, job);
+
+        Assert.assertTrue(index.getVMs(a).isEmpty());
+        Assert.assertTrue(index.getVMs(b).contains(vm));
+        Assert.assertTrue(index.getVMs(c).contains(vm));
+    }
+
+    @Test
+    public void shouldNotCountProbingAsAccess() {
+        assertProbingIsNotAnAccess();
+    }
+}
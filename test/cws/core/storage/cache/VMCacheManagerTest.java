@@ -12,6 +12,7 @@ import cws.core.core.VMType;
 import cws.core.dag.DAGFile;
 import cws.core.dag.Task;
 import cws.core.jobs.Job;
+import cws.core.storage.StorageManagerStatistics;
 
 /**
  * Abstract tests for {@link VMCacheManager}
@@ -54,4 +55,64 @@ public abstract class VMCacheManagerTest {
         cm.putFileToCache(file, job);
         Assert.assertFalse(cm.getFileFromCache(file, job));
     }
+
+    /**
+     * Fills a cache of three files and checks that probing the oldest one doesn't keep it from being evicted next.
+     */
+    protected void assertProbingIsNotAnAccess() {
+        Mockito.when(vmType.getCacheSize()).thenReturn((long) 300);
+        StorageManagerStatistics statistics = new StorageManagerStatistics();
+        cm.setStatistics(statistics);
+        DAGFile a = new DAGFile("a", 100);
+        DAGFile b = new DAGFile("b", 100);
+        DAGFile c = new DAGFile("c", 100);
+        cm.putFileToCache(a, job);
+        cm.putFileToCache(b, job);
+        cm.putFileToCache(c, job);
+        Assert.assertTrue(cm.isCached(a, vm));
+
+        cm.putFileToCache(new DAGFile("d", 100), job);
+
+        Assert.assertFalse(cm.isCached(a, vm));
+        Assert.assertTrue(cm.isCached(b, vm));
+        Assert.assertTrue(cm.isCached(c, vm));
+        Assert.assertEquals(100, statistics.getCacheEvictedBytes());
+    }
+
+    @Test
+    public void testNothingCachedOnUnknownVM() {
+        Assert.assertFalse(cm.isCached(new DAGFile("abc.txt", 100), Mockito.mock(VM.class)));
+    }
+
+    @Test
+    public void testCacheDroppedWhenVMTerminated() {
+        Mockito.when(vmType.getCacheSize()).thenReturn((long) 1000);
+        VMCacheListener listener = Mockito.mock(VMCacheListener.class);
+        cm.addListener(listener);
+        DAGFile file = new DAGFile("abc.txt", 100);
+        cm.putFileToCache(file, job);
+
+        cm.vmTerminated(vm);
+
+        Mockito.verify(listener).vmTerminated(vm);
+        Mockito.verify(listener, Mockito.never()).fileEvicted(file, vm);
+        Assert.assertFalse(cm.getFileFromCache(file, job));
+        Assert.assertFalse(cm.isCached(file, vm));
+    }
+
+    @Test
+    public void testNothingCachedOnTerminatedVM() {
+        Mockito.when(vmType.getCacheSize()).thenReturn((long) 1000);
+        VMCacheListener listener = Mockito.mock(VMCacheListener.class);
+        cm.addListener(listener);
+        DAGFile file = new DAGFile("abc.txt", 100);
+        cm.vmTerminated(vm);
+        Mockito.when(vm.isTerminated()).thenReturn(true);
+
+        cm.putFileToCache(file, job);
+
+        Mockito.verify(listener, Mockito.never()).fileCached(file, vm);
+        Assert.assertFalse(cm.getFileFromCache(file, job));
+        Assert.assertFalse(cm.isCached(file, vm));
+    }
 }
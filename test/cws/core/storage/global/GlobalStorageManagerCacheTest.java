@@ -8,15 +8,20 @@ import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Matchers;
 import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
 import cws.core.VM;
 import cws.core.WorkflowEvent;
 import cws.core.cloudsim.CloudSimWrapper;
+import cws.core.core.VMType;
 import cws.core.dag.DAGFile;
 import cws.core.dag.Task;
 import cws.core.jobs.Job;
 import cws.core.storage.StorageManagerTest;
 import cws.core.storage.cache.FIFOCacheManager;
+import cws.core.storage.cache.LRUCacheManager;
+import cws.core.storage.cache.VMCacheIndex;
 import cws.core.storage.cache.VMCacheManager;
 
 /**
@@ -118,4 +123,34 @@ public class GlobalStorageManagerCacheTest {
         Mockito.verify(cloudsim).send(Matchers.anyInt(), Matchers.eq(100), Matchers.anyDouble(),
                 Matchers.eq(WorkflowEvent.STORAGE_ALL_AFTER_TRANSFERS_COMPLETED), Matchers.any());
     }
+
+    @Test
+    public void testReadFinishedAfterTerminationIsNotCached() {
+        VMType vmType = Mockito.mock(VMType.class);
+        Mockito.when(vmType.getCacheSize()).thenReturn((long) 10000);
+        Mockito.when(vm.getVmType()).thenReturn(vmType);
+        // the VM is terminated at 5, while its input is read
+        Mockito.when(vm.isTerminated()).thenAnswer(new Answer<Boolean>() {
+            @Override
+            public Boolean answer(InvocationOnMock invocation) {
+                return CloudSim.clock() >= 5.0;
+            }
+        });
+        LRUCacheManager lru = new LRUCacheManager(cloudsim);
+        VMCacheIndex index = new VMCacheIndex();
+        lru.addListener(index);
+        storageManager = new GlobalStorageManager(params, lru, cloudsim);
+
+        Mockito.when(task.getInputFiles()).thenReturn(files);
+        StorageManagerTest.skipEvent(100, WorkflowEvent.STORAGE_ALL_BEFORE_TRANSFERS_COMPLETED, cloudsim);
+        CloudSim.send(-1, storageManager.getId(), 0, WorkflowEvent.STORAGE_BEFORE_TASK_START, job);
+        CloudSim.send(-1, storageManager.getId(), 5.0, WorkflowEvent.VM_TERMINATED, vm);
+        // the read is cut short and finishes after the termination
+        double time = CloudSim.startSimulation();
+        Assert.assertTrue(time > 5.0 && time < sz / params.getReadSpeed());
+
+        Assert.assertFalse(lru.isCached(df, vm));
+        Assert.assertTrue(index.getVMs(df).isEmpty());
+        Assert.assertEquals(0, index.getVMCount());
+    }
 }
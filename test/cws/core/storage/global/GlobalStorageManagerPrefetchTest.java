@@ -0,0 +1,196 @@
+package cws.core.storage.global;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import cws.core.VM;
+import cws.core.WorkflowEvent;
+import cws.core.cloudsim.CloudSimWrapper;
+import cws.core.core.VMType;
+import cws.core.dag.DAGFile;
+import cws.core.dag.Task;
+import cws.core.jobs.Job;
+import cws.core.storage.StorageManagerStatistics;
+import cws.core.storage.StorageManagerTest;
+import cws.core.storage.cache.LRUCacheManager;
+
+/**
+ * Tests prefetching of {@link GlobalStorageManager} with {@link LRUCacheManager} as cache manager.
+ */
+public class GlobalStorageManagerPrefetchTest {
+    private static final long SIZE = 2460;
+
+    private CloudSimWrapper cloudsim;
+    private GlobalStorageParams params;
+    private GlobalStorageManager storageManager;
+    private VM vm;
+    private Job job;
+    private Job nextJob;
+
+    /** Time of reading one file of {@link #SIZE} bytes */
+    private double readTime;
+
+    @Before
+    public void setUp() {
+        cloudsim = Mockito.spy(new CloudSimWrapper());
+        cloudsim.init();
+        VMType vmType = Mockito.mock(VMType.class);
+        Mockito.when(vmType.getCacheSize()).thenReturn(100 * SIZE);
+        vm = Mockito.mock(VM.class);
+        Mockito.when(vm.getId()).thenReturn(100);
+        Mockito.when(vm.getVmType()).thenReturn(vmType);
+        job = createJob(vm, "a.txt");
+        nextJob = createJob(vm, "b.txt");
+        Mockito.when(vm.getNextQueuedJob()).thenReturn(nextJob);
+
+        params = new GlobalStorageParams();
+        params.setReadSpeed(123);
+        params.setWriteSpeed(321);
+        params.setLatency(20);
+        params.setPrefetchBudget(10 * SIZE);
+        storageManager = new GlobalStorageManager(params, new LRUCacheManager(cloudsim), cloudsim);
+        readTime = SIZE / params.getReadSpeed() + params.getLatency();
+        StorageManagerTest.skipEvent(100, WorkflowEvent.STORAGE_ALL_BEFORE_TRANSFERS_COMPLETED, cloudsim);
+    }
+
+    private VM createVM(int id) {
+        VMType vmType = this.vm.getVmType();
+        VM vm = Mockito.mock(VM.class);
+        Mockito.when(vm.getId()).thenReturn(id);
+        Mockito.when(vm.getVmType()).thenReturn(vmType);
+        StorageManagerTest.skipEvent(id, WorkflowEvent.STORAGE_ALL_BEFORE_TRANSFERS_COMPLETED, cloudsim);
+        return vm;
+    }
+
+    private Job createJob(VM vm, Task task) {
+        Job job = Mockito.mock(Job.class);
+        Mockito.when(job.getVM()).thenReturn(vm);
+        Mockito.when(job.getTask()).thenReturn(task);
+        return job;
+    }
+
+    private Job createJob(VM vm, String input) {
+        Job job = Mockito.mock(Job.class);
+        Mockito.when(job.getVM()).thenReturn(vm);
+        Task task = Mockito.mock(Task.class);
+        Mockito.when(job.getTask()).thenReturn(task);
+        List<DAGFile> files = new ArrayList<DAGFile>();
+        files.add(new DAGFile(input, SIZE));
+        Mockito.when(task.getInputFiles()).thenReturn(files);
+        return job;
+    }
+
+    @Test
+    public void shouldFindPrefetchedInputsInCache() {
+        CloudSim.send(-1, storageManager.getId(), 0, WorkflowEvent.STORAGE_BEFORE_TASK_START, job);
+        CloudSim.send(-1, storageManager.getId(), 1000, WorkflowEvent.STORAGE_BEFORE_TASK_START, nextJob);
+        double time = CloudSim.startSimulation();
+
+        StorageManagerStatistics statistics = storageManager.getStorageManagerStatistics();
+        assertEquals(1000, time, 0.01);
+        assertEquals(SIZE, statistics.getPrefetchedBytes());
+        assertEquals(SIZE, statistics.getCacheHitBytes());
+        assertEquals(2 * SIZE, statistics.getActualBytesRead());
+    }
+
+    @Test
+    public void shouldWaitForPrefetchInProgress() {
+        CloudSim.send(-1, storageManager.getId(), 0, WorkflowEvent.STORAGE_BEFORE_TASK_START, job);
+        CloudSim.send(-1, storageManager.getId(), readTime + 1, WorkflowEvent.STORAGE_BEFORE_TASK_START, nextJob);
+        double time = CloudSim.startSimulation();
+
+        assertEquals(2 * readTime, time, 0.01);
+        Mockito.verify(cloudsim, Mockito.times(2)).send(Mockito.anyInt(), Mockito.eq(100), Mockito.anyDouble(),
+                Mockito.eq(WorkflowEvent.STORAGE_ALL_BEFORE_TRANSFERS_COMPLETED), Mockito.any());
+        assertEquals(2, storageManager.getStorageManagerStatistics().getActualFilesRead());
+    }
+
+    @Test
+    public void shouldNotPrefetchOverBudget() {
+        params.setPrefetchBudget(SIZE - 1);
+        CloudSim.send(-1, storageManager.getId(), 0, WorkflowEvent.STORAGE_BEFORE_TASK_START, job);
+        CloudSim.send(-1, storageManager.getId(), 1000, WorkflowEvent.STORAGE_BEFORE_TASK_START, nextJob);
+        double time = CloudSim.startSimulation();
+
+        assertEquals(1000 + readTime, time, 0.01);
+        assertEquals(0, storageManager.getStorageManagerStatistics().getPrefetchedBytes());
+    }
+
+    @Test
+    public void shouldNotPrefetchWhenDisabled() {
+        params.setPrefetchBudget(0);
+        CloudSim.send(-1, storageManager.getId(), 0, WorkflowEvent.STORAGE_BEFORE_TASK_START, job);
+        CloudSim.startSimulation();
+
+        assertEquals(0, storageManager.getStorageManagerStatistics().getPrefetchedBytes());
+        assertEquals(SIZE, storageManager.getStorageManagerStatistics().getActualBytesRead());
+    }
+
+    @Test
+    public void shouldPrefetchInputsOfPlannedTask() {
+        Mockito.when(vm.getNextQueuedJob()).thenReturn(null);
+        Task next = nextJob.getTask();
+        Mockito.when(vm.getNextPlannedTask()).thenReturn(next);
+        CloudSim.send(-1, storageManager.getId(), 0, WorkflowEvent.STORAGE_BEFORE_TASK_START, job);
+        CloudSim.send(-1, storageManager.getId(), 1000, WorkflowEvent.STORAGE_BEFORE_TASK_START, nextJob);
+        double time = CloudSim.startSimulation();
+
+        assertEquals(1000, time, 0.01);
+        assertEquals(SIZE, storageManager.getStorageManagerStatistics().getPrefetchedBytes());
+    }
+
+    @Test
+    public void shouldNotPrefetchOutputsOfUnfinishedParents() {
+        Task next = nextJob.getTask();
+        List<DAGFile> inputs = next.getInputFiles();
+        Task parent = Mockito.mock(Task.class);
+        Mockito.when(parent.getOutputFiles()).thenReturn(inputs);
+        List<Task> parents = new ArrayList<Task>();
+        parents.add(parent);
+        Mockito.when(next.getParents()).thenReturn(parents);
+        CloudSim.send(-1, storageManager.getId(), 0, WorkflowEvent.STORAGE_BEFORE_TASK_START, job);
+        CloudSim.startSimulation();
+
+        assertEquals(0, storageManager.getStorageManagerStatistics().getPrefetchedBytes());
+    }
+
+    @Test
+    public void shouldReturnBudgetOfTaskStartedOnAnotherVM() {
+        params.setPrefetchBudget(SIZE);
+        VM otherVM = createVM(101);
+        Job laterJob = createJob(vm, "c.txt");
+        Job laterNextJob = createJob(vm, "d.txt");
+        Mockito.when(vm.getNextQueuedJob()).thenReturn(nextJob, laterNextJob);
+        CloudSim.send(-1, storageManager.getId(), 0, WorkflowEvent.STORAGE_BEFORE_TASK_START, job);
+        // the task prefetched for vm starts on otherVM
+        CloudSim.send(-1, storageManager.getId(), 1000, WorkflowEvent.STORAGE_BEFORE_TASK_START,
+                createJob(otherVM, nextJob.getTask()));
+        CloudSim.send(-1, storageManager.getId(), 2000, WorkflowEvent.STORAGE_BEFORE_TASK_START, laterJob);
+        CloudSim.startSimulation();
+
+        // the whole budget of vm is available again
+        assertEquals(2 * SIZE, storageManager.getStorageManagerStatistics().getPrefetchedBytes());
+    }
+
+    @Test
+    public void shouldReturnBudgetOfTerminatedVM() {
+        VM otherVM = createVM(101);
+        Job requeuedJob = createJob(otherVM, nextJob.getTask());
+        Mockito.when(otherVM.getNextQueuedJob()).thenReturn(requeuedJob);
+        CloudSim.send(-1, storageManager.getId(), 0, WorkflowEvent.STORAGE_BEFORE_TASK_START, job);
+        CloudSim.send(-1, storageManager.getId(), 500, WorkflowEvent.VM_TERMINATED, vm);
+        // the task prefetched for the terminated vm is queued on otherVM and prefetched again for it
+        CloudSim.send(-1, storageManager.getId(), 1000, WorkflowEvent.STORAGE_BEFORE_TASK_START,
+                createJob(otherVM, "c.txt"));
+        CloudSim.startSimulation();
+
+        assertEquals(2 * SIZE, storageManager.getStorageManagerStatistics().getPrefetchedBytes());
+    }
+}
@@ -19,6 +19,8 @@ import org.mockito.stubbing.Answer;
 
 import cws.core.Cloud;
 import cws.core.WorkflowEvent;
+import cws.core.cloudsim.ObjectPool;
+import cws.core.cloudsim.Recycler;
 import cws.core.dag.DAGFile;
 import cws.core.dag.Task;
 import cws.core.jobs.Job;
@@ -92,6 +94,102 @@ public class GlobalStorageManagerTest extends StorageManagerTest {
         assertEquals(2 * (sz / params.getWriteSpeed() + params.getLatency()), time, 0.01);
     }
 
+    @Test
+    public void testTransfersAreReusedWithinCell() {
+        Recycler recycler = new Recycler();
+        cloudsim.setRecycler(recycler);
+        List<DAGFile> files = new ArrayList<DAGFile>();
+        long sz = 2442;
+        files.add(new DAGFile("abc.txt", sz));
+        files.add(new DAGFile("abc2.txt", sz));
+        files.add(new DAGFile("abc3.txt", sz));
+        files.add(new DAGFile("abc4.txt", sz));
+        when(task.getOutputFiles()).thenReturn(files);
+        skipEvent(100, WorkflowEvent.STORAGE_ALL_AFTER_TRANSFERS_COMPLETED, cloudsim);
+        CloudSim.send(-1, storageManager.getId(), 0, WorkflowEvent.STORAGE_AFTER_TASK_COMPLETED, job);
+        double time = CloudSim.startSimulation();
+
+        assertEquals(4 * (sz / params.getWriteSpeed() + params.getLatency()), time, 0.01);
+        // the writes run one after another, the next one starts before the finished one is released, so two
+        // transfers serve all four writes
+        ObjectPool<GlobalStorageTransfer> pool = cloudsim.getPool(GlobalStorageTransfer.class);
+        assertEquals(2, pool.getFreeCount());
+        recycler.endCell();
+        assertEquals(2, pool.getFreeCount());
+    }
+
+    @Test
+    public void testWritesLeaveTaskOutputFilesIntact() {
+        List<DAGFile> files = new ArrayList<DAGFile>();
+        DAGFile first = new DAGFile("abc.txt", 2442);
+        DAGFile second = new DAGFile("abc2.txt", 2442);
+        files.add(first);
+        files.add(second);
+        when(task.getOutputFiles()).thenReturn(files);
+        skipEvent(100, WorkflowEvent.STORAGE_ALL_AFTER_TRANSFERS_COMPLETED, cloudsim);
+        CloudSim.send(-1, storageManager.getId(), 0, WorkflowEvent.STORAGE_AFTER_TASK_COMPLETED, job);
+        CloudSim.startSimulation();
+
+        // the task is run again by the next simulation with the same DAGs, or by a retried job
+        assertEquals(2, files.size());
+        assertEquals(first, files.get(0));
+        assertEquals(second, files.get(1));
+    }
+
+    @Test
+    public void testTaskRunAgainWritesAllOutputFiles() {
+        List<DAGFile> files = new ArrayList<DAGFile>();
+        long sz = 2442;
+        files.add(new DAGFile("abc.txt", sz));
+        files.add(new DAGFile("abc2.txt", sz));
+        when(task.getOutputFiles()).thenReturn(files);
+        skipEvent(100, WorkflowEvent.STORAGE_ALL_AFTER_TRANSFERS_COMPLETED, cloudsim);
+        CloudSim.send(-1, storageManager.getId(), 0, WorkflowEvent.STORAGE_AFTER_TASK_COMPLETED, job);
+        // e.g. a retried job
+        CloudSim.send(-1, storageManager.getId(), 1000, WorkflowEvent.STORAGE_AFTER_TASK_COMPLETED, job);
+        double time = CloudSim.startSimulation();
+
+        assertEquals(1000 + 2 * (sz / params.getWriteSpeed() + params.getLatency()), time, 0.01);
+    }
+
+    @Test
+    public void testGlobalStorageTwoFilesParallelWriteTransferTime() {
+        params.setTransferParallelism(2);
+        List<DAGFile> files = new ArrayList<DAGFile>();
+        long sz = 2442;
+        files.add(new DAGFile("abc.txt", sz));
+        files.add(new DAGFile("abc2.txt", sz));
+        when(task.getOutputFiles()).thenReturn(files);
+        skipEvent(100, WorkflowEvent.STORAGE_ALL_AFTER_TRANSFERS_COMPLETED, cloudsim);
+        CloudSim.send(-1, storageManager.getId(), 0, WorkflowEvent.STORAGE_AFTER_TASK_COMPLETED, job);
+        double time = CloudSim.startSimulation();
+
+        verify(cloudsim).send(Matchers.anyInt(), Matchers.eq(100), Matchers.anyDouble(),
+                Matchers.eq(WorkflowEvent.STORAGE_ALL_AFTER_TRANSFERS_COMPLETED), Matchers.any());
+        // both files share the bandwidth, but the latency is paid once
+        assertEquals(2 * sz / params.getWriteSpeed() + params.getLatency(), time, 0.01);
+    }
+
+    @Test
+    public void testGlobalStorageThreeFilesParallelReadTransferTime() {
+        params.setTransferParallelism(2);
+        List<DAGFile> files = new ArrayList<DAGFile>();
+        long sz = 2442;
+        files.add(new DAGFile("abc.txt", sz));
+        files.add(new DAGFile("abc2.txt", sz));
+        files.add(new DAGFile("abc3.txt", sz));
+        when(task.getInputFiles()).thenReturn(files);
+        skipEvent(100, WorkflowEvent.STORAGE_ALL_BEFORE_TRANSFERS_COMPLETED, cloudsim);
+        CloudSim.send(-1, storageManager.getId(), 0, WorkflowEvent.STORAGE_BEFORE_TASK_START, job);
+        double time = CloudSim.startSimulation();
+
+        verify(cloudsim).send(Matchers.anyInt(), Matchers.eq(100), Matchers.anyDouble(),
+                Matchers.eq(WorkflowEvent.STORAGE_ALL_BEFORE_TRANSFERS_COMPLETED), Matchers.any());
+        // two files at a time, then the third one alone
+        assertEquals(3 * sz / params.getReadSpeed() + 2 * params.getLatency(), time, 0.01);
+        assertEquals(3 * sz, storageManager.getStorageManagerStatistics().getActualBytesRead());
+    }
+
     @Test
     public void testGlobalStorageSimpleCongestionOneReplica() {
         params.setNumReplicas(1);
@@ -190,6 +288,32 @@ public class GlobalStorageManagerTest extends StorageManagerTest {
         assertEquals(time, 1744, 1.0);
     }
 
+    @Test
+    public void testSameFileReadOnceForJobsOnTheSameVM() {
+        params.setNumReplicas(1);
+        long size = 2442;
+        Job job2 = Mockito.mock(Job.class);
+        when(job2.getVM()).thenReturn(vm);
+        Task task2 = Mockito.mock(Task.class);
+        when(job2.getTask()).thenReturn(task2);
+        List<DAGFile> files2 = new ArrayList<DAGFile>();
+        files2.add(new DAGFile("abc.txt", size));
+        when(task2.getInputFiles()).thenReturn(files2);
+
+        List<DAGFile> files = new ArrayList<DAGFile>();
+        files.add(new DAGFile("abc.txt", size));
+        when(task.getInputFiles()).thenReturn(files);
+        skipEvent(100, WorkflowEvent.STORAGE_ALL_BEFORE_TRANSFERS_COMPLETED, cloudsim);
+        CloudSim.send(-1, storageManager.getId(), 0, WorkflowEvent.STORAGE_BEFORE_TASK_START, job);
+        CloudSim.send(-1, storageManager.getId(), 0, WorkflowEvent.STORAGE_BEFORE_TASK_START, job2);
+        double time = CloudSim.startSimulation();
+
+        verify(cloudsim, Mockito.times(2)).send(Matchers.anyInt(), Matchers.eq(100), Matchers.anyDouble(),
+                Matchers.eq(WorkflowEvent.STORAGE_ALL_BEFORE_TRANSFERS_COMPLETED), Matchers.any());
+        assertEquals(size / params.getReadSpeed() + params.getLatency(), time, 0.01);
+        assertEquals(size, storageManager.getStorageManagerStatistics().getActualBytesRead());
+    }
+
     @Test
     public void testTerminated() {
         long size = 1234567;
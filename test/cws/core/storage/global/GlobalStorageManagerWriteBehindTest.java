@@ -0,0 +1,206 @@
+package cws.core.storage.global;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Matchers;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import cws.core.Cloud;
+import cws.core.VM;
+import cws.core.VMFactory;
+import cws.core.WorkflowEvent;
+import cws.core.cloudsim.CWSSimEntity;
+import cws.core.cloudsim.CloudSimWrapper;
+import cws.core.core.VMType;
+import cws.core.core.VMTypeBuilder;
+import cws.core.dag.DAGFile;
+import cws.core.dag.Task;
+import cws.core.jobs.Job;
+import cws.core.storage.StorageManagerTest;
+import cws.core.storage.cache.LRUCacheManager;
+
+/**
+ * Tests writing behind of {@link GlobalStorageManager} with {@link LRUCacheManager} as cache manager.
+ */
+public class GlobalStorageManagerWriteBehindTest {
+    private static final long SIZE = 2460;
+
+    private CloudSimWrapper cloudsim;
+    private Cloud cloud;
+    private GlobalStorageParams params;
+    private GlobalStorageManager storageManager;
+    private VM vm;
+    private VM otherVM;
+    private DAGFile output;
+
+    /** Times at which the producer's VM was notified that the outputs are transferred */
+    private List<Double> notifyTimes;
+
+    private double readTime;
+    private double writeTime;
+
+    @Before
+    public void setUp() {
+        cloudsim = Mockito.spy(new CloudSimWrapper());
+        cloudsim.init();
+        cloud = new Cloud(cloudsim);
+        vm = createVM(100);
+        otherVM = createVM(101);
+        output = new DAGFile("a.txt", SIZE);
+
+        params = new GlobalStorageParams();
+        params.setReadSpeed(123);
+        params.setWriteSpeed(321);
+        params.setLatency(20);
+        params.setWriteBehindBuffer(10 * SIZE);
+        storageManager = new GlobalStorageManager(params, new LRUCacheManager(cloudsim), cloudsim);
+        readTime = SIZE / params.getReadSpeed() + params.getLatency();
+        writeTime = SIZE / params.getWriteSpeed() + params.getLatency();
+
+        notifyTimes = new ArrayList<Double>();
+        Mockito.doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                notifyTimes.add(CloudSim.clock());
+                return null;
+            }
+        }).when(cloudsim).send(Matchers.anyInt(), Matchers.eq(100), Matchers.anyDouble(),
+                Matchers.eq(WorkflowEvent.STORAGE_ALL_AFTER_TRANSFERS_COMPLETED), Matchers.any());
+        StorageManagerTest.skipEvent(100, WorkflowEvent.STORAGE_ALL_BEFORE_TRANSFERS_COMPLETED, cloudsim);
+        StorageManagerTest.skipEvent(101, WorkflowEvent.STORAGE_ALL_BEFORE_TRANSFERS_COMPLETED, cloudsim);
+    }
+
+    private VM createVM(int id) {
+        VMType vmType = Mockito.mock(VMType.class);
+        Mockito.when(vmType.getCacheSize()).thenReturn(100 * SIZE);
+        VM vm = Mockito.mock(VM.class);
+        Mockito.when(vm.getId()).thenReturn(id);
+        Mockito.when(vm.getVmType()).thenReturn(vmType);
+        Mockito.when(vm.getCloud()).thenReturn(cloud.getId());
+        return vm;
+    }
+
+    private Job createJob(VM vm, List<DAGFile> inputs, List<DAGFile> outputs) {
+        Job job = Mockito.mock(Job.class);
+        Mockito.when(job.getVM()).thenReturn(vm);
+        Task task = Mockito.mock(Task.class);
+        Mockito.when(job.getTask()).thenReturn(task);
+        Mockito.when(task.getInputFiles()).thenReturn(inputs);
+        Mockito.when(task.getOutputFiles()).thenReturn(outputs);
+        return job;
+    }
+
+    private Job createProducer() {
+        List<DAGFile> outputs = new ArrayList<DAGFile>();
+        outputs.add(output);
+        return createJob(vm, new ArrayList<DAGFile>(), outputs);
+    }
+
+    private Job createConsumer(VM vm) {
+        List<DAGFile> inputs = new ArrayList<DAGFile>();
+        inputs.add(output);
+        return createJob(vm, inputs, new ArrayList<DAGFile>());
+    }
+
+    @Test
+    public void shouldNotifyBeforeUpload() {
+        CloudSim.send(-1, storageManager.getId(), 0, WorkflowEvent.STORAGE_AFTER_TASK_COMPLETED, createProducer());
+        double time = CloudSim.startSimulation();
+
+        assertEquals(1, notifyTimes.size());
+        assertEquals(0, notifyTimes.get(0), 0.01);
+        assertEquals(writeTime, time, 0.01);
+        assertEquals(SIZE, storageManager.getStorageManagerStatistics().getWrittenBehindBytes());
+    }
+
+    @Test
+    public void shouldFindStagedOutputsInCacheOnSameVM() {
+        CloudSim.send(-1, storageManager.getId(), 0, WorkflowEvent.STORAGE_AFTER_TASK_COMPLETED, createProducer());
+        CloudSim.send(-1, storageManager.getId(), 1, WorkflowEvent.STORAGE_BEFORE_TASK_START, createConsumer(vm));
+        CloudSim.startSimulation();
+
+        assertEquals(SIZE, storageManager.getStorageManagerStatistics().getCacheHitBytes());
+        assertEquals(0, storageManager.getStorageManagerStatistics().getActualBytesRead());
+    }
+
+    @Test
+    public void shouldReadOnOtherVMAfterUpload() {
+        CloudSim.send(-1, storageManager.getId(), 0, WorkflowEvent.STORAGE_AFTER_TASK_COMPLETED, createProducer());
+        CloudSim.send(-1, storageManager.getId(), 1, WorkflowEvent.STORAGE_BEFORE_TASK_START,
+                createConsumer(otherVM));
+        double time = CloudSim.startSimulation();
+
+        assertEquals(writeTime + readTime, time, 0.01);
+        assertEquals(SIZE, storageManager.getStorageManagerStatistics().getActualBytesRead());
+        Mockito.verify(cloudsim).send(Matchers.anyInt(), Matchers.eq(101), Matchers.anyDouble(),
+                Matchers.eq(WorkflowEvent.STORAGE_ALL_BEFORE_TRANSFERS_COMPLETED), Matchers.any());
+    }
+
+    @Test
+    public void shouldWaitForUploadIfBufferIsFull() {
+        params.setWriteBehindBuffer(SIZE - 1);
+        CloudSim.send(-1, storageManager.getId(), 0, WorkflowEvent.STORAGE_AFTER_TASK_COMPLETED, createProducer());
+        CloudSim.startSimulation();
+
+        assertEquals(1, notifyTimes.size());
+        assertEquals(writeTime, notifyTimes.get(0), 0.01);
+        assertEquals(0, storageManager.getStorageManagerStatistics().getWrittenBehindBytes());
+    }
+
+    @Test
+    public void shouldFinishUploadOfVMTerminatedMeanwhile() {
+        Mockito.when(vm.isTerminated()).thenAnswer(new Answer<Boolean>() {
+            @Override
+            public Boolean answer(InvocationOnMock invocation) throws Throwable {
+                return CloudSim.clock() >= 1;
+            }
+        });
+        CloudSim.send(-1, storageManager.getId(), 0, WorkflowEvent.STORAGE_AFTER_TASK_COMPLETED, createProducer());
+        double time = CloudSim.startSimulation();
+
+        assertEquals(writeTime, time, 0.01);
+        assertEquals(SIZE, storageManager.getStorageManagerStatistics().getWrittenBehindBytes());
+    }
+
+    @Test
+    public void shouldNotWriteBehindOnTerminatedVM() {
+        Mockito.when(vm.isTerminated()).thenReturn(true);
+        CloudSim.send(-1, storageManager.getId(), 0, WorkflowEvent.STORAGE_AFTER_TASK_COMPLETED, createProducer());
+        CloudSim.startSimulation();
+
+        // the write is cancelled with the VM, so the VM is not kept
+        assertEquals(1, notifyTimes.size());
+        assertEquals(params.getLatency(), notifyTimes.get(0), 0.01);
+        assertEquals(0, storageManager.getStorageManagerStatistics().getWrittenBehindBytes());
+    }
+
+    @Test
+    public void shouldKeepTerminatedVMUntilBufferIsDrained() {
+        final VM cloudVM = VMFactory.createVM(VMTypeBuilder.newBuilder().mips(1).cores(1).price(1.0).build(),
+                cloudsim);
+        CWSSimEntity tenant = new CWSSimEntity("Tenant", cloudsim) {
+        };
+        StorageManagerTest.skipEvent(cloudVM.getId(), WorkflowEvent.STORAGE_ALL_AFTER_TRANSFERS_COMPLETED, cloudsim);
+        List<DAGFile> outputs = new ArrayList<DAGFile>();
+        outputs.add(output);
+        Job producer = createJob(cloudVM, new ArrayList<DAGFile>(), outputs);
+
+        cloudsim.send(tenant.getId(), cloud.getId(), 0.0, WorkflowEvent.VM_LAUNCH, cloudVM);
+        CloudSim.send(-1, storageManager.getId(), 1, WorkflowEvent.STORAGE_AFTER_TASK_COMPLETED, producer);
+        // deprovisioned at 12, with the upload still running
+        cloudsim.send(tenant.getId(), cloud.getId(), 2.0, WorkflowEvent.VM_TERMINATE, cloudVM);
+        CloudSim.startSimulation();
+
+        assertEquals(1 + writeTime, cloudVM.getTerminateTime(), 0.01);
+        assertEquals(1 + writeTime, cloudVM.getRuntime(), 0.01);
+        assertEquals(SIZE, storageManager.getStorageManagerStatistics().getWrittenBehindBytes());
+    }
+}
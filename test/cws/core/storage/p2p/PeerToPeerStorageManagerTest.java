@@ -0,0 +1,251 @@
+package cws.core.storage.p2p;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Matchers;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import cws.core.Cloud;
+import cws.core.VM;
+import cws.core.WorkflowEvent;
+import cws.core.dag.DAGFile;
+import cws.core.dag.Task;
+import cws.core.jobs.Job;
+import cws.core.storage.StorageManagerStatistics;
+import cws.core.storage.StorageManagerTest;
+import cws.core.storage.cache.VMCacheManager;
+import cws.core.storage.global.GlobalStorageParams;
+
+/**
+ * Tests {@link PeerToPeerStorageManager} with "always empty" mocked cache.
+ */
+public class PeerToPeerStorageManagerTest extends StorageManagerTest {
+    private GlobalStorageParams params;
+    private PeerToPeerStorageParams peerParams;
+    private VMCacheManager cacheManager;
+    private VM vm2;
+    private Job job2;
+    private Task task2;
+
+    @Before
+    public void setUpPeerToPeerStorageManagerTest() {
+        cacheManager = mock(VMCacheManager.class);
+        when(cacheManager.getFileFromCache(Matchers.any(DAGFile.class), Matchers.any(Job.class))).thenReturn(false);
+        params = new GlobalStorageParams();
+        params.setReadSpeed(123);
+        params.setWriteSpeed(321);
+        params.setLatency(20);
+        params.setNumReplicas(1);
+        params.setChunkTransferTime(1);
+        peerParams = new PeerToPeerStorageParams();
+        storageManager = new PeerToPeerStorageManager(params, peerParams, cacheManager, cloudsim);
+
+        Cloud cloud = new Cloud(cloudsim);
+        when(vm.getCloud()).thenReturn(cloud.getId());
+        vm2 = mock(VM.class);
+        when(vm2.getId()).thenReturn(101);
+        when(vm2.getCloud()).thenReturn(cloud.getId());
+        job2 = mock(Job.class);
+        when(job2.getVM()).thenReturn(vm2);
+        task2 = mock(Task.class);
+        when(job2.getTask()).thenReturn(task2);
+    }
+
+    /**
+     * The job on {@link #vm} writes the file, then the job on {@link #vm2} reads it at 1000.
+     * @return simulation time
+     */
+    private double runWriteThenRead(long size) {
+        return runWriteThenRead(new DAGFile("abc.txt", size), 1000);
+    }
+
+    /**
+     * The job on {@link #vm} writes the file, then the job on {@link #vm2} reads it.
+     * @return simulation time
+     */
+    private double runWriteThenRead(DAGFile file, double readTime) {
+        List<DAGFile> outputs = new ArrayList<DAGFile>();
+        outputs.add(file);
+        List<DAGFile> inputs = new ArrayList<DAGFile>();
+        inputs.add(file);
+        when(task.getOutputFiles()).thenReturn(outputs);
+        when(task2.getInputFiles()).thenReturn(inputs);
+        skipEvent(100, WorkflowEvent.STORAGE_ALL_AFTER_TRANSFERS_COMPLETED, cloudsim);
+        skipEvent(101, WorkflowEvent.STORAGE_ALL_BEFORE_TRANSFERS_COMPLETED, cloudsim);
+        CloudSim.send(-1, storageManager.getId(), 0, WorkflowEvent.STORAGE_AFTER_TASK_COMPLETED, job);
+        CloudSim.send(-1, storageManager.getId(), readTime, WorkflowEvent.STORAGE_BEFORE_TASK_START, job2);
+        double time = CloudSim.startSimulation();
+
+        Mockito.verify(cloudsim).send(Matchers.anyInt(), Matchers.eq(101), Matchers.anyDouble(),
+                Matchers.eq(WorkflowEvent.STORAGE_ALL_BEFORE_TRANSFERS_COMPLETED), Matchers.any());
+        return time;
+    }
+
+    @Test
+    public void testFileOfRunningProducerIsReadFromIt() {
+        long size = 2442;
+        when(vm.isTerminated()).thenReturn(false);
+        when(cacheManager.isCached(Matchers.any(DAGFile.class), Matchers.eq(vm))).thenReturn(true);
+        double time = runWriteThenRead(size);
+
+        StorageManagerStatistics statistics = storageManager.getStorageManagerStatistics();
+        assertEquals(size, statistics.getPeerBytesRead());
+        assertEquals(0, statistics.getActualBytesRead());
+        // much faster than reading from the global storage
+        assertEquals(1000, time, size / params.getReadSpeed());
+    }
+
+    @Test
+    public void testJobDoesNotWaitForGlobalStorageWrite() {
+        final List<Double> notifyTimes = new ArrayList<Double>();
+        Mockito.doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                notifyTimes.add(CloudSim.clock());
+                return null;
+            }
+        }).when(cloudsim).send(Matchers.anyInt(), Matchers.eq(100), Matchers.anyDouble(),
+                Matchers.eq(WorkflowEvent.STORAGE_ALL_AFTER_TRANSFERS_COMPLETED), Matchers.any());
+        long size = 2442;
+        List<DAGFile> outputs = new ArrayList<DAGFile>();
+        outputs.add(new DAGFile("abc.txt", size));
+        when(task.getOutputFiles()).thenReturn(outputs);
+        CloudSim.send(-1, storageManager.getId(), 0, WorkflowEvent.STORAGE_AFTER_TASK_COMPLETED, job);
+        double time = CloudSim.startSimulation();
+
+        assertEquals(1, notifyTimes.size());
+        assertEquals(0.0, notifyTimes.get(0), 0.01);
+        // the file is still written to the global storage
+        assertEquals(size / params.getWriteSpeed() + params.getLatency(), time, 0.01);
+    }
+
+    @Test
+    public void testFileBeingUploadedIsReadFromProducer() {
+        long size = 2442;
+        when(vm.isTerminated()).thenReturn(false);
+        runWriteThenRead(new DAGFile("abc.txt", size), 1);
+
+        assertEquals(size, storageManager.getStorageManagerStatistics().getPeerBytesRead());
+        assertEquals(0, storageManager.getStorageManagerStatistics().getActualBytesRead());
+    }
+
+    @Test
+    public void testFileEvictedByProducerIsReadFromGlobalStorage() {
+        long size = 2442;
+        when(vm.isTerminated()).thenReturn(false);
+        when(cacheManager.isCached(Matchers.any(DAGFile.class), Matchers.eq(vm))).thenReturn(false);
+        runWriteThenRead(size);
+
+        assertEquals(0, storageManager.getStorageManagerStatistics().getPeerBytesRead());
+        assertEquals(size, storageManager.getStorageManagerStatistics().getActualBytesRead());
+    }
+
+    @Test
+    public void testProducerIsForgottenWhenTerminated() {
+        long size = 2442;
+        when(vm.isTerminated()).thenReturn(false);
+        when(cacheManager.isCached(Matchers.any(DAGFile.class), Matchers.eq(vm))).thenReturn(true);
+        CloudSim.send(-1, storageManager.getId(), 500, WorkflowEvent.VM_TERMINATED, vm);
+        runWriteThenRead(size);
+
+        assertEquals(0, storageManager.getStorageManagerStatistics().getPeerBytesRead());
+        assertEquals(size, storageManager.getStorageManagerStatistics().getActualBytesRead());
+    }
+
+    @Test
+    public void testFileOfTerminatedProducerIsReadFromGlobalStorage() {
+        long size = 2442;
+        when(vm.isTerminated()).thenReturn(true);
+        double time = runWriteThenRead(size);
+
+        StorageManagerStatistics statistics = storageManager.getStorageManagerStatistics();
+        assertEquals(0, statistics.getPeerBytesRead());
+        assertEquals(size, statistics.getActualBytesRead());
+        assertEquals(1000 + size / params.getReadSpeed() + params.getLatency(), time, 0.01);
+    }
+
+    @Test
+    public void testFileProducedOnTheSameVMIsReadFromGlobalStorage() {
+        long size = 2442;
+        when(vm.isTerminated()).thenReturn(false);
+        when(job2.getVM()).thenReturn(vm);
+        DAGFile file = new DAGFile("abc.txt", size);
+        List<DAGFile> outputs = new ArrayList<DAGFile>();
+        outputs.add(file);
+        List<DAGFile> inputs = new ArrayList<DAGFile>();
+        inputs.add(file);
+        when(task.getOutputFiles()).thenReturn(outputs);
+        when(task2.getInputFiles()).thenReturn(inputs);
+        skipEvent(100, WorkflowEvent.STORAGE_ALL_AFTER_TRANSFERS_COMPLETED, cloudsim);
+        skipEvent(100, WorkflowEvent.STORAGE_ALL_BEFORE_TRANSFERS_COMPLETED, cloudsim);
+        CloudSim.send(-1, storageManager.getId(), 0, WorkflowEvent.STORAGE_AFTER_TASK_COMPLETED, job);
+        CloudSim.send(-1, storageManager.getId(), 1000, WorkflowEvent.STORAGE_BEFORE_TASK_START, job2);
+        CloudSim.startSimulation();
+
+        assertEquals(0, storageManager.getStorageManagerStatistics().getPeerBytesRead());
+        assertEquals(size, storageManager.getStorageManagerStatistics().getActualBytesRead());
+    }
+
+    /**
+     * The job on {@link #vm} writes a file, the job on {@link #vm2} starts reading it from {@link #vm} at 1000 and the
+     * given VM is terminated at 1005, while the VM-to-VM transfer takes about 24 seconds.
+     * @return times at which the job on {@link #vm2} was notified that its inputs are in place
+     */
+    private List<Double> runPeerReadTerminatedAt1005(VM terminated, DAGFile file) {
+        final List<Double> notifyTimes = new ArrayList<Double>();
+        Mockito.doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                notifyTimes.add(CloudSim.clock());
+                return null;
+            }
+        }).when(cloudsim).send(Matchers.anyInt(), Matchers.eq(101), Matchers.anyDouble(),
+                Matchers.eq(WorkflowEvent.STORAGE_ALL_BEFORE_TRANSFERS_COMPLETED), Matchers.any());
+        peerParams.setPortBandwidth(0.08);
+        when(vm.isTerminated()).thenReturn(false);
+        when(cacheManager.isCached(Matchers.any(DAGFile.class), Matchers.eq(vm))).thenReturn(true);
+        List<DAGFile> files = new ArrayList<DAGFile>();
+        files.add(file);
+        when(task.getOutputFiles()).thenReturn(files);
+        when(task2.getInputFiles()).thenReturn(files);
+        skipEvent(100, WorkflowEvent.STORAGE_ALL_AFTER_TRANSFERS_COMPLETED, cloudsim);
+        CloudSim.send(-1, storageManager.getId(), 0, WorkflowEvent.STORAGE_AFTER_TASK_COMPLETED, job);
+        CloudSim.send(-1, storageManager.getId(), 1000, WorkflowEvent.STORAGE_BEFORE_TASK_START, job2);
+        CloudSim.send(-1, storageManager.getId(), 1005, WorkflowEvent.VM_TERMINATED, terminated);
+        CloudSim.startSimulation();
+        return notifyTimes;
+    }
+
+    @Test
+    public void testPeerReadFromTerminatedProducerIsReadFromGlobalStorage() {
+        long size = 244200;
+        List<Double> notifyTimes = runPeerReadTerminatedAt1005(vm, new DAGFile("abc.txt", size));
+
+        StorageManagerStatistics statistics = storageManager.getStorageManagerStatistics();
+        assertEquals(0, statistics.getPeerBytesRead());
+        assertEquals(size, statistics.getActualBytesRead());
+        assertEquals(1, notifyTimes.size());
+        assertEquals(1005 + size / params.getReadSpeed() + params.getLatency(), notifyTimes.get(0), 1.0);
+    }
+
+    @Test
+    public void testPeerReadToTerminatedVMIsCancelled() {
+        long size = 244200;
+        List<Double> notifyTimes = runPeerReadTerminatedAt1005(vm2, new DAGFile("abc.txt", size));
+
+        StorageManagerStatistics statistics = storageManager.getStorageManagerStatistics();
+        assertEquals(0, statistics.getPeerBytesRead());
+        assertEquals(0, statistics.getActualBytesRead());
+        assertEquals(0, notifyTimes.size());
+    }
+}
@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
 
+import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -52,6 +53,45 @@ public class TransferManagerTest {
         }
     }
 
+    /**
+     * Starts two transfers at once and cancels the second one at the given time.
+     */
+    private class CancellingDriver extends CWSSimEntity {
+        private final TransferManager tm;
+        private final Transfer kept;
+        private final Transfer cancelled;
+        private final double cancelTime;
+        private final List<Transfer> completed = new ArrayList<Transfer>();
+        private double completionTime;
+
+        public CancellingDriver(Port source, Link link, long size, double cancelTime, CloudSimWrapper cloudsim) {
+            super("CancellingDriver", cloudsim);
+            this.tm = new TransferManager(cloudsim);
+            this.kept = new Transfer(source, new Port(1000), link, size, getId(), cloudsim);
+            this.cancelled = new Transfer(source, new Port(1000), link, size, getId(), cloudsim);
+            this.cancelTime = cancelTime;
+        }
+
+        @Override
+        public void startEntity() {
+            getCloudsim().send(getId(), tm.getId(), 0.0, WorkflowEvent.NEW_TRANSFER, kept);
+            getCloudsim().send(getId(), tm.getId(), 0.0, WorkflowEvent.NEW_TRANSFER, cancelled);
+            getCloudsim().send(getId(), tm.getId(), cancelTime, WorkflowEvent.CANCEL_TRANSFER, cancelled);
+        }
+
+        @Override
+        public void processEvent(CWSSimEvent ev) {
+            if (ev.getTag() == WorkflowEvent.TRANSFER_COMPLETE) {
+                completed.add((Transfer) ev.getData());
+                completionTime = getCloudsim().clock();
+            }
+        }
+
+        @Override
+        public void shutdownEntity() {
+        }
+    }
+
     private CloudSimWrapper cloudsim;
 
     @Before
@@ -84,4 +124,27 @@ public class TransferManagerTest {
 
         cloudsim.startSimulation();
     }
+
+    @Test
+    public void testCancelledTransferFreesBandwidth() {
+        // the transfers share 1MB/s of the source port, the kept one has the whole port after 4 seconds
+        CancellingDriver td = new CancellingDriver(new Port(8), new Link(1000, 0.0), 10000000, 4.0, cloudsim);
+
+        cloudsim.startSimulation();
+
+        Assert.assertEquals(1, td.completed.size());
+        Assert.assertSame(td.kept, td.completed.get(0));
+        // 2MB in the first 4 seconds, the rest at 1MB/s, plus packet overhead
+        Assert.assertEquals(12.0, td.completionTime, 0.5);
+    }
+
+    @Test
+    public void testTransferCancelledDuringHandshakeNeverCompletes() {
+        CancellingDriver td = new CancellingDriver(new Port(8), new Link(1000, 1000.0), 10000000, 0.5, cloudsim);
+
+        cloudsim.startSimulation();
+
+        Assert.assertEquals(1, td.completed.size());
+        Assert.assertSame(td.kept, td.completed.get(0));
+    }
 }